@@ -6,6 +6,7 @@
 
 package suncertify;
 
+import suncertify.db.DatabaseOptions;
 import suncertify.presentation.ConfigurationPresenter;
 import suncertify.presentation.ConfigurationView;
 
@@ -52,6 +53,18 @@ public abstract class AbstractApplication implements Application {
         return configurationManager;
     }
 
+    /**
+     * Returns the options to create the database with, as set in the configuration.
+     *
+     * @return The database options.
+     */
+    protected final DatabaseOptions createDatabaseOptions() {
+        return new DatabaseOptions().setDurabilityPolicy(
+                configurationManager.getDurabilityPolicy()).setSyncInterval(
+                configurationManager.getSyncInterval()).setCompactOnOpen(
+                configurationManager.getCompactOnOpen());
+    }
+
     /**
      * {@inheritDoc}
      * <p/>
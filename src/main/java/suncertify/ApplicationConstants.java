@@ -6,6 +6,9 @@
 
 package suncertify;
 
+import suncertify.db.DatabaseOptions;
+import suncertify.db.DurabilityPolicy;
+
 /**
  * Constants for the application layer.
  *
@@ -28,6 +31,26 @@ public class ApplicationConstants {
      */
     public static final String SERVER_PORT_PROPERTY = "suncertify.server-port";
 
+    /**
+     * Database durability policy property name.
+     */
+    public static final String DURABILITY_POLICY_PROPERTY = "suncertify.durability-policy";
+
+    /**
+     * Database sync interval property name.
+     */
+    public static final String SYNC_INTERVAL_PROPERTY = "suncertify.sync-interval";
+
+    /**
+     * Database compact on open property name.
+     */
+    public static final String COMPACT_ON_OPEN_PROPERTY = "suncertify.compact-on-open";
+
+    /**
+     * Network protocol property name.
+     */
+    public static final String NETWORK_PROTOCOL_PROPERTY = "suncertify.network-protocol";
+
     /**
      * Default database file path.
      */
@@ -44,6 +67,27 @@ public class ApplicationConstants {
      */
     public static final Integer DEFAULT_SERVER_PORT = Integer.valueOf("1099");
 
+    /**
+     * Default database durability policy.
+     */
+    public static final DurabilityPolicy DEFAULT_DURABILITY_POLICY = DurabilityPolicy.NONE;
+
+    /**
+     * Default database sync interval in milliseconds.
+     */
+    public static final Long DEFAULT_SYNC_INTERVAL = Long
+            .valueOf(DatabaseOptions.DEFAULT_SYNC_INTERVAL);
+
+    /**
+     * Default for whether the database file is compacted when it is opened.
+     */
+    public static final Boolean DEFAULT_COMPACT_ON_OPEN = Boolean.FALSE;
+
+    /**
+     * Default network protocol.
+     */
+    public static final NetworkProtocol DEFAULT_NETWORK_PROTOCOL = NetworkProtocol.RMI;
+
     /**
      * Localhost IP address.
      */
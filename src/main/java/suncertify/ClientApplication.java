@@ -10,7 +10,9 @@ import suncertify.presentation.ClientConfigurationDialog;
 import suncertify.presentation.ConfigurationView;
 import suncertify.service.BrokerService;
 import suncertify.service.RmiService;
+import suncertify.service.SocketBrokerService;
 
+import java.io.IOException;
 import java.net.MalformedURLException;
 import java.rmi.NotBoundException;
 import java.rmi.RemoteException;
@@ -51,13 +53,32 @@ public final class ClientApplication extends AbstractGuiApplication {
     }
 
     /**
-     * Returns a new broker service for a client application.
+     * Returns a new broker service for a client application, connected to the server using the
+     * configured network protocol.
      *
      * @return The broker service.
      * @throws FatalException If there is an error creating the broker service.
      */
     @Override
     protected BrokerService createBrokerService() throws FatalException {
+        if (getConfigurationManager().getNetworkProtocol() == NetworkProtocol.SOCKET) {
+            return createSocketBrokerService();
+        }
+        return lookupRemoteBrokerService();
+    }
+
+    private BrokerService createSocketBrokerService() throws FatalException {
+        String serverAddress = getConfigurationManager().getServerAddress();
+        Integer serverPort = getConfigurationManager().getServerPort();
+        try {
+            return new SocketBrokerService(serverAddress, serverPort);
+        } catch (IOException e) {
+            throw new FatalException("Error connecting to the socket server at: " + serverAddress
+                    + ":" + serverPort, "FatalException.socketClientError.message", e);
+        }
+    }
+
+    private BrokerService lookupRemoteBrokerService() throws FatalException {
         // Lookup the broker server remote object at the configured URL
         String url = "//" + getConfigurationManager().getServerAddress() + ":"
                 + getConfigurationManager().getServerPort() + "/"
@@ -6,6 +6,8 @@
 
 package suncertify;
 
+import suncertify.db.DurabilityPolicy;
+
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -66,6 +68,38 @@ public final class ConfigurationManager {
             LOGGER.info("Using default server port");
             setServerPort(ApplicationConstants.DEFAULT_SERVER_PORT);
         }
+
+        try {
+            getDurabilityPolicy();
+        } catch (IllegalArgumentException e) {
+            LOGGER.info("Using default durability policy");
+            setDurabilityPolicy(ApplicationConstants.DEFAULT_DURABILITY_POLICY);
+        }
+
+        boolean syncIntervalValid;
+        try {
+            syncIntervalValid = getSyncInterval() > 0;
+        } catch (NumberFormatException e) {
+            syncIntervalValid = false;
+        }
+        if (!syncIntervalValid) {
+            LOGGER.info("Using default sync interval");
+            setSyncInterval(ApplicationConstants.DEFAULT_SYNC_INTERVAL);
+        }
+
+        try {
+            getCompactOnOpen();
+        } catch (IllegalArgumentException e) {
+            LOGGER.info("Using default compact on open");
+            setCompactOnOpen(ApplicationConstants.DEFAULT_COMPACT_ON_OPEN);
+        }
+
+        try {
+            getNetworkProtocol();
+        } catch (IllegalArgumentException e) {
+            LOGGER.info("Using default network protocol");
+            setNetworkProtocol(ApplicationConstants.DEFAULT_NETWORK_PROTOCOL);
+        }
     }
 
     /**
@@ -145,4 +179,122 @@ public final class ConfigurationManager {
         }
         configuration.setProperty(ApplicationConstants.SERVER_PORT_PROPERTY, serverPort.toString());
     }
+
+    /**
+     * Gets the database durability policy.
+     *
+     * @return The durability policy.
+     * @throws IllegalArgumentException If the durability policy property is <code>null</code> or is
+     *                                  not the name of a durability policy.
+     */
+    public DurabilityPolicy getDurabilityPolicy() {
+        String durabilityPolicy = configuration
+                .getProperty(ApplicationConstants.DURABILITY_POLICY_PROPERTY);
+        if (durabilityPolicy == null) {
+            throw new IllegalArgumentException("durability policy property is not set");
+        }
+        return DurabilityPolicy.valueOf(durabilityPolicy);
+    }
+
+    /**
+     * Sets the database durability policy.
+     *
+     * @param durabilityPolicy Durability policy to set.
+     * @throws IllegalArgumentException If <code>durabilityPolicy</code> is <code>null</code>.
+     */
+    public void setDurabilityPolicy(DurabilityPolicy durabilityPolicy) {
+        if (durabilityPolicy == null) {
+            throw new IllegalArgumentException("durabilityPolicy cannot be null");
+        }
+        configuration.setProperty(ApplicationConstants.DURABILITY_POLICY_PROPERTY,
+                durabilityPolicy.name());
+    }
+
+    /**
+     * Gets the interval, in milliseconds, between background syncs of the database file.
+     *
+     * @return The sync interval.
+     * @throws NumberFormatException If the sync interval property is <code>null</code> or is not a number.
+     */
+    public Long getSyncInterval() {
+        return Long.valueOf(configuration.getProperty(ApplicationConstants.SYNC_INTERVAL_PROPERTY));
+    }
+
+    /**
+     * Sets the interval, in milliseconds, between background syncs of the database file.
+     *
+     * @param syncInterval Sync interval to set.
+     * @throws IllegalArgumentException If <code>syncInterval</code> is <code>null</code>.
+     */
+    public void setSyncInterval(Long syncInterval) {
+        if (syncInterval == null) {
+            throw new IllegalArgumentException("syncInterval cannot be null");
+        }
+        configuration.setProperty(ApplicationConstants.SYNC_INTERVAL_PROPERTY,
+                syncInterval.toString());
+    }
+
+    /**
+     * Gets whether the slots of deleted records are removed from the database file when it is
+     * opened.
+     *
+     * @return <code>true</code> if the database file is compacted when opened.
+     * @throws IllegalArgumentException If the compact on open property is <code>null</code> or is
+     *                                  not <code>true</code> or <code>false</code>.
+     */
+    public Boolean getCompactOnOpen() {
+        String compactOnOpen = configuration
+                .getProperty(ApplicationConstants.COMPACT_ON_OPEN_PROPERTY);
+        if (!Boolean.TRUE.toString().equals(compactOnOpen)
+                && !Boolean.FALSE.toString().equals(compactOnOpen)) {
+            throw new IllegalArgumentException("Invalid compact on open property: "
+                    + compactOnOpen);
+        }
+        return Boolean.valueOf(compactOnOpen);
+    }
+
+    /**
+     * Sets whether the slots of deleted records are removed from the database file when it is
+     * opened.
+     *
+     * @param compactOnOpen Compact on open value to set.
+     * @throws IllegalArgumentException If <code>compactOnOpen</code> is <code>null</code>.
+     */
+    public void setCompactOnOpen(Boolean compactOnOpen) {
+        if (compactOnOpen == null) {
+            throw new IllegalArgumentException("compactOnOpen cannot be null");
+        }
+        configuration.setProperty(ApplicationConstants.COMPACT_ON_OPEN_PROPERTY,
+                compactOnOpen.toString());
+    }
+
+    /**
+     * Gets the network protocol used between the client and the server.
+     *
+     * @return The network protocol.
+     * @throws IllegalArgumentException If the network protocol property is <code>null</code> or is
+     *                                  not the name of a network protocol.
+     */
+    public NetworkProtocol getNetworkProtocol() {
+        String networkProtocol = configuration
+                .getProperty(ApplicationConstants.NETWORK_PROTOCOL_PROPERTY);
+        if (networkProtocol == null) {
+            throw new IllegalArgumentException("network protocol property is not set");
+        }
+        return NetworkProtocol.valueOf(networkProtocol);
+    }
+
+    /**
+     * Sets the network protocol used between the client and the server.
+     *
+     * @param networkProtocol Network protocol to set.
+     * @throws IllegalArgumentException If <code>networkProtocol</code> is <code>null</code>.
+     */
+    public void setNetworkProtocol(NetworkProtocol networkProtocol) {
+        if (networkProtocol == null) {
+            throw new IllegalArgumentException("networkProtocol cannot be null");
+        }
+        configuration.setProperty(ApplicationConstants.NETWORK_PROTOCOL_PROPERTY,
+                networkProtocol.name());
+    }
 }
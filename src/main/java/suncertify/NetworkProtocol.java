@@ -0,0 +1,28 @@
+/*
+ * NetworkProtocol.java
+ *
+ * 18 Oct 2026
+ */
+
+package suncertify;
+
+/**
+ * A protocol that the server publishes the broker service with, and that clients use to connect
+ * to it.
+ *
+ * @author Richard Wardle
+ */
+public enum NetworkProtocol {
+
+    /**
+     * Java RMI. Every connected client costs a server thread, and every result is sent using Java
+     * serialization.
+     */
+    RMI,
+
+    /**
+     * A compact binary protocol over sockets, served by a single selector thread and a fixed pool
+     * of worker threads so that the server can support many more concurrent clients.
+     */
+    SOCKET
+}
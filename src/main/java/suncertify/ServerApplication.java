@@ -7,17 +7,25 @@
 package suncertify;
 
 import suncertify.db.DataValidationException;
+import suncertify.db.Database;
 import suncertify.db.DatabaseFactory;
 import suncertify.presentation.ConfigurationView;
 import suncertify.presentation.ServerConfigurationDialog;
+import suncertify.service.BrokerServiceImpl;
 import suncertify.service.RemoteBrokerService;
 import suncertify.service.RemoteBrokerServiceImpl;
 import suncertify.service.RmiService;
+import suncertify.service.SocketBrokerServer;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.rmi.RemoteException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
 
 /**
  * An application that runs in {@link ApplicationMode#SERVER SERVER} mode.
@@ -26,6 +34,11 @@ import java.rmi.RemoteException;
  */
 public final class ServerApplication extends AbstractApplication {
 
+    private static final Logger LOGGER = Logger.getLogger(ServerApplication.class.getName());
+
+    // Interval between logging the search cache statistics, in minutes
+    private static final long STATISTICS_LOG_INTERVAL_MINUTES = 10;
+
     private final RmiService rmiService;
     private final DatabaseFactory databaseFactory;
 
@@ -65,19 +78,28 @@ public final class ServerApplication extends AbstractApplication {
     /**
      * {@inheritDoc}
      * <p/>
-     * Creates a database and a new remote broker service object that uses the database. This remote
-     * object is bound into an RMI registry.
+     * Creates a database and publishes a broker service that uses the database, using the
+     * configured network protocol. For {@link NetworkProtocol#RMI RMI}, a remote broker service
+     * object is bound into an RMI registry. For {@link NetworkProtocol#SOCKET SOCKET}, a socket
+     * broker server is started on the server port. The statistics of the broker service's search
+     * cache are logged periodically while the server runs.
      */
     public void startup() throws FatalException {
+        if (getConfigurationManager().getNetworkProtocol() == NetworkProtocol.SOCKET) {
+            startupSocketServer();
+        } else {
+            startupRmi();
+        }
+    }
+
+    private void startupRmi() throws FatalException {
         Integer serverPort = getConfigurationManager().getServerPort();
         String url = "//" + ApplicationConstants.LOCALHOST_ADDRESS + ":" + serverPort + "/"
                 + ApplicationConstants.REMOTE_BROKER_SERVICE_NAME;
-        String databaseFilePath = getConfigurationManager().getDatabaseFilePath();
 
         try {
             rmiService.createRegistry(serverPort);
-            RemoteBrokerService service = new RemoteBrokerServiceImpl(
-                    databaseFactory.createDatabase(databaseFilePath));
+            RemoteBrokerService service = new RemoteBrokerServiceImpl(createBrokerService());
             rmiService.rebind(url, service);
         } catch (RemoteException e) {
             throw new FatalException("Error starting RMI on port: " + serverPort,
@@ -85,6 +107,54 @@ public final class ServerApplication extends AbstractApplication {
         } catch (MalformedURLException e) {
             throw new FatalException("Broker service URL is malformed: " + url,
                     "FatalException.rmiServerError.message", e);
+        }
+    }
+
+    private void startupSocketServer() throws FatalException {
+        Integer serverPort = getConfigurationManager().getServerPort();
+        SocketBrokerServer server = new SocketBrokerServer(createBrokerService());
+        try {
+            server.start(serverPort);
+        } catch (IOException e) {
+            throw new FatalException("Error starting socket server on port: " + serverPort,
+                    "FatalException.socketServerError.message", e);
+        }
+    }
+
+    private BrokerServiceImpl createBrokerService() throws FatalException {
+        Database database = createDatabase();
+        BrokerServiceImpl service = new BrokerServiceImpl(database);
+        startStatisticsLogger(service, database);
+        return service;
+    }
+
+    /*
+     * Logs the search cache statistics of the broker service and the lock statistics of the
+     * database periodically, so that the cache and the locking options can be tuned from a
+     * running server. The daemon thread runs for as long as the server does.
+     */
+    private void startStatisticsLogger(final BrokerServiceImpl service,
+                                       final Database database) {
+        ScheduledExecutorService statisticsLogger = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactory() {
+                    public Thread newThread(Runnable runnable) {
+                        Thread thread = new Thread(runnable, "ServerApplication-statistics");
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        statisticsLogger.scheduleWithFixedDelay(new Runnable() {
+            public void run() {
+                LOGGER.info("Search cache statistics: " + service.getSearchCacheStatistics());
+                LOGGER.info("Lock statistics: " + database.getLockStatistics());
+            }
+        }, STATISTICS_LOG_INTERVAL_MINUTES, STATISTICS_LOG_INTERVAL_MINUTES, TimeUnit.MINUTES);
+    }
+
+    private Database createDatabase() throws FatalException {
+        String databaseFilePath = getConfigurationManager().getDatabaseFilePath();
+        try {
+            return databaseFactory.createDatabase(databaseFilePath, createDatabaseOptions());
         } catch (FileNotFoundException e) {
             throw new FatalException("Could not create database: file not found",
                     "FatalException.databaseFileNotFound.message", e);
@@ -62,7 +62,7 @@ public final class StandaloneApplication extends AbstractGuiApplication {
     protected BrokerService createBrokerService() throws FatalException {
         try {
             return new BrokerServiceImpl(databaseFactory.createDatabase(getConfigurationManager()
-                    .getDatabaseFilePath()));
+                    .getDatabaseFilePath(), createDatabaseOptions()));
         } catch (FileNotFoundException e) {
             throw new FatalException("Could not create database: file not found",
                     "FatalException.databaseFileNotFound.message", e);
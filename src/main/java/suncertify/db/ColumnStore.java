@@ -0,0 +1,217 @@
+/*
+ * ColumnStore.java
+ *
+ * 18 Oct 2026
+ */
+
+package suncertify.db;
+
+import suncertify.db.DatabaseSchema.FieldDescription;
+
+import java.io.UnsupportedEncodingException;
+import java.util.Arrays;
+
+/**
+ * An in-memory, column-oriented copy of the record values in the database. Each field described by
+ * the {@link DatabaseSchema} is held in its own byte array, with the value for record
+ * <code>n</code> stored at offset <code>n * fieldLength</code>. Values are stored exactly as they
+ * appear in the database file, i.e. padded to the field length and encoded using
+ * {@link DatabaseConstants#CHARACTER_SET}.
+ * <p/>
+ * The store also keeps a version number for each record, which the owner of the store increments
+ * every time the record is modified. Versions are not stored in the database file.
+ * <p/>
+ * This class is not thread-safe. Callers must guard reads and writes with a read-write lock, and
+ * hold the write lock while calling any of the methods that modify the store.
+ *
+ * @author Richard Wardle
+ */
+final class ColumnStore {
+
+    private static final int MINIMUM_CAPACITY = 16;
+
+    private final FieldDescription[] fieldDescriptions;
+
+    // One array per field, each containing the values of that field for every record
+    private byte[][] columns;
+
+    // Version of each record, incremented every time the record is modified
+    private long[] versions;
+
+    // Version of a record that has not been modified since the store was created
+    private final long initialVersion;
+
+    // Number of records that can be held before the columns need to grow
+    private int capacity;
+
+    /**
+     * Creates a new instance of <code>ColumnStore</code> for the specified schema.
+     *
+     * @param databaseSchema  Database schema.
+     * @param initialCapacity Number of records to allocate space for.
+     * @param initialVersion  Version of each record before it is first modified.
+     * @throws IllegalArgumentException If <code>databaseSchema</code> is <code>null</code> or
+     *                                  <code>initialCapacity</code> is negative.
+     */
+    ColumnStore(DatabaseSchema databaseSchema, int initialCapacity, long initialVersion) {
+        if (databaseSchema == null) {
+            throw new IllegalArgumentException("databaseSchema cannot be null");
+        }
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("initialCapacity cannot be negative");
+        }
+
+        fieldDescriptions = databaseSchema.getFieldDescriptions();
+        columns = new byte[fieldDescriptions.length][];
+        versions = new long[0];
+        this.initialVersion = initialVersion;
+        allocate(Math.max(initialCapacity, MINIMUM_CAPACITY));
+    }
+
+    private void allocate(int newCapacity) {
+        for (int i = 0; i < fieldDescriptions.length; i++) {
+            byte[] column = new byte[newCapacity * fieldDescriptions[i].getLength()];
+            if (columns[i] != null) {
+                System.arraycopy(columns[i], 0, column, 0, columns[i].length);
+            }
+            columns[i] = column;
+        }
+
+        long[] newVersions = Arrays.copyOf(versions, newCapacity);
+        Arrays.fill(newVersions, versions.length, newCapacity, initialVersion);
+        versions = newVersions;
+        capacity = newCapacity;
+    }
+
+    /**
+     * Ensures that the store can hold records up to (but not including) the specified record
+     * number. The capacity is at least doubled each time the store grows so that appending records
+     * one at a time is cheap.
+     *
+     * @param recordCount Number of records the store must be able to hold.
+     */
+    void ensureCapacity(int recordCount) {
+        if (recordCount > capacity) {
+            allocate(Math.max(recordCount, capacity * 2));
+        }
+    }
+
+    /**
+     * Stores all the values of a record.
+     *
+     * @param recNo  Record number.
+     * @param record Array containing the record values laid out as in the database file.
+     * @param offset Offset in <code>record</code> at which the record values start.
+     */
+    void putRecord(int recNo, byte[] record, int offset) {
+        ensureCapacity(recNo + 1);
+        for (int i = 0; i < fieldDescriptions.length; i++) {
+            int length = fieldDescriptions[i].getLength();
+            System.arraycopy(record, offset + fieldDescriptions[i].getRecordOffset(), columns[i],
+                    recNo * length, length);
+        }
+    }
+
+    /**
+     * Stores the value of a single field of a record.
+     *
+     * @param recNo      Record number.
+     * @param fieldIndex Index of the field in the schema.
+     * @param value      Array containing the field value, exactly as long as the field.
+     * @param offset     Offset in <code>value</code> at which the field value starts.
+     */
+    void putField(int recNo, int fieldIndex, byte[] value, int offset) {
+        ensureCapacity(recNo + 1);
+        int length = fieldDescriptions[fieldIndex].getLength();
+        System.arraycopy(value, offset, columns[fieldIndex], recNo * length, length);
+    }
+
+    /**
+     * Copies the stored value of a single field of a record, including any padding.
+     *
+     * @param recNo      Record number.
+     * @param fieldIndex Index of the field in the schema.
+     * @param dest       Array to copy the field value into.
+     * @param offset     Offset in <code>dest</code> at which to copy the field value.
+     */
+    void copyField(int recNo, int fieldIndex, byte[] dest, int offset) {
+        int length = fieldDescriptions[fieldIndex].getLength();
+        System.arraycopy(columns[fieldIndex], recNo * length, dest, offset, length);
+    }
+
+    /**
+     * Returns the version of a record.
+     *
+     * @param recNo Record number.
+     * @return The record version.
+     */
+    long getVersion(int recNo) {
+        return versions[recNo];
+    }
+
+    /**
+     * Increments the version of a record, to be called every time the record is modified.
+     *
+     * @param recNo Record number.
+     */
+    void incrementVersion(int recNo) {
+        ensureCapacity(recNo + 1);
+        versions[recNo]++;
+    }
+
+    /**
+     * Returns the value of a field exactly as it is stored, including any padding.
+     *
+     * @param recNo      Record number.
+     * @param fieldIndex Index of the field in the schema.
+     * @return The padded field value.
+     */
+    String getField(int recNo, int fieldIndex) {
+        int length = fieldDescriptions[fieldIndex].getLength();
+        return decode(columns[fieldIndex], recNo * length, length);
+    }
+
+    /**
+     * Indicates if the value of a field begins with the specified bytes. The comparison is made
+     * directly against the stored bytes, without decoding the field value.
+     *
+     * @param recNo      Record number.
+     * @param fieldIndex Index of the field in the schema.
+     * @param prefix     Encoded prefix, no longer than the field.
+     * @return <code>true</code> if the field value begins with <code>prefix</code>,
+     * <code>false</code> otherwise.
+     */
+    boolean fieldStartsWith(int recNo, int fieldIndex, byte[] prefix) {
+        byte[] column = columns[fieldIndex];
+        int start = recNo * fieldDescriptions[fieldIndex].getLength();
+        for (int i = 0; i < prefix.length; i++) {
+            if (column[start + i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns all the values of a record. Any whitespace at the end of a field value is trimmed.
+     *
+     * @param recNo Record number.
+     * @return The record values.
+     */
+    String[] getRecord(int recNo) {
+        String[] recordValues = new String[fieldDescriptions.length];
+        for (int i = 0; i < fieldDescriptions.length; i++) {
+            recordValues[i] = getField(recNo, i).trim();
+        }
+        return recordValues;
+    }
+
+    private String decode(byte[] bytes, int offset, int length) {
+        try {
+            return new String(bytes, offset, length, DatabaseConstants.CHARACTER_SET);
+        } catch (UnsupportedEncodingException e) {
+            // Every Java platform is required to support the database character set
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -6,12 +6,11 @@
 
 package suncertify.db;
 
-import suncertify.db.DatabaseSchema.FieldDescription;
-
 import java.io.IOException;
 import java.util.*;
-import java.util.concurrent.locks.Condition;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.logging.Logger;
 
 /**
@@ -19,10 +18,16 @@ import java.util.logging.Logger;
  * {@link DatabaseFile}. Any <code>DataAccessException</code>s thrown by the methods of this class
  * will have an <code>IOException</code> as their root cause.
  * <p/>
- * This class synchronizes access to the supplied <code>databaseFile</code> to prevent corruption by
- * concurrent operations from multiple threads. To ensure database integrity, users of the class
- * must ensure that no operations are called on the supplied <code>databaseFile</code> externally to
- * this class.
+ * The whole table is loaded into a {@link ColumnStore} when the database is opened, and the
+ * <code>read</code> and <code>find</code> methods are served from memory. Modifications are written
+ * through to the database file using its positional methods before the in-memory copy is updated,
+ * so the file is always the master copy of the data. If the database has a {@link WriteAheadLog},
+ * each write is instead recorded in the log and only made to the file once its log entry is
+ * durable, and a modification does not return until then; the log is replayed into the file when
+ * the database is next opened, so the log is the master copy of any write it holds. A read-write
+ * lock guards the record data: any number of threads may read records concurrently, while
+ * modifications are exclusive. To ensure database integrity, users of the class must ensure that
+ * no operations are called on the supplied <code>databaseFile</code> externally to this class.
  *
  * @author Richard Wardle
  */
@@ -30,10 +35,17 @@ public class Data implements DBMain {
 
     private static final Logger LOGGER = Logger.getLogger(Data.class.getName());
 
+    // Number of records read from the database file at a time when loading the column store
+    private static final int LOAD_CHUNK_SIZE = 1024;
+
+    // Versions seeded from successive startup times are 2^20 apart, so a record would need over a
+    // million modifications before its version could repeat one from a later startup
+    private static final int VERSION_EPOCH_SHIFT = 20;
+
     /*
-     * Methods called on this <code>databaseFile</code> should be synchronized on the
-     * <code>databaseFile</code> instance to prevent multiple threads from modifying the file
-     * pointer concurrently.
+     * Only the positional methods of this <code>databaseFile</code> are used once the file has been
+     * validated. Reads and writes are guarded by <code>dataLock</code>, except for logged writes
+     * which are guarded by <code>unappliedWrites</code>.
      */
     private final DatabaseFile databaseFile;
 
@@ -46,41 +58,61 @@ public class Data implements DBMain {
     private final long dataSectionOffset;
 
     /*
-     * Sorted set of the record numbers in the database that have been marked as deleted.
-     * Modification of the set is synchronized on databaseFile but reads may happen concurrently, so
-     * the set is created as synchronized to prevent corrupted reads.
+     * Read-write lock guarding the record data in the database file and the column store. Reads
+     * of record data take the read lock so that they can proceed in parallel, modifications take
+     * the write lock so that readers never see a partially written record.
      */
-    private final SortedSet<Integer> deletedRecNos = Collections
-            .synchronizedSortedSet(new TreeSet<Integer>());
+    private final ReadWriteLock dataLock = new ReentrantReadWriteLock();
+
+    // In-memory copy of the record values, guarded by dataLock
+    private final ColumnStore columnStore;
+
+    // Encodes modified records for writing to the database file, guarded by dataLock
+    private final RecordEncoder recordEncoder;
+
+    // Scans the column store for matching records, in parallel for large databases
+    private final RecordScanner recordScanner;
 
     /*
-     * Mutual exclusion lock used for acquiring the logical record lock on database records.
-     * Multiple <code>Condition</code>objects are used with this lock, one for each record in the
-     * database. This allows fine-grained signal operations when unlocking a record, i.e. only
-     * waking up threads that are waiting for the lock on that particular record.
+     * Prefix and exact-match indexes of the record values, one element per field that is null if
+     * the field is not indexed. Deleted records are not indexed. Guarded by dataLock.
      */
-    private final ReentrantLock lock = new ReentrantLock();
-
-    // Map of record numbers and <code>Condition</code> objects
-    private final Map<Integer, Condition> conditionsMap = new HashMap<Integer, Condition>();
+    private final PrefixIndex[] prefixIndexes;
+    private final HashIndex[] hashIndexes;
 
     /*
-     * Map of record numbers and the corresponding IDs of the threads that currently hold the lock
-     * on those records. Modification of the map is synchronized on the ReentrantLock lock but reads
-     * may happen concurrently, so the map is created as synchronized to prevent corrupted reads.
+     * Set of the record numbers in the database that have been marked as deleted. Modification of
+     * the set is guarded by the write lock of dataLock, but reads never block so that checking if
+     * a record is deleted is cheap on every code path.
      */
-    private final Map<Integer, Long> lockedRecords = Collections
-            .synchronizedMap(new HashMap<Integer, Long>());
+    private final DeletedRecordSet deletedRecNos;
+
+    // Logical record locks, striped so that locking different records does not contend
+    private final RecordLockManager lockManager;
+
+    // Redo log of the writes to the database file, null if modifications are not logged
+    private final WriteAheadLog writeAheadLog;
+
+    // Logged writes not yet made to the database file, in log order, guarded by itself
+    private final LinkedList<LoggedWrite> unappliedWrites = new LinkedList<LoggedWrite>();
 
     /*
      * Number of records in the database, including deleted records. Modification to this field is
-     * synchronized on <code>databaseFile</code>. Reads are not synchronized but the field is marked
-     * <code>volatile</code> to ensure that threads see the most up-to-date data for the field.
+     * guarded by the write lock of <code>dataLock</code>. Reads are not synchronized but the field
+     * is marked <code>volatile</code> to ensure that threads see the most up-to-date data for the
+     * field.
      */
     private volatile int recordCount;
 
+    /*
+     * Number of modifications made since the database was opened. Guarded and read in the same way
+     * as recordCount.
+     */
+    private volatile long modificationCount;
+
     /**
-     * Creates a new instance of <code>Data</code> using the specified database file.
+     * Creates a new instance of <code>Data</code> using the specified database file and the default
+     * database options.
      *
      * @param databaseFile Database file.
      * @throws DataValidationException  If the database is invalid.
@@ -88,13 +120,68 @@ public class Data implements DBMain {
      * @throws IllegalArgumentException If the <code>databaseFile</code> is <code>null</code>.
      */
     public Data(DatabaseFile databaseFile) throws DataValidationException, IOException {
+        this(databaseFile, new DatabaseOptions());
+    }
+
+    /**
+     * Creates a new instance of <code>Data</code> using the specified database file and options.
+     *
+     * @param databaseFile Database file.
+     * @param options      Database options.
+     * @throws DataValidationException  If the database is invalid.
+     * @throws IOException              If there is an error accessing the database.
+     * @throws IllegalArgumentException If the <code>databaseFile</code> or <code>options</code>
+     *                                  is <code>null</code>, or <code>options</code> specifies an
+     *                                  indexed field that is not in the database schema.
+     */
+    public Data(DatabaseFile databaseFile, DatabaseOptions options)
+            throws DataValidationException, IOException {
+        this(databaseFile, options, null);
+    }
+
+    /**
+     * Creates a new instance of <code>Data</code> using the specified database file, options and
+     * write-ahead log. Any entries in the log are replayed into the database file before the file
+     * is validated.
+     *
+     * @param databaseFile  Database file.
+     * @param options       Database options.
+     * @param writeAheadLog Write-ahead log, or <code>null</code> if modifications are not logged.
+     * @throws DataValidationException  If the database is invalid.
+     * @throws IOException              If there is an error accessing the database or the log.
+     * @throws IllegalArgumentException If the <code>databaseFile</code> or <code>options</code>
+     *                                  is <code>null</code>, or <code>options</code> specifies an
+     *                                  indexed field that is not in the database schema.
+     */
+    Data(DatabaseFile databaseFile, DatabaseOptions options, WriteAheadLog writeAheadLog)
+            throws DataValidationException, IOException {
         if (databaseFile == null) {
             throw new IllegalArgumentException("databaseFile cannot be null");
         }
+        if (options == null) {
+            throw new IllegalArgumentException("options cannot be null");
+        }
 
         this.databaseFile = databaseFile;
         databaseSchema = new DatabaseSchema();
 
+        prefixIndexes = new PrefixIndex[databaseSchema.getFieldCount()];
+        hashIndexes = new HashIndex[databaseSchema.getFieldCount()];
+        for (int fieldIndex : options.getIndexedFields()) {
+            if (fieldIndex >= prefixIndexes.length) {
+                throw new IllegalArgumentException("Indexed field " + fieldIndex
+                        + " is not in the database schema");
+            }
+            prefixIndexes[fieldIndex] = new PrefixIndex();
+            hashIndexes[fieldIndex] = new HashIndex();
+        }
+
+        // Redo any modifications that were logged but may not have reached the database file
+        this.writeAheadLog = writeAheadLog;
+        if (writeAheadLog != null) {
+            writeAheadLog.replay(databaseFile);
+        }
+
         DatabaseFileValidator validator = new DatabaseFileValidator(this.databaseFile,
                 databaseSchema);
         validator.validate();
@@ -102,20 +189,74 @@ public class Data implements DBMain {
         recordCount = validator.getRecordCount();
 
         /*
-         * Store a set of the deleted record numbers - allows checking if a record is deleted
-         * without accessing the database file.
+         * Load the record values into memory and store a set of the deleted record numbers - allows
+         * reading, searching and checking if a record is deleted without accessing the database
+         * file. Record versions start from the time the database was opened, so that a version
+         * seen before the database was last opened never matches a current version.
          */
-        cacheDeletedRecordNumbers();
+        columnStore = new ColumnStore(databaseSchema, recordCount,
+                System.currentTimeMillis() << VERSION_EPOCH_SHIFT);
+        deletedRecNos = new DeletedRecordSet(recordCount);
+        loadRecords();
+        recordEncoder = new RecordEncoder(databaseSchema);
+
+        recordScanner = new RecordScanner(options.getParallelScanThreshold(),
+                options.getScanParallelism());
+        lockManager = new RecordLockManager(RecordLockManager.DEFAULT_STRIPE_COUNT,
+                options.isFairLocking(), options.getLockLeaseTimeout(), TimeUnit.MILLISECONDS);
     }
 
-    private void cacheDeletedRecordNumbers() throws IOException {
-        for (int recNo = 0; recNo < recordCount; recNo++) {
-            databaseFile.seek(getOffsetForRecord(recNo));
-            if (databaseFile.readByte() == DatabaseConstants.DELETED_RECORD_FLAG) {
-                deletedRecNos.add(recNo);
+    private void loadRecords() throws IOException {
+        int recordLengthWithFlag = DatabaseConstants.RECORD_VALIDITY_FLAG_LENGTH
+                + databaseSchema.getRecordLength();
+        for (int firstRecNo = 0; firstRecNo < recordCount; firstRecNo += LOAD_CHUNK_SIZE) {
+            // Read a chunk of consecutive records in one operation
+            int chunkRecordCount = Math.min(LOAD_CHUNK_SIZE, recordCount - firstRecNo);
+            byte[] bytes = new byte[chunkRecordCount * recordLengthWithFlag];
+            databaseFile.readFully(getOffsetForRecord(firstRecNo), bytes);
+
+            for (int i = 0; i < chunkRecordCount; i++) {
+                int recordStart = i * recordLengthWithFlag;
+                if (bytes[recordStart] == DatabaseConstants.DELETED_RECORD_FLAG) {
+                    deletedRecNos.add(firstRecNo + i);
+                }
+                columnStore.putRecord(firstRecNo + i, bytes, recordStart
+                        + DatabaseConstants.RECORD_VALIDITY_FLAG_LENGTH);
+                if (bytes[recordStart] != DatabaseConstants.DELETED_RECORD_FLAG) {
+                    indexRecord(firstRecNo + i);
+                }
             }
         }
-        LOGGER.info("Database contains " + deletedRecNos.size() + " deleted records");
+        LOGGER.info("Loaded " + recordCount + " records, database contains "
+                + deletedRecNos.size() + " deleted records");
+    }
+
+    private void indexRecord(int recNo) {
+        for (int i = 0; i < prefixIndexes.length; i++) {
+            indexField(recNo, i);
+        }
+    }
+
+    private void unindexRecord(int recNo) {
+        for (int i = 0; i < prefixIndexes.length; i++) {
+            unindexField(recNo, i);
+        }
+    }
+
+    private void indexField(int recNo, int fieldIndex) {
+        if (prefixIndexes[fieldIndex] != null) {
+            String value = columnStore.getField(recNo, fieldIndex);
+            prefixIndexes[fieldIndex].add(value, recNo);
+            hashIndexes[fieldIndex].add(value.trim(), recNo);
+        }
+    }
+
+    private void unindexField(int recNo, int fieldIndex) {
+        if (prefixIndexes[fieldIndex] != null) {
+            String value = columnStore.getField(recNo, fieldIndex);
+            prefixIndexes[fieldIndex].remove(value, recNo);
+            hashIndexes[fieldIndex].remove(value.trim(), recNo);
+        }
     }
 
     final boolean isRecordDeleted(int recNo) {
@@ -140,24 +281,45 @@ public class Data implements DBMain {
     public String[] read(int recNo) throws RecordNotFoundException {
         validateRecordNumber(recNo);
 
-        String record;
-        synchronized (databaseFile) {
+        dataLock.readLock().lock();
+        try {
             if (isRecordDeleted(recNo)) {
                 throw new RecordNotFoundException("Record " + recNo + " has been deleted");
             }
+            return columnStore.getRecord(recNo);
+        } finally {
+            dataLock.readLock().unlock();
+        }
+    }
 
-            try {
-                databaseFile.seek(getOffsetForRecord(recNo)
-                        + DatabaseConstants.RECORD_VALIDITY_FLAG_LENGTH);
-                byte[] bytes = new byte[databaseSchema.getRecordLength()];
-                databaseFile.readFully(bytes);
-                record = new String(bytes, DatabaseConstants.CHARACTER_SET);
-            } catch (IOException e) {
-                throw new DataAccessException(e);
-            }
+    /**
+     * Reads many records in one operation. The records are read from the column store under a
+     * single acquisition of the read lock, so the values returned are consistent with each other.
+     * Record numbers that do not exist or are marked as deleted are skipped rather than causing
+     * an exception, since any record may be deleted between a search and a read.
+     *
+     * @param recNos Database record numbers.
+     * @return A list of the records that exist, in the same order as <code>recNos</code>.
+     * @throws IllegalArgumentException If <code>recNos</code> is <code>null</code>.
+     */
+    public List<DatabaseRecord> readRecords(int[] recNos) {
+        if (recNos == null) {
+            throw new IllegalArgumentException("recNos cannot be null");
         }
 
-        return splitRecord(record);
+        List<DatabaseRecord> records = new ArrayList<DatabaseRecord>(recNos.length);
+        dataLock.readLock().lock();
+        try {
+            for (int recNo : recNos) {
+                if (recNo >= 0 && recNo < recordCount && !isRecordDeleted(recNo)) {
+                    records.add(new DatabaseRecord(recNo, columnStore.getRecord(recNo),
+                            columnStore.getVersion(recNo)));
+                }
+            }
+        } finally {
+            dataLock.readLock().unlock();
+        }
+        return records;
     }
 
     private void validateRecordNumber(int recNo) throws RecordNotFoundException {
@@ -173,25 +335,34 @@ public class Data implements DBMain {
         return dataSectionOffset + recNo * recordLengthWithFlag;
     }
 
-    /*
-     * Splits a record into its separate field values. Any whitespace at the end of a field value is
-     * trimmed.
+    /**
+     * {@inheritDoc}
      */
-    private String[] splitRecord(String record) {
-        String[] recordValues = new String[databaseSchema.getFieldCount()];
-        FieldDescription[] fieldDescriptions = databaseSchema.getFieldDescriptions();
-        for (int i = 0; i < fieldDescriptions.length; i++) {
-            recordValues[i] = record.substring(fieldDescriptions[i].getRecordOffset(),
-                    fieldDescriptions[i].getRecordOffset() + fieldDescriptions[i].getLength())
-                    .trim();
-        }
-        return recordValues;
+    public void update(int recNo, String[] data) throws RecordNotFoundException {
+        updateAsOwner(recNo, data, Thread.currentThread());
     }
 
     /**
-     * {@inheritDoc}
+     * Modifies the fields of a record locked with {@link #lockRecord} or {@link #tryLockRecord}.
+     * The new value for field n appears in data[n]. The method can be called from any thread.
+     *
+     * @param recNo      Database record number.
+     * @param data       <code>String</code> array containing new record values. If
+     *                   <code>data[n]</code> is <code>null</code> field <code>n</code> will not be
+     *                   updated.
+     * @param lockCookie Lock cookie returned when the record was locked.
+     * @throws RecordNotFoundException  If the specified record does not exist or is marked as
+     *                                  deleted in the database.
+     * @throws IllegalArgumentException If <code>data</code> is <code>null</code> or is of length
+     *                                  not equal to the database schema field count.
+     * @throws IllegalStateException    If the record is not locked with <code>lockCookie</code>.
      */
-    public void update(int recNo, String[] data) throws RecordNotFoundException {
+    public void update(int recNo, String[] data, long lockCookie) throws RecordNotFoundException {
+        updateAsOwner(recNo, data, Long.valueOf(lockCookie));
+    }
+
+    private void updateAsOwner(int recNo, String[] data, Object owner)
+            throws RecordNotFoundException {
         validateRecordNumber(recNo);
         if (isRecordDeleted(recNo)) {
             throw new RecordNotFoundException("Record " + recNo + " has been deleted");
@@ -203,89 +374,175 @@ public class Data implements DBMain {
             throw new IllegalArgumentException("data array must be of length: "
                     + databaseSchema.getFieldCount());
         }
-        if (!isCurrentThreadHoldingLock(recNo)) {
-            throw new IllegalStateException("Calling thread does not hold the lock on record "
-                    + recNo);
-        }
 
-        synchronized (databaseFile) {
-            try {
-                updateRecord(recNo, data);
-                LOGGER.info("Updated record " + recNo + " with: " + Arrays.toString(data));
-            } catch (IOException e) {
-                throw new DataAccessException(e);
-            }
+        long logSequence;
+        dataLock.writeLock().lock();
+        try {
+            /*
+             * Check the lock under the write lock: if the lease has expired and the record has
+             * been locked by another owner, that owner cannot modify or read the record until this
+             * update is complete.
+             */
+            checkLockHeld(recNo, owner);
+            updateRecord(recNo, data);
+            logSequence = endLoggedModification();
+            LOGGER.info("Updated record " + recNo + " with: " + Arrays.toString(data));
+        } catch (IOException e) {
+            throw new DataAccessException(e);
+        } finally {
+            dataLock.writeLock().unlock();
         }
+        awaitLogDurable(logSequence);
     }
 
-    private boolean isCurrentThreadHoldingLock(int recNo) {
-        Long threadIdHoldingLock = lockedRecords.get(recNo);
-        return threadIdHoldingLock != null
-                && threadIdHoldingLock.equals(Thread.currentThread().getId());
-    }
+    /**
+     * Modifies the fields of a record, but only if the record has not been modified since it was
+     * read with the specified version and is not locked. The version check and the update are made
+     * in a single atomic step, so the record does not need to be locked first. The new value for
+     * field n appears in data[n].
+     *
+     * @param recNo           Database record number.
+     * @param expectedVersion Version of the record when it was read, as returned by
+     *                        {@link DatabaseRecord#getVersion}.
+     * @param data            <code>String</code> array containing new record values. If
+     *                        <code>data[n]</code> is <code>null</code> field <code>n</code> will
+     *                        not be updated.
+     * @return <code>true</code> if the record was updated, <code>false</code> if it has been
+     * modified since it was read or is locked.
+     * @throws RecordNotFoundException  If the specified record does not exist or is marked as
+     *                                  deleted in the database.
+     * @throws IllegalArgumentException If <code>data</code> is <code>null</code> or is of length
+     *                                  not equal to the database schema field count.
+     */
+    public boolean compareAndUpdate(int recNo, long expectedVersion, String[] data)
+            throws RecordNotFoundException {
+        validateRecordNumber(recNo);
+        if (data == null) {
+            throw new IllegalArgumentException("data cannot be null");
+        }
+        if (data.length != databaseSchema.getFieldCount()) {
+            throw new IllegalArgumentException("data array must be of length: "
+                    + databaseSchema.getFieldCount());
+        }
 
-    private void updateRecord(int recNo, String[] data) throws IOException {
-        long recValuesStartPos = getOffsetForRecord(recNo)
-                + DatabaseConstants.RECORD_VALIDITY_FLAG_LENGTH;
-        FieldDescription[] fieldDescriptions = databaseSchema.getFieldDescriptions();
-        for (int i = 0; i < fieldDescriptions.length; i++) {
-            // Don't update fields where the data element is null
-            if (data[i] != null) {
-                databaseFile.seek(recValuesStartPos + fieldDescriptions[i].getRecordOffset());
-
-                // Pad or truncate the data to fit the field
-                databaseFile.write(padOrTruncateData(data[i], fieldDescriptions[i].getLength())
-                        .getBytes(DatabaseConstants.CHARACTER_SET));
+        long logSequence;
+        dataLock.writeLock().lock();
+        try {
+            if (isRecordDeleted(recNo)) {
+                throw new RecordNotFoundException("Record " + recNo + " has been deleted");
             }
+
+            /*
+             * A lock holder may be part way through its own read-compare-update, so leave the
+             * record alone. A thread that locks the record after this check cannot read it until
+             * the update below is complete.
+             */
+            if (columnStore.getVersion(recNo) != expectedVersion || lockManager.isLocked(recNo)) {
+                return false;
+            }
+
+            updateRecord(recNo, data);
+            logSequence = endLoggedModification();
+            LOGGER.info("Updated record " + recNo + " at version " + expectedVersion + " with: "
+                    + Arrays.toString(data));
+        } catch (IOException e) {
+            throw new DataAccessException(e);
+        } finally {
+            dataLock.writeLock().unlock();
         }
+        awaitLogDurable(logSequence);
+        return true;
     }
 
-    private String padOrTruncateData(String data, short fieldLength) {
-        String sizedData;
-        if (data.length() < fieldLength) {
-            StringBuilder builder = new StringBuilder(data);
-            while (builder.length() < fieldLength) {
-                builder.append(DatabaseConstants.PAD_CHARACTER);
+    private void checkLockHeld(int recNo, Object owner) {
+        if (!lockManager.isHeldBy(recNo, owner)) {
+            throw new IllegalStateException(RecordLockManager.describeOwner(owner)
+                    + " does not hold the lock on record " + recNo);
+        }
+    }
+
+    private void updateRecord(int recNo, String[] data) throws IOException {
+        /*
+         * Write the range of the record from the first to the last updated field in one operation.
+         * Fields where the data element is null are not updated.
+         */
+        if (recordEncoder.encodeFields(recNo, data, columnStore)) {
+            byte[] buffer = recordEncoder.getBuffer();
+            int rangeOffset = recordEncoder.getRangeOffset();
+            writeFile(getOffsetForRecord(recNo) + rangeOffset, buffer, rangeOffset,
+                    recordEncoder.getRangeLength());
+
+            // Re-index the record under its new values
+            for (int i = 0; i < data.length; i++) {
+                if (data[i] != null) {
+                    unindexField(recNo, i);
+                    columnStore.putField(recNo, i, buffer, recordEncoder.getFieldOffset(i));
+                    indexField(recNo, i);
+                }
             }
-            sizedData = builder.toString();
-        } else if (data.length() > fieldLength) {
-            sizedData = data.substring(0, fieldLength);
-        } else {
-            sizedData = data;
         }
-        return sizedData;
+        columnStore.incrementVersion(recNo);
+        modificationCount++;
     }
 
     /**
      * {@inheritDoc}
      */
     public void delete(int recNo) throws RecordNotFoundException {
+        deleteAsOwner(recNo, Thread.currentThread());
+    }
+
+    /**
+     * Deletes a record locked with {@link #lockRecord} or {@link #tryLockRecord}, making the record
+     * number and associated disk storage available for reuse. The method can be called from any
+     * thread. It is not necessary to unlock the record after calling this method.
+     *
+     * @param recNo      Database record number.
+     * @param lockCookie Lock cookie returned when the record was locked.
+     * @throws RecordNotFoundException If the specified record does not exist or is marked as
+     *                                 deleted in the database.
+     * @throws IllegalStateException   If the record is not locked with <code>lockCookie</code>.
+     */
+    public void delete(int recNo, long lockCookie) throws RecordNotFoundException {
+        deleteAsOwner(recNo, Long.valueOf(lockCookie));
+    }
+
+    private void deleteAsOwner(int recNo, Object owner) throws RecordNotFoundException {
         validateRecordNumber(recNo);
         if (isRecordDeleted(recNo)) {
             throw new RecordNotFoundException("Record " + recNo + " has been deleted");
         }
-        if (!isCurrentThreadHoldingLock(recNo)) {
-            throw new IllegalStateException("Calling thread does not hold the lock on record "
-                    + recNo);
-        }
 
         // The record is deleted just by writing the deleted record flag
-        synchronized (databaseFile) {
-            try {
-                databaseFile.seek(getOffsetForRecord(recNo));
-                databaseFile.writeByte(DatabaseConstants.DELETED_RECORD_FLAG);
-                deletedRecNos.add(recNo);
-                LOGGER.info("Deleted record " + recNo);
-            } catch (IOException e) {
-                throw new DataAccessException(e);
-            }
+        long logSequence;
+        dataLock.writeLock().lock();
+        try {
+            checkLockHeld(recNo, owner);
+            writeFile(getOffsetForRecord(recNo), new byte[]{DatabaseConstants.DELETED_RECORD_FLAG},
+                    0, DatabaseConstants.RECORD_VALIDITY_FLAG_LENGTH);
+            unindexRecord(recNo);
+            columnStore.incrementVersion(recNo);
+            deletedRecNos.add(recNo);
+            modificationCount++;
+            logSequence = endLoggedModification();
+            LOGGER.info("Deleted record " + recNo);
+        } catch (IOException e) {
+            throw new DataAccessException(e);
+        } finally {
+            dataLock.writeLock().unlock();
         }
+        awaitLogDurable(logSequence);
 
         /*
          * Now the record is deleted it needs to be unlocked since an external call to the unlock
-         * method will now throw RecordNotFoundException..
+         * method will now throw RecordNotFoundException. The lease may have expired since the
+         * record was deleted, in which case the lock is no longer held and there is nothing to do.
          */
-        unlockRecord(recNo);
+        try {
+            unlockRecord(recNo, owner);
+        } catch (IllegalStateException e) {
+            LOGGER.warning(e.getMessage() + " after deleting it, the lease has expired");
+        }
     }
 
     /**
@@ -302,69 +559,272 @@ public class Data implements DBMain {
                     + databaseSchema.getFieldCount());
         }
 
-        // Loop over all the database records to find matches
-        List<Integer> matchingRecNos = new ArrayList<Integer>();
-        for (int recNo = 0; recNo < recordCount; recNo++) {
-            try {
+        int[] recNosArray;
+        dataLock.readLock().lock();
+        try {
+            recNosArray = findMatchingRecords(criteria);
+        } finally {
+            dataLock.readLock().unlock();
+        }
+
+        LOGGER.info("Found " + recNosArray.length + " records matching criteria: "
+                + Arrays.toString(criteria));
+        return recNosArray;
+    }
+
+    /**
+     * Returns the records that match the specified criteria, using the same "starts-with" matching
+     * as <code>find</code>. Unlike <code>find</code>, the record values are returned with the
+     * record numbers. They are taken from the column store under the same acquisition of the read
+     * lock as the search itself, so each returned record is guaranteed to match the criteria and
+     * callers do not need to read the records separately.
+     *
+     * @param criteria <code>String</code> array containing search criteria.
+     * @return A list of the matching records, in record number order.
+     * @throws IllegalArgumentException If <code>criteria</code> is <code>null</code> or is of
+     *                                  length not equal to the database schema field count.
+     * @see #find(String[])
+     */
+    public List<DatabaseRecord> findRecords(String[] criteria) {
+        if (criteria == null) {
+            throw new IllegalArgumentException("criteria cannot be null");
+        }
+        if (criteria.length != databaseSchema.getFieldCount()) {
+            throw new IllegalArgumentException("criteria array must be of length: "
+                    + databaseSchema.getFieldCount());
+        }
+
+        List<DatabaseRecord> records;
+        dataLock.readLock().lock();
+        try {
+            int[] recNos = findMatchingRecords(criteria);
+            records = new ArrayList<DatabaseRecord>(recNos.length);
+            for (int recNo : recNos) {
+                records.add(new DatabaseRecord(recNo, columnStore.getRecord(recNo),
+                        columnStore.getVersion(recNo)));
+            }
+        } finally {
+            dataLock.readLock().unlock();
+        }
+
+        LOGGER.info("Found " + records.size() + " records matching criteria: "
+                + Arrays.toString(criteria));
+        return records;
+    }
+
+    /*
+     * Returns the numbers of the records matching the criteria, looking up candidates in an index
+     * if possible and scanning all the records otherwise. The caller must hold the read lock.
+     */
+    private int[] findMatchingRecords(String[] criteria) {
+        RecordMatcher matcher = new RecordMatcher(databaseSchema, criteria);
+        if (!matcher.isSatisfiable()) {
+            return new int[0];
+        }
+
+        int indexedField = selectIndexedField(criteria);
+        if (indexedField >= 0) {
+            // Look up candidates in the index and check them against the other criteria
+            return filterRecords(prefixIndexes[indexedField].find(criteria[indexedField]),
+                    matcher);
+        }
+        return scanRecords(matcher);
+    }
+
+    /*
+     * Scans all the records in the column store to find matches. The caller must hold the read
+     * lock.
+     */
+    private int[] scanRecords(final RecordMatcher matcher) {
+        return recordScanner.scan(recordCount, new RecordScanner.RecordFilter() {
+            public boolean accept(int recNo) {
                 // Don't try to match deleted records
-                if (!isRecordDeleted(recNo)) {
-                    long recValuesStartPos = getOffsetForRecord(recNo)
-                            + DatabaseConstants.RECORD_VALIDITY_FLAG_LENGTH;
-                    byte[] bytes;
-                    synchronized (databaseFile) {
-                        databaseFile.seek(recValuesStartPos);
-
-                        // Read the record from the database
-                        bytes = new byte[databaseSchema.getRecordLength()];
-                        databaseFile.readFully(bytes);
-                    }
+                return !isRecordDeleted(recNo) && matcher.matches(columnStore, recNo);
+            }
+        });
+    }
 
-                    String record = new String(bytes, DatabaseConstants.CHARACTER_SET);
-                    if (isMatchingRecord(criteria, record)) {
-                        // If the record matches add it to the list
-                        matchingRecNos.add(recNo);
-                    }
-                }
-            } catch (IOException e) {
-                throw new DataAccessException(e);
+    /*
+     * Chooses the indexed field to use for a search, or returns -1 if none of the criteria can use
+     * an index. The longest criteria element is assumed to be the most selective.
+     */
+    private int selectIndexedField(String[] criteria) {
+        int indexedField = -1;
+        for (int i = 0; i < criteria.length; i++) {
+            if (prefixIndexes[i] != null && criteria[i] != null && criteria[i].length() > 0
+                    && (indexedField < 0
+                    || criteria[i].length() > criteria[indexedField].length())) {
+                indexedField = i;
+            }
+        }
+        return indexedField;
+    }
+
+    /*
+     * Removes the candidates that do not match all of the criteria. Indexes only hold records that
+     * are not deleted, so candidates do not need to be checked for deletion.
+     */
+    private int[] filterRecords(int[] candidateRecNos, RecordMatcher matcher) {
+        int count = 0;
+        for (int recNo : candidateRecNos) {
+            if (matcher.matches(columnStore, recNo)) {
+                candidateRecNos[count] = recNo;
+                count++;
             }
         }
+        return Arrays.copyOf(candidateRecNos, count);
+    }
+
+    /**
+     * Returns the records that exactly match the specified criteria. Field <code>n</code> in the
+     * database file is described by <code>criteria[n]</code>. A <code>null</code> value in
+     * <code>criteria[n]</code> matches any field value. A non-<code>null</code> value in
+     * <code>criteria[n]</code> matches a field value that is equal to <code>criteria[n]</code>
+     * once any padding has been trimmed, as returned by <code>read</code>. (For example, "Fred"
+     * matches "Fred" but not "Freddy".)
+     * <p/>
+     * The record values are returned with the matching record numbers, so callers do not need to
+     * read each record separately. If the criteria include a value for an indexed field then the
+     * matching records are looked up in that field's exact-match index, otherwise the records are
+     * scanned.
+     *
+     * @param criteria <code>String</code> array containing search criteria.
+     * @return A list of the matching records, in record number order.
+     * @throws IllegalArgumentException If <code>criteria</code> is <code>null</code> or is of
+     *                                  length not equal to the database schema field count.
+     */
+    public List<DatabaseRecord> findExact(String[] criteria) {
+        checkExactCriteria(criteria);
+
+        List<DatabaseRecord> records = new ArrayList<DatabaseRecord>();
+        dataLock.readLock().lock();
+        try {
+            int[] candidateRecNos;
+            int indexedField = selectExactIndexedField(criteria);
+            if (indexedField >= 0) {
+                candidateRecNos = hashIndexes[indexedField].find(criteria[indexedField]);
+            } else {
+                // Every exact match is also a prefix match, so find the prefix matches first
+                candidateRecNos = findMatchingRecords(criteria);
+            }
 
-        // Convert the list of matching record numbers to an array
-        int[] recNosArray = new int[matchingRecNos.size()];
-        int index = 0;
-        for (Integer recNo : matchingRecNos) {
-            recNosArray[index] = recNo;
-            index++;
+            for (int recNo : candidateRecNos) {
+                addExactMatch(criteria, recNo, records);
+            }
+        } finally {
+            dataLock.readLock().unlock();
         }
 
-        LOGGER.info("Found " + recNosArray.length + " records matching criteria: "
+        LOGGER.info("Found " + records.size() + " records exactly matching criteria: "
                 + Arrays.toString(criteria));
-        return recNosArray;
+        return records;
     }
 
-    private boolean isMatchingRecord(String[] criteria, String record) {
-        boolean match = false;
+    /**
+     * Returns a page of the records that exactly match the specified criteria, as described by
+     * {@link #findExact(String[])}. Only records with a record number of at least
+     * <code>fromRecNo</code> are returned, and at most <code>maxRecords</code> of them. To read the
+     * next page, call this method again with <code>fromRecNo</code> set to one more than the
+     * number of the last record returned. Fewer than <code>maxRecords</code> records are returned
+     * only when there are no more matches.
+     * <p/>
+     * Each page is found under its own read lock, so records created, modified or deleted between
+     * calls are reflected in later pages. Records are never returned twice, as record numbers do
+     * not change.
+     *
+     * @param criteria   <code>String</code> array containing search criteria.
+     * @param fromRecNo  Lowest record number to return.
+     * @param maxRecords Maximum number of records to return.
+     * @return A list of the matching records, in record number order.
+     * @throws IllegalArgumentException If <code>criteria</code> is <code>null</code> or is of
+     *                                  length not equal to the database schema field count,
+     *                                  <code>fromRecNo</code> is negative, or
+     *                                  <code>maxRecords</code> is not positive.
+     */
+    public List<DatabaseRecord> findExact(String[] criteria, int fromRecNo, int maxRecords) {
+        checkExactCriteria(criteria);
+        if (fromRecNo < 0) {
+            throw new IllegalArgumentException("fromRecNo cannot be negative");
+        }
+        if (maxRecords <= 0) {
+            throw new IllegalArgumentException("maxRecords must be positive");
+        }
 
-        // Check each field against the criteria using a "startsWith" comparison
-        FieldDescription[] fieldDescriptions = databaseSchema.getFieldDescriptions();
-        for (int i = 0; i < fieldDescriptions.length; i++) {
-            if (criteria[i] != null) {
-                String recordValue = record.substring(fieldDescriptions[i].getRecordOffset(),
-                        fieldDescriptions[i].getRecordOffset() + fieldDescriptions[i].getLength());
-                if (!recordValue.startsWith(criteria[i])) {
-                    // Criteria element doesn't match so break out of the loop
-                    break;
+        List<DatabaseRecord> records = new ArrayList<DatabaseRecord>();
+        dataLock.readLock().lock();
+        try {
+            int indexedField = selectExactIndexedField(criteria);
+            if (indexedField >= 0) {
+                int[] candidateRecNos = hashIndexes[indexedField].find(criteria[indexedField]);
+                int start = Arrays.binarySearch(candidateRecNos, fromRecNo);
+                if (start < 0) {
+                    start = -(start + 1);
+                }
+                for (int i = start; i < candidateRecNos.length && records.size() < maxRecords;
+                     i++) {
+                    addExactMatch(criteria, candidateRecNos[i], records);
+                }
+            } else {
+                // Scan only as far as needed to fill the page
+                RecordMatcher matcher = new RecordMatcher(databaseSchema, criteria);
+                for (int recNo = fromRecNo; matcher.isSatisfiable() && recNo < recordCount
+                        && records.size() < maxRecords; recNo++) {
+                    if (!isRecordDeleted(recNo) && matcher.matches(columnStore, recNo)) {
+                        addExactMatch(criteria, recNo, records);
+                    }
                 }
             }
+        } finally {
+            dataLock.readLock().unlock();
+        }
 
-            if (i == fieldDescriptions.length - 1) {
-                // Reached the last criteria element so we must have a match
-                match = true;
+        LOGGER.info("Found " + records.size() + " records exactly matching criteria: "
+                + Arrays.toString(criteria) + " from recNo: " + fromRecNo);
+        return records;
+    }
+
+    private void checkExactCriteria(String[] criteria) {
+        if (criteria == null) {
+            throw new IllegalArgumentException("criteria cannot be null");
+        }
+        if (criteria.length != databaseSchema.getFieldCount()) {
+            throw new IllegalArgumentException("criteria array must be of length: "
+                    + databaseSchema.getFieldCount());
+        }
+    }
+
+    /*
+     * Adds the record to the list if it exactly matches the criteria. The caller must hold the
+     * read lock.
+     */
+    private void addExactMatch(String[] criteria, int recNo, List<DatabaseRecord> records) {
+        String[] values = columnStore.getRecord(recNo);
+        if (isExactMatch(criteria, values)) {
+            records.add(new DatabaseRecord(recNo, values, columnStore.getVersion(recNo)));
+        }
+    }
+
+    /*
+     * Chooses the indexed field to use for an exact-match search, or returns -1 if none of the
+     * criteria can use an index.
+     */
+    private int selectExactIndexedField(String[] criteria) {
+        for (int i = 0; i < criteria.length; i++) {
+            if (hashIndexes[i] != null && criteria[i] != null) {
+                return i;
             }
         }
+        return -1;
+    }
 
-        return match;
+    private boolean isExactMatch(String[] criteria, String[] values) {
+        boolean matching = true;
+        for (int i = 0; matching && i < values.length; i++) {
+            if (criteria[i] != null) {
+                matching = criteria[i].equals(values[i]);
+            }
+        }
+        return matching;
     }
 
     /**
@@ -387,23 +847,24 @@ public class Data implements DBMain {
         }
 
         int recNoToWrite;
-        synchronized (databaseFile) {
+        long logSequence;
+        dataLock.writeLock().lock();
+        try {
             /*
              * If there are any deleted records, use the first available as the location to write
              * the new record to. If not, write it to the end of the file.
              */
-            if (deletedRecNos.isEmpty()) {
+            recNoToWrite = deletedRecNos.first();
+            if (recNoToWrite < 0) {
                 recNoToWrite = recordCount;
-            } else {
-                recNoToWrite = deletedRecNos.first();
             }
 
             try {
-                databaseFile.seek(getOffsetForRecord(recNoToWrite));
-                writeRecord(data);
+                writeRecord(recNoToWrite, data);
             } catch (IOException e) {
                 throw new DataAccessException(e);
             }
+            indexRecord(recNoToWrite);
 
             /*
              * If the record was written to the end of the file, increment the record count. If not,
@@ -414,26 +875,110 @@ public class Data implements DBMain {
             } else {
                 deletedRecNos.remove(recNoToWrite);
             }
+            modificationCount++;
+
+            try {
+                logSequence = endLoggedModification();
+            } catch (IOException e) {
+                throw new DataAccessException(e);
+            }
+        } finally {
+            dataLock.writeLock().unlock();
         }
+        awaitLogDurable(logSequence);
 
         LOGGER.info("Created record at recNo: " + recNoToWrite + ", with data: "
                 + Arrays.toString(data));
         return recNoToWrite;
     }
 
-    private void writeRecord(String[] data) throws IOException {
-        databaseFile.writeByte(DatabaseConstants.VALID_RECORD_FLAG);
+    private void writeRecord(int recNo, String[] data) throws IOException {
+        // Encode the complete record, including the validity flag, and write it in one operation
+        byte[] bytes = recordEncoder.encodeRecord(data);
+        writeFile(getOffsetForRecord(recNo), bytes, 0, bytes.length);
+        columnStore.putRecord(recNo, bytes, DatabaseConstants.RECORD_VALIDITY_FLAG_LENGTH);
+        columnStore.incrementVersion(recNo);
+    }
 
-        /*
-         * Build up the complete record as a string and write it out in one operation. Each field is
-         * padded or truncated as appropriate.
-         */
-        StringBuilder recordBuilder = new StringBuilder();
-        for (int i = 0; i < data.length; i++) {
-            recordBuilder.append(padOrTruncateData(data[i],
-                    databaseSchema.getFieldDescriptions()[i].getLength()));
+    /*
+     * Writes to the database file. If modifications are logged, the write is only recorded in the
+     * log and is made to the file once the log entry is durable, by awaitLogDurable. Must be
+     * called holding the write lock of dataLock, so that the log records the writes in the order
+     * they are made.
+     */
+    private void writeFile(long position, byte[] bytes, int offset, int length)
+            throws IOException {
+        if (writeAheadLog == null) {
+            databaseFile.write(position, bytes, offset, length);
+            return;
+        }
+
+        long sequence = writeAheadLog.append(position, bytes, offset, length);
+        synchronized (unappliedWrites) {
+            unappliedWrites.add(new LoggedWrite(sequence, position,
+                    Arrays.copyOfRange(bytes, offset, offset + length)));
+        }
+    }
+
+    /*
+     * Returns the sequence number of the last log entry of a modification, checkpointing the log
+     * first if it has grown too large. Must be called holding the write lock of dataLock, so that
+     * no write is logged between syncing the database file and truncating the log.
+     */
+    private long endLoggedModification() throws IOException {
+        if (writeAheadLog == null) {
+            return 0;
+        }
+        long logSequence = writeAheadLog.getAppendedSequence();
+        if (writeAheadLog.size() >= WriteAheadLog.DEFAULT_CHECKPOINT_SIZE) {
+            checkpointLog(logSequence);
+        }
+        return logSequence;
+    }
+
+    /*
+     * Makes every logged write up to the specified log sequence number to the database file, syncs
+     * the file and then discards the log. Must be called holding the write lock of dataLock, with
+     * the specified sequence number being the last one appended.
+     */
+    private void checkpointLog(long logSequence) throws IOException {
+        // Every logged write must be in the file before the log can be discarded
+        writeAheadLog.awaitDurable(logSequence);
+        applyLoggedWrites(logSequence);
+        databaseFile.sync();
+        writeAheadLog.checkpoint();
+    }
+
+    /*
+     * Waits until the log entries of a modification are durable, then makes the logged writes to
+     * the database file. Called after releasing the write lock of dataLock so that other
+     * modifications can join the same log sync.
+     */
+    private void awaitLogDurable(long logSequence) {
+        if (writeAheadLog != null) {
+            try {
+                writeAheadLog.awaitDurable(logSequence);
+                applyLoggedWrites(logSequence);
+            } catch (IOException e) {
+                throw new DataAccessException(e);
+            }
+        }
+    }
+
+    /*
+     * Makes the logged writes up to the specified log sequence number to the database file, in log
+     * order. The log entries must be durable. A write that fails stays queued, so it is retried by
+     * the next modification and is replayed from the log if the database is not shut down cleanly.
+     */
+    private void applyLoggedWrites(long logSequence) throws IOException {
+        synchronized (unappliedWrites) {
+            while (!unappliedWrites.isEmpty()
+                    && unappliedWrites.getFirst().sequence <= logSequence) {
+                LoggedWrite write = unappliedWrites.getFirst();
+                databaseFile.write(write.position, write.bytes, 0, write.bytes.length);
+                unappliedWrites.removeFirst();
+            }
         }
-        databaseFile.write(recordBuilder.toString().getBytes(DatabaseConstants.CHARACTER_SET));
     }
 
     /**
@@ -444,6 +989,110 @@ public class Data implements DBMain {
      * <code>getCause</code> method.
      */
     public void lock(int recNo) throws RecordNotFoundException {
+        acquireLock(recNo, Thread.currentThread(), false, 0, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Locks a record so that it can only be updated or deleted by this thread, without waiting if
+     * the record is already locked by another thread.
+     *
+     * @param recNo Database record number.
+     * @return <code>true</code> if the lock was acquired, <code>false</code> if the record is
+     * locked by another thread.
+     * @throws RecordNotFoundException If the specified record does not exist or is marked as
+     *                                 deleted in the database.
+     */
+    public boolean tryLock(int recNo) throws RecordNotFoundException {
+        return acquireLock(recNo, Thread.currentThread(), true, 0, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Locks a record so that it can only be updated or deleted by this thread. If the specified
+     * record is already locked, the current thread waits until it is unlocked or until the
+     * specified waiting time elapses, whichever happens first.
+     * <p/>
+     * The cause of the <code>IllegalThreadStateException</code> thrown from this method will be the
+     * original <code>InterruptedException</code> which can be accessed via the
+     * <code>getCause</code> method.
+     *
+     * @param recNo   Database record number.
+     * @param timeout Maximum time to wait for the lock.
+     * @param unit    Unit of the <code>timeout</code> argument.
+     * @return <code>true</code> if the lock was acquired, <code>false</code> if the waiting time
+     * elapsed before the lock was available.
+     * @throws RecordNotFoundException   If the specified record does not exist or is marked as
+     *                                   deleted in the database.
+     * @throws IllegalThreadStateException If the calling thread is interrupted while waiting to
+     *                                   acquire the lock.
+     * @throws IllegalArgumentException  If <code>unit</code> is <code>null</code>.
+     */
+    public boolean lock(int recNo, long timeout, TimeUnit unit) throws RecordNotFoundException {
+        if (unit == null) {
+            throw new IllegalArgumentException("unit cannot be null");
+        }
+        return acquireLock(recNo, Thread.currentThread(), true, timeout, unit);
+    }
+
+    /**
+     * Locks a record and returns a lock cookie that identifies the owner of the lock. Unlike
+     * {@link #lock(int)}, the lock is not tied to the calling thread: the record can be updated,
+     * deleted and unlocked from any thread by passing the cookie to
+     * {@link #update(int, String[], long)}, {@link #delete(int, long)} and
+     * {@link #unlock(int, long)}. If the specified record is already locked, the current thread
+     * waits until it is unlocked.
+     * <p/>
+     * The cause of the <code>IllegalThreadStateException</code> thrown from this method will be the
+     * original <code>InterruptedException</code> which can be accessed via the
+     * <code>getCause</code> method.
+     *
+     * @param recNo Database record number.
+     * @return The lock cookie.
+     * @throws RecordNotFoundException     If the specified record does not exist or is marked as
+     *                                     deleted in the database.
+     * @throws IllegalThreadStateException If the calling thread is interrupted while waiting to
+     *                                     acquire the lock.
+     */
+    public long lockRecord(int recNo) throws RecordNotFoundException {
+        long lockCookie = lockManager.newCookie();
+        acquireLock(recNo, Long.valueOf(lockCookie), false, 0, TimeUnit.NANOSECONDS);
+        return lockCookie;
+    }
+
+    /**
+     * Locks a record and returns a lock cookie that identifies the owner of the lock, waiting at
+     * most the specified time if the record is already locked. A timeout of zero or less does not
+     * wait at all.
+     * <p/>
+     * The cause of the <code>IllegalThreadStateException</code> thrown from this method will be the
+     * original <code>InterruptedException</code> which can be accessed via the
+     * <code>getCause</code> method.
+     *
+     * @param recNo   Database record number.
+     * @param timeout Maximum time to wait for the lock.
+     * @param unit    Unit of the <code>timeout</code> argument.
+     * @return The lock cookie, or {@link DatabaseConstants#NO_LOCK_COOKIE} if the waiting time
+     * elapsed before the lock was available.
+     * @throws RecordNotFoundException     If the specified record does not exist or is marked as
+     *                                     deleted in the database.
+     * @throws IllegalThreadStateException If the calling thread is interrupted while waiting to
+     *                                     acquire the lock.
+     * @throws IllegalArgumentException    If <code>unit</code> is <code>null</code>.
+     * @see #lockRecord(int)
+     */
+    public long tryLockRecord(int recNo, long timeout, TimeUnit unit)
+            throws RecordNotFoundException {
+        if (unit == null) {
+            throw new IllegalArgumentException("unit cannot be null");
+        }
+        long lockCookie = lockManager.newCookie();
+        if (acquireLock(recNo, Long.valueOf(lockCookie), true, timeout, unit)) {
+            return lockCookie;
+        }
+        return DatabaseConstants.NO_LOCK_COOKIE;
+    }
+
+    private boolean acquireLock(int recNo, Object owner, boolean timed, long timeout,
+            TimeUnit unit) throws RecordNotFoundException {
         validateRecordNumber(recNo);
 
         String deletedMessage = "Record " + recNo + " has been deleted";
@@ -451,84 +1100,84 @@ public class Data implements DBMain {
             throw new RecordNotFoundException(deletedMessage);
         }
 
-        lock.lock();
         try {
-            // Get or create a lock condition for the record to be locked
-            Condition condition = conditionsMap.get(recNo);
-            if (condition == null) {
-                condition = lock.newCondition();
-                conditionsMap.put(recNo, condition);
+            // Wait until the lock on the record is available
+            if (lockManager.isLocked(recNo)) {
+                LOGGER.info(RecordLockManager.describeOwner(owner)
+                        + " waiting for lock on record: " + recNo);
             }
-
-            try {
-                while (lockedRecords.containsKey(recNo)) {
-                    // If the record is currently locked, wait on the condition
-                    LOGGER.info("Thread with ID=" + Thread.currentThread().getId()
-                            + " waiting for lock on record: " + recNo);
-                    condition.await();
-                }
-            } catch (InterruptedException e) {
-                // Thread has been interrupted, throw a runtime exception
-                String message = "Thread with ID=" + Thread.currentThread().getId()
-                        + " has been interrupted while waiting for lock on record: " + recNo;
-                LOGGER.info(message);
-                IllegalThreadStateException exception = new IllegalThreadStateException(message);
-                exception.initCause(e);
-                throw exception;
+            if (!timed) {
+                lockManager.lock(recNo, owner);
+            } else if (!lockManager.tryLock(recNo, owner, timeout, unit)) {
+                LOGGER.info(RecordLockManager.describeOwner(owner)
+                        + " timed out waiting for lock on record: " + recNo);
+                return false;
             }
+        } catch (InterruptedException e) {
+            // Thread has been interrupted, throw a runtime exception
+            String message = "Thread with ID=" + Thread.currentThread().getId()
+                    + " has been interrupted while waiting for lock on record: " + recNo;
+            LOGGER.info(message);
+            IllegalThreadStateException exception = new IllegalThreadStateException(message);
+            exception.initCause(e);
+            throw exception;
+        }
 
-            LOGGER.info("Thread with ID=" + Thread.currentThread().getId()
-                    + " acquired lock on record: " + recNo);
-
-            if (isRecordDeleted(recNo)) {
-                /*
-                 * Record is deleted, wake another thread waiting on the condition for this record
-                 * and throw an exception.
-                 */
-                LOGGER.info(deletedMessage + ", thread with ID=" + Thread.currentThread().getId()
-                        + " released lock on record: " + recNo);
-                condition.signal();
-                throw new RecordNotFoundException(deletedMessage);
-            }
+        LOGGER.info(RecordLockManager.describeOwner(owner) + " acquired lock on record: " + recNo);
 
-            // Store the ID of the thread that has locked this record
-            lockedRecords.put(recNo, Thread.currentThread().getId());
-        } finally {
-            lock.unlock();
+        if (isRecordDeleted(recNo)) {
+            /*
+             * Record is deleted, release the lock (waking another thread waiting for this record)
+             * and throw an exception.
+             */
+            LOGGER.info(deletedMessage + ", " + RecordLockManager.describeOwner(owner)
+                    + " released lock on record: " + recNo);
+            lockManager.unlock(recNo, owner);
+            throw new RecordNotFoundException(deletedMessage);
         }
+        return true;
     }
 
     /**
      * {@inheritDoc}
      */
     public void unlock(int recNo) throws RecordNotFoundException {
+        unlockAsOwner(recNo, Thread.currentThread());
+    }
+
+    /**
+     * Releases the lock on a record locked with {@link #lockRecord} or {@link #tryLockRecord}. The
+     * method can be called from any thread.
+     *
+     * @param recNo      Database record number.
+     * @param lockCookie Lock cookie returned when the record was locked.
+     * @throws RecordNotFoundException If the specified record does not exist or is marked as
+     *                                 deleted in the database.
+     * @throws IllegalStateException   If the record is not locked with <code>lockCookie</code>.
+     */
+    public void unlock(int recNo, long lockCookie) throws RecordNotFoundException {
+        unlockAsOwner(recNo, Long.valueOf(lockCookie));
+    }
+
+    private void unlockAsOwner(int recNo, Object owner) throws RecordNotFoundException {
         validateRecordNumber(recNo);
         if (isRecordDeleted(recNo)) {
             throw new RecordNotFoundException("Record " + recNo + " has been deleted");
         }
-
-        // Can't unlock unless the thread is currently holding the lock
-        if (isCurrentThreadHoldingLock(recNo)) {
-            unlockRecord(recNo);
-        } else {
-            throw new IllegalStateException("Calling thread does not hold the lock on record "
-                    + recNo);
-        }
+        unlockRecord(recNo, owner);
     }
 
-    private void unlockRecord(int recNo) {
-        lock.lock();
+    private void unlockRecord(int recNo, Object owner) {
+        /*
+         * Release the lock, waking a thread that is waiting for the lock on this record. Can't
+         * unlock unless the owner is currently holding the lock.
+         */
         try {
-            // Remove the entry for this record from locked records map
-            lockedRecords.remove(recNo);
-
-            // Wake a thread that is waiting for the lock on this record
-            LOGGER.info("Thread with ID=" + Thread.currentThread().getId()
-                    + " released lock on record: " + recNo);
-            conditionsMap.get(recNo).signal();
-        } finally {
-            lock.unlock();
+            lockManager.unlock(recNo, owner);
+        } catch (IllegalMonitorStateException e) {
+            throw new IllegalStateException(e.getMessage());
         }
+        LOGGER.info(RecordLockManager.describeOwner(owner) + " released lock on record: " + recNo);
     }
 
     /**
@@ -539,6 +1188,76 @@ public class Data implements DBMain {
         if (isRecordDeleted(recNo)) {
             throw new RecordNotFoundException("Record " + recNo + " has been deleted");
         }
-        return lockedRecords.containsKey(recNo);
+        return lockManager.isLocked(recNo);
+    }
+
+    /**
+     * Returns a snapshot of the state of the record locks, including wait queue depths, handoffs
+     * to waiting threads, wait time percentiles and the number of lock leases that have expired.
+     *
+     * @return The lock statistics.
+     * @see DatabaseOptions#setFairLocking(boolean)
+     * @see DatabaseOptions#setLockLeaseTimeout(long)
+     */
+    public LockStatistics getLockStatistics() {
+        return lockManager.getStatistics();
+    }
+
+    /**
+     * Stops the background threads of the database: the thread that releases expired lock leases,
+     * if lock leases are enabled, and the threads used for parallel scans. Locks are no longer
+     * released when their lease expires once this method has been called. If the database has a
+     * write-ahead log, every logged write is made to the database file, the file is synced and
+     * the log is checkpointed and closed, so nothing is left to replay. The database file is then
+     * closed.
+     *
+     * @throws IOException If the logged writes cannot be made to the database file, in which case
+     *                     they are replayed from the log when the database is next opened, or if
+     *                     the database file cannot be closed.
+     * @see DatabaseOptions#setLockLeaseTimeout(long)
+     */
+    public void close() throws IOException {
+        lockManager.close();
+        recordScanner.close();
+        try {
+            if (writeAheadLog != null) {
+                dataLock.writeLock().lock();
+                try {
+                    checkpointLog(writeAheadLog.getAppendedSequence());
+                } finally {
+                    dataLock.writeLock().unlock();
+                    writeAheadLog.close();
+                }
+            }
+        } finally {
+            databaseFile.close();
+        }
+    }
+
+    /**
+     * Returns the number of modifications made to the database since it was opened. Every update,
+     * delete and create increments the count, so a cached search result is still current if the
+     * count has not changed since the search was made.
+     *
+     * @return The modification count.
+     */
+    public long getModificationCount() {
+        return modificationCount;
+    }
+
+    /*
+     * A write to the database file that has been recorded in the log but not yet made to the file.
+     */
+    private static final class LoggedWrite {
+
+        private final long sequence;
+        private final long position;
+        private final byte[] bytes;
+
+        private LoggedWrite(long sequence, long position, byte[] bytes) {
+            this.sequence = sequence;
+            this.position = position;
+            this.bytes = bytes;
+        }
     }
 }
@@ -7,6 +7,8 @@
 package suncertify.db;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Adapts {@link Data} to the {@link Database} interface. The main purpose of this class is to map
@@ -45,6 +47,19 @@ public final class DataAdapter implements Database {
         }
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * @see Data#readRecords(int[])
+     */
+    public List<DatabaseRecord> readRecords(int[] recNos) throws IOException {
+        try {
+            return data.readRecords(recNos);
+        } catch (DataAccessException e) {
+            throw (IOException) e.getCause();
+        }
+    }
+
     /**
      * {@inheritDoc}
      *
@@ -58,6 +73,34 @@ public final class DataAdapter implements Database {
         }
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * @see Data#update(int, String[], long)
+     */
+    public void update(int recNo, String[] recordData, long lockCookie)
+            throws RecordNotFoundException, IOException {
+        try {
+            data.update(recNo, recordData, lockCookie);
+        } catch (DataAccessException e) {
+            throw (IOException) e.getCause();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see Data#compareAndUpdate(int, long, String[])
+     */
+    public boolean compareAndUpdate(int recNo, long expectedVersion, String[] recordData)
+            throws RecordNotFoundException, IOException {
+        try {
+            return data.compareAndUpdate(recNo, expectedVersion, recordData);
+        } catch (DataAccessException e) {
+            throw (IOException) e.getCause();
+        }
+    }
+
     /**
      * {@inheritDoc}
      *
@@ -71,6 +114,19 @@ public final class DataAdapter implements Database {
         }
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * @see Data#delete(int, long)
+     */
+    public void delete(int recNo, long lockCookie) throws RecordNotFoundException, IOException {
+        try {
+            data.delete(recNo, lockCookie);
+        } catch (DataAccessException e) {
+            throw (IOException) e.getCause();
+        }
+    }
+
     /**
      * {@inheritDoc}
      *
@@ -84,6 +140,46 @@ public final class DataAdapter implements Database {
         }
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * @see Data#findRecords(String[])
+     */
+    public List<DatabaseRecord> findRecords(String[] criteria) throws IOException {
+        try {
+            return data.findRecords(criteria);
+        } catch (DataAccessException e) {
+            throw (IOException) e.getCause();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see Data#findExact(String[])
+     */
+    public List<DatabaseRecord> findExact(String[] criteria) throws IOException {
+        try {
+            return data.findExact(criteria);
+        } catch (DataAccessException e) {
+            throw (IOException) e.getCause();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see Data#findExact(String[], int, int)
+     */
+    public List<DatabaseRecord> findExact(String[] criteria, int fromRecNo, int maxRecords)
+            throws IOException {
+        try {
+            return data.findExact(criteria, fromRecNo, maxRecords);
+        } catch (DataAccessException e) {
+            throw (IOException) e.getCause();
+        }
+    }
+
     /**
      * {@inheritDoc}
      *
@@ -110,6 +206,56 @@ public final class DataAdapter implements Database {
         }
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * @see Data#tryLock(int)
+     */
+    public boolean tryLock(int recNo) throws RecordNotFoundException {
+        return data.tryLock(recNo);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see Data#lock(int, long, TimeUnit)
+     */
+    public boolean lock(int recNo, long timeout, TimeUnit unit) throws RecordNotFoundException,
+            InterruptedException {
+        try {
+            return data.lock(recNo, timeout, unit);
+        } catch (IllegalThreadStateException e) {
+            throw (InterruptedException) e.getCause();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see Data#lockRecord(int)
+     */
+    public long lockRecord(int recNo) throws RecordNotFoundException, InterruptedException {
+        try {
+            return data.lockRecord(recNo);
+        } catch (IllegalThreadStateException e) {
+            throw (InterruptedException) e.getCause();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see Data#tryLockRecord(int, long, TimeUnit)
+     */
+    public long tryLockRecord(int recNo, long timeout, TimeUnit unit)
+            throws RecordNotFoundException, InterruptedException {
+        try {
+            return data.tryLockRecord(recNo, timeout, unit);
+        } catch (IllegalThreadStateException e) {
+            throw (InterruptedException) e.getCause();
+        }
+    }
+
     /**
      * {@inheritDoc}
      *
@@ -119,6 +265,15 @@ public final class DataAdapter implements Database {
         data.unlock(recNo);
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * @see Data#unlock(int, long)
+     */
+    public void unlock(int recNo, long lockCookie) throws RecordNotFoundException {
+        data.unlock(recNo, lockCookie);
+    }
+
     /**
      * {@inheritDoc}
      *
@@ -127,4 +282,22 @@ public final class DataAdapter implements Database {
     public boolean isLocked(int recNo) throws RecordNotFoundException {
         return data.isLocked(recNo);
     }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see Data#getLockStatistics()
+     */
+    public LockStatistics getLockStatistics() {
+        return data.getLockStatistics();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see Data#getModificationCount()
+     */
+    public long getModificationCount() {
+        return data.getModificationCount();
+    }
 }
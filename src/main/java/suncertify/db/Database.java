@@ -7,6 +7,8 @@
 package suncertify.db;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Interface defining methods for interacting with a contractor database. Defines the same methods
@@ -46,6 +48,18 @@ public interface Database {
      */
     String[] read(int recNo) throws RecordNotFoundException, IOException;
 
+    /**
+     * Reads many records in one operation. Returns a list containing the record number and values
+     * of each record. Record numbers that do not exist or are marked as deleted in the database
+     * are skipped.
+     *
+     * @param recNos Database record numbers.
+     * @return A list of the records that exist, in the same order as <code>recNos</code>.
+     * @throws IOException              If there is an error accessing the database.
+     * @throws IllegalArgumentException If <code>recNos</code> is <code>null</code>.
+     */
+    List<DatabaseRecord> readRecords(int[] recNos) throws IOException;
+
     /**
      * Modifies the fields of a record. The new value for field n appears in data[n]. The calling
      * thread must hold the lock on the record to be updated.
@@ -61,6 +75,44 @@ public interface Database {
      */
     void update(int recNo, String[] data) throws RecordNotFoundException, IOException;
 
+    /**
+     * Modifies the fields of a record locked with <code>lockRecord</code> or
+     * <code>tryLockRecord</code>. The new value for field n appears in data[n]. The method can be
+     * called from any thread.
+     *
+     * @param recNo      Database record number.
+     * @param data       <code>String</code> array containing new record values. If <code>data[n]</code> is
+     *                   <code>null</code> field <code>n</code> will not be updated.
+     * @param lockCookie Lock cookie returned when the record was locked.
+     * @throws RecordNotFoundException  If the specified record does not exist or is marked as deleted in the database.
+     * @throws IOException              If there is an error accessing the database.
+     * @throws IllegalArgumentException If <code>data</code> is <code>null</code> or is of length not equal to the
+     *                                  database schema field count.
+     * @throws IllegalStateException    If the record is not locked with <code>lockCookie</code>.
+     */
+    void update(int recNo, String[] data, long lockCookie) throws RecordNotFoundException,
+            IOException;
+
+    /**
+     * Modifies the fields of a record, but only if the record has not been modified since it was
+     * read with the specified version and is not locked. The version check and the update are made
+     * in a single atomic step, so the record does not need to be locked first.
+     *
+     * @param recNo           Database record number.
+     * @param expectedVersion Version of the record when it was read, as returned by
+     *                        {@link DatabaseRecord#getVersion}.
+     * @param data            <code>String</code> array containing new record values. If <code>data[n]</code> is
+     *                        <code>null</code> field <code>n</code> will not be updated.
+     * @return <code>true</code> if the record was updated, <code>false</code> if it has been modified since it was
+     * read or is locked.
+     * @throws RecordNotFoundException  If the specified record does not exist or is marked as deleted in the database.
+     * @throws IOException              If there is an error accessing the database.
+     * @throws IllegalArgumentException If <code>data</code> is <code>null</code> or is of length not equal to the
+     *                                  database schema field count.
+     */
+    boolean compareAndUpdate(int recNo, long expectedVersion, String[] data)
+            throws RecordNotFoundException, IOException;
+
     /**
      * Deletes a record, making the record number and associated disk storage available for reuse.
      * The calling thread must hold the lock on the record to be deleted. It is not necessary to
@@ -73,6 +125,19 @@ public interface Database {
      */
     void delete(int recNo) throws RecordNotFoundException, IOException;
 
+    /**
+     * Deletes a record locked with <code>lockRecord</code> or <code>tryLockRecord</code>, making
+     * the record number and associated disk storage available for reuse. The method can be called
+     * from any thread. It is not necessary to call <code>unlock</code> after calling this method.
+     *
+     * @param recNo      Database record number.
+     * @param lockCookie Lock cookie returned when the record was locked.
+     * @throws RecordNotFoundException If the specified record does not exist or is marked as deleted in the database.
+     * @throws IOException             If there is an error accessing the database.
+     * @throws IllegalStateException   If the record is not locked with <code>lockCookie</code>.
+     */
+    void delete(int recNo, long lockCookie) throws RecordNotFoundException, IOException;
+
     /**
      * Returns an array of record numbers that match the specified criteria. Field <code>n</code> in
      * the database file is described by <code>criteria[n]</code>. A <code>null</code> value in
@@ -88,6 +153,54 @@ public interface Database {
      */
     int[] find(String[] criteria) throws IOException;
 
+    /**
+     * Returns the records that match the specified criteria. Matching is the same as for
+     * <code>find</code>, but the record values are returned with the record numbers, so it is not
+     * necessary to call <code>read</code> for each match.
+     *
+     * @param criteria <code>String</code> array containing search criteria.
+     * @return A list of the matching records, in record number order.
+     * @throws IOException              If there is an error accessing the database.
+     * @throws IllegalArgumentException If <code>criteria</code> is <code>null</code> or is of length not equal to the
+     *                                  database schema field count.
+     */
+    List<DatabaseRecord> findRecords(String[] criteria) throws IOException;
+
+    /**
+     * Returns the records that exactly match the specified criteria. Field <code>n</code> in the
+     * database file is described by <code>criteria[n]</code>. A <code>null</code> value in
+     * <code>criteria[n]</code> matches any field value. A non-<code>null</code> value in
+     * <code>criteria[n]</code> matches a field value that is equal to <code>criteria[n]</code>.
+     * (For example, "Fred" matches "Fred" but not "Freddy".) The record values are returned with
+     * the record numbers, so it is not necessary to call <code>read</code> for each match.
+     *
+     * @param criteria <code>String</code> array containing search criteria.
+     * @return A list of the matching records, in record number order.
+     * @throws IOException              If there is an error accessing the database.
+     * @throws IllegalArgumentException If <code>criteria</code> is <code>null</code> or is of length not equal to the
+     *                                  database schema field count.
+     */
+    List<DatabaseRecord> findExact(String[] criteria) throws IOException;
+
+    /**
+     * Returns a page of the records that exactly match the specified criteria, as described by
+     * {@link #findExact(String[])}. Only records with a record number of at least
+     * <code>fromRecNo</code> are returned, and at most <code>maxRecords</code> of them. The next
+     * page starts at one more than the number of the last record returned. Fewer than
+     * <code>maxRecords</code> records are returned only when there are no more matches.
+     *
+     * @param criteria   <code>String</code> array containing search criteria.
+     * @param fromRecNo  Lowest record number to return.
+     * @param maxRecords Maximum number of records to return.
+     * @return A list of the matching records, in record number order.
+     * @throws IOException              If there is an error accessing the database.
+     * @throws IllegalArgumentException If <code>criteria</code> is <code>null</code> or is of length not equal to the
+     *                                  database schema field count, <code>fromRecNo</code> is negative, or
+     *                                  <code>maxRecords</code> is not positive.
+     */
+    List<DatabaseRecord> findExact(String[] criteria, int fromRecNo, int maxRecords)
+            throws IOException;
+
     /**
      * Creates a new record in the database (possibly reusing a deleted entry). Inserts the given
      * data, and returns the record number of the new record.
@@ -111,6 +224,62 @@ public interface Database {
      */
     void lock(int recNo) throws RecordNotFoundException, InterruptedException;
 
+    /**
+     * Locks a record so that it can only be updated or deleted by this thread, without waiting if
+     * the record is already locked by another thread.
+     *
+     * @param recNo Database record number.
+     * @return <code>true</code> if the lock was acquired, <code>false</code> if the record is locked by another thread.
+     * @throws RecordNotFoundException If the specified record does not exist or is marked as deleted in the database.
+     */
+    boolean tryLock(int recNo) throws RecordNotFoundException;
+
+    /**
+     * Locks a record so that it can only be updated or deleted by this thread. If the specified
+     * record is already locked, the current thread waits until it is unlocked or until the
+     * specified waiting time elapses, whichever happens first.
+     *
+     * @param recNo   Database record number.
+     * @param timeout Maximum time to wait for the lock.
+     * @param unit    Unit of the <code>timeout</code> argument.
+     * @return <code>true</code> if the lock was acquired, <code>false</code> if the waiting time elapsed before the
+     * lock was available.
+     * @throws RecordNotFoundException  If the specified record does not exist or is marked as deleted in the database.
+     * @throws InterruptedException     If the calling thread is interrupted while waiting to acquire the lock.
+     * @throws IllegalArgumentException If <code>unit</code> is <code>null</code>.
+     */
+    boolean lock(int recNo, long timeout, TimeUnit unit) throws RecordNotFoundException,
+            InterruptedException;
+
+    /**
+     * Locks a record and returns a lock cookie that identifies the owner of the lock. The lock is
+     * not tied to the calling thread: the record can be updated, deleted and unlocked from any
+     * thread by passing the cookie to the methods that accept one. If the specified record is
+     * already locked, the current thread waits until it is unlocked.
+     *
+     * @param recNo Database record number.
+     * @return The lock cookie.
+     * @throws RecordNotFoundException If the specified record does not exist or is marked as deleted in the database.
+     * @throws InterruptedException    If the calling thread is interrupted while waiting to acquire the lock.
+     */
+    long lockRecord(int recNo) throws RecordNotFoundException, InterruptedException;
+
+    /**
+     * Locks a record and returns a lock cookie that identifies the owner of the lock, waiting at
+     * most the specified time if the record is already locked.
+     *
+     * @param recNo   Database record number.
+     * @param timeout Maximum time to wait for the lock.
+     * @param unit    Unit of the <code>timeout</code> argument.
+     * @return The lock cookie, or {@link DatabaseConstants#NO_LOCK_COOKIE} if the waiting time elapsed before the
+     * lock was available.
+     * @throws RecordNotFoundException  If the specified record does not exist or is marked as deleted in the database.
+     * @throws InterruptedException     If the calling thread is interrupted while waiting to acquire the lock.
+     * @throws IllegalArgumentException If <code>unit</code> is <code>null</code>.
+     */
+    long tryLockRecord(int recNo, long timeout, TimeUnit unit) throws RecordNotFoundException,
+            InterruptedException;
+
     /**
      * Releases the lock on a record. The calling thread must hold the lock on the record to be
      * unlocked.
@@ -121,6 +290,17 @@ public interface Database {
      */
     void unlock(int recNo) throws RecordNotFoundException;
 
+    /**
+     * Releases the lock on a record locked with <code>lockRecord</code> or
+     * <code>tryLockRecord</code>. The method can be called from any thread.
+     *
+     * @param recNo      Database record number.
+     * @param lockCookie Lock cookie returned when the record was locked.
+     * @throws RecordNotFoundException If the specified record does not exist or is marked as deleted in the database.
+     * @throws IllegalStateException   If the record is not locked with <code>lockCookie</code>.
+     */
+    void unlock(int recNo, long lockCookie) throws RecordNotFoundException;
+
     /**
      * Determines if a record is currently locked. Returns <code>true</code> if the record is
      * locked, <code>false</code> otherwise.
@@ -130,4 +310,22 @@ public interface Database {
      * @throws RecordNotFoundException If the specified record does not exist or is marked as deleted in the database.
      */
     boolean isLocked(int recNo) throws RecordNotFoundException;
+
+    /**
+     * Returns a snapshot of the state of the record locks, including wait queue depths, handoffs
+     * to waiting threads, wait time percentiles and the number of lock leases that have expired and
+     * been released automatically.
+     *
+     * @return The lock statistics.
+     */
+    LockStatistics getLockStatistics();
+
+    /**
+     * Returns the number of modifications made to the database since it was opened. Every update,
+     * delete and create increments the count, so callers can detect that the database has been
+     * modified by comparing two counts.
+     *
+     * @return The modification count.
+     */
+    long getModificationCount();
 }
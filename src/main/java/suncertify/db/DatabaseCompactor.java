@@ -0,0 +1,158 @@
+/*
+ * DatabaseCompactor.java
+ *
+ * 18 Oct 2026
+ */
+
+package suncertify.db;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.logging.Logger;
+
+/**
+ * Removes the slots of deleted records from a database file, so that scans of the data section no
+ * longer have to skip them. The valid records are copied, in order, to a new file which is synced
+ * and then renamed over the database file; if compaction fails part way through, the database file
+ * is left as it was.
+ * <p/>
+ * Compaction changes the record numbers of every record after the first deleted slot, so it must
+ * only be run while the database file is not open, before any record numbers have been handed out.
+ *
+ * @author Richard Wardle
+ */
+final class DatabaseCompactor {
+
+    /**
+     * Suffix appended to the database file path to give the path of the file that the compacted
+     * records are written to.
+     */
+    static final String FILE_SUFFIX = ".compact";
+
+    private static final Logger LOGGER = Logger.getLogger(DatabaseCompactor.class.getName());
+
+    // Number of records read from the database file at a time
+    private static final int RECORDS_PER_READ = 256;
+
+    private final File databaseFile;
+    private final DatabaseSchema databaseSchema = new DatabaseSchema();
+
+    /**
+     * Creates a new instance of <code>DatabaseCompactor</code>.
+     *
+     * @param databaseFile Database file to compact.
+     * @throws IllegalArgumentException If <code>databaseFile</code> is <code>null</code>.
+     */
+    DatabaseCompactor(File databaseFile) {
+        if (databaseFile == null) {
+            throw new IllegalArgumentException("databaseFile cannot be null");
+        }
+        this.databaseFile = databaseFile;
+    }
+
+    /**
+     * Compacts the database file. Any entries in the write-ahead log are replayed into the database
+     * file first, since they refer to the positions of records before compaction. The database
+     * file is not rewritten if it contains no deleted records.
+     *
+     * @param writeAheadLog Write-ahead log of the database file, may be <code>null</code>.
+     * @return The number of deleted record slots that were removed.
+     * @throws IOException             If there is an error reading or writing the database file.
+     * @throws DataValidationException If the database file is invalid.
+     */
+    int compact(WriteAheadLog writeAheadLog) throws IOException, DataValidationException {
+        File compactFile = new File(databaseFile.getPath() + FILE_SUFFIX);
+        int deletedCount;
+        DatabaseFileImpl source = new DatabaseFileImpl(databaseFile.getPath());
+        try {
+            if (writeAheadLog != null) {
+                writeAheadLog.replay(source);
+            }
+
+            DatabaseFileValidator validator = new DatabaseFileValidator(source, databaseSchema);
+            validator.validate();
+            deletedCount = countDeletedRecords(source, validator);
+            if (deletedCount > 0) {
+                copyValidRecords(source, validator, compactFile);
+            }
+        } finally {
+            source.close();
+        }
+
+        if (deletedCount > 0) {
+            Files.move(compactFile.toPath(), databaseFile.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        LOGGER.info("Removed " + deletedCount + " deleted record slots from database file: "
+                + databaseFile);
+        return deletedCount;
+    }
+
+    private int countDeletedRecords(DatabaseFile source, DatabaseFileValidator validator)
+            throws IOException {
+        final int[] deletedCount = new int[1];
+        readRecords(source, validator, new RecordHandler() {
+            public void handle(byte[] records, int offset, int length) {
+                if (records[offset] == DatabaseConstants.DELETED_RECORD_FLAG) {
+                    deletedCount[0]++;
+                }
+            }
+        });
+        return deletedCount[0];
+    }
+
+    private void copyValidRecords(DatabaseFile source, DatabaseFileValidator validator,
+                                  File compactFile) throws IOException {
+        FileOutputStream fileStream = new FileOutputStream(compactFile);
+        try {
+            final OutputStream out = new BufferedOutputStream(fileStream);
+            byte[] header = new byte[(int) validator.getDataSectionOffset()];
+            source.readFully(0, header);
+            out.write(header);
+            readRecords(source, validator, new RecordHandler() {
+                public void handle(byte[] records, int offset, int length) throws IOException {
+                    if (records[offset] != DatabaseConstants.DELETED_RECORD_FLAG) {
+                        out.write(records, offset, length);
+                    }
+                }
+            });
+            out.flush();
+
+            // The compacted file must be durable before it replaces the database file
+            fileStream.getFD().sync();
+        } finally {
+            fileStream.close();
+        }
+    }
+
+    private void readRecords(DatabaseFile source, DatabaseFileValidator validator,
+                             RecordHandler handler) throws IOException {
+        int recordLength = DatabaseConstants.RECORD_VALIDITY_FLAG_LENGTH
+                + databaseSchema.getRecordLength();
+        int recordCount = validator.getRecordCount();
+        byte[] records = new byte[RECORDS_PER_READ * recordLength];
+        for (int recNo = 0; recNo < recordCount; recNo += RECORDS_PER_READ) {
+            int readCount = Math.min(RECORDS_PER_READ, recordCount - recNo);
+            byte[] bytes = readCount == RECORDS_PER_READ ? records
+                    : new byte[readCount * recordLength];
+            source.readFully(validator.getDataSectionOffset() + (long) recNo * recordLength,
+                    bytes);
+            for (int i = 0; i < readCount; i++) {
+                handler.handle(bytes, i * recordLength, recordLength);
+            }
+        }
+    }
+
+    /*
+     * Callback for each record read from the database file.
+     */
+    private interface RecordHandler {
+
+        void handle(byte[] records, int offset, int length) throws IOException;
+    }
+}
@@ -43,6 +43,16 @@ public class DatabaseConstants {
      */
     public static final byte DELETED_RECORD_FLAG = 1;
 
+    /**
+     * Value that is never issued as a lock cookie, returned when a lock could not be acquired.
+     */
+    public static final long NO_LOCK_COOKIE = 0;
+
+    /**
+     * Value that is never used as a record version, representing a version that is not known.
+     */
+    public static final long UNKNOWN_VERSION = 0;
+
     private DatabaseConstants() {
         // Prevent instantiation
     }
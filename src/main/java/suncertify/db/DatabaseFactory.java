@@ -28,4 +28,19 @@ public interface DatabaseFactory {
      */
     Database createDatabase(String databaseFilePath) throws FileNotFoundException,
             DataValidationException, IOException;
+
+    /**
+     * Creates a database using the specified options.
+     *
+     * @param databaseFilePath Path to the database file.
+     * @param options          Options controlling how the database is created.
+     * @return The database.
+     * @throws FileNotFoundException    If there is no file at <code>databaseFilePath</code>.
+     * @throws DataValidationException  If the database file is invalid.
+     * @throws IOException              If there is an error accessing the database file.
+     * @throws IllegalArgumentException If <code>databaseFilePath</code> or <code>options</code> is
+     *                                  <code>null</code>.
+     */
+    Database createDatabase(String databaseFilePath, DatabaseOptions options)
+            throws FileNotFoundException, DataValidationException, IOException;
 }
@@ -6,8 +6,10 @@
 
 package suncertify.db;
 
+import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
 
 /**
@@ -31,11 +33,84 @@ public final class DatabaseFactoryImpl implements DatabaseFactory {
      */
     public Database createDatabase(String databaseFilePath) throws FileNotFoundException,
             DataValidationException, IOException {
+        return createDatabase(databaseFilePath, new DatabaseOptions());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Database createDatabase(String databaseFilePath, DatabaseOptions options)
+            throws FileNotFoundException, DataValidationException, IOException {
         if (databaseFilePath == null) {
             throw new IllegalArgumentException("databaseFilePath cannot be null");
         }
+        if (options == null) {
+            throw new IllegalArgumentException("options cannot be null");
+        }
+
+        LOGGER.info("Creating database for file: " + databaseFilePath + ", with options: "
+                + options);
+        File logFile = new File(databaseFilePath + WriteAheadLog.FILE_SUFFIX);
+        WriteAheadLog writeAheadLog = null;
+        if (options.getDurabilityPolicy() == DurabilityPolicy.GROUP_SYNC) {
+            /*
+             * Modifications write to the database file while holding the data write lock, so
+             * they cannot share a sync of the file. Instead they share syncs of the log.
+             */
+            writeAheadLog = new WriteAheadLog(logFile, options.getGroupCommitDelay(),
+                    TimeUnit.MILLISECONDS);
+        } else if (logFile.exists()) {
+            replayLog(databaseFilePath, logFile);
+        }
+        if (options.isCompactOnOpen()) {
+            new DatabaseCompactor(new File(databaseFilePath)).compact(writeAheadLog);
+        }
 
-        LOGGER.info("Creating database for file: " + databaseFilePath);
-        return new DataAdapter(new Data(new DatabaseFileImpl(databaseFilePath)));
+        DatabaseFile databaseFile = createDatabaseFile(databaseFilePath, options);
+        switch (options.getDurabilityPolicy()) {
+            case SYNC_PER_WRITE:
+                databaseFile = new SyncingDatabaseFile(databaseFile, 0, TimeUnit.MILLISECONDS);
+                break;
+            case PERIODIC_SYNC:
+                databaseFile = new SyncingDatabaseFile(databaseFile, options.getSyncInterval(),
+                        TimeUnit.MILLISECONDS);
+                break;
+            default:
+                break;
+        }
+        return new DataAdapter(new Data(databaseFile, options, writeAheadLog));
+    }
+
+    /*
+     * Replays a log left by a database last opened with the group sync policy, which may hold
+     * acknowledged modifications that never reached the database file, and then deletes it.
+     */
+    private void replayLog(String databaseFilePath, File logFile) throws IOException {
+        LOGGER.info("Replaying log file: " + logFile);
+        WriteAheadLog writeAheadLog = new WriteAheadLog(logFile, 0, TimeUnit.MILLISECONDS);
+        try {
+            DatabaseFileImpl databaseFile = new DatabaseFileImpl(databaseFilePath);
+            try {
+                writeAheadLog.replay(databaseFile);
+            } finally {
+                databaseFile.close();
+            }
+        } finally {
+            writeAheadLog.close();
+        }
+        if (!logFile.delete()) {
+            throw new IOException("Unable to delete log file: " + logFile);
+        }
+    }
+
+    private DatabaseFile createDatabaseFile(String databaseFilePath, DatabaseOptions options)
+            throws FileNotFoundException, IOException {
+        DatabaseFile databaseFile;
+        if (options.isMemoryMapped()) {
+            databaseFile = new MappedDatabaseFile(databaseFilePath);
+        } else {
+            databaseFile = new DatabaseFileImpl(databaseFilePath);
+        }
+        return databaseFile;
     }
 }
@@ -9,7 +9,11 @@ package suncertify.db;
 import java.io.IOException;
 
 /**
- * A database file.
+ * A database file. The file can be accessed in two ways: through a file pointer that is moved by
+ * <code>seek</code> and advanced by each read or write, or through the positional
+ * <code>readFully(long, byte[])</code> and <code>write(long, byte[])</code> methods that take an
+ * absolute offset. The positional methods neither use nor modify the file pointer so they may be
+ * called concurrently from multiple threads.
  *
  * @author Richard Wardle
  */
@@ -135,4 +139,64 @@ public interface DatabaseFile {
      * @throws IOException If an I/O error occurs.
      */
     void writeByte(int v) throws IOException;
+
+    /**
+     * Reads <code>b.length</code> bytes from this file into the byte array, starting at the
+     * specified offset. This method does not use or modify the file pointer. This method blocks
+     * until the requested number of bytes are read, the end of the file is detected, or an
+     * exception is thrown.
+     *
+     * @param position Offset, measured in bytes from the beginning of the file, at which to start
+     *                 reading.
+     * @param b        The buffer into which the data is read.
+     * @throws java.io.EOFException If the end of the file is reached before all the bytes are read.
+     * @throws IOException          If <code>position</code> is less than <code>0</code> or if an I/O
+     *                              error occurs.
+     */
+    void readFully(long position, byte[] b) throws IOException;
+
+    /**
+     * Writes <code>b.length</code> bytes from the specified byte array to this file, starting at
+     * the specified offset. This method does not use or modify the file pointer. If the offset is
+     * beyond the end of the file, the file is grown to accommodate the new bytes.
+     *
+     * @param position Offset, measured in bytes from the beginning of the file, at which to start
+     *                 writing.
+     * @param b        The data.
+     * @throws IOException If <code>position</code> is less than <code>0</code> or if an I/O error
+     *                     occurs.
+     */
+    void write(long position, byte[] b) throws IOException;
+
+    /**
+     * Writes <code>length</code> bytes from the specified byte array, starting at
+     * <code>offset</code> in the array, to this file at the specified position. This method does
+     * not use or modify the file pointer. If the position is beyond the end of the file, the file
+     * is grown to accommodate the new bytes.
+     *
+     * @param position Offset, measured in bytes from the beginning of the file, at which to start
+     *                 writing.
+     * @param b        The data.
+     * @param offset   Offset in <code>b</code> of the first byte to write.
+     * @param length   Number of bytes to write.
+     * @throws IOException If <code>position</code> is less than <code>0</code> or if an I/O error
+     *                     occurs.
+     */
+    void write(long position, byte[] b, int offset, int length) throws IOException;
+
+    /**
+     * Forces any writes to this file to be written to the storage device that contains it. When
+     * this method returns, every write made before it was called will survive a crash of the
+     * operating system or a loss of power.
+     *
+     * @throws IOException If an I/O error occurs.
+     */
+    void sync() throws IOException;
+
+    /**
+     * Closes this file. The file cannot be used once it has been closed.
+     *
+     * @throws IOException If an I/O error occurs.
+     */
+    void close() throws IOException;
 }
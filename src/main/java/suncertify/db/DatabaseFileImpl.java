@@ -6,19 +6,25 @@
 
 package suncertify.db;
 
+import java.io.EOFException;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 
 /**
- * Implementation of {@link DatabaseFile} that delegates to {@link RandomAccessFile}.
+ * Implementation of {@link DatabaseFile} that delegates to {@link RandomAccessFile}. The positional
+ * methods are implemented using the {@link FileChannel} of the file, which allows them to proceed
+ * concurrently without disturbing the file pointer.
  *
  * @author Richard Wardle
  */
 public final class DatabaseFileImpl implements DatabaseFile {
 
     private final RandomAccessFile file;
+    private final FileChannel channel;
 
     /**
      * Creates a new instance of <code>DatabaseFileImpl</code>.
@@ -36,6 +42,7 @@ public final class DatabaseFileImpl implements DatabaseFile {
         }
 
         file = new RandomAccessFile(new File(databaseFilePath), "rw");
+        channel = file.getChannel();
     }
 
     /**
@@ -118,4 +125,65 @@ public final class DatabaseFileImpl implements DatabaseFile {
     public void writeByte(int v) throws IOException {
         file.writeByte(v);
     }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see FileChannel#read(ByteBuffer, long)
+     */
+    public void readFully(long position, byte[] b) throws IOException {
+        if (position < 0) {
+            throw new IOException("Negative position: " + position);
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(b);
+        while (buffer.hasRemaining()) {
+            int bytesRead = channel.read(buffer, position + buffer.position());
+            if (bytesRead < 0) {
+                throw new EOFException("Cannot read " + b.length + " bytes at offset " + position
+                        + ", file length is " + channel.size());
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see FileChannel#write(ByteBuffer, long)
+     */
+    public void write(long position, byte[] b) throws IOException {
+        write(position, b, 0, b.length);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see FileChannel#write(ByteBuffer, long)
+     */
+    public void write(long position, byte[] b, int offset, int length) throws IOException {
+        if (position < 0) {
+            throw new IOException("Negative position: " + position);
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(b, offset, length);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, position + buffer.position() - offset);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void sync() throws IOException {
+        channel.force(false);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see RandomAccessFile#close()
+     */
+    public void close() throws IOException {
+        file.close();
+    }
 }
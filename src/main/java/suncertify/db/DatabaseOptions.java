@@ -0,0 +1,357 @@
+/*
+ * DatabaseOptions.java
+ *
+ * 18 Oct 2026
+ */
+
+package suncertify.db;
+
+import java.util.Arrays;
+
+/**
+ * Options that control how a contractor database is created. All <code>setXXX</code> methods of
+ * this class return <code>this</code> to enable use of the builder pattern when creating
+ * <code>DatabaseOptions</code> objects.
+ *
+ * @author Richard Wardle
+ */
+public final class DatabaseOptions {
+
+    /**
+     * Default minimum number of records for a search to scan the records in parallel.
+     */
+    public static final int DEFAULT_PARALLEL_SCAN_THRESHOLD = 10000;
+
+    /**
+     * Default interval, in milliseconds, between background syncs of the database file.
+     */
+    public static final long DEFAULT_SYNC_INTERVAL = 1000;
+
+    /**
+     * Indexes of the fields that are indexed by default: the name and location fields.
+     */
+    private static final int[] DEFAULT_INDEXED_FIELDS = {0, 1};
+
+    // Indicates if the database file should be accessed through a memory-mapped buffer
+    private boolean memoryMapped;
+
+    // Indexes, in the database schema, of the fields that have a prefix index
+    private int[] indexedFields = DEFAULT_INDEXED_FIELDS.clone();
+
+    // Minimum number of records for a search to scan the records in parallel
+    private int parallelScanThreshold = DEFAULT_PARALLEL_SCAN_THRESHOLD;
+
+    // Number of threads used for a parallel scan
+    private int scanParallelism = Runtime.getRuntime().availableProcessors();
+
+    // Time to live of a record lock lease in milliseconds, zero if leases never expire
+    private long lockLeaseTimeout;
+
+    // Indicates if record locks are granted to waiting threads in the order they started waiting
+    private boolean fairLocking;
+
+    // When the writes made by modifications are synced to the storage device
+    private DurabilityPolicy durabilityPolicy = DurabilityPolicy.NONE;
+
+    // Interval in milliseconds between background syncs of the database file
+    private long syncInterval = DEFAULT_SYNC_INTERVAL;
+
+    // Time in milliseconds a modification waits for others to share its log sync
+    private long groupCommitDelay;
+
+    // Indicates if the slots of deleted records are removed from the file when it is opened
+    private boolean compactOnOpen;
+
+    /**
+     * Creates a new instance of <code>DatabaseOptions</code> with all options initialised to
+     * their default values.
+     */
+    public DatabaseOptions() {
+        super();
+    }
+
+    /**
+     * Indicates if the database file should be accessed through a memory-mapped buffer.
+     *
+     * @return <code>true</code> if the database file should be memory-mapped, <code>false</code>
+     * otherwise.
+     */
+    public boolean isMemoryMapped() {
+        return memoryMapped;
+    }
+
+    /**
+     * Sets whether the database file should be accessed through a memory-mapped buffer. The
+     * default is <code>false</code>.
+     *
+     * @param memoryMapped <code>true</code> to memory-map the database file.
+     * @return This <code>DatabaseOptions</code> object.
+     * @see MappedDatabaseFile
+     */
+    public DatabaseOptions setMemoryMapped(boolean memoryMapped) {
+        this.memoryMapped = memoryMapped;
+        return this;
+    }
+
+    /**
+     * Returns the minimum number of records for a search to scan the records in parallel.
+     *
+     * @return The parallel scan threshold.
+     */
+    public int getParallelScanThreshold() {
+        return parallelScanThreshold;
+    }
+
+    /**
+     * Sets the minimum number of records for a search to scan the records in parallel. Searches of
+     * smaller databases scan the records sequentially on the calling thread. The default is
+     * {@link #DEFAULT_PARALLEL_SCAN_THRESHOLD}.
+     *
+     * @param parallelScanThreshold Parallel scan threshold.
+     * @return This <code>DatabaseOptions</code> object.
+     * @throws IllegalArgumentException If <code>parallelScanThreshold</code> is less than
+     *                                  <code>1</code>.
+     */
+    public DatabaseOptions setParallelScanThreshold(int parallelScanThreshold) {
+        if (parallelScanThreshold < 1) {
+            throw new IllegalArgumentException("parallelScanThreshold must be at least 1");
+        }
+        this.parallelScanThreshold = parallelScanThreshold;
+        return this;
+    }
+
+    /**
+     * Returns the number of threads used for a parallel scan.
+     *
+     * @return The scan parallelism.
+     */
+    public int getScanParallelism() {
+        return scanParallelism;
+    }
+
+    /**
+     * Sets the number of threads used for a parallel scan. A value of <code>1</code> disables
+     * parallel scans. The default is the number of processors available to the JVM.
+     *
+     * @param scanParallelism Scan parallelism.
+     * @return This <code>DatabaseOptions</code> object.
+     * @throws IllegalArgumentException If <code>scanParallelism</code> is less than
+     *                                  <code>1</code>.
+     */
+    public DatabaseOptions setScanParallelism(int scanParallelism) {
+        if (scanParallelism < 1) {
+            throw new IllegalArgumentException("scanParallelism must be at least 1");
+        }
+        this.scanParallelism = scanParallelism;
+        return this;
+    }
+
+    /**
+     * Returns the time to live, in milliseconds, of a record lock lease.
+     *
+     * @return The lock lease timeout, or <code>0</code> if record locks never expire.
+     */
+    public long getLockLeaseTimeout() {
+        return lockLeaseTimeout;
+    }
+
+    /**
+     * Sets the time to live, in milliseconds, of a record lock lease. A record lock that has been
+     * held for longer than this is released automatically so that a client that stalls while
+     * holding a lock does not keep the record locked forever. The timeout should be much longer
+     * than any legitimate lock holder needs. The default is <code>0</code>, meaning that record
+     * locks never expire.
+     *
+     * @param lockLeaseTimeout Lock lease timeout in milliseconds, or <code>0</code> to disable
+     *                         lock leases.
+     * @return This <code>DatabaseOptions</code> object.
+     * @throws IllegalArgumentException If <code>lockLeaseTimeout</code> is negative.
+     */
+    public DatabaseOptions setLockLeaseTimeout(long lockLeaseTimeout) {
+        if (lockLeaseTimeout < 0) {
+            throw new IllegalArgumentException("lockLeaseTimeout cannot be negative");
+        }
+        this.lockLeaseTimeout = lockLeaseTimeout;
+        return this;
+    }
+
+    /**
+     * Indicates if record locks are granted to waiting threads in the order they started waiting.
+     *
+     * @return <code>true</code> if record locking is fair, <code>false</code> otherwise.
+     */
+    public boolean isFairLocking() {
+        return fairLocking;
+    }
+
+    /**
+     * Sets whether record locks are granted to waiting threads in the order they started waiting.
+     * Fair locking stops a thread from waiting indefinitely for a heavily contended record, at
+     * some cost in throughput. The default is <code>false</code>.
+     *
+     * @param fairLocking <code>true</code> to make record locking fair.
+     * @return This <code>DatabaseOptions</code> object.
+     */
+    public DatabaseOptions setFairLocking(boolean fairLocking) {
+        this.fairLocking = fairLocking;
+        return this;
+    }
+
+    /**
+     * Indicates if the slots of deleted records are removed from the database file when it is
+     * opened.
+     *
+     * @return <code>true</code> if the database file is compacted when opened, <code>false</code>
+     * otherwise.
+     */
+    public boolean isCompactOnOpen() {
+        return compactOnOpen;
+    }
+
+    /**
+     * Sets whether the slots of deleted records are removed from the database file when it is
+     * opened. Compaction renumbers the records that follow a deleted slot, so it is only done
+     * before the database is in use. The default is <code>false</code>.
+     *
+     * @param compactOnOpen <code>true</code> to compact the database file when it is opened.
+     * @return This <code>DatabaseOptions</code> object.
+     */
+    public DatabaseOptions setCompactOnOpen(boolean compactOnOpen) {
+        this.compactOnOpen = compactOnOpen;
+        return this;
+    }
+
+    /**
+     * Returns when the writes made by modifications are synced to the storage device.
+     *
+     * @return The durability policy.
+     */
+    public DurabilityPolicy getDurabilityPolicy() {
+        return durabilityPolicy;
+    }
+
+    /**
+     * Sets when the writes made by modifications are synced to the storage device. With
+     * {@link DurabilityPolicy#GROUP_SYNC} a write-ahead log is kept next to the database file and
+     * is replayed when the database is opened. The default is {@link DurabilityPolicy#NONE}.
+     *
+     * @param durabilityPolicy Durability policy.
+     * @return This <code>DatabaseOptions</code> object.
+     * @throws IllegalArgumentException If <code>durabilityPolicy</code> is <code>null</code>.
+     */
+    public DatabaseOptions setDurabilityPolicy(DurabilityPolicy durabilityPolicy) {
+        if (durabilityPolicy == null) {
+            throw new IllegalArgumentException("durabilityPolicy cannot be null");
+        }
+        this.durabilityPolicy = durabilityPolicy;
+        return this;
+    }
+
+    /**
+     * Returns the interval, in milliseconds, between background syncs of the database file.
+     *
+     * @return The sync interval.
+     */
+    public long getSyncInterval() {
+        return syncInterval;
+    }
+
+    /**
+     * Sets the interval, in milliseconds, between background syncs of the database file. This is
+     * the longest time a modification can be acknowledged before it is durable. The default is
+     * {@link #DEFAULT_SYNC_INTERVAL}. Only used with {@link DurabilityPolicy#PERIODIC_SYNC}.
+     *
+     * @param syncInterval Sync interval in milliseconds.
+     * @return This <code>DatabaseOptions</code> object.
+     * @throws IllegalArgumentException If <code>syncInterval</code> is less than <code>1</code>.
+     */
+    public DatabaseOptions setSyncInterval(long syncInterval) {
+        if (syncInterval < 1) {
+            throw new IllegalArgumentException("syncInterval must be at least 1");
+        }
+        this.syncInterval = syncInterval;
+        return this;
+    }
+
+    /**
+     * Returns the time, in milliseconds, a modification waits for others to share its log sync.
+     *
+     * @return The group commit delay.
+     */
+    public long getGroupCommitDelay() {
+        return groupCommitDelay;
+    }
+
+    /**
+     * Sets the time, in milliseconds, a modification waits for others to share its log sync. Any
+     * modifications made while the log is being synced always share the next sync. A delay
+     * increases the number of modifications per sync under load, at the cost of the latency of
+     * every modification. The default is <code>0</code>. Only used with
+     * {@link DurabilityPolicy#GROUP_SYNC}.
+     *
+     * @param groupCommitDelay Group commit delay in milliseconds.
+     * @return This <code>DatabaseOptions</code> object.
+     * @throws IllegalArgumentException If <code>groupCommitDelay</code> is negative.
+     */
+    public DatabaseOptions setGroupCommitDelay(long groupCommitDelay) {
+        if (groupCommitDelay < 0) {
+            throw new IllegalArgumentException("groupCommitDelay cannot be negative");
+        }
+        this.groupCommitDelay = groupCommitDelay;
+        return this;
+    }
+
+    /**
+     * Returns the indexes, in the database schema, of the fields that have a prefix index.
+     *
+     * @return The indexed fields.
+     */
+    public int[] getIndexedFields() {
+        return indexedFields.clone();
+    }
+
+    /**
+     * Sets the indexes, in the database schema, of the fields that have a prefix index. Searches
+     * with criteria for an indexed field look up matching records in the index rather than
+     * scanning every record. Each index costs memory and makes modifications slightly more
+     * expensive. The default is the name and location fields.
+     *
+     * @param indexedFields Indexes of the fields to index, may be empty.
+     * @return This <code>DatabaseOptions</code> object.
+     * @throws IllegalArgumentException If <code>indexedFields</code> is <code>null</code> or
+     *                                  contains a negative index.
+     * @see PrefixIndex
+     */
+    public DatabaseOptions setIndexedFields(int... indexedFields) {
+        if (indexedFields == null) {
+            throw new IllegalArgumentException("indexedFields cannot be null");
+        }
+        for (int fieldIndex : indexedFields) {
+            if (fieldIndex < 0) {
+                throw new IllegalArgumentException("indexedFields cannot contain negative indexes");
+            }
+        }
+        this.indexedFields = indexedFields.clone();
+        return this;
+    }
+
+    /**
+     * Returns a string representation of the <code>DatabaseOptions</code>.
+     *
+     * @return A string representation of the <code>DatabaseOptions</code>.
+     */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        return builder.append(super.toString()).append(": memoryMapped=").append(memoryMapped)
+                .append(", parallelScanThreshold=").append(parallelScanThreshold)
+                .append(", scanParallelism=").append(scanParallelism)
+                .append(", indexedFields=").append(Arrays.toString(indexedFields))
+                .append(", lockLeaseTimeout=").append(lockLeaseTimeout)
+                .append(", fairLocking=").append(fairLocking)
+                .append(", durabilityPolicy=").append(durabilityPolicy)
+                .append(", syncInterval=").append(syncInterval)
+                .append(", groupCommitDelay=").append(groupCommitDelay)
+                .append(", compactOnOpen=").append(compactOnOpen).toString();
+    }
+}
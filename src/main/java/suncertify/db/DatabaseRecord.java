@@ -0,0 +1,99 @@
+/*
+ * DatabaseRecord.java
+ *
+ * 18 Oct 2026
+ */
+
+package suncertify.db;
+
+import java.util.Arrays;
+
+/**
+ * A database record returned by a query, holding the record number together with the record
+ * values as they would be returned by {@link Database#read} and the version of the record at the
+ * time the values were read. The version can be passed to {@link Database#compareAndUpdate} to
+ * update the record only if it has not been modified since.
+ *
+ * @author Richard Wardle
+ */
+public final class DatabaseRecord {
+
+    private final int recordNumber;
+    private final String[] values;
+    private final long version;
+
+    /**
+     * Creates a new instance of <code>DatabaseRecord</code> with an unknown version.
+     *
+     * @param recordNumber Database record number.
+     * @param values       Record values.
+     * @throws IllegalArgumentException If <code>recordNumber</code> is negative or
+     *                                  <code>values</code> is <code>null</code>.
+     */
+    public DatabaseRecord(int recordNumber, String[] values) {
+        this(recordNumber, values, DatabaseConstants.UNKNOWN_VERSION);
+    }
+
+    /**
+     * Creates a new instance of <code>DatabaseRecord</code>.
+     *
+     * @param recordNumber Database record number.
+     * @param values       Record values.
+     * @param version      Version of the record when the values were read.
+     * @throws IllegalArgumentException If <code>recordNumber</code> is negative or
+     *                                  <code>values</code> is <code>null</code>.
+     */
+    public DatabaseRecord(int recordNumber, String[] values, long version) {
+        if (recordNumber < 0) {
+            throw new IllegalArgumentException("recordNumber cannot be negative");
+        }
+        if (values == null) {
+            throw new IllegalArgumentException("values cannot be null");
+        }
+
+        this.recordNumber = recordNumber;
+        this.values = values.clone();
+        this.version = version;
+    }
+
+    /**
+     * Returns the database record number.
+     *
+     * @return The record number.
+     */
+    public int getRecordNumber() {
+        return recordNumber;
+    }
+
+    /**
+     * Returns the record values.
+     *
+     * @return A <code>String</code> array containing the record values.
+     */
+    public String[] getValues() {
+        return values.clone();
+    }
+
+    /**
+     * Returns the version of the record when the values were read.
+     *
+     * @return The record version, or {@link DatabaseConstants#UNKNOWN_VERSION} if it is not
+     * known.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns a string representation of the <code>DatabaseRecord</code>.
+     *
+     * @return A string representation of the <code>DatabaseRecord</code>.
+     */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        return builder.append(super.toString()).append(": recordNumber=").append(recordNumber)
+                .append(", values=").append(Arrays.toString(values)).append(", version=")
+                .append(version).toString();
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * DeletedRecordSet.java
+ *
+ * 18 Oct 2026
+ */
+
+package suncertify.db;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Set of the numbers of the records that are marked as deleted, held as a bitset with one bit per
+ * record. Queries never block: each word of the bitset is read with volatile semantics, so a
+ * thread always sees the latest deletion state of a record without acquiring a lock or boxing the
+ * record number.
+ * <p/>
+ * Modifications must be serialized by the caller, for example by holding a write lock. The bitset
+ * grows as needed when records beyond its current capacity are marked as deleted; the grown bitset
+ * is published through a volatile field only after the existing bits have been copied into it.
+ *
+ * @author Richard Wardle
+ */
+final class DeletedRecordSet {
+
+    private static final int BITS_PER_WORD = 64;
+
+    // Bitset words, replaced when the set grows
+    private volatile AtomicLongArray words;
+
+    // Number of records marked as deleted
+    private volatile int size;
+
+    /**
+     * Creates a new instance of <code>DeletedRecordSet</code> with room for the specified number of
+     * records.
+     *
+     * @param recordCount Number of records to allocate space for.
+     */
+    DeletedRecordSet(int recordCount) {
+        words = new AtomicLongArray(wordCount(recordCount));
+    }
+
+    private static int wordCount(int recordCount) {
+        return Math.max(1, (recordCount + BITS_PER_WORD - 1) / BITS_PER_WORD);
+    }
+
+    /**
+     * Indicates if the specified record is marked as deleted.
+     *
+     * @param recNo Record number.
+     * @return <code>true</code> if the record is deleted, <code>false</code> otherwise.
+     */
+    boolean contains(int recNo) {
+        AtomicLongArray currentWords = words;
+        int wordIndex = recNo / BITS_PER_WORD;
+        return recNo >= 0 && wordIndex < currentWords.length()
+                && (currentWords.get(wordIndex) & (1L << recNo)) != 0;
+    }
+
+    /**
+     * Marks the specified record as deleted.
+     *
+     * @param recNo Record number, must not be negative.
+     */
+    void add(int recNo) {
+        int wordIndex = recNo / BITS_PER_WORD;
+        ensureCapacity(wordIndex + 1);
+        long word = words.get(wordIndex);
+        if ((word & (1L << recNo)) == 0) {
+            words.set(wordIndex, word | (1L << recNo));
+            size++;
+        }
+    }
+
+    private void ensureCapacity(int wordCount) {
+        AtomicLongArray currentWords = words;
+        if (wordCount > currentWords.length()) {
+            AtomicLongArray newWords = new AtomicLongArray(Math.max(wordCount,
+                    currentWords.length() * 2));
+            for (int i = 0; i < currentWords.length(); i++) {
+                newWords.set(i, currentWords.get(i));
+            }
+            words = newWords;
+        }
+    }
+
+    /**
+     * Marks the specified record as no longer deleted.
+     *
+     * @param recNo Record number, must not be negative.
+     */
+    void remove(int recNo) {
+        int wordIndex = recNo / BITS_PER_WORD;
+        if (wordIndex < words.length()) {
+            long word = words.get(wordIndex);
+            if ((word & (1L << recNo)) != 0) {
+                words.set(wordIndex, word & ~(1L << recNo));
+                size--;
+            }
+        }
+    }
+
+    /**
+     * Returns the lowest record number that is marked as deleted.
+     *
+     * @return The lowest deleted record number, or <code>-1</code> if no records are deleted.
+     */
+    int first() {
+        if (size == 0) {
+            return -1;
+        }
+
+        AtomicLongArray currentWords = words;
+        for (int i = 0; i < currentWords.length(); i++) {
+            long word = currentWords.get(i);
+            if (word != 0) {
+                return i * BITS_PER_WORD + Long.numberOfTrailingZeros(word);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the number of records marked as deleted.
+     *
+     * @return The number of deleted records.
+     */
+    int size() {
+        return size;
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * DurabilityPolicy.java
+ *
+ * 18 Oct 2026
+ */
+
+package suncertify.db;
+
+/**
+ * When the writes made by modifications are synced to the storage device. The policies trade the
+ * latency of a modification against how many acknowledged modifications can be lost if the
+ * server crashes.
+ *
+ * @author Richard Wardle
+ */
+public enum DurabilityPolicy {
+
+    /**
+     * Writes are never synced explicitly and reach the storage device whenever the operating
+     * system flushes them. Modifications are fastest but any number may be lost in a crash.
+     */
+    NONE,
+
+    /**
+     * Every write to the database file is synced before the modification returns. No acknowledged
+     * modification is lost in a crash, but every modification pays for at least one sync.
+     */
+    SYNC_PER_WRITE,
+
+    /**
+     * The database file is synced in the background at a fixed interval if it has been written
+     * to. Modifications are fast, and at most one sync interval of modifications is lost in a
+     * crash.
+     */
+    PERIODIC_SYNC,
+
+    /**
+     * Every modification is recorded in a {@link WriteAheadLog} and does not return until its log
+     * entries are synced, but modifications made at the same time share one sync of the log. No
+     * acknowledged modification is lost in a crash.
+     */
+    GROUP_SYNC
+}
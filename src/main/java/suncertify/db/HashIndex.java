@@ -0,0 +1,92 @@
+/*
+ * HashIndex.java
+ *
+ * 18 Oct 2026
+ */
+
+package suncertify.db;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * Index of the values of a single database field, supporting lookup of the records whose value is
+ * exactly equal to a given value. Values are held in a hash map keyed by the field value with any
+ * padding trimmed, i.e. as it would be returned by {@link Data#read}, so a lookup costs
+ * <code>O(1 + k)</code> where <code>k</code> is the number of matching records.
+ * <p/>
+ * This class is not thread-safe. Callers must guard lookups and modifications with a read-write
+ * lock, and hold the write lock while calling {@link #add} or {@link #remove}.
+ *
+ * @author Richard Wardle
+ */
+final class HashIndex {
+
+    private static final int[] NO_RECORDS = new int[0];
+
+    // Map of trimmed field values and the numbers of the records holding them
+    private final Map<String, SortedSet<Integer>> recNosByValue =
+            new HashMap<String, SortedSet<Integer>>();
+
+    /**
+     * Creates a new instance of <code>HashIndex</code>.
+     */
+    HashIndex() {
+        super();
+    }
+
+    /**
+     * Adds a record to the index.
+     *
+     * @param value Field value of the record, with any padding trimmed.
+     * @param recNo Record number.
+     */
+    void add(String value, int recNo) {
+        SortedSet<Integer> recNos = recNosByValue.get(value);
+        if (recNos == null) {
+            recNos = new TreeSet<Integer>();
+            recNosByValue.put(value, recNos);
+        }
+        recNos.add(recNo);
+    }
+
+    /**
+     * Removes a record from the index.
+     *
+     * @param value Field value the record was added with.
+     * @param recNo Record number.
+     */
+    void remove(String value, int recNo) {
+        SortedSet<Integer> recNos = recNosByValue.get(value);
+        if (recNos != null) {
+            recNos.remove(recNo);
+            if (recNos.isEmpty()) {
+                recNosByValue.remove(value);
+            }
+        }
+    }
+
+    /**
+     * Returns the numbers of the records whose field value is equal to the specified value, in
+     * ascending order.
+     *
+     * @param value Value to look up.
+     * @return The matching record numbers.
+     */
+    int[] find(String value) {
+        SortedSet<Integer> recNos = recNosByValue.get(value);
+        if (recNos == null) {
+            return NO_RECORDS;
+        }
+
+        int[] recNosArray = new int[recNos.size()];
+        int index = 0;
+        for (Integer recNo : recNos) {
+            recNosArray[index] = recNo;
+            index++;
+        }
+        return recNosArray;
+    }
+}
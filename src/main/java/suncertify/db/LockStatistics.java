@@ -0,0 +1,189 @@
+/*
+ * LockStatistics.java
+ *
+ * 18 Oct 2026
+ */
+
+package suncertify.db;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An immutable snapshot of the state of the record locks in a database. The counts in a snapshot
+ * are gathered one lock stripe at a time, so they are not guaranteed to be consistent with each
+ * other while the database is in use.
+ *
+ * @author Richard Wardle
+ */
+public final class LockStatistics {
+
+    private final int lockedRecordCount;
+    private final Map<Integer, Integer> queueDepths;
+    private final long handoffCount;
+    private final Map<Integer, Long> handoffs;
+    private final long expiredLeaseCount;
+
+    // Recent wait times in nanoseconds, sorted in ascending order
+    private final long[] waitTimes;
+
+    /**
+     * Creates a new instance of <code>LockStatistics</code>.
+     *
+     * @param lockedRecordCount Number of records currently locked.
+     * @param queueDepths       Number of threads currently waiting for each record that has
+     *                          waiters.
+     * @param handoffCount      Number of times a record lock has been handed to a waiting thread
+     *                          since the database was opened.
+     * @param handoffs          Number of times the lock on each record currently in use has been
+     *                          handed to a waiting thread.
+     * @param expiredLeaseCount Number of lock leases that have expired since the database was
+     *                          opened.
+     * @param waitTimes         Recent times, in nanoseconds, spent waiting by threads that
+     *                          acquired a lock after waiting, sorted in ascending order.
+     */
+    LockStatistics(int lockedRecordCount, Map<Integer, Integer> queueDepths, long handoffCount,
+            Map<Integer, Long> handoffs, long expiredLeaseCount, long[] waitTimes) {
+        this.lockedRecordCount = lockedRecordCount;
+        this.queueDepths = Collections.unmodifiableMap(new HashMap<Integer, Integer>(queueDepths));
+        this.handoffCount = handoffCount;
+        this.handoffs = Collections.unmodifiableMap(new HashMap<Integer, Long>(handoffs));
+        this.expiredLeaseCount = expiredLeaseCount;
+        this.waitTimes = waitTimes.clone();
+    }
+
+    /**
+     * Returns the number of records that were locked when the snapshot was taken.
+     *
+     * @return The number of locked records.
+     */
+    public int getLockedRecordCount() {
+        return lockedRecordCount;
+    }
+
+    /**
+     * Returns the number of threads that were waiting for a record lock when the snapshot was
+     * taken.
+     *
+     * @return The number of waiting threads.
+     */
+    public int getWaitingThreadCount() {
+        int count = 0;
+        for (int queueDepth : queueDepths.values()) {
+            count += queueDepth;
+        }
+        return count;
+    }
+
+    /**
+     * Returns the largest number of threads that were waiting for the lock on a single record when
+     * the snapshot was taken.
+     *
+     * @return The maximum queue depth.
+     */
+    public int getMaximumQueueDepth() {
+        int maximum = 0;
+        for (int queueDepth : queueDepths.values()) {
+            maximum = Math.max(maximum, queueDepth);
+        }
+        return maximum;
+    }
+
+    /**
+     * Returns the number of threads that were waiting for the lock on each record when the
+     * snapshot was taken. Records with no waiting threads are not included.
+     *
+     * @return An unmodifiable map from record number to queue depth.
+     */
+    public Map<Integer, Integer> getQueueDepths() {
+        return queueDepths;
+    }
+
+    /**
+     * Returns the total number of times a record lock has been handed to a thread that was waiting
+     * for it, between the database being opened and the snapshot being taken.
+     *
+     * @return The number of handoffs.
+     */
+    public long getHandoffCount() {
+        return handoffCount;
+    }
+
+    /**
+     * Returns the number of times the lock on each record that was locked or being waited for when
+     * the snapshot was taken has been handed to a thread that was waiting for it. A record's count
+     * starts again from zero once it is no longer in use, so the map only ever holds the records in
+     * use. Records whose lock has not been contended are not included.
+     *
+     * @return An unmodifiable map from record number to number of handoffs.
+     */
+    public Map<Integer, Long> getHandoffsByRecord() {
+        return handoffs;
+    }
+
+    /**
+     * Returns the number of lock leases that expired, and were released automatically, between the
+     * database being opened and the snapshot being taken.
+     *
+     * @return The number of expired leases.
+     */
+    public long getExpiredLeaseCount() {
+        return expiredLeaseCount;
+    }
+
+    /**
+     * Returns the number of wait time samples that the percentiles are calculated from. Only the
+     * most recent waits are sampled.
+     *
+     * @return The number of wait time samples.
+     */
+    public int getWaitTimeSampleCount() {
+        return waitTimes.length;
+    }
+
+    /**
+     * Returns a percentile of the time spent waiting by threads that acquired a record lock after
+     * waiting for it, calculated from the most recent waits using the nearest-rank method.
+     *
+     * @param percentile Percentile, greater than <code>0</code> and at most <code>100</code>.
+     * @param unit       Unit of the returned wait time.
+     * @return The wait time percentile, or <code>0</code> if no thread has waited for a lock.
+     * @throws IllegalArgumentException If <code>percentile</code> is out of range or
+     *                                  <code>unit</code> is <code>null</code>.
+     */
+    public long getWaitTimePercentile(double percentile, TimeUnit unit) {
+        if (percentile <= 0 || percentile > 100) {
+            throw new IllegalArgumentException("percentile must be greater than 0 and at most 100");
+        }
+        if (unit == null) {
+            throw new IllegalArgumentException("unit cannot be null");
+        }
+        if (waitTimes.length == 0) {
+            return 0;
+        }
+
+        int rank = (int) Math.ceil(percentile / 100 * waitTimes.length);
+        return unit.convert(waitTimes[Math.max(rank, 1) - 1], TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns a string representation of the <code>LockStatistics</code>.
+     *
+     * @return A string representation of the <code>LockStatistics</code>.
+     */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        return builder.append(super.toString()).append(": lockedRecordCount=")
+                .append(lockedRecordCount).append(", waitingThreadCount=")
+                .append(getWaitingThreadCount()).append(", maximumQueueDepth=")
+                .append(getMaximumQueueDepth()).append(", handoffCount=")
+                .append(getHandoffCount()).append(", expiredLeaseCount=")
+                .append(expiredLeaseCount).append(", waitTime50thPercentileMillis=")
+                .append(getWaitTimePercentile(50, TimeUnit.MILLISECONDS))
+                .append(", waitTime99thPercentileMillis=")
+                .append(getWaitTimePercentile(99, TimeUnit.MILLISECONDS)).toString();
+    }
+}
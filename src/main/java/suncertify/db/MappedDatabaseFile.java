@@ -0,0 +1,264 @@
+/*
+ * MappedDatabaseFile.java
+ *
+ * 18 Oct 2026
+ */
+
+package suncertify.db;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Implementation of {@link DatabaseFile} that maps the whole file into memory using
+ * {@link FileChannel#map}. Reads and writes become memory accesses on the mapped buffer rather than
+ * system calls on the underlying file.
+ * <p/>
+ * The logical length of the file is tracked separately from the capacity of the mapping. A write
+ * that extends past the end of the mapping grows the file through its channel and remaps it,
+ * doubling the capacity so that appending records does not remap the file on every write. The
+ * unused capacity is truncated when the file is closed, so the file length seen by
+ * {@link DatabaseFileValidator} is not padded by the mapping; a file that is not closed cleanly
+ * keeps its padding. Positional reads work on a view of the current mapping so they can run
+ * concurrently with each other and with writes that do not grow the mapping.
+ *
+ * @author Richard Wardle
+ */
+public final class MappedDatabaseFile implements DatabaseFile {
+
+    // Smallest number of bytes the mapping is grown by
+    private static final int MINIMUM_GROWTH = 64 * 1024;
+
+    private final FileChannel channel;
+
+    /*
+     * Buffer mapping the whole file, including any unused capacity, replaced whenever the mapping
+     * grows. Marked volatile so that positional reads on other threads see the latest mapping
+     * without synchronization.
+     */
+    private volatile MappedByteBuffer buffer;
+
+    /*
+     * Logical length of the file, never more than the capacity of the mapping. The mapping is
+     * replaced before the length is increased, so a thread that reads the length and then the
+     * mapping always sees a mapping that covers the length.
+     */
+    private volatile long length;
+    private long filePointer;
+
+    /**
+     * Creates a new instance of <code>MappedDatabaseFile</code>.
+     *
+     * @param databaseFilePath Path to the database file.
+     * @throws IllegalArgumentException If <code>databaseFilePath</code> is <code>null</code>.
+     * @throws FileNotFoundException    If the database file cannot be found.
+     * @throws IOException              If the database file cannot be mapped.
+     */
+    public MappedDatabaseFile(String databaseFilePath) throws FileNotFoundException, IOException {
+        if (databaseFilePath == null) {
+            throw new IllegalArgumentException("databaseFilePath cannot be null");
+        }
+        if (!new File(databaseFilePath).exists()) {
+            throw new FileNotFoundException("Database file does not exist at: " + databaseFilePath);
+        }
+
+        channel = new RandomAccessFile(new File(databaseFilePath), "rw").getChannel();
+        length = channel.size();
+        map(length);
+    }
+
+    private void map(long capacity) throws IOException {
+        if (capacity > Integer.MAX_VALUE) {
+            throw new IOException("Database file is too large to be memory-mapped: " + capacity);
+        }
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public long getFilePointer() throws IOException {
+        return filePointer;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public long length() throws IOException {
+        return length;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void seek(long pos) throws IOException {
+        if (pos < 0) {
+            throw new IOException("Negative seek offset: " + pos);
+        }
+        filePointer = pos;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public byte readByte() throws IOException {
+        checkAvailable(1);
+        byte value = buffer.get((int) filePointer);
+        filePointer++;
+        return value;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public short readShort() throws IOException {
+        checkAvailable(2);
+        short value = buffer.getShort((int) filePointer);
+        filePointer += 2;
+        return value;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int readInt() throws IOException {
+        checkAvailable(4);
+        int value = buffer.getInt((int) filePointer);
+        filePointer += 4;
+        return value;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void readFully(byte[] b) throws IOException {
+        checkAvailable(b.length);
+        viewAt(buffer, filePointer).get(b);
+        filePointer += b.length;
+    }
+
+    private void checkAvailable(int byteCount) throws EOFException {
+        if (filePointer + byteCount > length) {
+            throw new EOFException("Cannot read " + byteCount + " bytes at offset " + filePointer
+                    + ", file length is " + length);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void write(byte[] b) throws IOException {
+        ensureLength(filePointer + b.length);
+        viewAt(buffer, filePointer).put(b);
+        filePointer += b.length;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void writeByte(int v) throws IOException {
+        ensureLength(filePointer + 1);
+        buffer.put((int) filePointer, (byte) v);
+        filePointer++;
+    }
+
+    /*
+     * Extends the logical length of the file to at least newLength bytes, growing the file and
+     * remapping it if the mapping is too small. The capacity is at least doubled so that the cost
+     * of remapping is spread over many writes. The file is grown by writing its last byte through
+     * the channel; the caller then overwrites the new region via the new mapping.
+     */
+    private synchronized void ensureLength(long newLength) throws IOException {
+        if (newLength <= length) {
+            return;
+        }
+        long capacity = buffer.capacity();
+        if (newLength > capacity) {
+            long newCapacity = Math.max(newLength, Math.min(capacity + Math.max(capacity,
+                    MINIMUM_GROWTH), Integer.MAX_VALUE));
+            channel.write(ByteBuffer.allocate(1), newCapacity - 1);
+            map(newCapacity);
+        }
+        length = newLength;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void readFully(long position, byte[] b) throws IOException {
+        if (position < 0) {
+            throw new IOException("Negative position: " + position);
+        }
+
+        // Read the length before the mapping, which always covers it
+        long currentLength = length;
+        MappedByteBuffer mapping = buffer;
+        if (position + b.length > currentLength) {
+            throw new EOFException("Cannot read " + b.length + " bytes at offset " + position
+                    + ", file length is " + currentLength);
+        }
+
+        viewAt(mapping, position).get(b);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void write(long position, byte[] b) throws IOException {
+        write(position, b, 0, b.length);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void write(long position, byte[] b, int offset, int length) throws IOException {
+        if (position < 0) {
+            throw new IOException("Negative position: " + position);
+        }
+
+        ensureLength(position + length);
+        viewAt(buffer, position).put(b, offset, length);
+    }
+
+    /*
+     * Returns a view of the mapping positioned at the specified offset, so that reads and writes
+     * do not move the position of the shared mapping. The view is positioned through Buffer, as
+     * ByteBuffer.position(int) does not exist before Java 9.
+     */
+    private static ByteBuffer viewAt(MappedByteBuffer mapping, long position) {
+        ByteBuffer view = mapping.duplicate();
+        ((Buffer) view).position((int) position);
+        return view;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void sync() throws IOException {
+        // The mapping holds the record bytes, the channel holds any growth of the file
+        buffer.force();
+        channel.force(false);
+    }
+
+    /**
+     * Truncates the unused capacity of the mapping from the file and closes it. The file cannot be
+     * used once it has been closed.
+     *
+     * @throws IOException If the file cannot be truncated or closed.
+     */
+    public synchronized void close() throws IOException {
+        try {
+            buffer.force();
+            channel.truncate(length);
+        } finally {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * PrefixIndex.java
+ *
+ * 18 Oct 2026
+ */
+
+package suncertify.db;
+
+import java.util.Arrays;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Index of the values of a single database field, supporting lookup of the records whose value
+ * begins with a given prefix. Values are held in a sorted map keyed by the field value exactly as
+ * it is stored, so all the values beginning with a prefix form one contiguous range of keys. A
+ * lookup costs <code>O(log n + k log k)</code> where <code>k</code> is the number of matching
+ * records, as the records of the matching values are merged by sorting them.
+ * <p/>
+ * This class is not thread-safe. Callers must guard lookups and modifications with a read-write
+ * lock, and hold the write lock while calling {@link #add} or {@link #remove}.
+ *
+ * @author Richard Wardle
+ */
+final class PrefixIndex {
+
+    /*
+     * Character that sorts after every character in the database character set, so that prefix +
+     * this character is an exclusive upper bound for the values beginning with prefix.
+     */
+    private static final char UPPER_BOUND_CHARACTER = '\u0100';
+
+    // Map of padded field values and the numbers of the records holding them
+    private final SortedMap<String, SortedSet<Integer>> recNosByValue =
+            new TreeMap<String, SortedSet<Integer>>();
+
+    /**
+     * Creates a new instance of <code>PrefixIndex</code>.
+     */
+    PrefixIndex() {
+        super();
+    }
+
+    /**
+     * Adds a record to the index.
+     *
+     * @param value Field value of the record, including any padding.
+     * @param recNo Record number.
+     */
+    void add(String value, int recNo) {
+        SortedSet<Integer> recNos = recNosByValue.get(value);
+        if (recNos == null) {
+            recNos = new TreeSet<Integer>();
+            recNosByValue.put(value, recNos);
+        }
+        recNos.add(recNo);
+    }
+
+    /**
+     * Removes a record from the index.
+     *
+     * @param value Field value the record was added with.
+     * @param recNo Record number.
+     */
+    void remove(String value, int recNo) {
+        SortedSet<Integer> recNos = recNosByValue.get(value);
+        if (recNos != null) {
+            recNos.remove(recNo);
+            if (recNos.isEmpty()) {
+                recNosByValue.remove(value);
+            }
+        }
+    }
+
+    /**
+     * Returns the numbers of the records whose field value begins with the specified prefix, in
+     * ascending order.
+     *
+     * @param prefix Prefix to look up.
+     * @return The matching record numbers.
+     */
+    int[] find(String prefix) {
+        SortedMap<String, SortedSet<Integer>> matches = recNosByValue.subMap(prefix, prefix
+                + UPPER_BOUND_CHARACTER);
+
+        int count = 0;
+        for (SortedSet<Integer> recNos : matches.values()) {
+            count += recNos.size();
+        }
+
+        int[] recNosArray = new int[count];
+        int index = 0;
+        for (SortedSet<Integer> recNos : matches.values()) {
+            for (Integer recNo : recNos) {
+                recNosArray[index] = recNo;
+                index++;
+            }
+        }
+
+        // Record numbers are only sorted within each value, so sort the combined result
+        Arrays.sort(recNosArray);
+        return recNosArray;
+    }
+}
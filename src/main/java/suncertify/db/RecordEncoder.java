@@ -0,0 +1,164 @@
+/*
+ * RecordEncoder.java
+ *
+ * 18 Oct 2026
+ */
+
+package suncertify.db;
+
+import suncertify.db.DatabaseSchema.FieldDescription;
+
+/**
+ * Encodes record values into the layout used by the database file, so that a whole record, or the
+ * changed part of a record, can be written in one operation. Values are encoded directly into a
+ * buffer that is reused for every record: each is truncated or padded with
+ * {@link DatabaseConstants#PAD_CHARACTER} to the length of its field, and each character is
+ * encoded as a single byte of {@link DatabaseConstants#CHARACTER_SET}, with characters outside the
+ * character set encoded as <code>'?'</code>.
+ * <p/>
+ * The buffer holds a record laid out exactly as in the database file, starting with the record
+ * validity flag. This class is not thread-safe; callers must not encode a record until they have
+ * finished with the previous one.
+ *
+ * @author Richard Wardle
+ */
+final class RecordEncoder {
+
+    // Largest character value in the database character set
+    private static final char MAXIMUM_CHARACTER = '\u00FF';
+
+    private static final byte UNMAPPABLE_CHARACTER = (byte) '?';
+
+    private final FieldDescription[] fieldDescriptions;
+    private final byte[] buffer;
+
+    // Range of the buffer holding the fields encoded by the last call to encodeFields
+    private int rangeOffset;
+    private int rangeLength;
+
+    /**
+     * Creates a new instance of <code>RecordEncoder</code> for the specified schema.
+     *
+     * @param databaseSchema Database schema.
+     * @throws IllegalArgumentException If <code>databaseSchema</code> is <code>null</code>.
+     */
+    RecordEncoder(DatabaseSchema databaseSchema) {
+        if (databaseSchema == null) {
+            throw new IllegalArgumentException("databaseSchema cannot be null");
+        }
+        fieldDescriptions = databaseSchema.getFieldDescriptions();
+        buffer = new byte[DatabaseConstants.RECORD_VALIDITY_FLAG_LENGTH
+                + databaseSchema.getRecordLength()];
+    }
+
+    /**
+     * Returns the buffer that records are encoded into. The buffer is reused, so its contents are
+     * only valid until the next record is encoded.
+     *
+     * @return The buffer.
+     */
+    byte[] getBuffer() {
+        return buffer;
+    }
+
+    /**
+     * Encodes a complete, valid record into the buffer. The whole buffer can then be written to the
+     * database file at the offset of the record.
+     *
+     * @param data Record values, none of which may be <code>null</code>.
+     * @return The buffer.
+     */
+    byte[] encodeRecord(String[] data) {
+        buffer[0] = DatabaseConstants.VALID_RECORD_FLAG;
+        for (int i = 0; i < fieldDescriptions.length; i++) {
+            encodeField(data[i], i);
+        }
+        return buffer;
+    }
+
+    /**
+     * Encodes the fields of a record that are to be updated into the buffer. The encoded range
+     * starts at the first field to be updated and ends at the last; any field in between that is
+     * not to be updated is copied from the column store, so that the whole range can be written to
+     * the database file at once. The range is given by {@link #getRangeOffset} and
+     * {@link #getRangeLength}.
+     *
+     * @param recNo       Record number.
+     * @param data        Record values, <code>null</code> for fields that are not to be updated.
+     * @param columnStore Column store holding the current values of the record.
+     * @return <code>true</code> if any field is to be updated, <code>false</code> if every value
+     * is <code>null</code>.
+     */
+    boolean encodeFields(int recNo, String[] data, ColumnStore columnStore) {
+        int firstField = -1;
+        int lastField = -1;
+        for (int i = 0; i < data.length; i++) {
+            if (data[i] != null) {
+                if (firstField < 0) {
+                    firstField = i;
+                }
+                lastField = i;
+            }
+        }
+        if (firstField < 0) {
+            rangeOffset = 0;
+            rangeLength = 0;
+            return false;
+        }
+
+        for (int i = firstField; i <= lastField; i++) {
+            if (data[i] != null) {
+                encodeField(data[i], i);
+            } else {
+                columnStore.copyField(recNo, i, buffer, getFieldOffset(i));
+            }
+        }
+        rangeOffset = getFieldOffset(firstField);
+        rangeLength = getFieldOffset(lastField) + fieldDescriptions[lastField].getLength()
+                - rangeOffset;
+        return true;
+    }
+
+    /**
+     * Returns the offset in the buffer, and in the record, of the range encoded by the last call
+     * to {@link #encodeFields}.
+     *
+     * @return The range offset.
+     */
+    int getRangeOffset() {
+        return rangeOffset;
+    }
+
+    /**
+     * Returns the length of the range encoded by the last call to {@link #encodeFields}.
+     *
+     * @return The range length.
+     */
+    int getRangeLength() {
+        return rangeLength;
+    }
+
+    /**
+     * Returns the offset of a field in the buffer, and in the record including the validity flag.
+     *
+     * @param fieldIndex Index of the field in the schema.
+     * @return The field offset.
+     */
+    int getFieldOffset(int fieldIndex) {
+        return DatabaseConstants.RECORD_VALIDITY_FLAG_LENGTH
+                + fieldDescriptions[fieldIndex].getRecordOffset();
+    }
+
+    private void encodeField(String value, int fieldIndex) {
+        int offset = getFieldOffset(fieldIndex);
+        int fieldLength = fieldDescriptions[fieldIndex].getLength();
+        int valueLength = Math.min(value.length(), fieldLength);
+        for (int i = 0; i < valueLength; i++) {
+            char c = value.charAt(i);
+            buffer[offset + i] = c <= MAXIMUM_CHARACTER ? (byte) c : UNMAPPABLE_CHARACTER;
+        }
+        for (int i = valueLength; i < fieldLength; i++) {
+            buffer[offset + i] = (byte) DatabaseConstants.PAD_CHARACTER;
+        }
+    }
+}
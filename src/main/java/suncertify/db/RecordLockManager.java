@@ -0,0 +1,610 @@
+/*
+ * RecordLockManager.java
+ *
+ * 18 Oct 2026
+ */
+
+package suncertify.db;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Logger;
+
+/**
+ * Manages the logical locks on database records. A record lock is held by a single owner at a
+ * time; other threads that try to lock the record wait until it is released. The owner of a lock
+ * is either the thread that acquired it or a lock cookie issued by {@link #newCookie}. A lock
+ * owned by a cookie is not tied to any thread, so work holding it can move between threads.
+ * <p/>
+ * The lock state is spread across a fixed number of stripes, each guarded by its own
+ * <code>ReentrantLock</code>, and a record is always handled by the stripe selected by its record
+ * number. Threads locking records in different stripes therefore never contend with each other.
+ * Each stripe keeps per-record state (a <code>Condition</code> to wait on, the owner and the
+ * waiting threads) only while the record is locked or being waited for, so memory use depends
+ * on the number of records currently in use rather than on every record ever locked.
+ * <p/>
+ * Optionally, each lock can be granted as a lease with a fixed time to live. A background reaper
+ * thread periodically releases locks whose lease has expired and wakes a thread waiting for them,
+ * so that an owner that stalls or dies while holding a lock cannot keep the record locked forever.
+ * The reaper runs every half lease period, so a lease is released between one and one and a half
+ * lease periods after it was granted.
+ * <p/>
+ * By default a released lock is taken by whichever thread gets to it first, which gives the best
+ * throughput but lets an unlucky waiter starve on a heavily contended record. In fair mode each
+ * record keeps a FIFO queue of waiters, and a released lock is handed directly to the waiter at
+ * the head of the queue, so a record is locked in the order the requests arrived. The manager
+ * counts handoffs to waiting threads and samples how long they waited, for either mode. Handoffs
+ * are also counted per record, but only for as long as the record is in use.
+ *
+ * @author Richard Wardle
+ */
+final class RecordLockManager {
+
+    /**
+     * Default number of lock stripes.
+     */
+    static final int DEFAULT_STRIPE_COUNT = 64;
+
+    private static final Logger LOGGER = Logger.getLogger(RecordLockManager.class.getName());
+
+    // Shortest interval between runs of the lease reaper
+    private static final long MINIMUM_REAPER_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final Stripe[] stripes;
+
+    // Indicates if released locks are handed to waiters in the order they started waiting
+    private final boolean fair;
+
+    // Time to live of a lock lease in nanoseconds, zero if leases never expire
+    private final long leaseNanos;
+
+    // Number of leases released by the reaper
+    private final AtomicLong expiredLeaseCount = new AtomicLong();
+
+    // Number of times a lock has been handed to a waiting thread
+    private final AtomicLong handoffCount = new AtomicLong();
+
+    // Last lock cookie issued
+    private final AtomicLong lastCookie = new AtomicLong();
+
+    // Recent times spent waiting by threads that acquired a lock after waiting for it
+    private final WaitTimeSampler waitTimes = new WaitTimeSampler(WaitTimeSampler.DEFAULT_CAPACITY);
+
+    // Releases expired leases, null if leases never expire
+    private final ScheduledExecutorService reaper;
+
+    /**
+     * Creates a new instance of <code>RecordLockManager</code> with the default number of stripes.
+     */
+    RecordLockManager() {
+        this(DEFAULT_STRIPE_COUNT);
+    }
+
+    /**
+     * Creates a new instance of <code>RecordLockManager</code>.
+     *
+     * @param stripeCount Number of lock stripes.
+     * @throws IllegalArgumentException If <code>stripeCount</code> is less than <code>1</code>.
+     */
+    RecordLockManager(int stripeCount) {
+        this(stripeCount, false, 0, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Creates a new instance of <code>RecordLockManager</code> that grants locks as leases with the
+     * specified time to live. If leases are enabled, a daemon thread is started to release expired
+     * leases, which runs until the manager is closed.
+     *
+     * @param stripeCount  Number of lock stripes.
+     * @param fair         <code>true</code> to hand released locks to waiters in the order they
+     *                     started waiting.
+     * @param leaseTimeout Time to live of a lock lease, or <code>0</code> if leases never expire.
+     * @param unit         Unit of the <code>leaseTimeout</code> argument.
+     * @throws IllegalArgumentException If <code>stripeCount</code> is less than <code>1</code>,
+     *                                  <code>leaseTimeout</code> is negative or <code>unit</code>
+     *                                  is <code>null</code>.
+     */
+    RecordLockManager(int stripeCount, boolean fair, long leaseTimeout, TimeUnit unit) {
+        if (stripeCount < 1) {
+            throw new IllegalArgumentException("stripeCount must be at least 1");
+        }
+        if (leaseTimeout < 0) {
+            throw new IllegalArgumentException("leaseTimeout cannot be negative");
+        }
+        if (unit == null) {
+            throw new IllegalArgumentException("unit cannot be null");
+        }
+
+        stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe();
+        }
+
+        this.fair = fair;
+        leaseNanos = unit.toNanos(leaseTimeout);
+        reaper = leaseNanos > 0
+                ? startReaper(Math.max(leaseNanos / 2, MINIMUM_REAPER_INTERVAL_NANOS)) : null;
+    }
+
+    private ScheduledExecutorService startReaper(long intervalNanos) {
+        ScheduledExecutorService reaper = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactory() {
+                    public Thread newThread(Runnable runnable) {
+                        Thread thread = new Thread(runnable, "RecordLockManager-reaper");
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        reaper.scheduleWithFixedDelay(new Runnable() {
+            public void run() {
+                reapExpiredLeases();
+            }
+        }, intervalNanos, intervalNanos, TimeUnit.NANOSECONDS);
+        return reaper;
+    }
+
+    /**
+     * Stops the thread that releases expired leases, if leases are enabled. Expired leases are no
+     * longer released in the background once the manager has been closed, but the locks can still
+     * be used.
+     */
+    void close() {
+        if (reaper != null) {
+            reaper.shutdownNow();
+        }
+    }
+
+    private Stripe stripeFor(int recNo) {
+        return stripes[(recNo & Integer.MAX_VALUE) % stripes.length];
+    }
+
+    /**
+     * Issues a new lock cookie that can be used as the owner of a record lock. Cookies are unique
+     * for the lifetime of the lock manager and are never equal to
+     * {@link DatabaseConstants#NO_LOCK_COOKIE}.
+     *
+     * @return A new lock cookie.
+     */
+    long newCookie() {
+        long cookie;
+        do {
+            cookie = lastCookie.incrementAndGet();
+        } while (cookie == DatabaseConstants.NO_LOCK_COOKIE);
+        return cookie;
+    }
+
+    /**
+     * Acquires the lock on a record for the current thread, waiting for as long as necessary if
+     * the record is locked by another owner.
+     *
+     * @param recNo Record number.
+     * @throws InterruptedException If the current thread is interrupted while waiting.
+     */
+    void lock(int recNo) throws InterruptedException {
+        lock(recNo, Thread.currentThread());
+    }
+
+    /**
+     * Acquires the lock on a record for the specified owner, waiting for as long as necessary if
+     * the record is locked by another owner.
+     *
+     * @param recNo Record number.
+     * @param owner Owner of the lock, either a <code>Thread</code> or a <code>Long</code> lock
+     *              cookie.
+     * @throws InterruptedException If the current thread is interrupted while waiting.
+     */
+    void lock(int recNo, Object owner) throws InterruptedException {
+        acquire(recNo, owner, false, 0);
+    }
+
+    /**
+     * Acquires the lock on a record for the current thread if it becomes available within the
+     * specified waiting time. A timeout of zero or less does not wait at all.
+     *
+     * @param recNo   Record number.
+     * @param timeout Maximum time to wait for the lock.
+     * @param unit    Unit of the <code>timeout</code> argument.
+     * @return <code>true</code> if the lock was acquired, <code>false</code> if the waiting time
+     * elapsed before the lock was available.
+     * @throws InterruptedException If the current thread is interrupted while waiting.
+     */
+    boolean tryLock(int recNo, long timeout, TimeUnit unit) throws InterruptedException {
+        return tryLock(recNo, Thread.currentThread(), timeout, unit);
+    }
+
+    /**
+     * Acquires the lock on a record for the specified owner if it becomes available within the
+     * specified waiting time. A timeout of zero or less does not wait at all.
+     *
+     * @param recNo   Record number.
+     * @param owner   Owner of the lock, either a <code>Thread</code> or a <code>Long</code> lock
+     *                cookie.
+     * @param timeout Maximum time to wait for the lock.
+     * @param unit    Unit of the <code>timeout</code> argument.
+     * @return <code>true</code> if the lock was acquired, <code>false</code> if the waiting time
+     * elapsed before the lock was available.
+     * @throws InterruptedException If the current thread is interrupted while waiting.
+     */
+    boolean tryLock(int recNo, Object owner, long timeout, TimeUnit unit)
+            throws InterruptedException {
+        return acquire(recNo, owner, true, unit.toNanos(timeout));
+    }
+
+    private boolean acquire(int recNo, Object owner, boolean timed, long nanos)
+            throws InterruptedException {
+        Stripe stripe = stripeFor(recNo);
+        stripe.lock.lock();
+        try {
+            RecordLock recordLock = stripe.getOrCreate(recNo);
+            if (recordLock.owner == null && recordLock.queue.isEmpty()) {
+                grant(recordLock, owner);
+                return true;
+            }
+            if (timed && nanos <= 0) {
+                stripe.removeIfUnused(recNo, recordLock);
+                return false;
+            }
+
+            long waitStart = System.nanoTime();
+            boolean acquired = fair
+                    ? awaitHandoff(stripe, recNo, recordLock, owner, timed, nanos)
+                    : awaitRelease(stripe, recNo, recordLock, owner, timed, nanos);
+            if (acquired) {
+                waitTimes.record(System.nanoTime() - waitStart);
+                recordLock.handoffs++;
+                handoffCount.incrementAndGet();
+            }
+            return acquired;
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /*
+     * Waits until the lock is released and takes it, competing with any other thread that wants
+     * it. The stripe lock must be held.
+     */
+    private boolean awaitRelease(Stripe stripe, int recNo, RecordLock recordLock, Object owner,
+            boolean timed, long nanos) throws InterruptedException {
+        recordLock.waiters++;
+        boolean acquired = false;
+        try {
+            while (recordLock.owner != null) {
+                if (!timed) {
+                    recordLock.condition.await();
+                } else if (nanos > 0) {
+                    nanos = recordLock.condition.awaitNanos(nanos);
+                } else {
+                    return false;
+                }
+            }
+            grant(recordLock, owner);
+            acquired = true;
+            return true;
+        } finally {
+            recordLock.waiters--;
+            if (!acquired) {
+                stripe.removeIfUnused(recNo, recordLock);
+            }
+        }
+    }
+
+    /*
+     * Joins the end of the record's wait queue and waits until the lock is handed over by release.
+     * The stripe lock must be held.
+     */
+    private boolean awaitHandoff(Stripe stripe, int recNo, RecordLock recordLock, Object owner,
+            boolean timed, long nanos) throws InterruptedException {
+        Waiter waiter = new Waiter(owner, stripe.lock.newCondition());
+        recordLock.queue.addLast(waiter);
+        recordLock.waiters++;
+        try {
+            while (!waiter.granted) {
+                if (!timed) {
+                    waiter.condition.await();
+                } else if (nanos > 0) {
+                    nanos = waiter.condition.awaitNanos(nanos);
+                } else {
+                    return false;
+                }
+            }
+            return true;
+        } catch (InterruptedException e) {
+            if (waiter.granted) {
+                // Too late to back out, keep the lock and preserve the interrupt
+                Thread.currentThread().interrupt();
+                return true;
+            }
+            throw e;
+        } finally {
+            recordLock.waiters--;
+            if (!waiter.granted) {
+                recordLock.queue.remove(waiter);
+                stripe.removeIfUnused(recNo, recordLock);
+            }
+        }
+    }
+
+    private void grant(RecordLock recordLock, Object owner) {
+        recordLock.owner = owner;
+        recordLock.leaseExpiry = System.nanoTime() + leaseNanos;
+    }
+
+    /*
+     * Releases a lock, handing it to the first waiter in fair mode or waking a waiter to compete
+     * for it otherwise. The stripe lock must be held.
+     */
+    private void release(Stripe stripe, int recNo, RecordLock recordLock) {
+        recordLock.owner = null;
+        Waiter next = recordLock.queue.poll();
+        if (next != null) {
+            next.granted = true;
+            grant(recordLock, next.owner);
+            next.condition.signal();
+        } else {
+            recordLock.condition.signal();
+            stripe.removeIfUnused(recNo, recordLock);
+        }
+    }
+
+    /**
+     * Releases the lock on a record held by the current thread and wakes one thread waiting for
+     * it, if any.
+     *
+     * @param recNo Record number.
+     * @throws IllegalMonitorStateException If the current thread does not hold the lock.
+     */
+    void unlock(int recNo) {
+        unlock(recNo, Thread.currentThread());
+    }
+
+    /**
+     * Releases the lock on a record held by the specified owner and wakes one thread waiting for
+     * it, if any. The owner is checked and the lock released in a single step, so a lock that is
+     * reaped and granted to another owner in the meantime is never released by mistake.
+     *
+     * @param recNo Record number.
+     * @param owner Owner of the lock, either a <code>Thread</code> or a <code>Long</code> lock
+     *              cookie.
+     * @throws IllegalMonitorStateException If <code>owner</code> does not hold the lock.
+     */
+    void unlock(int recNo, Object owner) {
+        Stripe stripe = stripeFor(recNo);
+        stripe.lock.lock();
+        try {
+            RecordLock recordLock = stripe.records.get(recNo);
+            if (recordLock == null || !owner.equals(recordLock.owner)) {
+                throw new IllegalMonitorStateException(describeOwner(owner)
+                        + " does not hold the lock on record " + recNo);
+            }
+            release(stripe, recNo, recordLock);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * Releases every lock whose lease has expired, waking one thread waiting for each released
+     * record. Does nothing if leases never expire.
+     *
+     * @return The number of leases released.
+     */
+    int reapExpiredLeases() {
+        if (leaseNanos == 0) {
+            return 0;
+        }
+
+        int reaped = 0;
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                long now = System.nanoTime();
+                List<Integer> expiredRecNos = new ArrayList<Integer>();
+                for (Map.Entry<Integer, RecordLock> entry : stripe.records.entrySet()) {
+                    RecordLock recordLock = entry.getValue();
+                    if (recordLock.owner != null && now - recordLock.leaseExpiry >= 0) {
+                        expiredRecNos.add(entry.getKey());
+                    }
+                }
+
+                for (Integer recNo : expiredRecNos) {
+                    RecordLock recordLock = stripe.records.get(recNo);
+                    LOGGER.warning("Lease held by " + describeOwner(recordLock.owner)
+                            + " on record " + recNo + " has expired, releasing lock");
+                    release(stripe, recNo, recordLock);
+                    expiredLeaseCount.incrementAndGet();
+                    reaped++;
+                }
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return reaped;
+    }
+
+    /**
+     * Returns a snapshot of the lock state.
+     *
+     * @return The lock statistics.
+     */
+    LockStatistics getStatistics() {
+        int lockedRecordCount = 0;
+        Map<Integer, Integer> queueDepths = new HashMap<Integer, Integer>();
+        Map<Integer, Long> handoffs = new HashMap<Integer, Long>();
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                for (Map.Entry<Integer, RecordLock> entry : stripe.records.entrySet()) {
+                    RecordLock recordLock = entry.getValue();
+                    if (recordLock.owner != null) {
+                        lockedRecordCount++;
+                    }
+                    if (recordLock.waiters > 0) {
+                        queueDepths.put(entry.getKey(), recordLock.waiters);
+                    }
+                    if (recordLock.handoffs > 0) {
+                        handoffs.put(entry.getKey(), recordLock.handoffs);
+                    }
+                }
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return new LockStatistics(lockedRecordCount, queueDepths, handoffCount.get(), handoffs,
+                expiredLeaseCount.get(), waitTimes.getSortedSamples());
+    }
+
+    /**
+     * Indicates if a record is locked by any owner.
+     *
+     * @param recNo Record number.
+     * @return <code>true</code> if the record is locked, <code>false</code> otherwise.
+     */
+    boolean isLocked(int recNo) {
+        return getOwner(recNo) != null;
+    }
+
+    /**
+     * Indicates if a record is locked by the current thread.
+     *
+     * @param recNo Record number.
+     * @return <code>true</code> if the current thread holds the lock, <code>false</code> otherwise.
+     */
+    boolean isHeldByCurrentThread(int recNo) {
+        return isHeldBy(recNo, Thread.currentThread());
+    }
+
+    /**
+     * Indicates if a record is locked by the specified owner.
+     *
+     * @param recNo Record number.
+     * @param owner Owner of the lock, either a <code>Thread</code> or a <code>Long</code> lock
+     *              cookie.
+     * @return <code>true</code> if <code>owner</code> holds the lock, <code>false</code> otherwise.
+     */
+    boolean isHeldBy(int recNo, Object owner) {
+        return owner.equals(getOwner(recNo));
+    }
+
+    private Object getOwner(int recNo) {
+        Stripe stripe = stripeFor(recNo);
+        stripe.lock.lock();
+        try {
+            RecordLock recordLock = stripe.records.get(recNo);
+            return recordLock == null ? null : recordLock.owner;
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * Returns a description of a lock owner suitable for log messages.
+     *
+     * @param owner Owner of a lock, either a <code>Thread</code> or a <code>Long</code> lock
+     *              cookie.
+     * @return The owner description.
+     */
+    static String describeOwner(Object owner) {
+        if (owner instanceof Thread) {
+            return "Thread with ID=" + ((Thread) owner).getId();
+        }
+        return "Lock cookie " + owner;
+    }
+
+    /**
+     * Returns the number of records for which lock state is currently held, i.e. records that are
+     * locked or being waited for.
+     *
+     * @return The number of records in use.
+     */
+    int getActiveRecordCount() {
+        int count = 0;
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                count += stripe.records.size();
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return count;
+    }
+
+    /*
+     * A lock stripe: a mutual exclusion lock and the state of the records it guards that are
+     * currently locked or being waited for.
+     */
+    private static final class Stripe {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Map<Integer, RecordLock> records = new HashMap<Integer, RecordLock>();
+
+        private RecordLock getOrCreate(int recNo) {
+            RecordLock recordLock = records.get(recNo);
+            if (recordLock == null) {
+                recordLock = new RecordLock(lock.newCondition());
+                records.put(recNo, recordLock);
+            }
+            return recordLock;
+        }
+
+        private void removeIfUnused(int recNo, RecordLock recordLock) {
+            if (recordLock.owner == null && recordLock.waiters == 0) {
+                records.remove(recNo);
+            }
+        }
+    }
+
+    /*
+     * State of a single record lock, guarded by the lock of the stripe that holds it.
+     */
+    private static final class RecordLock {
+
+        // Condition that waiters wait on when the lock is not fair
+        private final Condition condition;
+
+        // Waiters in the order they started waiting, only used when the lock is fair
+        private final LinkedList<Waiter> queue = new LinkedList<Waiter>();
+
+        // Thread or lock cookie that holds the lock, null if the record is not locked
+        private Object owner;
+        private int waiters;
+
+        // Number of times the lock has been handed to a waiting thread since the state was created
+        private long handoffs;
+
+        // Value of System.nanoTime() at which the lease expires, only used if leases are enabled
+        private long leaseExpiry;
+
+        private RecordLock(Condition condition) {
+            this.condition = condition;
+        }
+    }
+
+    /*
+     * A thread waiting in a fair wait queue, guarded by the lock of the stripe that holds it.
+     */
+    private static final class Waiter {
+
+        private final Object owner;
+        private final Condition condition;
+
+        // Set when the lock has been handed to this waiter
+        private boolean granted;
+
+        private Waiter(Object owner, Condition condition) {
+            this.owner = owner;
+            this.condition = condition;
+        }
+    }
+}
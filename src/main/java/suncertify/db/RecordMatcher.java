@@ -0,0 +1,128 @@
+/*
+ * RecordMatcher.java
+ *
+ * 18 Oct 2026
+ */
+
+package suncertify.db;
+
+import suncertify.db.DatabaseSchema.FieldDescription;
+
+/**
+ * Matches records held in a {@link ColumnStore} against search criteria. A field value matches a
+ * criteria element if it begins with that element, as described by {@link DBMain#find}.
+ * <p/>
+ * The criteria are encoded using {@link DatabaseConstants#CHARACTER_SET} once, when the matcher is
+ * created, and are then compared directly against the raw bytes held in the column store. No
+ * objects are allocated while matching a record.
+ *
+ * @author Richard Wardle
+ */
+final class RecordMatcher {
+
+    // Indexes of the fields that have a non-null, non-empty criteria element
+    private final int[] fieldIndexes;
+
+    // Encoded criteria elements, corresponding to fieldIndexes
+    private final byte[][] prefixes;
+
+    // Indicates if any record could possibly match the criteria
+    private final boolean satisfiable;
+
+    /**
+     * Creates a new instance of <code>RecordMatcher</code>.
+     *
+     * @param databaseSchema Database schema.
+     * @param criteria       Search criteria, one element per field. A <code>null</code> element
+     *                       matches any field value.
+     * @throws IllegalArgumentException If <code>databaseSchema</code> or <code>criteria</code> is
+     *                                  <code>null</code>, or <code>criteria</code> is not the same
+     *                                  length as the number of fields in the schema.
+     */
+    RecordMatcher(DatabaseSchema databaseSchema, String[] criteria) {
+        if (databaseSchema == null) {
+            throw new IllegalArgumentException("databaseSchema cannot be null");
+        }
+        if (criteria == null) {
+            throw new IllegalArgumentException("criteria cannot be null");
+        }
+        if (criteria.length != databaseSchema.getFieldCount()) {
+            throw new IllegalArgumentException("criteria array must be of length: "
+                    + databaseSchema.getFieldCount());
+        }
+
+        FieldDescription[] fieldDescriptions = databaseSchema.getFieldDescriptions();
+        int count = 0;
+        for (String element : criteria) {
+            if (element != null && element.length() > 0) {
+                count++;
+            }
+        }
+
+        fieldIndexes = new int[count];
+        prefixes = new byte[count][];
+        boolean canMatch = true;
+        int index = 0;
+        for (int i = 0; i < criteria.length; i++) {
+            if (criteria[i] != null && criteria[i].length() > 0) {
+                fieldIndexes[index] = i;
+                prefixes[index] = encode(criteria[i]);
+
+                // A criteria element that cannot be encoded or is longer than the field can never
+                // match
+                if (prefixes[index] == null
+                        || prefixes[index].length > fieldDescriptions[i].getLength()) {
+                    canMatch = false;
+                }
+                index++;
+            }
+        }
+        satisfiable = canMatch;
+    }
+
+    /*
+     * Encodes a criteria element using the database character set, returning null if it contains
+     * characters outside of the character set. Such an element would otherwise be encoded with a
+     * replacement character and could match values it does not start.
+     */
+    private static byte[] encode(String element) {
+        byte[] bytes = new byte[element.length()];
+        for (int i = 0; i < bytes.length; i++) {
+            char c = element.charAt(i);
+            if (c > 0xFF) {
+                return null;
+            }
+            bytes[i] = (byte) c;
+        }
+        return bytes;
+    }
+
+    /**
+     * Indicates if any record could match the criteria. Returns <code>false</code> if a criteria
+     * element is longer than its field or contains characters that cannot appear in the database.
+     *
+     * @return <code>true</code> if a record could match, <code>false</code> otherwise.
+     */
+    boolean isSatisfiable() {
+        return satisfiable;
+    }
+
+    /**
+     * Indicates if the specified record matches the criteria.
+     *
+     * @param columnStore Column store holding the record.
+     * @param recNo       Record number.
+     * @return <code>true</code> if the record matches, <code>false</code> otherwise.
+     */
+    boolean matches(ColumnStore columnStore, int recNo) {
+        if (!satisfiable) {
+            return false;
+        }
+        for (int i = 0; i < fieldIndexes.length; i++) {
+            if (!columnStore.fieldStartsWith(recNo, fieldIndexes[i], prefixes[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
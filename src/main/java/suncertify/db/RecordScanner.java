@@ -0,0 +1,157 @@
+/*
+ * RecordScanner.java
+ *
+ * 18 Oct 2026
+ */
+
+package suncertify.db;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Scans a range of record numbers for records accepted by a {@link RecordFilter}. Small ranges are
+ * scanned sequentially on the calling thread. Ranges of at least the configured threshold are split
+ * into partitions that are scanned in parallel on a fork-join pool, and the results are merged so
+ * that the returned record numbers are always in ascending order.
+ * <p/>
+ * The scanner does not perform any locking itself. Callers must hold whatever lock is required to
+ * read the records for the whole duration of a call to {@link #scan}.
+ *
+ * @author Richard Wardle
+ */
+final class RecordScanner {
+
+    // Smallest number of records that will be scanned as a single partition
+    private static final int MINIMUM_PARTITION_SIZE = 1024;
+
+    // Number of partitions created per thread, allowing work stealing to even out the load
+    private static final int PARTITIONS_PER_THREAD = 4;
+
+    private final int parallelThreshold;
+    private final int parallelism;
+
+    // Pool used for parallel scans, null if scans are always sequential
+    private final ForkJoinPool pool;
+
+    /**
+     * Filter deciding which records are returned by a scan. Implementations must be safe to call
+     * from multiple threads at the same time.
+     */
+    interface RecordFilter {
+
+        /**
+         * Indicates if the specified record should be returned by the scan.
+         *
+         * @param recNo Record number.
+         * @return <code>true</code> if the record is accepted, <code>false</code> otherwise.
+         */
+        boolean accept(int recNo);
+    }
+
+    /**
+     * Creates a new instance of <code>RecordScanner</code>.
+     *
+     * @param parallelThreshold Minimum number of records for a scan to run in parallel.
+     * @param parallelism       Number of threads used for a parallel scan. A value of
+     *                          <code>1</code> disables parallel scans.
+     * @throws IllegalArgumentException If <code>parallelThreshold</code> or
+     *                                  <code>parallelism</code> is less than <code>1</code>.
+     */
+    RecordScanner(int parallelThreshold, int parallelism) {
+        if (parallelThreshold < 1) {
+            throw new IllegalArgumentException("parallelThreshold must be at least 1");
+        }
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be at least 1");
+        }
+
+        this.parallelThreshold = parallelThreshold;
+        this.parallelism = parallelism;
+        pool = parallelism > 1 ? new ForkJoinPool(parallelism) : null;
+    }
+
+    /**
+     * Returns the record numbers between <code>0</code> (inclusive) and <code>recordCount</code>
+     * (exclusive) that are accepted by the filter, in ascending order.
+     *
+     * @param recordCount Number of records to scan.
+     * @param filter      Filter deciding which records are returned.
+     * @return The accepted record numbers.
+     */
+    int[] scan(int recordCount, RecordFilter filter) {
+        if (pool == null || recordCount < parallelThreshold) {
+            return scanRange(0, recordCount, filter);
+        }
+
+        int partitionSize = Math.max(MINIMUM_PARTITION_SIZE, recordCount
+                / (parallelism * PARTITIONS_PER_THREAD));
+        return pool.invoke(new ScanTask(0, recordCount, partitionSize, filter));
+    }
+
+    /**
+     * Shuts down the threads used for parallel scans. Scans must not be made once the scanner has
+     * been closed.
+     */
+    void close() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    private static int[] scanRange(int start, int end, RecordFilter filter) {
+        int[] recNos = new int[16];
+        int count = 0;
+        for (int recNo = start; recNo < end; recNo++) {
+            if (filter.accept(recNo)) {
+                if (count == recNos.length) {
+                    recNos = Arrays.copyOf(recNos, count * 2);
+                }
+                recNos[count] = recNo;
+                count++;
+            }
+        }
+        return Arrays.copyOf(recNos, count);
+    }
+
+    /*
+     * Scans a range of records, splitting it in half until the partitions are small enough to be
+     * scanned directly. The results of the left half always precede those of the right half, so
+     * concatenating them preserves the ordering.
+     */
+    private static final class ScanTask extends RecursiveTask<int[]> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int start;
+        private final int end;
+        private final int partitionSize;
+        private final RecordFilter filter;
+
+        ScanTask(int start, int end, int partitionSize, RecordFilter filter) {
+            this.start = start;
+            this.end = end;
+            this.partitionSize = partitionSize;
+            this.filter = filter;
+        }
+
+        @Override
+        protected int[] compute() {
+            if (end - start <= partitionSize) {
+                return scanRange(start, end, filter);
+            }
+
+            int middle = (start + end) >>> 1;
+            ScanTask left = new ScanTask(start, middle, partitionSize, filter);
+            ScanTask right = new ScanTask(middle, end, partitionSize, filter);
+            left.fork();
+            int[] rightRecNos = right.compute();
+            int[] leftRecNos = left.join();
+
+            int[] recNos = Arrays.copyOf(leftRecNos, leftRecNos.length + rightRecNos.length);
+            System.arraycopy(rightRecNos, 0, recNos, leftRecNos.length, rightRecNos.length);
+            return recNos;
+        }
+    }
+}
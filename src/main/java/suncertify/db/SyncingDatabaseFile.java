@@ -0,0 +1,221 @@
+/*
+ * SyncingDatabaseFile.java
+ *
+ * 18 Oct 2026
+ */
+
+package suncertify.db;
+
+import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A {@link DatabaseFile} that syncs the writes made to another database file, either after every
+ * write or periodically in the background. Reads are passed straight through.
+ *
+ * @author Richard Wardle
+ * @see DurabilityPolicy
+ */
+final class SyncingDatabaseFile implements DatabaseFile {
+
+    private static final Logger LOGGER = Logger.getLogger(SyncingDatabaseFile.class.getName());
+
+    private final DatabaseFile databaseFile;
+
+    // Indicates if every write is synced before returning, rather than in the background
+    private final boolean syncPerWrite;
+
+    // Indicates if the file has been written to since it was last synced in the background
+    private final AtomicBoolean dirty = new AtomicBoolean();
+
+    // Executor running the background syncs, null if every write is synced
+    private final ScheduledExecutorService syncer;
+
+    /**
+     * Creates a new instance of <code>SyncingDatabaseFile</code>.
+     *
+     * @param databaseFile Database file to sync.
+     * @param syncInterval Interval between background syncs, or <code>0</code> to sync after
+     *                     every write.
+     * @param unit         Unit of the <code>syncInterval</code> argument.
+     * @throws IllegalArgumentException If <code>databaseFile</code> or <code>unit</code> is
+     *                                  <code>null</code>, or <code>syncInterval</code> is negative.
+     */
+    SyncingDatabaseFile(DatabaseFile databaseFile, long syncInterval, TimeUnit unit) {
+        if (databaseFile == null) {
+            throw new IllegalArgumentException("databaseFile cannot be null");
+        }
+        if (syncInterval < 0) {
+            throw new IllegalArgumentException("syncInterval cannot be negative");
+        }
+        if (unit == null) {
+            throw new IllegalArgumentException("unit cannot be null");
+        }
+
+        this.databaseFile = databaseFile;
+        syncPerWrite = syncInterval == 0;
+        syncer = syncPerWrite ? null : startSyncer(unit.toNanos(syncInterval));
+    }
+
+    private ScheduledExecutorService startSyncer(long intervalNanos) {
+        ScheduledExecutorService syncer = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactory() {
+                    public Thread newThread(Runnable runnable) {
+                        Thread thread = new Thread(runnable, "SyncingDatabaseFile-syncer");
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        syncer.scheduleWithFixedDelay(new Runnable() {
+            public void run() {
+                syncIfDirty();
+            }
+        }, intervalNanos, intervalNanos, TimeUnit.NANOSECONDS);
+        return syncer;
+    }
+
+    /**
+     * Syncs the database file if it has been written to since it was last synced in the
+     * background. Errors are logged rather than thrown since there is no caller to report them to;
+     * the file is marked as dirty again so that the next sync retries. Synchronized with
+     * {@link #close} so that the file is never closed during a background sync.
+     */
+    synchronized void syncIfDirty() {
+        if (dirty.getAndSet(false)) {
+            try {
+                databaseFile.sync();
+            } catch (IOException e) {
+                dirty.set(true);
+                LOGGER.log(Level.WARNING, "Error syncing the database file", e);
+            }
+        }
+    }
+
+    private void written() throws IOException {
+        if (syncPerWrite) {
+            databaseFile.sync();
+        } else {
+            dirty.set(true);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public long getFilePointer() throws IOException {
+        return databaseFile.getFilePointer();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public long length() throws IOException {
+        return databaseFile.length();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void seek(long pos) throws IOException {
+        databaseFile.seek(pos);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public byte readByte() throws IOException {
+        return databaseFile.readByte();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public short readShort() throws IOException {
+        return databaseFile.readShort();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int readInt() throws IOException {
+        return databaseFile.readInt();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void readFully(byte[] b) throws IOException {
+        databaseFile.readFully(b);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void write(byte[] b) throws IOException {
+        databaseFile.write(b);
+        written();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void writeByte(int v) throws IOException {
+        databaseFile.writeByte(v);
+        written();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void readFully(long position, byte[] b) throws IOException {
+        databaseFile.readFully(position, b);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void write(long position, byte[] b) throws IOException {
+        databaseFile.write(position, b);
+        written();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void write(long position, byte[] b, int offset, int length) throws IOException {
+        databaseFile.write(position, b, offset, length);
+        written();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void sync() throws IOException {
+        databaseFile.sync();
+    }
+
+    /**
+     * Stops the background syncs, syncs any writes made since the last background sync and then
+     * closes the database file.
+     *
+     * @throws IOException If the file cannot be synced or closed.
+     */
+    public synchronized void close() throws IOException {
+        if (syncer != null) {
+            syncer.shutdown();
+        }
+        try {
+            if (dirty.getAndSet(false)) {
+                databaseFile.sync();
+            }
+        } finally {
+            databaseFile.close();
+        }
+    }
+}
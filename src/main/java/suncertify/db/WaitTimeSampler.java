@@ -0,0 +1,81 @@
+/*
+ * WaitTimeSampler.java
+ *
+ * 18 Oct 2026
+ */
+
+package suncertify.db;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Keeps the most recent samples of the time threads spent waiting for a record lock, in a fixed
+ * size ring buffer. Recording a sample never blocks and costs the same however many samples have
+ * been recorded, so it is cheap enough to do on every contended lock acquisition.
+ * <p/>
+ * This class is thread-safe. A snapshot taken while samples are being recorded may contain a slot
+ * that has been claimed but not yet written; such a slot holds an older sample or zero.
+ *
+ * @author Richard Wardle
+ */
+final class WaitTimeSampler {
+
+    /**
+     * Default number of samples kept.
+     */
+    static final int DEFAULT_CAPACITY = 1024;
+
+    private final AtomicLongArray samples;
+
+    // Total number of samples recorded, the next sample is written to slot count % capacity
+    private final AtomicLong count = new AtomicLong();
+
+    /**
+     * Creates a new instance of <code>WaitTimeSampler</code>.
+     *
+     * @param capacity Number of samples kept.
+     * @throws IllegalArgumentException If <code>capacity</code> is less than <code>1</code>.
+     */
+    WaitTimeSampler(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be at least 1");
+        }
+        samples = new AtomicLongArray(capacity);
+    }
+
+    /**
+     * Records a wait time, replacing the oldest sample if the buffer is full.
+     *
+     * @param waitNanos Wait time in nanoseconds.
+     */
+    void record(long waitNanos) {
+        int slot = (int) (count.getAndIncrement() % samples.length());
+        samples.set(slot, waitNanos);
+    }
+
+    /**
+     * Returns the total number of wait times recorded, including those no longer kept.
+     *
+     * @return The number of wait times recorded.
+     */
+    long getCount() {
+        return count.get();
+    }
+
+    /**
+     * Returns a copy of the samples currently kept, sorted in ascending order.
+     *
+     * @return The sorted samples.
+     */
+    long[] getSortedSamples() {
+        int size = (int) Math.min(count.get(), samples.length());
+        long[] copy = new long[size];
+        for (int i = 0; i < size; i++) {
+            copy[i] = samples.get(i);
+        }
+        Arrays.sort(copy);
+        return copy;
+    }
+}
@@ -0,0 +1,383 @@
+/*
+ * WriteAheadLog.java
+ *
+ * 18 Oct 2026
+ */
+
+package suncertify.db;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only redo log of the writes made to a database file. Each entry records the bytes
+ * written and the offset at which they were written, followed by a CRC32 checksum of the entry.
+ * If the database is not shut down cleanly, the entries in the log are written to the database
+ * file again when it is next opened, so any modification that was acknowledged survives a crash.
+ * <p/>
+ * Entries are appended to an in-memory buffer, and a thread that needs its entries to be durable
+ * calls {@link #awaitDurable}. The first such thread writes the buffer to the log file and syncs
+ * it on behalf of every thread waiting at the time, so that many modifications share the cost of
+ * one sync. The waiting thread can optionally delay the sync to let more entries join the batch.
+ * <p/>
+ * This class is thread-safe. If writing the log fails, every subsequent call throws an
+ * <code>IOException</code>, since acknowledging further modifications would be unsafe.
+ *
+ * @author Richard Wardle
+ */
+final class WriteAheadLog {
+
+    /**
+     * Suffix appended to the path of a database file to give the path of its log file.
+     */
+    static final String FILE_SUFFIX = ".wal";
+
+    /**
+     * Default size, in bytes, the log may grow to before the database file is synced and the log
+     * is truncated.
+     */
+    static final long DEFAULT_CHECKPOINT_SIZE = 1024 * 1024;
+
+    private static final Logger LOGGER = Logger.getLogger(WriteAheadLog.class.getName());
+
+    // Length of the offset and byte count that precede the bytes of each entry
+    private static final int HEADER_LENGTH = 12;
+
+    // Length of the checksum that follows the bytes of each entry
+    private static final int CHECKSUM_LENGTH = 4;
+
+    private final FileChannel channel;
+    private final long groupCommitDelayNanos;
+
+    // Entries appended but not yet written to the log file, guarded by this
+    private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+    private final DataOutputStream pendingOut = new DataOutputStream(pending);
+
+    /*
+     * Sequence numbers of the last entry appended and the last entry known to be durable, and the
+     * length of the log file. All guarded by this.
+     */
+    private long appendedSequence;
+    private long durableSequence;
+    private long logLength;
+
+    // Indicates if a thread is writing and syncing a batch of entries, guarded by this
+    private boolean flushing;
+
+    // Number of times the log file has been synced, guarded by this
+    private long syncCount;
+
+    // The error that caused writing the log to fail, guarded by this
+    private IOException failure;
+
+    /**
+     * Creates a new instance of <code>WriteAheadLog</code>, creating the log file if it does not
+     * exist. Any entries already in the file are kept until {@link #replay} is called.
+     *
+     * @param logFile          Log file.
+     * @param groupCommitDelay Time a thread waits for more entries to join a batch before syncing
+     *                         the log, may be <code>0</code>.
+     * @param unit             Unit of the <code>groupCommitDelay</code> argument.
+     * @throws IOException              If the log file cannot be opened.
+     * @throws IllegalArgumentException If <code>logFile</code> or <code>unit</code> is
+     *                                  <code>null</code>, or <code>groupCommitDelay</code> is
+     *                                  negative.
+     */
+    WriteAheadLog(File logFile, long groupCommitDelay, TimeUnit unit) throws IOException {
+        if (logFile == null) {
+            throw new IllegalArgumentException("logFile cannot be null");
+        }
+        if (groupCommitDelay < 0) {
+            throw new IllegalArgumentException("groupCommitDelay cannot be negative");
+        }
+        if (unit == null) {
+            throw new IllegalArgumentException("unit cannot be null");
+        }
+
+        channel = new RandomAccessFile(logFile, "rw").getChannel();
+        groupCommitDelayNanos = unit.toNanos(groupCommitDelay);
+        logLength = channel.size();
+    }
+
+    /**
+     * Writes every valid entry in the log file to the database file, syncs the database file and
+     * then truncates the log. Reading stops at the first entry that is incomplete or fails its
+     * checksum, since it can only have been written by a batch that was never acknowledged.
+     *
+     * @param databaseFile Database file that the entries were written to.
+     * @return The number of entries written to the database file.
+     * @throws IOException If there is an error reading the log or writing the database file.
+     */
+    synchronized int replay(DatabaseFile databaseFile) throws IOException {
+        checkNotFailed();
+        if (logLength > Integer.MAX_VALUE) {
+            throw new IOException("Log file is too long to replay: " + logLength + " bytes");
+        }
+
+        ByteBuffer log = ByteBuffer.allocate((int) logLength);
+        while (log.hasRemaining() && channel.read(log, log.position()) >= 0) {
+            // Read until the whole file is in the buffer
+        }
+        // Flip through Buffer, ByteBuffer.flip() does not exist before Java 9
+        ((Buffer) log).flip();
+
+        int entryCount = 0;
+        while (log.remaining() >= HEADER_LENGTH) {
+            int entryStart = log.position();
+            long position = log.getLong();
+            int length = log.getInt();
+            if (position < 0 || length < 0 || log.remaining() < length + CHECKSUM_LENGTH) {
+                LOGGER.warning("Ignoring incomplete log entry at offset " + entryStart);
+                break;
+            }
+
+            byte[] bytes = new byte[length];
+            log.get(bytes);
+            CRC32 checksum = new CRC32();
+            checksum.update(log.array(), entryStart, HEADER_LENGTH + length);
+            if ((int) checksum.getValue() != log.getInt()) {
+                LOGGER.warning("Ignoring corrupt log entry at offset " + entryStart);
+                break;
+            }
+
+            databaseFile.write(position, bytes);
+            entryCount++;
+        }
+
+        if (entryCount > 0) {
+            databaseFile.sync();
+            LOGGER.info("Replayed " + entryCount + " log entries into the database file");
+        }
+        truncateLog();
+        return entryCount;
+    }
+
+    /**
+     * Appends an entry recording that the specified bytes were written to the database file at the
+     * specified offset. The entry is not durable until {@link #awaitDurable} has returned for its
+     * sequence number. Entries must be appended in the same order as the writes they record.
+     *
+     * @param position Offset in the database file at which the bytes were written.
+     * @param bytes    The bytes written.
+     * @return The sequence number of the entry.
+     * @throws IOException If writing the log has failed.
+     */
+    long append(long position, byte[] bytes) throws IOException {
+        return append(position, bytes, 0, bytes.length);
+    }
+
+    /**
+     * Appends an entry recording that <code>length</code> bytes of the specified array, starting
+     * at <code>offset</code>, were written to the database file at the specified position.
+     *
+     * @param position Offset in the database file at which the bytes were written.
+     * @param bytes    Array containing the bytes written.
+     * @param offset   Offset in <code>bytes</code> of the first byte written.
+     * @param length   Number of bytes written.
+     * @return The sequence number of the entry.
+     * @throws IOException If writing the log has failed.
+     * @see #append(long, byte[])
+     */
+    synchronized long append(long position, byte[] bytes, int offset, int length)
+            throws IOException {
+        checkNotFailed();
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+        header.putLong(position).putInt(length);
+        CRC32 checksum = new CRC32();
+        checksum.update(header.array());
+        checksum.update(bytes, offset, length);
+
+        pendingOut.write(header.array());
+        pendingOut.write(bytes, offset, length);
+        pendingOut.writeInt((int) checksum.getValue());
+        return ++appendedSequence;
+    }
+
+    /**
+     * Returns the sequence number of the last entry appended.
+     *
+     * @return The sequence number, or <code>0</code> if no entry has been appended.
+     */
+    synchronized long getAppendedSequence() {
+        return appendedSequence;
+    }
+
+    /**
+     * Waits until the entry with the specified sequence number, and every entry before it, is
+     * durable. If no other thread is writing the log, the calling thread writes and syncs every
+     * pending entry. The wait is not interruptible, since the caller must not acknowledge a
+     * modification before it is durable; the interrupt status of the thread is restored on return.
+     *
+     * @param sequence Sequence number of the entry.
+     * @throws IOException If writing the log fails.
+     */
+    void awaitDurable(long sequence) throws IOException {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                byte[] batch;
+                long batchSequence;
+                long batchPosition;
+                synchronized (this) {
+                    while (durableSequence < sequence && flushing) {
+                        try {
+                            wait();
+                        } catch (InterruptedException e) {
+                            interrupted = true;
+                        }
+                    }
+                    if (durableSequence >= sequence) {
+                        return;
+                    }
+                    checkNotFailed();
+
+                    // No other thread is writing the log, so write this batch
+                    flushing = true;
+                    interrupted |= awaitGroupCommitDelay();
+                    batch = pending.toByteArray();
+                    pending.reset();
+                    batchSequence = appendedSequence;
+                    batchPosition = logLength;
+                    logLength += batch.length;
+                }
+
+                // Let other threads append to the next batch while this one is written
+                IOException error = null;
+                try {
+                    writeBatch(batch, batchPosition);
+                } catch (IOException e) {
+                    error = e;
+                }
+
+                synchronized (this) {
+                    flushing = false;
+                    if (error == null) {
+                        syncCount++;
+                        durableSequence = Math.max(durableSequence, batchSequence);
+                    } else {
+                        failure = error;
+                    }
+                    notifyAll();
+                }
+                if (error != null) {
+                    LOGGER.log(Level.SEVERE, "Error writing the log, no further modifications can"
+                            + " be made", error);
+                    throw error;
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /*
+     * Waits for the group commit delay to let more entries join the batch. Must be called holding
+     * the lock on this, which is released while waiting. Returns true if the thread was
+     * interrupted.
+     */
+    private boolean awaitGroupCommitDelay() {
+        boolean interrupted = false;
+        long remainingNanos = groupCommitDelayNanos;
+        long deadline = System.nanoTime() + remainingNanos;
+        while (remainingNanos > 0) {
+            try {
+                TimeUnit.NANOSECONDS.timedWait(this, remainingNanos);
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+            remainingNanos = deadline - System.nanoTime();
+        }
+        return interrupted;
+    }
+
+    private void writeBatch(byte[] batch, long position) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(batch);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, position + buffer.position());
+        }
+        channel.force(false);
+    }
+
+    /**
+     * Discards every entry in the log, written or pending. Must only be called once every write
+     * recorded in the log has been synced to the database file, and while no further entries can
+     * be appended.
+     *
+     * @throws IOException If the log file cannot be truncated.
+     */
+    synchronized void checkpoint() throws IOException {
+        checkNotFailed();
+        boolean interrupted = false;
+        while (flushing) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+
+        pending.reset();
+        truncateLog();
+        durableSequence = appendedSequence;
+        notifyAll();
+        LOGGER.fine("Checkpointed the log");
+    }
+
+    private void truncateLog() throws IOException {
+        channel.truncate(0);
+        channel.force(true);
+        logLength = 0;
+    }
+
+    /**
+     * Closes the log file. Entries not yet written to the log file are discarded, so the log must
+     * be checkpointed first if they are needed. The log cannot be used once it has been closed.
+     *
+     * @throws IOException If the log file cannot be closed.
+     */
+    synchronized void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Returns the size, in bytes, of the log including entries not yet written to the log file.
+     *
+     * @return The size of the log.
+     */
+    synchronized long size() {
+        return logLength + pending.size();
+    }
+
+    /**
+     * Returns the number of times the log file has been synced to make a batch of entries durable.
+     *
+     * @return The number of syncs.
+     */
+    synchronized long getSyncCount() {
+        return syncCount;
+    }
+
+    private void checkNotFailed() throws IOException {
+        if (failure != null) {
+            IOException exception = new IOException("Writing the log has failed");
+            exception.initCause(failure);
+            throw exception;
+        }
+    }
+}
@@ -120,6 +120,20 @@ public final class ContractorTableModel extends AbstractTableModel {
         fireTableDataChanged();
     }
 
+    /**
+     * Adds the specified contractors to the end of the model.
+     *
+     * @param newContractors List of contractors to add.
+     */
+    public void addContractors(List<Contractor> newContractors) {
+        if (newContractors.isEmpty()) {
+            return;
+        }
+        int firstRow = contractors.size();
+        contractors.addAll(Collections.unmodifiableList(newContractors));
+        fireTableRowsInserted(firstRow, contractors.size() - 1);
+    }
+
     /**
      * Returns the contractor at the specified row.
      *
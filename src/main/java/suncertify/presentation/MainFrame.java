@@ -186,6 +186,16 @@ public final class MainFrame extends JFrame implements MainView {
         resultsTable.removeEditor();
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    public void addTableData(List<Contractor> contractors) {
+        if (contractors == null) {
+            throw new IllegalArgumentException("contractors cannot be null");
+        }
+        tableModel.addContractors(contractors);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -63,7 +63,8 @@ public class MainPresenter {
     /**
      * Performs the search action. The work of the search action is performed on a
      * {@link SwingWorker} thread and the user interface controls are disabled until the search
-     * action completes.
+     * action completes. The results are fetched a page at a time and added to the view as each
+     * page arrives.
      *
      * @param componentToFocus Component to focus when the search action has completed successfully.
      */
@@ -78,17 +79,21 @@ public class MainPresenter {
         final SearchCriteria searchCriteria = new SearchCriteria().setName(nameCriteria)
                 .setLocation(locationCriteria);
 
-        SwingWorker<List<Contractor>, Void> searchWorker = createSearchWorker(searchCriteria,
+        SwingWorker<Integer, List<Contractor>> searchWorker = createSearchWorker(searchCriteria,
                 componentToFocus);
         view.disableControls();
         searchWorker.execute();
     }
 
-    SwingWorker<List<Contractor>, Void> createSearchWorker(final SearchCriteria searchCriteria,
-                                                           Component componentToFocus) {
+    SwingWorker<Integer, List<Contractor>> createSearchWorker(
+            final SearchCriteria searchCriteria, Component componentToFocus) {
         return new SearchWorker(this, searchCriteria, componentToFocus);
     }
 
+    int getSearchPageSize() {
+        return PresentationConstants.SEARCH_PAGE_SIZE;
+    }
+
     private String substituteNullForEmptyString(String str) {
         String result = str;
         if ("".equals(str)) {
@@ -134,13 +139,20 @@ public class MainPresenter {
         JOptionPane.showMessageDialog(view.getFrame(), message, title, messageType);
     }
 
-    // Extension of SwingWorker that performs a search for contractors
-    private static final class SearchWorker extends SwingWorker<List<Contractor>, Void> {
+    /*
+     * Extension of SwingWorker that performs a search for contractors. Each page of results is
+     * published as it arrives, and the result of the worker is the total number of contractors
+     * found.
+     */
+    private static final class SearchWorker extends SwingWorker<Integer, List<Contractor>> {
 
         private final MainPresenter presenter;
         private final SearchCriteria searchCriteria;
         private final Component componentToFocus;
 
+        // Only accessed on the Event Dispatch Thread
+        private boolean firstPageShown;
+
         public SearchWorker(MainPresenter presenter, SearchCriteria searchCriteria,
                             Component componentToFocus) {
             this.presenter = presenter;
@@ -150,8 +162,39 @@ public class MainPresenter {
 
         // This method is executed on a background thread
         @Override
-        protected List<Contractor> doInBackground() throws IOException {
-            return presenter.service.search(searchCriteria);
+        protected Integer doInBackground() throws IOException {
+            int pageSize = presenter.getSearchPageSize();
+            int contractorsCount = 0;
+            int fromRecordNumber = 0;
+            boolean firstPage = true;
+            List<Contractor> page;
+            do {
+                page = presenter.service.search(searchCriteria, fromRecordNumber, pageSize);
+
+                // The first page is always published, even if empty, to replace the old results
+                if (firstPage || !page.isEmpty()) {
+                    publish(page);
+                }
+                firstPage = false;
+                contractorsCount += page.size();
+                if (!page.isEmpty()) {
+                    fromRecordNumber = page.get(page.size() - 1).getRecordNumber() + 1;
+                }
+            } while (page.size() == pageSize && !isCancelled());
+            return contractorsCount;
+        }
+
+        // This method is executed on the Event Dispatch Thread
+        @Override
+        protected void process(List<List<Contractor>> pages) {
+            for (List<Contractor> page : pages) {
+                if (firstPageShown) {
+                    presenter.view.addTableData(page);
+                } else {
+                    presenter.view.setTableData(page);
+                    firstPageShown = true;
+                }
+            }
         }
 
         // This method is executed on the Event Dispatch Thread
@@ -159,18 +202,18 @@ public class MainPresenter {
         protected void done() {
             try {
                 /*
-                 * Get the search results. The call to the get method will block the EDT but since
-                 * we are in the done method we already know that doInBackground has finished and
-                 * the search results are available.
+                 * Get the number of contractors found. The call to the get method will block the
+                 * EDT but since we are in the done method we already know that doInBackground has
+                 * finished and the result is available. The contractors themselves have already
+                 * been added to the view as each page was published.
                  */
-                List<Contractor> contractors = get();
+                int contractorsCount = get();
 
-                LOGGER.info("Found " + contractors.size()
+                LOGGER.info("Found " + contractorsCount
                         + " contractors exactly matching criteria: " + searchCriteria);
 
                 // Update the view
-                presenter.view.setTableData(contractors);
-                presenter.view.setStatusLabelText(buildStatusLabelText(contractors.size()));
+                presenter.view.setStatusLabelText(buildStatusLabelText(contractorsCount));
             } catch (InterruptedException e) {
                 String message = "Thread was interruped while waiting for result of search SwingWorker";
                 LOGGER.log(Level.WARNING, message, e);
@@ -250,7 +293,7 @@ public class MainPresenter {
         // This method is executed on a background thread
         @Override
         protected Void doInBackground() throws IOException, ContractorDeletedException,
-                ContractorModifiedException {
+                ContractorModifiedException, ContractorLockedException {
             presenter.service.book(customerId, contractor);
             return null;
         }
@@ -310,6 +353,12 @@ public class MainPresenter {
                 LOGGER.log(Level.WARNING, message, e);
                 showBookWarningDialog(presenter.resourceBundle
                         .getString("MainPresenter.bookWarningDialog.contractorModified.message"));
+            } else if (e.getCause() instanceof ContractorLockedException) {
+                String message = "Customer " + customerId
+                        + " timed out waiting for the lock on contractor: " + contractor;
+                LOGGER.log(Level.WARNING, message, e);
+                showBookWarningDialog(presenter.resourceBundle
+                        .getString("MainPresenter.bookWarningDialog.contractorLocked.message"));
             } else {
                 LOGGER.log(Level.SEVERE, "Customer " + customerId
                         + " got an error booking contractor: " + contractor, e);
@@ -54,6 +54,14 @@ public interface MainView {
      */
     void setTableData(List<Contractor> contractors);
 
+    /**
+     * Adds contractor data to the end of the results table.
+     *
+     * @param contractors List of contractors.
+     * @throws IllegalArgumentException If <code>contractors</code> is <code>null</code>.
+     */
+    void addTableData(List<Contractor> contractors);
+
     /**
      * Sets the status label text.
      *
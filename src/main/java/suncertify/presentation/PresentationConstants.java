@@ -68,6 +68,11 @@ public class PresentationConstants {
      */
     public static final int TABLE_OWNER_COLUMN_INDEX = 5;
 
+    /**
+     * Number of contractors fetched from the broker service at a time when searching.
+     */
+    public static final int SEARCH_PAGE_SIZE = 200;
+
     private static final int TABLE_NAME_COLUMN_WIDTH = 90;
     private static final int TABLE_LOCATION_COLUMN_WIDTH = 70;
     private static final int TABLE_SPECIALTIES_COLUMN_WIDTH = 90;
@@ -0,0 +1,117 @@
+/*
+ * BinaryProtocol.java
+ *
+ * 18 Oct 2026
+ */
+
+package suncertify.service;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Constants and encoding methods for the binary protocol spoken between
+ * {@link SocketBrokerService} and {@link SocketBrokerServer}.
+ * <p/>
+ * Every message is framed by a 4-byte length prefix giving the length of the message that
+ * follows. A request starts with a request type byte, followed by the arguments of the request. A
+ * response starts with a status byte; a successful response is followed by the result, if any, and
+ * an unsuccessful response by an error message. Contractors and search criteria are written by
+ * {@link ContractorCodec}; other strings are written as a presence flag followed, if present, by
+ * the string in modified UTF-8.
+ *
+ * @author Richard Wardle
+ */
+final class BinaryProtocol {
+
+    /**
+     * Length of the prefix that gives the length of each message.
+     */
+    static final int LENGTH_PREFIX_LENGTH = 4;
+
+    /**
+     * Maximum length of a request.
+     */
+    static final int MAX_REQUEST_LENGTH = 64 * 1024;
+
+    /**
+     * Maximum length of a response.
+     */
+    static final int MAX_RESPONSE_LENGTH = 64 * 1024 * 1024;
+
+    /**
+     * Request type of a search, followed by the search criteria.
+     */
+    static final byte SEARCH_REQUEST = 1;
+
+    /**
+     * Request type of a booking, followed by the customer ID and the contractor.
+     */
+    static final byte BOOK_REQUEST = 2;
+
+    /**
+     * Request type of a search for a page of results, followed by the search criteria, the lowest
+     * record number and the maximum number of results.
+     */
+    static final byte SEARCH_PAGE_REQUEST = 3;
+
+    /**
+     * Status of a successful response.
+     */
+    static final byte STATUS_OK = 0;
+
+    /**
+     * Status of a response to a request that failed with an <code>IOException</code>.
+     */
+    static final byte STATUS_IO_ERROR = 1;
+
+    /**
+     * Status of a response to a request that had an illegal argument.
+     */
+    static final byte STATUS_ILLEGAL_ARGUMENT = 2;
+
+    /**
+     * Status of a response to a booking of a contractor that has been deleted.
+     */
+    static final byte STATUS_CONTRACTOR_DELETED = 3;
+
+    /**
+     * Status of a response to a booking of a contractor that has been modified.
+     */
+    static final byte STATUS_CONTRACTOR_MODIFIED = 4;
+
+    /**
+     * Status of a response to a booking of a contractor that is locked by another user.
+     */
+    static final byte STATUS_CONTRACTOR_LOCKED = 5;
+
+    private BinaryProtocol() {
+        // Prevent instantiation
+    }
+
+    /**
+     * Writes a string that may be <code>null</code>.
+     *
+     * @param out Output to write to.
+     * @param s   String to write.
+     * @throws IOException If there is an error writing the string.
+     */
+    static void writeString(DataOutput out, String s) throws IOException {
+        out.writeBoolean(s != null);
+        if (s != null) {
+            out.writeUTF(s);
+        }
+    }
+
+    /**
+     * Reads a string written by {@link #writeString}.
+     *
+     * @param in Input to read from.
+     * @return The string, may be <code>null</code>.
+     * @throws IOException If there is an error reading the string.
+     */
+    static String readString(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
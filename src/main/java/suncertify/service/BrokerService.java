@@ -26,6 +26,27 @@ public interface BrokerService {
      */
     List<Contractor> search(SearchCriteria searchCriteria) throws IOException;
 
+    /**
+     * Searches for a page of the contractors that match the specified criteria exactly. Only
+     * contractors with a record number of at least <code>fromRecordNumber</code> are returned, in
+     * record number order, and at most <code>maxResults</code> of them. The next page is returned
+     * by calling this method again with <code>fromRecordNumber</code> set to one more than the
+     * record number of the last contractor returned. A page with fewer than
+     * <code>maxResults</code> contractors is the last page.
+     *
+     * @param searchCriteria   Search criteria.
+     * @param fromRecordNumber Lowest record number to return, <code>0</code> for the first page.
+     * @param maxResults       Maximum number of contractors to return.
+     * @return A list of at most <code>maxResults</code> <code>Contractor</code>s that exactly match
+     *         the search criteria.
+     * @throws IOException              If there is an error executing the search.
+     * @throws IllegalArgumentException If <code>searchCriteria</code> is <code>null</code>,
+     *                                  <code>fromRecordNumber</code> is negative, or
+     *                                  <code>maxResults</code> is not positive.
+     */
+    List<Contractor> search(SearchCriteria searchCriteria, int fromRecordNumber, int maxResults)
+            throws IOException;
+
     /**
      * Books the specified contractor for the customer with the specified ID number. Note that it is
      * possible to overwrite an existing booking - no warning will be given if the contractor data
@@ -38,10 +59,12 @@ public interface BrokerService {
      * @throws ContractorModifiedException If the current data stored on the contractor does not match the data supplied to
      *                                     this method (likely to be because the contractor has been modified since the
      *                                     client last retrieved the data).
+     * @throws ContractorLockedException   If the contractor is locked by another user and the lock does not become
+     *                                     available in a reasonable time. The booking can be retried.
      * @throws IllegalArgumentException    If <code>customerId</code> is <code>null</code>, <code>customerId</code> does not
      *                                     consist of 8 digits, <code>contractor</code> is <code>null</code>, or any of the
      *                                     fields of <code>contractor</code> are <code>null</code>.
      */
     void book(String customerId, Contractor contractor) throws IOException,
-            ContractorDeletedException, ContractorModifiedException;
+            ContractorDeletedException, ContractorModifiedException, ContractorLockedException;
 }
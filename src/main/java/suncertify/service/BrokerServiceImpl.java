@@ -7,11 +7,14 @@
 package suncertify.service;
 
 import suncertify.db.Database;
+import suncertify.db.DatabaseConstants;
+import suncertify.db.DatabaseRecord;
 import suncertify.db.RecordNotFoundException;
 
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -26,19 +29,78 @@ public final class BrokerServiceImpl implements BrokerService {
     private static final Logger LOGGER = Logger.getLogger(BrokerServiceImpl.class.getName());
     private static final int CUSTOMER_ID_LENGTH = 8;
 
+    /** Default time, in milliseconds, to wait for the lock on a contractor record. */
+    public static final long DEFAULT_LOCK_TIMEOUT_MILLIS = 5000;
+
+    /** Default maximum number of search results to cache. */
+    public static final int DEFAULT_SEARCH_CACHE_SIZE = 64;
+
     private final Database database;
+    private final long lockTimeout;
+    private final TimeUnit lockTimeoutUnit;
+
+    // Cache of search results, null if search results are not cached
+    private final SearchCache searchCache;
 
     /**
-     * Creates a new instance of <code>BrokerServiceImpl</code> using the specified database.
+     * Creates a new instance of <code>BrokerServiceImpl</code> using the specified database. The
+     * service waits at most {@link #DEFAULT_LOCK_TIMEOUT_MILLIS} milliseconds for the lock on a
+     * contractor record.
      *
      * @param database Database of contractors.
      * @throws IllegalArgumentException If <code>database</code> is <code>null</code>.
      */
     public BrokerServiceImpl(Database database) {
+        this(database, DEFAULT_LOCK_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Creates a new instance of <code>BrokerServiceImpl</code> using the specified database and
+     * waiting at most the specified time for the lock on a contractor record.
+     *
+     * @param database    Database of contractors.
+     * @param lockTimeout Maximum time to wait for the lock on a contractor record.
+     * @param unit        Unit of the <code>lockTimeout</code> argument.
+     * @throws IllegalArgumentException If <code>database</code> or <code>unit</code> is
+     *                                  <code>null</code>, or <code>lockTimeout</code> is negative.
+     */
+    public BrokerServiceImpl(Database database, long lockTimeout, TimeUnit unit) {
+        this(database, lockTimeout, unit, DEFAULT_SEARCH_CACHE_SIZE);
+    }
+
+    /**
+     * Creates a new instance of <code>BrokerServiceImpl</code> using the specified database,
+     * waiting at most the specified time for the lock on a contractor record and caching at most
+     * the specified number of search results. Cached results are discarded whenever the database
+     * is modified.
+     *
+     * @param database        Database of contractors.
+     * @param lockTimeout     Maximum time to wait for the lock on a contractor record.
+     * @param unit            Unit of the <code>lockTimeout</code> argument.
+     * @param searchCacheSize Maximum number of search results to cache, or <code>0</code> to not
+     *                        cache search results.
+     * @throws IllegalArgumentException If <code>database</code> or <code>unit</code> is
+     *                                  <code>null</code>, or <code>lockTimeout</code> or
+     *                                  <code>searchCacheSize</code> is negative.
+     */
+    public BrokerServiceImpl(Database database, long lockTimeout, TimeUnit unit,
+                             int searchCacheSize) {
         if (database == null) {
             throw new IllegalArgumentException("database cannot be null");
         }
+        if (lockTimeout < 0) {
+            throw new IllegalArgumentException("lockTimeout cannot be negative");
+        }
+        if (unit == null) {
+            throw new IllegalArgumentException("unit cannot be null");
+        }
+        if (searchCacheSize < 0) {
+            throw new IllegalArgumentException("searchCacheSize cannot be negative");
+        }
         this.database = database;
+        this.lockTimeout = lockTimeout;
+        this.lockTimeoutUnit = unit;
+        searchCache = searchCacheSize > 0 ? new SearchCache(searchCacheSize) : null;
     }
 
     /**
@@ -49,43 +111,97 @@ public final class BrokerServiceImpl implements BrokerService {
             throw new IllegalArgumentException("searchCriteria cannot be null");
         }
 
-        String[] findCriteria = searchCriteria.toArray();
-        int[] recNos = database.find(findCriteria);
+        String[] criteria = searchCriteria.toArray();
+        if (searchCache == null) {
+            return createContractors(database.findExact(criteria));
+        }
+
+        long modificationCount = database.getModificationCount();
+        List<Contractor> contractors = searchCache.get(criteria, modificationCount);
+        if (contractors == null) {
+            contractors = createContractors(database.findExact(criteria));
+            searchCache.put(criteria, modificationCount, contractors);
+            return contractors;
+        }
+
+        // The cached list is shared, return a copy the caller can modify
+        return new ArrayList<Contractor>(contractors);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public List<Contractor> search(SearchCriteria searchCriteria, int fromRecordNumber,
+                                   int maxResults) throws IOException {
+        if (searchCriteria == null) {
+            throw new IllegalArgumentException("searchCriteria cannot be null");
+        }
+        if (fromRecordNumber < 0) {
+            throw new IllegalArgumentException("fromRecordNumber cannot be negative");
+        }
+        if (maxResults <= 0) {
+            throw new IllegalArgumentException("maxResults must be positive");
+        }
+
+        String[] criteria = searchCriteria.toArray();
+        if (searchCache == null) {
+            return findExact(criteria, fromRecordNumber, maxResults);
+        }
 
         /*
-         * Database find does "starts-with" matches, so read each record from the database and only
-         * include the ones that still exist and are exact matches.
+         * Read the modification count before searching, so that a result is never cached with a
+         * count later than the state of the database it was found in.
          */
-        List<Contractor> contractors = new ArrayList<Contractor>();
-        for (int recNo : recNos) {
-            try {
-                String[] data = database.read(recNo);
-                if (isExactMatch(findCriteria, data)) {
-                    contractors.add(new Contractor(recNo, data));
-                }
-            } catch (RecordNotFoundException e) {
-                LOGGER.warning("Record " + recNo + " not found, excluding from search results.");
-            }
+        long modificationCount = database.getModificationCount();
+        List<Contractor> contractors = searchCache.get(criteria, fromRecordNumber, maxResults,
+                modificationCount);
+        if (contractors == null) {
+            contractors = findExact(criteria, fromRecordNumber, maxResults);
+            searchCache.put(criteria, fromRecordNumber, maxResults, modificationCount,
+                    contractors);
+            return contractors;
         }
 
-        return contractors;
+        // The cached list is shared, return a copy the caller can modify
+        return new ArrayList<Contractor>(contractors);
     }
 
-    private boolean isExactMatch(String[] criteria, String[] data) {
-        boolean matching = true;
-        for (int i = 0; matching && i < data.length; i++) {
-            if (criteria[i] != null) {
-                matching = criteria[i].equals(data[i]);
-            }
+    private List<Contractor> findExact(String[] criteria, int fromRecordNumber, int maxResults)
+            throws IOException {
+        /*
+         * Search for exact matches - the records are returned with their data, so there is no need
+         * to read each matching record from the database.
+         */
+        return createContractors(database.findExact(criteria, fromRecordNumber, maxResults));
+    }
+
+    /**
+     * Returns a snapshot of the counters of the search result cache.
+     *
+     * @return The search cache statistics. All the counts are zero if search results are not
+     *         cached.
+     */
+    public SearchCacheStatistics getSearchCacheStatistics() {
+        if (searchCache == null) {
+            return new SearchCacheStatistics(0, 0, 0, 0, 0);
+        }
+        return searchCache.getStatistics();
+    }
+
+    private List<Contractor> createContractors(List<DatabaseRecord> records) {
+        List<Contractor> contractors = new ArrayList<Contractor>(records.size());
+        for (DatabaseRecord record : records) {
+            contractors.add(new Contractor(record.getRecordNumber(), record.getVersion(),
+                    record.getValues()));
         }
-        return matching;
+        return contractors;
     }
 
     /**
      * {@inheritDoc}
      */
     public void book(String customerId, Contractor contractor) throws IOException,
-            ContractorDeletedException, ContractorModifiedException {
+            ContractorDeletedException, ContractorModifiedException, ContractorLockedException {
         if (customerId == null) {
             throw new IllegalArgumentException("customeId cannot be null");
         }
@@ -108,15 +224,35 @@ public final class BrokerServiceImpl implements BrokerService {
             throw new IllegalArgumentException("contractor cannot have a null field");
         }
 
+        /*
+         * If the record has not been modified since the contractor was read from it, book it in a
+         * single step without locking. Otherwise fall back to locking the record and comparing its
+         * values, as the record may have been modified in a way that still allows the booking.
+         */
         int recNo = contractor.getRecordNumber();
-        lockRecord(recNo);
+        if (contractor.getVersion() != DatabaseConstants.UNKNOWN_VERSION) {
+            try {
+                if (database.compareAndUpdate(recNo, contractor.getVersion(),
+                        createUpdateData(customerId))) {
+                    return;
+                }
+            } catch (RecordNotFoundException e) {
+                throw new ContractorDeletedException(e);
+            }
+        }
+
+        /*
+         * Lock the record with a lock cookie rather than by thread, so the booking does not depend
+         * on every database call being made from the same thread.
+         */
+        long lockCookie = lockRecord(recNo);
         try {
             validateRecord(recNo, contractor);
-            updateRecord(recNo, customerId);
+            updateRecord(recNo, customerId, lockCookie);
         } catch (RecordNotFoundException e) {
             throw new ContractorDeletedException(e);
         } finally {
-            unlockRecord(recNo);
+            unlockRecord(recNo, lockCookie);
         }
     }
 
@@ -134,9 +270,15 @@ public final class BrokerServiceImpl implements BrokerService {
                 || contractor.getRate() == null || contractor.getOwner() == null;
     }
 
-    private void lockRecord(int recNo) throws ContractorDeletedException, IOException {
+    private long lockRecord(int recNo) throws ContractorDeletedException,
+            ContractorLockedException, IOException {
         try {
-            database.lock(recNo);
+            long lockCookie = database.tryLockRecord(recNo, lockTimeout, lockTimeoutUnit);
+            if (lockCookie == DatabaseConstants.NO_LOCK_COOKIE) {
+                throw new ContractorLockedException("Timed out waiting for the lock on recNo: "
+                        + recNo);
+            }
+            return lockCookie;
         } catch (RecordNotFoundException e) {
             throw new ContractorDeletedException(e);
         } catch (InterruptedException e) {
@@ -175,22 +317,34 @@ public final class BrokerServiceImpl implements BrokerService {
         return modified || !ownerFieldEmpty && ownerFieldModified;
     }
 
-    private void updateRecord(int recNo, String customerId) throws RecordNotFoundException,
-            IOException {
+    private void updateRecord(int recNo, String customerId, long lockCookie)
+            throws RecordNotFoundException, ContractorLockedException, IOException {
+        try {
+            database.update(recNo, createUpdateData(customerId), lockCookie);
+        } catch (IllegalStateException e) {
+            // The lock was acquired above, so it can only have been lost if its lease expired
+            throw new ContractorLockedException("Lock lease on recNo: " + recNo
+                    + " expired before the booking was made", e);
+        }
+    }
+
+    private String[] createUpdateData(String customerId) {
         /*
          * Only need to update the owner field, all other fields are null to signify that they
          * should not be updated.
          */
         String[] updateData = new String[ServiceConstants.FIELD_COUNT];
         updateData[ServiceConstants.OWNER_FIELD_INDEX] = customerId;
-        database.update(recNo, updateData);
+        return updateData;
     }
 
-    private void unlockRecord(int recNo) {
+    private void unlockRecord(int recNo, long lockCookie) {
         try {
-            database.unlock(recNo);
+            database.unlock(recNo, lockCookie);
         } catch (RecordNotFoundException e) {
             LOGGER.log(Level.WARNING, "Error unlocking recNo: " + recNo, e);
+        } catch (IllegalStateException e) {
+            LOGGER.log(Level.WARNING, "Lock lease on recNo: " + recNo + " expired", e);
         }
     }
 }
@@ -6,10 +6,21 @@
 
 package suncertify.service;
 
+import suncertify.db.DatabaseConstants;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInput;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutput;
 import java.io.Serializable;
 
 /**
  * A home improvement contractor.
+ * <p/>
+ * Contractors are serialized using a serialization proxy that writes the field values with
+ * {@link ContractorCodec}, rather than with default serialization.
  *
  * @author Richard Wardle
  */
@@ -19,65 +30,75 @@ public final class Contractor implements Serializable {
 
     /**
      * Database record number of this contractor.
-     *
-     * @serial
      */
     private final int recordNumber;
 
+    /**
+     * Version of the database record this contractor was read from.
+     */
+    private final long version;
+
     /**
      * Name of this contractor.
-     *
-     * @serial
      */
     private final String name;
 
     /**
      * Locality in which this contractor works.
-     *
-     * @serial
      */
     private final String location;
 
     /**
      * Comma separated list of the types of work this contractor can perform.
-     *
-     * @serial
      */
     private final String specialties;
 
     /**
      * The number of workers available for this contractor.
-     *
-     * @serial
      */
     private final String size;
 
     /**
      * Charge per hour of this contractor.
-     *
-     * @serial
      */
     private final String rate;
 
     /**
      * 8-digit ID of the customer who has booked this contractor.
-     *
-     * @serial
      */
     private final String owner;
 
     /**
-     * Creates a new instance of <code>Contractor</code> with the specfied <code>recordNumber</code>
-     * and <code>data</code> array.
+     * Creates a new instance of <code>Contractor</code> with the specfied
+     * <code>recordNumber</code> and <code>data</code> array. The version of the contractor is
+     * {@link DatabaseConstants#UNKNOWN_VERSION}.
      *
      * @param recordNumber Database record number.
-     * @param data         Data array. Must be an array of length 6 containing contractor data in the
-     *                     following order: name, location, specialties, size, rate, owner.
-     * @throws IllegalArgumentException If <code>recordNumber</code> is negative or <code>data</code> is
-     *                                  <code>null</code> or the length of <code>data</code> does not match
+     * @param data         Data array. Must be an array of length 6 containing contractor data in
+     *                     the following order: name, location, specialties, size, rate, owner.
+     * @throws IllegalArgumentException If <code>recordNumber</code> is negative or
+     *                                  <code>data</code> is <code>null</code> or the length of
+     *                                  <code>data</code> does not match
      *                                  {@link ServiceConstants#FIELD_COUNT}.
      */
     public Contractor(int recordNumber, String[] data) {
+        this(recordNumber, DatabaseConstants.UNKNOWN_VERSION, data);
+    }
+
+    /**
+     * Creates a new instance of <code>Contractor</code> with the specfied
+     * <code>recordNumber</code>, record <code>version</code> and <code>data</code> array.
+     *
+     * @param recordNumber Database record number.
+     * @param version      Version of the database record the contractor data was read from.
+     * @param data         Data array. Must be an array of length 6 containing contractor data in
+     *                     the following order: name, location, specialties, size, rate, owner.
+     * @throws IllegalArgumentException If <code>recordNumber</code> is negative or
+     *                                  <code>data</code> is <code>null</code> or the length of
+     *                                  <code>data</code> does not match
+     *                                  {@link ServiceConstants#FIELD_COUNT}.
+     */
+    public Contractor(int recordNumber, long version, String[] data) {
         if (recordNumber < 0) {
             throw new IllegalArgumentException("recordNumber must be a positive number");
         }
@@ -92,6 +113,7 @@ public final class Contractor implements Serializable {
         }
 
         this.recordNumber = recordNumber;
+        this.version = version;
         name = clonedData[ServiceConstants.NAME_FIELD_INDEX];
         location = clonedData[ServiceConstants.LOCATION_FIELD_INDEX];
         specialties = clonedData[ServiceConstants.SPECIALTIES_FIELD_INDEX];
@@ -109,6 +131,16 @@ public final class Contractor implements Serializable {
         return recordNumber;
     }
 
+    /**
+     * Returns the version of the database record this contractor was read from. The version changes
+     * whenever the record is modified.
+     *
+     * @return The version, or {@link DatabaseConstants#UNKNOWN_VERSION} if it is not known.
+     */
+    public long getVersion() {
+        return version;
+    }
+
     /**
      * Returns the name of this contractor.
      *
@@ -172,8 +204,70 @@ public final class Contractor implements Serializable {
     public String toString() {
         StringBuilder builder = new StringBuilder();
         return builder.append(super.toString()).append(": recordNumber=").append(recordNumber)
-                .append(": name=").append(name).append(", location=").append(location)
+                .append(", version=").append(version).append(": name=").append(name)
+                .append(", location=").append(location)
                 .append(", specialties=").append(specialties).append(", size=").append(size)
                 .append(", rate=").append(rate).append(", owner=").append(owner).toString();
     }
+
+    /**
+     * Replaces this contractor with its serialization proxy.
+     *
+     * @return The serialization proxy.
+     */
+    private Object writeReplace() {
+        return new SerializationProxy(this);
+    }
+
+    /**
+     * Prevents a contractor being deserialized other than through its serialization proxy.
+     *
+     * @param in Object input stream.
+     * @throws InvalidObjectException Always.
+     */
+    private void readObject(ObjectInputStream in) throws InvalidObjectException {
+        throw new InvalidObjectException("Serialization proxy required");
+    }
+
+    /*
+     * Serialized form of a contractor.
+     */
+    private static final class SerializationProxy implements Externalizable {
+
+        private static final long serialVersionUID = 1L;
+
+        private Contractor contractor;
+
+        /**
+         * Creates a new instance of <code>SerializationProxy</code>, for deserialization.
+         */
+        public SerializationProxy() {
+            super();
+        }
+
+        private SerializationProxy(Contractor contractor) {
+            this.contractor = contractor;
+        }
+
+        /**
+         * {@inheritDoc}
+         *
+         * @serialData The record number, the record version and then each field value, written by
+         * {@link ContractorCodec#writeContractor}.
+         */
+        public void writeExternal(ObjectOutput out) throws IOException {
+            ContractorCodec.writeContractor(out, contractor);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public void readExternal(ObjectInput in) throws IOException {
+            contractor = ContractorCodec.readContractor(in);
+        }
+
+        private Object readResolve() {
+            return contractor;
+        }
+    }
 }
@@ -0,0 +1,204 @@
+/*
+ * ContractorCodec.java
+ *
+ * 18 Oct 2026
+ */
+
+package suncertify.service;
+
+import suncertify.db.DatabaseConstants;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compact encoding of contractors and search criteria, used by their serialized forms and by
+ * {@link BinaryProtocol}. No class descriptors or field names are written, only the values.
+ * <p/>
+ * Each field value is written as a single length byte followed by the value in the database
+ * character set, so a value takes one byte more than its length in the database file.
+ * A <code>null</code> value is written as a single marker byte. Values that cannot be encoded
+ * this way, because they contain characters outside the character set or are longer than any
+ * database field, are written as a different marker byte followed by the value in modified UTF-8.
+ *
+ * @author Richard Wardle
+ */
+final class ContractorCodec {
+
+    // Longest value that is written with a length byte
+    private static final int MAX_SHORT_FIELD_LENGTH = 127;
+
+    // Largest character value in the character set
+    private static final char MAXIMUM_CHARACTER = '\u00FF';
+
+    private static final byte NULL_FIELD = -1;
+    private static final byte UTF_FIELD = -2;
+
+    private ContractorCodec() {
+        // Prevent instantiation
+    }
+
+    /**
+     * Writes a field value.
+     *
+     * @param out   Output to write to.
+     * @param value Value to write, may be <code>null</code>.
+     * @throws IOException If there is an error writing the value.
+     */
+    static void writeField(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            out.writeByte(NULL_FIELD);
+        } else if (isShortField(value)) {
+            out.writeByte(value.length());
+            out.write(value.getBytes(DatabaseConstants.CHARACTER_SET));
+        } else {
+            out.writeByte(UTF_FIELD);
+            out.writeUTF(value);
+        }
+    }
+
+    private static boolean isShortField(String value) {
+        if (value.length() > MAX_SHORT_FIELD_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > MAXIMUM_CHARACTER) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reads a field value written by {@link #writeField}.
+     *
+     * @param in Input to read from.
+     * @return The value, may be <code>null</code>.
+     * @throws IOException If there is an error reading the value.
+     */
+    static String readField(DataInput in) throws IOException {
+        byte length = in.readByte();
+        if (length == NULL_FIELD) {
+            return null;
+        }
+        if (length == UTF_FIELD) {
+            return in.readUTF();
+        }
+        if (length < 0) {
+            throw new InvalidObjectException("Invalid field length: " + length);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, DatabaseConstants.CHARACTER_SET);
+    }
+
+    /**
+     * Writes a contractor.
+     *
+     * @param out        Output to write to.
+     * @param contractor Contractor to write.
+     * @throws IOException If there is an error writing the contractor.
+     */
+    static void writeContractor(DataOutput out, Contractor contractor) throws IOException {
+        out.writeInt(contractor.getRecordNumber());
+        out.writeLong(contractor.getVersion());
+        writeField(out, contractor.getName());
+        writeField(out, contractor.getLocation());
+        writeField(out, contractor.getSpecialties());
+        writeField(out, contractor.getSize());
+        writeField(out, contractor.getRate());
+        writeField(out, contractor.getOwner());
+    }
+
+    /**
+     * Reads a contractor written by {@link #writeContractor}.
+     *
+     * @param in Input to read from.
+     * @return The contractor.
+     * @throws IOException If there is an error reading the contractor, or the contractor is
+     *                     invalid.
+     */
+    static Contractor readContractor(DataInput in) throws IOException {
+        int recordNumber = in.readInt();
+        long version = in.readLong();
+        String[] data = new String[ServiceConstants.FIELD_COUNT];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = readField(in);
+        }
+        try {
+            return new Contractor(recordNumber, version, data);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidObjectException("Invalid contractor: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Writes a list of contractors.
+     *
+     * @param out         Output to write to.
+     * @param contractors Contractors to write.
+     * @throws IOException If there is an error writing the contractors.
+     */
+    static void writeContractors(DataOutput out, List<Contractor> contractors)
+            throws IOException {
+        out.writeInt(contractors.size());
+        for (Contractor contractor : contractors) {
+            writeContractor(out, contractor);
+        }
+    }
+
+    /**
+     * Reads a list of contractors written by {@link #writeContractors}.
+     *
+     * @param in Input to read from.
+     * @return The contractors.
+     * @throws IOException If there is an error reading the contractors.
+     */
+    static List<Contractor> readContractors(DataInput in) throws IOException {
+        int count = in.readInt();
+        if (count < 0) {
+            throw new InvalidObjectException("Invalid contractor count: " + count);
+        }
+
+        // The count comes from the stream, so the list grows as contractors are actually read
+        List<Contractor> contractors = new ArrayList<Contractor>();
+        for (int i = 0; i < count; i++) {
+            contractors.add(readContractor(in));
+        }
+        return contractors;
+    }
+
+    /**
+     * Writes search criteria.
+     *
+     * @param out            Output to write to.
+     * @param searchCriteria Search criteria to write.
+     * @throws IOException If there is an error writing the search criteria.
+     */
+    static void writeSearchCriteria(DataOutput out, SearchCriteria searchCriteria)
+            throws IOException {
+        for (String criteria : searchCriteria.toArray()) {
+            writeField(out, criteria);
+        }
+    }
+
+    /**
+     * Reads search criteria written by {@link #writeSearchCriteria} into a
+     * <code>SearchCriteria</code> object.
+     *
+     * @param in             Input to read from.
+     * @param searchCriteria Search criteria to read into.
+     * @return The search criteria.
+     * @throws IOException If there is an error reading the search criteria.
+     */
+    static SearchCriteria readSearchCriteria(DataInput in, SearchCriteria searchCriteria)
+            throws IOException {
+        return searchCriteria.setName(readField(in)).setLocation(readField(in))
+                .setSpecialties(readField(in)).setSize(readField(in)).setRate(readField(in))
+                .setOwner(readField(in));
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * ContractorList.java
+ *
+ * 18 Oct 2026
+ */
+
+package suncertify.service;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * An unmodifiable list of contractors with a compact serialized form, used to return search
+ * results over RMI. The whole list is written with {@link ContractorCodec} as a single block of
+ * data, so there is no per-contractor object overhead in the stream.
+ *
+ * @author Richard Wardle
+ */
+final class ContractorList extends AbstractList<Contractor> implements RandomAccess,
+        Externalizable {
+
+    private static final long serialVersionUID = 1L;
+
+    private List<Contractor> contractors;
+
+    /**
+     * Creates a new, empty instance of <code>ContractorList</code>, for deserialization.
+     */
+    public ContractorList() {
+        contractors = new ArrayList<Contractor>();
+    }
+
+    /**
+     * Creates a new instance of <code>ContractorList</code> containing the specified contractors.
+     *
+     * @param contractors Contractors.
+     * @throws IllegalArgumentException If <code>contractors</code> is <code>null</code>.
+     */
+    ContractorList(List<Contractor> contractors) {
+        if (contractors == null) {
+            throw new IllegalArgumentException("contractors cannot be null");
+        }
+        this.contractors = new ArrayList<Contractor>(contractors);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Contractor get(int index) {
+        return contractors.get(index);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int size() {
+        return contractors.size();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @serialData The number of contractors followed by each contractor, written by
+     * {@link ContractorCodec#writeContractors}.
+     */
+    public void writeExternal(ObjectOutput out) throws IOException {
+        ContractorCodec.writeContractors(out, contractors);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void readExternal(ObjectInput in) throws IOException {
+        contractors = ContractorCodec.readContractors(in);
+    }
+}
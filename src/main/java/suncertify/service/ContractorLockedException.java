@@ -0,0 +1,57 @@
+/*
+ * ContractorLockedException.java
+ *
+ * 18 Oct 2026
+ */
+
+package suncertify.service;
+
+/**
+ * Exception indicating that a contractor could not be locked because another user held the lock for
+ * too long. The operation can be retried.
+ *
+ * @author Richard Wardle
+ */
+public final class ContractorLockedException extends Exception {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Creates a new instance of <code>ContractorLockedException</code> with <code>message</code>
+     * and <code>cause</code> initialised to <code>null</code>.
+     */
+    public ContractorLockedException() {
+        super();
+    }
+
+    /**
+     * Creates a new instance of <code>ContractorLockedException</code> with the specified
+     * <code>message</code>, and with <code>cause</code> initialised to <code>null</code>.
+     *
+     * @param message Error message.
+     */
+    public ContractorLockedException(String message) {
+        super(message);
+    }
+
+    /**
+     * Creates a new instance of <code>ContractorLockedException</code> with the specified
+     * <code>cause</code>, and with <code>message</code> initialised to <code>null</code>.
+     *
+     * @param cause Root cause.
+     */
+    public ContractorLockedException(Throwable cause) {
+        super(cause);
+    }
+
+    /**
+     * Creates a new instance of <code>ContractorLockedException</code> with the specified
+     * <code>message</code> and <code>cause</code>.
+     *
+     * @param message Error message.
+     * @param cause   Root cause.
+     */
+    public ContractorLockedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -26,11 +26,19 @@ public interface RemoteBrokerService extends Remote, BrokerService {
      */
     List<Contractor> search(SearchCriteria searchCriteria) throws RemoteException, IOException;
 
+    /**
+     * {@inheritDoc}
+     *
+     * @throws RemoteException If there is an error executing the remote method call.
+     */
+    List<Contractor> search(SearchCriteria searchCriteria, int fromRecordNumber, int maxResults)
+            throws RemoteException, IOException;
+
     /**
      * {@inheritDoc}
      *
      * @throws RemoteException If there is an error executing the remote method call.
      */
     void book(String customerId, Contractor contractor) throws RemoteException, IOException,
-            ContractorDeletedException, ContractorModifiedException;
+            ContractorDeletedException, ContractorModifiedException, ContractorLockedException;
 }
@@ -38,10 +38,22 @@ public final class RemoteBrokerServiceImpl extends UnicastRemoteObject implement
      * @throws IllegalArgumentException If <code>database</code> is <code>null</code>.
      */
     public RemoteBrokerServiceImpl(Database database) throws RemoteException {
-        if (database == null) {
-            throw new IllegalArgumentException("database cannot be null");
+        this(new BrokerServiceImpl(database));
+    }
+
+    /**
+     * Creates and exports a new instance of <code>RemoteBrokerServiceImpl</code> that delegates to
+     * the specified broker service.
+     *
+     * @param service Broker service.
+     * @throws RemoteException          If the export failed.
+     * @throws IllegalArgumentException If <code>service</code> is <code>null</code>.
+     */
+    public RemoteBrokerServiceImpl(BrokerServiceImpl service) throws RemoteException {
+        if (service == null) {
+            throw new IllegalArgumentException("service cannot be null");
         }
-        service = new BrokerServiceImpl(database);
+        this.service = service;
     }
 
     /**
@@ -52,7 +64,27 @@ public final class RemoteBrokerServiceImpl extends UnicastRemoteObject implement
             List<Contractor> contractors = service.search(searchCriteria);
             LOGGER.info("Found " + contractors.size() + " contractors exactly matching criteria: "
                     + searchCriteria);
-            return contractors;
+
+            // Return a list with a compact serialized form
+            return new ContractorList(contractors);
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "IO error while searching for contractors with criteria: "
+                    + searchCriteria, e);
+            throw e;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public List<Contractor> search(SearchCriteria searchCriteria, int fromRecordNumber,
+                                   int maxResults) throws IOException {
+        try {
+            List<Contractor> contractors = service.search(searchCriteria, fromRecordNumber,
+                    maxResults);
+            LOGGER.info("Found " + contractors.size() + " contractors exactly matching criteria: "
+                    + searchCriteria + " from recordNumber: " + fromRecordNumber);
+            return new ContractorList(contractors);
         } catch (IOException e) {
             LOGGER.log(Level.SEVERE, "IO error while searching for contractors with criteria: "
                     + searchCriteria, e);
@@ -64,7 +96,7 @@ public final class RemoteBrokerServiceImpl extends UnicastRemoteObject implement
      * {@inheritDoc}
      */
     public void book(String customerId, Contractor contractor) throws IOException,
-            ContractorDeletedException, ContractorModifiedException {
+            ContractorDeletedException, ContractorModifiedException, ContractorLockedException {
         try {
             service.book(customerId, contractor);
             LOGGER.info("Customer with ID=" + customerId + " has booked contractor: " + contractor);
@@ -79,6 +111,10 @@ public final class RemoteBrokerServiceImpl extends UnicastRemoteObject implement
             LOGGER.log(Level.SEVERE, "Contractor to be booked has been modified, recordNo: "
                     + contractor.getRecordNumber(), e);
             throw e;
+        } catch (ContractorLockedException e) {
+            LOGGER.log(Level.WARNING, "Contractor to be booked is locked by another user, recordNo: "
+                    + contractor.getRecordNumber(), e);
+            throw e;
         }
     }
 }
@@ -0,0 +1,211 @@
+/*
+ * SearchCache.java
+ *
+ * 18 Oct 2026
+ */
+
+package suncertify.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A bounded cache of search results, keyed on the search criteria and the page of results, or on
+ * the search criteria alone for unpaged results. When the cache is full the least recently used
+ * result is evicted.
+ * <p/>
+ * Each result is cached with the modification count of the database when the search was made. As
+ * soon as a later modification count is seen every cached result is discarded, so a result is
+ * never returned after the database has been modified by a booking, a create or a delete.
+ * <p/>
+ * The criteria are compared exactly, as the search matches them exactly: a <code>null</code>
+ * criterion is not the same as an empty one.
+ *
+ * @author Richard Wardle
+ */
+final class SearchCache {
+
+    private final int maxEntries;
+    private final Map<Key, List<Contractor>> entries;
+
+    // Modification count of the database when the cached results were found
+    private long modificationCount;
+
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+    private long invalidationCount;
+
+    /**
+     * Creates a new instance of <code>SearchCache</code>.
+     *
+     * @param maxEntries Maximum number of results to cache.
+     * @throws IllegalArgumentException If <code>maxEntries</code> is not positive.
+     */
+    SearchCache(int maxEntries) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries must be positive");
+        }
+        this.maxEntries = maxEntries;
+        entries = new LinkedHashMap<Key, List<Contractor>>(16, 0.75f, true) {
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, List<Contractor>> eldest) {
+                boolean evict = size() > SearchCache.this.maxEntries;
+                if (evict) {
+                    evictionCount++;
+                }
+                return evict;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached unpaged result of a search, if the database has not been modified since
+     * it was found.
+     *
+     * @param criteria          Search criteria, as returned by {@link SearchCriteria#toArray}.
+     * @param modificationCount Current modification count of the database.
+     * @return The cached contractors, or <code>null</code> if the result is not cached.
+     */
+    synchronized List<Contractor> get(String[] criteria, long modificationCount) {
+        return get(new Key(criteria), modificationCount);
+    }
+
+    /**
+     * Returns the cached page of results of a search, if the database has not been modified since
+     * it was found.
+     *
+     * @param criteria          Search criteria, as returned by {@link SearchCriteria#toArray}.
+     * @param fromRecordNumber  Lowest record number of the page of results.
+     * @param maxResults        Maximum number of results in the page.
+     * @param modificationCount Current modification count of the database.
+     * @return The cached contractors, or <code>null</code> if the result is not cached.
+     */
+    synchronized List<Contractor> get(String[] criteria, int fromRecordNumber, int maxResults,
+                                      long modificationCount) {
+        return get(new Key(criteria, fromRecordNumber, maxResults), modificationCount);
+    }
+
+    private List<Contractor> get(Key key, long modificationCount) {
+        invalidateIfModified(modificationCount);
+        List<Contractor> contractors = entries.get(key);
+        if (contractors == null) {
+            missCount++;
+        } else {
+            hitCount++;
+        }
+        return contractors;
+    }
+
+    /**
+     * Caches the unpaged result of a search. The result is not cached if the database has been
+     * modified since the search was made and a later result has already been cached.
+     *
+     * @param criteria          Search criteria, as returned by {@link SearchCriteria#toArray}.
+     * @param modificationCount Modification count of the database read before the search was
+     *                          made.
+     * @param contractors       Contractors found by the search.
+     */
+    synchronized void put(String[] criteria, long modificationCount,
+                          List<Contractor> contractors) {
+        put(new Key(criteria), modificationCount, contractors);
+    }
+
+    /**
+     * Caches a page of results of a search. The result is not cached if the database has been
+     * modified since the search was made and a later result has already been cached.
+     *
+     * @param criteria          Search criteria, as returned by {@link SearchCriteria#toArray}.
+     * @param fromRecordNumber  Lowest record number of the page of results.
+     * @param maxResults        Maximum number of results in the page.
+     * @param modificationCount Modification count of the database read before the search was
+     *                          made.
+     * @param contractors       Contractors found by the search.
+     */
+    synchronized void put(String[] criteria, int fromRecordNumber, int maxResults,
+                          long modificationCount, List<Contractor> contractors) {
+        put(new Key(criteria, fromRecordNumber, maxResults), modificationCount, contractors);
+    }
+
+    private void put(Key key, long modificationCount, List<Contractor> contractors) {
+        if (modificationCount < this.modificationCount) {
+            return;
+        }
+        invalidateIfModified(modificationCount);
+        entries.put(key, Collections.unmodifiableList(new ArrayList<Contractor>(contractors)));
+    }
+
+    private void invalidateIfModified(long modificationCount) {
+        if (modificationCount > this.modificationCount) {
+            if (!entries.isEmpty()) {
+                entries.clear();
+                invalidationCount++;
+            }
+            this.modificationCount = modificationCount;
+        }
+    }
+
+    /**
+     * Returns a snapshot of the cache counters.
+     *
+     * @return The cache statistics.
+     */
+    synchronized SearchCacheStatistics getStatistics() {
+        return new SearchCacheStatistics(entries.size(), hitCount, missCount, evictionCount,
+                invalidationCount);
+    }
+
+    /*
+     * Key of a cached result, the criteria are copied so that the key cannot change. An unpaged
+     * result never has the same key as a page, whatever the page bounds.
+     */
+    private static final class Key {
+
+        private final List<String> criteria;
+        private final boolean paged;
+        private final int fromRecordNumber;
+        private final int maxResults;
+
+        private Key(String[] criteria) {
+            this(criteria, false, 0, 0);
+        }
+
+        private Key(String[] criteria, int fromRecordNumber, int maxResults) {
+            this(criteria, true, fromRecordNumber, maxResults);
+        }
+
+        private Key(String[] criteria, boolean paged, int fromRecordNumber, int maxResults) {
+            this.criteria = Arrays.asList(criteria.clone());
+            this.paged = paged;
+            this.fromRecordNumber = fromRecordNumber;
+            this.maxResults = maxResults;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) obj;
+            return paged == key.paged && fromRecordNumber == key.fromRecordNumber
+                    && maxResults == key.maxResults && criteria.equals(key.criteria);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = criteria.hashCode();
+            result = 31 * result + (paged ? 1 : 0);
+            result = 31 * result + fromRecordNumber;
+            result = 31 * result + maxResults;
+            return result;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * SearchCacheStatistics.java
+ *
+ * 18 Oct 2026
+ */
+
+package suncertify.service;
+
+/**
+ * An immutable snapshot of the counters of the search result cache of a {@link BrokerServiceImpl}.
+ * The counts are cumulative since the broker service was created.
+ *
+ * @author Richard Wardle
+ */
+public final class SearchCacheStatistics {
+
+    private final int size;
+    private final long hitCount;
+    private final long missCount;
+    private final long evictionCount;
+    private final long invalidationCount;
+
+    /**
+     * Creates a new instance of <code>SearchCacheStatistics</code>.
+     *
+     * @param size              Number of results in the cache.
+     * @param hitCount          Number of searches answered from the cache.
+     * @param missCount         Number of searches that were not in the cache.
+     * @param evictionCount     Number of results evicted to make room for newer results.
+     * @param invalidationCount Number of times the cached results were discarded because the
+     *                          database was modified.
+     */
+    SearchCacheStatistics(int size, long hitCount, long missCount, long evictionCount,
+                          long invalidationCount) {
+        this.size = size;
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.evictionCount = evictionCount;
+        this.invalidationCount = invalidationCount;
+    }
+
+    /**
+     * Returns the number of results that were cached when the snapshot was taken.
+     *
+     * @return The number of cached results.
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Returns the number of searches that were answered from the cache.
+     *
+     * @return The hit count.
+     */
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Returns the number of searches that were not in the cache and were made on the database.
+     *
+     * @return The miss count.
+     */
+    public long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Returns the number of results that were evicted because the cache was full.
+     *
+     * @return The eviction count.
+     */
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * Returns the number of times the cached results were discarded because the database was
+     * modified.
+     *
+     * @return The invalidation count.
+     */
+    public long getInvalidationCount() {
+        return invalidationCount;
+    }
+
+    /**
+     * Returns the proportion of searches that were answered from the cache.
+     *
+     * @return The hit ratio, between <code>0</code> and <code>1</code>, or <code>0</code> if no
+     *         searches have been made.
+     */
+    public double getHitRatio() {
+        long requestCount = hitCount + missCount;
+        return requestCount == 0 ? 0 : (double) hitCount / requestCount;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        return builder.append(super.toString()).append(": size=").append(size)
+                .append(", hitCount=").append(hitCount).append(", missCount=").append(missCount)
+                .append(", evictionCount=").append(evictionCount).append(", invalidationCount=")
+                .append(invalidationCount).toString();
+    }
+}
@@ -6,58 +6,51 @@
 
 package suncertify.service;
 
-import java.io.Serializable;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
 
 /**
  * Criteria for searching for contractors. All <code>setXXX</code> methods of this class return
  * <code>this</code> to enable use of the builder pattern when creating <code>SearchCriteria</code>
  * objects.
+ * <p/>
+ * Search criteria are serialized by writing the criteria values with {@link ContractorCodec}.
  *
  * @author Richard Wardle
  */
-public final class SearchCriteria implements Serializable {
+public final class SearchCriteria implements Externalizable {
 
     private static final long serialVersionUID = 1L;
 
     /**
      * Contractor name criteria.
-     *
-     * @serial
      */
     private String name;
 
     /**
      * Contractor location criteria.
-     *
-     * @serial
      */
     private String location;
 
     /**
      * Contractor specialties criteria.
-     *
-     * @serial
      */
     private String specialties;
 
     /**
      * Contractor size criteria.
-     *
-     * @serial
      */
     private String size;
 
     /**
      * Contractor rate criteria.
-     *
-     * @serial
      */
     private String rate;
 
     /**
      * Contractor owner criteria.
-     *
-     * @serial
      */
     private String owner;
 
@@ -199,6 +192,23 @@ public final class SearchCriteria implements Serializable {
         return new String[]{name, location, specialties, size, rate, owner};
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * @serialData Each criteria value in the order returned by {@link #toArray}, written by
+     * {@link ContractorCodec#writeSearchCriteria}.
+     */
+    public void writeExternal(ObjectOutput out) throws IOException {
+        ContractorCodec.writeSearchCriteria(out, this);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void readExternal(ObjectInput in) throws IOException {
+        ContractorCodec.readSearchCriteria(in, this);
+    }
+
     /**
      * Returns a string representation of the <code>SearchCriteria</code>.
      *
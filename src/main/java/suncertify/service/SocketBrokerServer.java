@@ -0,0 +1,411 @@
+/*
+ * SocketBrokerServer.java
+ *
+ * 18 Oct 2026
+ */
+
+package suncertify.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.InetSocketAddress;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A server that publishes a {@link BrokerService} over sockets using the binary protocol defined
+ * in {@link BinaryProtocol}, as a lighter-weight alternative to RMI. Clients connect using
+ * {@link SocketBrokerService}.
+ * <p/>
+ * All connections are multiplexed onto a single selector thread, which reads requests and writes
+ * responses without blocking. Requests are executed by a fixed pool of worker threads, since a
+ * booking may wait for a record lock, so the number of threads does not grow with the number of
+ * connected clients. Each connection has at most one request in progress at a time.
+ *
+ * @author Richard Wardle
+ */
+public final class SocketBrokerServer {
+
+    /**
+     * Default number of threads that execute requests.
+     */
+    public static final int DEFAULT_WORKER_THREAD_COUNT = 16;
+
+    private static final Logger LOGGER = Logger.getLogger(SocketBrokerServer.class.getName());
+
+    private final BrokerService service;
+    private final int workerThreadCount;
+
+    // Connections with a response ready to be written, handed from the workers to the selector
+    private final Queue<Connection> pendingResponses = new ConcurrentLinkedQueue<Connection>();
+
+    private Selector selector;
+    private ServerSocketChannel serverChannel;
+    private ExecutorService workers;
+    private Thread selectorThread;
+    private volatile boolean closed;
+
+    /**
+     * Creates a new instance of <code>SocketBrokerServer</code> with the default number of worker
+     * threads.
+     *
+     * @param service Broker service to publish.
+     * @throws IllegalArgumentException If <code>service</code> is <code>null</code>.
+     */
+    public SocketBrokerServer(BrokerService service) {
+        this(service, DEFAULT_WORKER_THREAD_COUNT);
+    }
+
+    /**
+     * Creates a new instance of <code>SocketBrokerServer</code>.
+     *
+     * @param service           Broker service to publish.
+     * @param workerThreadCount Number of threads that execute requests.
+     * @throws IllegalArgumentException If <code>service</code> is <code>null</code> or
+     *                                  <code>workerThreadCount</code> is not positive.
+     */
+    public SocketBrokerServer(BrokerService service, int workerThreadCount) {
+        if (service == null) {
+            throw new IllegalArgumentException("service cannot be null");
+        }
+        if (workerThreadCount <= 0) {
+            throw new IllegalArgumentException("workerThreadCount must be positive");
+        }
+        this.service = service;
+        this.workerThreadCount = workerThreadCount;
+    }
+
+    /**
+     * Starts the server listening on the specified port. The server runs on a non-daemon thread
+     * until it is closed.
+     *
+     * @param port Port to listen on, or <code>0</code> to listen on any free port.
+     * @throws IOException           If the server cannot listen on the port.
+     * @throws IllegalStateException If the server has already been started.
+     */
+    public synchronized void start(int port) throws IOException {
+        if (selector != null) {
+            throw new IllegalStateException("server has already been started");
+        }
+
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        try {
+            serverChannel.socket().bind(new InetSocketAddress(port));
+            serverChannel.configureBlocking(false);
+            serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        } catch (IOException e) {
+            serverChannel.close();
+            selector.close();
+            throw e;
+        }
+
+        final AtomicInteger workerNumber = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(workerThreadCount, new ThreadFactory() {
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "SocketBrokerServer-worker-"
+                        + workerNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        selectorThread = new Thread(new Runnable() {
+            public void run() {
+                select();
+            }
+        }, "SocketBrokerServer-selector");
+        selectorThread.start();
+        LOGGER.info("Socket broker server listening on port: " + getPort());
+    }
+
+    /**
+     * Returns the port that the server is listening on.
+     *
+     * @return The port.
+     * @throws IllegalStateException If the server has not been started.
+     */
+    public synchronized int getPort() {
+        if (serverChannel == null) {
+            throw new IllegalStateException("server has not been started");
+        }
+        return serverChannel.socket().getLocalPort();
+    }
+
+    /**
+     * Stops the server and closes every connection. Requests that are being executed are allowed
+     * to complete, but their responses are discarded.
+     *
+     * @throws IOException If there is an error closing the server.
+     */
+    public synchronized void close() throws IOException {
+        if (selector == null || closed) {
+            return;
+        }
+        closed = true;
+        workers.shutdown();
+
+        // The selector thread closes the connections, so that none is accepted after they are
+        // closed
+        selector.wakeup();
+        try {
+            selectorThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while closing the server");
+        }
+    }
+
+    private void select() {
+        try {
+            while (!closed) {
+                selector.select();
+                registerPendingResponses();
+
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    try {
+                        if (!key.isValid()) {
+                            continue;
+                        }
+                        if (key.isAcceptable()) {
+                            accept();
+                        } else if (key.isReadable()) {
+                            read(key);
+                        } else if (key.isWritable()) {
+                            write(key);
+                        }
+                    } catch (IOException e) {
+                        LOGGER.log(Level.FINE, "Closing connection after error", e);
+                        closeConnection(key);
+                    }
+                }
+            }
+        } catch (ClosedSelectorException e) {
+            // The server has been closed
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "Socket broker server stopped after selector error", e);
+        } finally {
+            closeAll();
+        }
+    }
+
+    private void closeAll() {
+        for (SelectionKey key : selector.keys()) {
+            closeConnection(key);
+        }
+        try {
+            serverChannel.close();
+            selector.close();
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Error closing server", e);
+        }
+    }
+
+    private void registerPendingResponses() {
+        Connection connection;
+        while ((connection = pendingResponses.poll()) != null) {
+            if (connection.response == null) {
+                // No response could be built, so close rather than leave the client waiting
+                closeConnection(connection.key);
+            } else if (connection.key.isValid()) {
+                connection.key.interestOps(SelectionKey.OP_WRITE);
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = serverChannel.accept();
+        if (channel == null) {
+            return;
+        }
+        channel.configureBlocking(false);
+        channel.socket().setTcpNoDelay(true);
+        SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+        key.attach(new Connection(key));
+    }
+
+    private void read(SelectionKey key) throws IOException {
+        Connection connection = (Connection) key.attachment();
+        SocketChannel channel = (SocketChannel) key.channel();
+        if (connection.request == null) {
+            if (channel.read(connection.lengthPrefix) < 0) {
+                closeConnection(key);
+                return;
+            }
+            if (connection.lengthPrefix.hasRemaining()) {
+                return;
+            }
+            int length = connection.lengthPrefix.getInt(0);
+            if (length <= 0 || length > BinaryProtocol.MAX_REQUEST_LENGTH) {
+                throw new IOException("Invalid request length: " + length);
+            }
+            connection.request = ByteBuffer.allocate(length);
+        }
+
+        if (channel.read(connection.request) < 0) {
+            closeConnection(key);
+            return;
+        }
+        if (!connection.request.hasRemaining()) {
+            // Stop reading from the connection until the response has been written
+            key.interestOps(0);
+            final Connection requestConnection = connection;
+            workers.execute(new Runnable() {
+                public void run() {
+                    execute(requestConnection);
+                }
+            });
+        }
+    }
+
+    private void write(SelectionKey key) throws IOException {
+        Connection connection = (Connection) key.attachment();
+        ((SocketChannel) key.channel()).write(connection.response);
+        if (!connection.response.hasRemaining()) {
+            connection.reset();
+            key.interestOps(SelectionKey.OP_READ);
+        }
+    }
+
+    private void closeConnection(SelectionKey key) {
+        key.cancel();
+        try {
+            key.channel().close();
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Error closing connection", e);
+        }
+    }
+
+    private void execute(Connection connection) {
+        try {
+            byte[] response = handle(connection.request.array());
+            ByteBuffer buffer = ByteBuffer.allocate(BinaryProtocol.LENGTH_PREFIX_LENGTH
+                    + response.length);
+            buffer.putInt(response.length).put(response);
+            // Flip through Buffer, ByteBuffer.flip() does not exist before Java 9
+            ((Buffer) buffer).flip();
+            connection.response = buffer;
+        } catch (Throwable t) {
+            LOGGER.log(Level.SEVERE, "Unable to build response, closing connection", t);
+            connection.response = null;
+        }
+        pendingResponses.add(connection);
+        try {
+            selector.wakeup();
+        } catch (ClosedSelectorException e) {
+            // The server has been closed, the response is discarded
+        }
+    }
+
+    /**
+     * Executes a request and returns the encoded response. Exceptions thrown by the broker service
+     * are reported to the client with the corresponding response status.
+     */
+    byte[] handle(byte[] request) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            try {
+                DataInputStream in = new DataInputStream(new ByteArrayInputStream(request));
+                byte requestType = in.readByte();
+                switch (requestType) {
+                    case BinaryProtocol.SEARCH_REQUEST:
+                        SearchCriteria searchCriteria = ContractorCodec.readSearchCriteria(in,
+                                new SearchCriteria());
+                        out.writeByte(BinaryProtocol.STATUS_OK);
+                        ContractorCodec.writeContractors(out, service.search(searchCriteria));
+                        break;
+                    case BinaryProtocol.SEARCH_PAGE_REQUEST:
+                        SearchCriteria pageCriteria = ContractorCodec.readSearchCriteria(in,
+                                new SearchCriteria());
+                        int fromRecordNumber = in.readInt();
+                        int maxResults = in.readInt();
+                        out.writeByte(BinaryProtocol.STATUS_OK);
+                        ContractorCodec.writeContractors(out, service.search(pageCriteria,
+                                fromRecordNumber, maxResults));
+                        break;
+                    case BinaryProtocol.BOOK_REQUEST:
+                        String customerId = BinaryProtocol.readString(in);
+                        Contractor contractor = ContractorCodec.readContractor(in);
+                        service.book(customerId, contractor);
+                        out.writeByte(BinaryProtocol.STATUS_OK);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown request type: " + requestType);
+                }
+            } catch (IOException e) {
+                LOGGER.log(Level.SEVERE, "IO error while executing request", e);
+                writeError(bytes, out, BinaryProtocol.STATUS_IO_ERROR, e);
+            } catch (IllegalArgumentException e) {
+                writeError(bytes, out, BinaryProtocol.STATUS_ILLEGAL_ARGUMENT, e);
+            } catch (ContractorDeletedException e) {
+                writeError(bytes, out, BinaryProtocol.STATUS_CONTRACTOR_DELETED, e);
+            } catch (ContractorModifiedException e) {
+                writeError(bytes, out, BinaryProtocol.STATUS_CONTRACTOR_MODIFIED, e);
+            } catch (ContractorLockedException e) {
+                writeError(bytes, out, BinaryProtocol.STATUS_CONTRACTOR_LOCKED, e);
+            } catch (RuntimeException e) {
+                // Report an unexpected failure so that the client is not left waiting
+                LOGGER.log(Level.SEVERE, "Unexpected error while executing request", e);
+                writeError(bytes, out, BinaryProtocol.STATUS_IO_ERROR, e);
+            }
+            out.flush();
+        } catch (IOException e) {
+            // Not expected when writing to a byte array
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private void writeError(ByteArrayOutputStream bytes, DataOutputStream out, byte status,
+                            Exception e) throws IOException {
+        // Discard any partial result
+        out.flush();
+        bytes.reset();
+        out.writeByte(status);
+        BinaryProtocol.writeString(out, e.getMessage());
+    }
+
+    /*
+     * State of a client connection, owned by the selector thread except while a worker executes
+     * the request.
+     */
+    private static final class Connection {
+
+        private final SelectionKey key;
+        private final ByteBuffer lengthPrefix = ByteBuffer
+                .allocate(BinaryProtocol.LENGTH_PREFIX_LENGTH);
+        private ByteBuffer request;
+        private volatile ByteBuffer response;
+
+        private Connection(SelectionKey key) {
+            this.key = key;
+        }
+
+        private void reset() {
+            ((Buffer) lengthPrefix).clear();
+            request = null;
+            response = null;
+        }
+    }
+}
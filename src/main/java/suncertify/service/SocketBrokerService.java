@@ -0,0 +1,202 @@
+/*
+ * SocketBrokerService.java
+ *
+ * 18 Oct 2026
+ */
+
+package suncertify.service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Implementation of {@link BrokerService} that executes every method on a
+ * {@link SocketBrokerServer}, using the binary protocol defined in {@link BinaryProtocol}. Methods
+ * are executed one at a time over a single connection; if a method fails with an
+ * <code>IOException</code> the connection is closed and every later method call fails. A method
+ * fails with an <code>IOException</code> if the server does not respond within the read timeout.
+ *
+ * @author Richard Wardle
+ */
+public final class SocketBrokerService implements BrokerService {
+
+    /**
+     * Default time, in milliseconds, to wait for a response from the server. This is longer than
+     * the time the server waits for the lock on a contractor record.
+     */
+    public static final long DEFAULT_READ_TIMEOUT_MILLIS = 60000;
+
+    private final Socket socket;
+    private final DataInputStream in;
+    private final DataOutputStream out;
+
+    /**
+     * Creates a new instance of <code>SocketBrokerService</code> connected to the server at the
+     * specified address. The service waits at most {@link #DEFAULT_READ_TIMEOUT_MILLIS}
+     * milliseconds for a response from the server.
+     *
+     * @param serverAddress Address of the server.
+     * @param serverPort    Port of the server.
+     * @throws IOException              If a connection to the server cannot be established.
+     * @throws IllegalArgumentException If <code>serverAddress</code> is <code>null</code>.
+     */
+    public SocketBrokerService(String serverAddress, int serverPort) throws IOException {
+        this(serverAddress, serverPort, DEFAULT_READ_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Creates a new instance of <code>SocketBrokerService</code> connected to the server at the
+     * specified address and waiting at most the specified time for a response from the server.
+     *
+     * @param serverAddress Address of the server.
+     * @param serverPort    Port of the server.
+     * @param readTimeout   Maximum time to wait for a response from the server.
+     * @param unit          Unit of the <code>readTimeout</code> argument.
+     * @throws IOException              If a connection to the server cannot be established.
+     * @throws IllegalArgumentException If <code>serverAddress</code> or <code>unit</code> is
+     *                                  <code>null</code>, or <code>readTimeout</code> is not
+     *                                  positive.
+     */
+    public SocketBrokerService(String serverAddress, int serverPort, long readTimeout,
+                               TimeUnit unit) throws IOException {
+        if (serverAddress == null) {
+            throw new IllegalArgumentException("serverAddress cannot be null");
+        }
+        if (readTimeout <= 0) {
+            throw new IllegalArgumentException("readTimeout must be positive");
+        }
+        if (unit == null) {
+            throw new IllegalArgumentException("unit cannot be null");
+        }
+
+        socket = new Socket(serverAddress, serverPort);
+        socket.setTcpNoDelay(true);
+        socket.setSoTimeout((int) Math.min(Math.max(unit.toMillis(readTimeout), 1),
+                Integer.MAX_VALUE));
+        in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public List<Contractor> search(SearchCriteria searchCriteria) throws IOException {
+        if (searchCriteria == null) {
+            throw new IllegalArgumentException("searchCriteria cannot be null");
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream request = new DataOutputStream(bytes);
+        request.writeByte(BinaryProtocol.SEARCH_REQUEST);
+        ContractorCodec.writeSearchCriteria(request, searchCriteria);
+        request.flush();
+
+        return executeSearch(bytes.toByteArray());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public List<Contractor> search(SearchCriteria searchCriteria, int fromRecordNumber,
+                                   int maxResults) throws IOException {
+        if (searchCriteria == null) {
+            throw new IllegalArgumentException("searchCriteria cannot be null");
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream request = new DataOutputStream(bytes);
+        request.writeByte(BinaryProtocol.SEARCH_PAGE_REQUEST);
+        ContractorCodec.writeSearchCriteria(request, searchCriteria);
+        request.writeInt(fromRecordNumber);
+        request.writeInt(maxResults);
+        request.flush();
+
+        return executeSearch(bytes.toByteArray());
+    }
+
+    private List<Contractor> executeSearch(byte[] request) throws IOException {
+        DataInputStream response = execute(request);
+        byte status = response.readByte();
+        if (status != BinaryProtocol.STATUS_OK) {
+            throw createException(status, BinaryProtocol.readString(response));
+        }
+        return ContractorCodec.readContractors(response);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void book(String customerId, Contractor contractor) throws IOException,
+            ContractorDeletedException, ContractorModifiedException, ContractorLockedException {
+        if (contractor == null) {
+            throw new IllegalArgumentException("contractor cannot be null");
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream request = new DataOutputStream(bytes);
+        request.writeByte(BinaryProtocol.BOOK_REQUEST);
+        BinaryProtocol.writeString(request, customerId);
+        ContractorCodec.writeContractor(request, contractor);
+        request.flush();
+
+        DataInputStream response = execute(bytes.toByteArray());
+        byte status = response.readByte();
+        if (status != BinaryProtocol.STATUS_OK) {
+            String message = BinaryProtocol.readString(response);
+            switch (status) {
+                case BinaryProtocol.STATUS_CONTRACTOR_DELETED:
+                    throw new ContractorDeletedException(message);
+                case BinaryProtocol.STATUS_CONTRACTOR_MODIFIED:
+                    throw new ContractorModifiedException(message);
+                case BinaryProtocol.STATUS_CONTRACTOR_LOCKED:
+                    throw new ContractorLockedException(message);
+                default:
+                    throw createException(status, message);
+            }
+        }
+    }
+
+    /**
+     * Closes the connection to the server. Every later method call fails.
+     *
+     * @throws IOException If there is an error closing the connection.
+     */
+    public void close() throws IOException {
+        socket.close();
+    }
+
+    private synchronized DataInputStream execute(byte[] request) throws IOException {
+        try {
+            out.writeInt(request.length);
+            out.write(request);
+            out.flush();
+
+            int length = in.readInt();
+            if (length <= 0 || length > BinaryProtocol.MAX_RESPONSE_LENGTH) {
+                throw new IOException("Invalid response length: " + length);
+            }
+            byte[] response = new byte[length];
+            in.readFully(response);
+            return new DataInputStream(new ByteArrayInputStream(response));
+        } catch (IOException e) {
+            // The connection is no longer in a known state
+            socket.close();
+            throw e;
+        }
+    }
+
+    private IOException createException(byte status, String message) {
+        if (status == BinaryProtocol.STATUS_ILLEGAL_ARGUMENT) {
+            throw new IllegalArgumentException(message);
+        }
+        return new IOException(message);
+    }
+}
@@ -5,11 +5,16 @@ import org.jmock.Mockery;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import suncertify.db.DurabilityPolicy;
 import suncertify.presentation.ClientConfigurationDialog;
+import suncertify.service.BrokerService;
 import suncertify.service.RemoteBrokerService;
 import suncertify.service.RmiService;
+import suncertify.service.SocketBrokerServer;
+import suncertify.service.SocketBrokerService;
 
 import java.net.MalformedURLException;
+import java.net.ServerSocket;
 import java.rmi.NotBoundException;
 import java.rmi.RemoteException;
 
@@ -23,6 +28,7 @@ public class ClientApplicationTest {
     private RemoteBrokerService mockRemoteBrokerService;
     private String serverAddress;
     private String serverPort;
+    private String networkProtocol;
     private String url;
 
     @Before
@@ -32,6 +38,7 @@ public class ClientApplicationTest {
         mockRemoteBrokerService = context.mock(RemoteBrokerService.class);
         serverAddress = "128.0.0.1";
         serverPort = "1199";
+        networkProtocol = NetworkProtocol.RMI.name();
         url = "//" + serverAddress + ":" + serverPort + "/"
                 + ApplicationConstants.REMOTE_BROKER_SERVICE_NAME;
     }
@@ -62,6 +69,22 @@ public class ClientApplicationTest {
                 allowing(mockConfiguration).getProperty(
                         with(equal(ApplicationConstants.SERVER_PORT_PROPERTY)));
                 will(returnValue(serverPort));
+
+                allowing(mockConfiguration).getProperty(
+                        with(equal(ApplicationConstants.DURABILITY_POLICY_PROPERTY)));
+                will(returnValue(DurabilityPolicy.NONE.name()));
+
+                allowing(mockConfiguration).getProperty(
+                        with(equal(ApplicationConstants.SYNC_INTERVAL_PROPERTY)));
+                will(returnValue("1000"));
+
+                allowing(mockConfiguration).getProperty(
+                        with(equal(ApplicationConstants.COMPACT_ON_OPEN_PROPERTY)));
+                will(returnValue("false"));
+
+                allowing(mockConfiguration).getProperty(
+                        with(equal(ApplicationConstants.NETWORK_PROTOCOL_PROPERTY)));
+                will(returnValue(networkProtocol));
             }
         });
     }
@@ -115,4 +138,37 @@ public class ClientApplicationTest {
         });
         new ClientApplication(mockConfiguration, mockRmiService).createBrokerService();
     }
+
+    @Test
+    public void shouldCreateSocketBrokerService() throws Exception {
+        SocketBrokerServer server = new SocketBrokerServer(context.mock(BrokerService.class));
+        server.start(0);
+        try {
+            serverAddress = ApplicationConstants.LOCALHOST_ADDRESS;
+            serverPort = String.valueOf(server.getPort());
+            networkProtocol = NetworkProtocol.SOCKET.name();
+            checkingConfiguration();
+
+            ClientApplication application = new ClientApplication(mockConfiguration,
+                    mockRmiService);
+            BrokerService service = application.createBrokerService();
+            assertTrue(service instanceof SocketBrokerService);
+            ((SocketBrokerService) service).close();
+        } finally {
+            server.close();
+        }
+    }
+
+    @Test(expected = FatalException.class)
+    public void shouldThrowFatalExceptionWhenSocketServerCannotBeConnectedTo() throws Exception {
+        // Find a port that nothing is listening on
+        ServerSocket serverSocket = new ServerSocket(0);
+        serverSocket.close();
+
+        serverAddress = ApplicationConstants.LOCALHOST_ADDRESS;
+        serverPort = String.valueOf(serverSocket.getLocalPort());
+        networkProtocol = NetworkProtocol.SOCKET.name();
+        checkingConfiguration();
+        new ClientApplication(mockConfiguration, mockRmiService).createBrokerService();
+    }
 }
@@ -109,6 +109,18 @@ public class ConfigurationManagerTest {
                 one(mockConfiguration).setProperty(
                         with(equal(ApplicationConstants.SERVER_PORT_PROPERTY)),
                         with(equal(ApplicationConstants.DEFAULT_SERVER_PORT.toString())));
+                one(mockConfiguration).setProperty(
+                        with(equal(ApplicationConstants.DURABILITY_POLICY_PROPERTY)),
+                        with(equal(ApplicationConstants.DEFAULT_DURABILITY_POLICY.name())));
+                one(mockConfiguration).setProperty(
+                        with(equal(ApplicationConstants.SYNC_INTERVAL_PROPERTY)),
+                        with(equal(ApplicationConstants.DEFAULT_SYNC_INTERVAL.toString())));
+                one(mockConfiguration).setProperty(
+                        with(equal(ApplicationConstants.COMPACT_ON_OPEN_PROPERTY)),
+                        with(equal(ApplicationConstants.DEFAULT_COMPACT_ON_OPEN.toString())));
+                one(mockConfiguration).setProperty(
+                        with(equal(ApplicationConstants.NETWORK_PROTOCOL_PROPERTY)),
+                        with(equal(ApplicationConstants.DEFAULT_NETWORK_PROTOCOL.name())));
             }
         });
         new ConfigurationManager(mockConfiguration);
@@ -126,6 +138,18 @@ public class ConfigurationManagerTest {
                 one(mockConfiguration).setProperty(
                         with(equal(ApplicationConstants.SERVER_PORT_PROPERTY)),
                         with(equal(ApplicationConstants.DEFAULT_SERVER_PORT.toString())));
+                one(mockConfiguration).setProperty(
+                        with(equal(ApplicationConstants.DURABILITY_POLICY_PROPERTY)),
+                        with(equal(ApplicationConstants.DEFAULT_DURABILITY_POLICY.name())));
+                one(mockConfiguration).setProperty(
+                        with(equal(ApplicationConstants.SYNC_INTERVAL_PROPERTY)),
+                        with(equal(ApplicationConstants.DEFAULT_SYNC_INTERVAL.toString())));
+                one(mockConfiguration).setProperty(
+                        with(equal(ApplicationConstants.COMPACT_ON_OPEN_PROPERTY)),
+                        with(equal(ApplicationConstants.DEFAULT_COMPACT_ON_OPEN.toString())));
+                one(mockConfiguration).setProperty(
+                        with(equal(ApplicationConstants.NETWORK_PROTOCOL_PROPERTY)),
+                        with(equal(ApplicationConstants.DEFAULT_NETWORK_PROTOCOL.name())));
                 one(mockConfiguration).setProperty(
                         with(equal(ApplicationConstants.DATABASE_FILE_PATH_PROPERTY)),
                         with(equal(newDatabaseFilePath)));
@@ -143,6 +167,61 @@ public class ConfigurationManagerTest {
         configurationManager.setServerPort(newServerPort);
     }
 
+    @Test
+    public void shouldGetDefaultDurabilityPolicyIfPropertyIsInvalid() throws Exception {
+        context.checking(new Expectations() {
+            {
+                ignoring(mockConfiguration).exists();
+
+                allowing(mockConfiguration).getProperty(
+                        with(equal(ApplicationConstants.DURABILITY_POLICY_PROPERTY)));
+                will(returnValue("SOMETIMES"));
+
+                one(mockConfiguration).setProperty(
+                        with(equal(ApplicationConstants.DURABILITY_POLICY_PROPERTY)),
+                        with(equal(ApplicationConstants.DEFAULT_DURABILITY_POLICY.name())));
+
+                ignoring(mockConfiguration).getProperty(with(any(String.class)));
+                ignoring(mockConfiguration).setProperty(with(any(String.class)),
+                        with(any(String.class)));
+            }
+        });
+        new ConfigurationManager(mockConfiguration);
+    }
+
+    @Test
+    public void shouldGetDefaultCompactOnOpenIfPropertyIsInvalid() throws Exception {
+        context.checking(new Expectations() {
+            {
+                ignoring(mockConfiguration).exists();
+
+                allowing(mockConfiguration).getProperty(
+                        with(equal(ApplicationConstants.COMPACT_ON_OPEN_PROPERTY)));
+                will(returnValue("sometimes"));
+
+                one(mockConfiguration).setProperty(
+                        with(equal(ApplicationConstants.COMPACT_ON_OPEN_PROPERTY)),
+                        with(equal(ApplicationConstants.DEFAULT_COMPACT_ON_OPEN.toString())));
+
+                ignoring(mockConfiguration).getProperty(with(any(String.class)));
+                ignoring(mockConfiguration).setProperty(with(any(String.class)),
+                        with(any(String.class)));
+            }
+        });
+        new ConfigurationManager(mockConfiguration);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldThrowExceptionIfDurabilityPolicyIsNull() throws Exception {
+        context.checking(new Expectations() {
+            {
+                ignoring(mockConfiguration);
+            }
+        });
+        ConfigurationManager configurationManager = new ConfigurationManager(mockConfiguration);
+        configurationManager.setDurabilityPolicy(null);
+    }
+
     @Test
     public void shouldSaveConfiguration() throws Exception {
         context.checking(new Expectations() {
@@ -6,7 +6,9 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import suncertify.db.DataValidationException;
+import suncertify.db.Database;
 import suncertify.db.DatabaseFactory;
+import suncertify.db.DatabaseOptions;
 import suncertify.presentation.ServerConfigurationDialog;
 import suncertify.service.RemoteBrokerServiceImpl;
 import suncertify.service.RmiService;
@@ -14,6 +16,7 @@ import suncertify.service.RmiService;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.net.MalformedURLException;
+import java.net.ServerSocket;
 import java.rmi.RemoteException;
 
 import static org.junit.Assert.assertTrue;
@@ -25,6 +28,7 @@ public class ServerApplicationTest {
     private RmiService mockRmiService;
     private DatabaseFactory mockDatabaseFactory;
     private String serverPort;
+    private String networkProtocol;
     private String databaseFilePath;
     private String url;
 
@@ -34,6 +38,7 @@ public class ServerApplicationTest {
         mockRmiService = context.mock(RmiService.class);
         mockDatabaseFactory = context.mock(DatabaseFactory.class);
         serverPort = "1189";
+        networkProtocol = NetworkProtocol.RMI.name();
         databaseFilePath = "databaseFilePath";
         url = "//" + ApplicationConstants.LOCALHOST_ADDRESS + ":" + serverPort + "/"
                 + ApplicationConstants.REMOTE_BROKER_SERVICE_NAME;
@@ -67,6 +72,22 @@ public class ServerApplicationTest {
 
                 allowing(mockConfiguration).getProperty(
                         with(equal(ApplicationConstants.SERVER_ADDRESS_PROPERTY)));
+
+                allowing(mockConfiguration).getProperty(
+                        with(equal(ApplicationConstants.DURABILITY_POLICY_PROPERTY)));
+                will(returnValue("GROUP_SYNC"));
+
+                allowing(mockConfiguration).getProperty(
+                        with(equal(ApplicationConstants.SYNC_INTERVAL_PROPERTY)));
+                will(returnValue("500"));
+
+                allowing(mockConfiguration).getProperty(
+                        with(equal(ApplicationConstants.COMPACT_ON_OPEN_PROPERTY)));
+                will(returnValue("false"));
+
+                allowing(mockConfiguration).getProperty(
+                        with(equal(ApplicationConstants.NETWORK_PROTOCOL_PROPERTY)));
+                will(returnValue(networkProtocol));
             }
         });
     }
@@ -78,7 +99,8 @@ public class ServerApplicationTest {
             {
                 one(mockRmiService).createRegistry(with(equal(Integer.parseInt(serverPort))));
 
-                one(mockDatabaseFactory).createDatabase(with(equal(databaseFilePath)));
+                one(mockDatabaseFactory).createDatabase(with(equal(databaseFilePath)),
+                        with(any(DatabaseOptions.class)));
 
                 one(mockRmiService).rebind(with(equal(url)),
                         with(any(RemoteBrokerServiceImpl.class)));
@@ -106,7 +128,8 @@ public class ServerApplicationTest {
             {
                 one(mockRmiService).createRegistry(with(equal(Integer.parseInt(serverPort))));
 
-                one(mockDatabaseFactory).createDatabase(with(equal(databaseFilePath)));
+                one(mockDatabaseFactory).createDatabase(with(equal(databaseFilePath)),
+                        with(any(DatabaseOptions.class)));
                 will(throwException(new FileNotFoundException()));
             }
         });
@@ -120,7 +143,8 @@ public class ServerApplicationTest {
             {
                 one(mockRmiService).createRegistry(with(equal(Integer.parseInt(serverPort))));
 
-                one(mockDatabaseFactory).createDatabase(with(equal(databaseFilePath)));
+                one(mockDatabaseFactory).createDatabase(with(equal(databaseFilePath)),
+                        with(any(DatabaseOptions.class)));
                 will(throwException(new IOException()));
             }
         });
@@ -134,7 +158,8 @@ public class ServerApplicationTest {
             {
                 one(mockRmiService).createRegistry(with(equal(Integer.parseInt(serverPort))));
 
-                one(mockDatabaseFactory).createDatabase(with(equal(databaseFilePath)));
+                one(mockDatabaseFactory).createDatabase(with(equal(databaseFilePath)),
+                        with(any(DatabaseOptions.class)));
                 will(throwException(new DataValidationException("")));
             }
         });
@@ -148,7 +173,8 @@ public class ServerApplicationTest {
             {
                 one(mockRmiService).createRegistry(with(equal(Integer.parseInt(serverPort))));
 
-                one(mockDatabaseFactory).createDatabase(with(equal(databaseFilePath)));
+                one(mockDatabaseFactory).createDatabase(with(equal(databaseFilePath)),
+                        with(any(DatabaseOptions.class)));
 
                 one(mockRmiService).rebind(with(equal(url)),
                         with(any(RemoteBrokerServiceImpl.class)));
@@ -165,7 +191,8 @@ public class ServerApplicationTest {
             {
                 one(mockRmiService).createRegistry(with(equal(Integer.parseInt(serverPort))));
 
-                one(mockDatabaseFactory).createDatabase(with(equal(databaseFilePath)));
+                one(mockDatabaseFactory).createDatabase(with(equal(databaseFilePath)),
+                        with(any(DatabaseOptions.class)));
 
                 one(mockRmiService).rebind(with(equal(url)),
                         with(any(RemoteBrokerServiceImpl.class)));
@@ -174,4 +201,26 @@ public class ServerApplicationTest {
         });
         new ServerApplication(mockConfiguration, mockRmiService, mockDatabaseFactory).startup();
     }
+
+    @Test(expected = FatalException.class)
+    public void shouldThrowFatalExceptionWhenSocketServerCannotBeStarted() throws Exception {
+        // Occupy the server port so that the socket server cannot listen on it
+        ServerSocket serverSocket = new ServerSocket(0);
+        try {
+            serverPort = String.valueOf(serverSocket.getLocalPort());
+            networkProtocol = NetworkProtocol.SOCKET.name();
+            checkingConfiguration();
+            context.checking(new Expectations() {
+                {
+                    one(mockDatabaseFactory).createDatabase(with(equal(databaseFilePath)),
+                            with(any(DatabaseOptions.class)));
+                    will(returnValue(context.mock(Database.class)));
+                }
+            });
+            new ServerApplication(mockConfiguration, mockRmiService, mockDatabaseFactory)
+                    .startup();
+        } finally {
+            serverSocket.close();
+        }
+    }
 }
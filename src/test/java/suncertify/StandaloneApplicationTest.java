@@ -7,6 +7,7 @@ import org.junit.Before;
 import org.junit.Test;
 import suncertify.db.DataValidationException;
 import suncertify.db.DatabaseFactory;
+import suncertify.db.DatabaseOptions;
 import suncertify.presentation.StandaloneConfigurationDialog;
 import suncertify.service.BrokerServiceImpl;
 
@@ -56,6 +57,22 @@ public class StandaloneApplicationTest {
                 allowing(mockConfiguration).getProperty(
                         with(equal(ApplicationConstants.DATABASE_FILE_PATH_PROPERTY)));
                 will(returnValue(databaseFilePath));
+
+                allowing(mockConfiguration).getProperty(
+                        with(equal(ApplicationConstants.DURABILITY_POLICY_PROPERTY)));
+                will(returnValue("GROUP_SYNC"));
+
+                allowing(mockConfiguration).getProperty(
+                        with(equal(ApplicationConstants.SYNC_INTERVAL_PROPERTY)));
+                will(returnValue("500"));
+
+                allowing(mockConfiguration).getProperty(
+                        with(equal(ApplicationConstants.COMPACT_ON_OPEN_PROPERTY)));
+                will(returnValue("false"));
+
+                allowing(mockConfiguration).getProperty(
+                        with(equal(ApplicationConstants.NETWORK_PROTOCOL_PROPERTY)));
+                will(returnValue(NetworkProtocol.RMI.name()));
             }
         });
     }
@@ -65,7 +82,8 @@ public class StandaloneApplicationTest {
         checkingConfiguration();
         context.checking(new Expectations() {
             {
-                one(mockDatabaseFactory).createDatabase(with(equal(databaseFilePath)));
+                one(mockDatabaseFactory).createDatabase(with(equal(databaseFilePath)),
+                        with(any(DatabaseOptions.class)));
             }
         });
 
@@ -79,7 +97,8 @@ public class StandaloneApplicationTest {
         checkingConfiguration();
         context.checking(new Expectations() {
             {
-                one(mockDatabaseFactory).createDatabase(with(equal(databaseFilePath)));
+                one(mockDatabaseFactory).createDatabase(with(equal(databaseFilePath)),
+                        with(any(DatabaseOptions.class)));
                 will(throwException(new FileNotFoundException()));
             }
         });
@@ -91,7 +110,8 @@ public class StandaloneApplicationTest {
         checkingConfiguration();
         context.checking(new Expectations() {
             {
-                one(mockDatabaseFactory).createDatabase(with(equal(databaseFilePath)));
+                one(mockDatabaseFactory).createDatabase(with(equal(databaseFilePath)),
+                        with(any(DatabaseOptions.class)));
                 will(throwException(new IOException()));
             }
         });
@@ -103,7 +123,8 @@ public class StandaloneApplicationTest {
         checkingConfiguration();
         context.checking(new Expectations() {
             {
-                one(mockDatabaseFactory).createDatabase(with(equal(databaseFilePath)));
+                one(mockDatabaseFactory).createDatabase(with(equal(databaseFilePath)),
+                        with(any(DatabaseOptions.class)));
                 will(throwException(new DataValidationException("")));
             }
         });
@@ -8,6 +8,8 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertThat;
@@ -78,6 +80,51 @@ public class DataAdapterTest {
         dataAdapter.find(new String[0]);
     }
 
+    @Test(expected = IOException.class)
+    public void shouldMapDataAccessExceptionInReadRecordsMethod() throws Exception {
+        context.checking(new Expectations() {
+            {
+                one(mockData).readRecords(with(any(int[].class)));
+                will(throwException(new DataAccessException(new IOException())));
+            }
+        });
+        dataAdapter.readRecords(new int[0]);
+    }
+
+    @Test(expected = IOException.class)
+    public void shouldMapDataAccessExceptionInFindRecordsMethod() throws Exception {
+        context.checking(new Expectations() {
+            {
+                one(mockData).findRecords(with(any(String[].class)));
+                will(throwException(new DataAccessException(new IOException())));
+            }
+        });
+        dataAdapter.findRecords(new String[0]);
+    }
+
+    @Test(expected = IOException.class)
+    public void shouldMapDataAccessExceptionInFindExactMethod() throws Exception {
+        context.checking(new Expectations() {
+            {
+                one(mockData).findExact(with(any(String[].class)));
+                will(throwException(new DataAccessException(new IOException())));
+            }
+        });
+        dataAdapter.findExact(new String[0]);
+    }
+
+    @Test(expected = IOException.class)
+    public void shouldMapDataAccessExceptionInFindExactPageMethod() throws Exception {
+        context.checking(new Expectations() {
+            {
+                one(mockData).findExact(with(any(String[].class)), with(any(int.class)),
+                        with(any(int.class)));
+                will(throwException(new DataAccessException(new IOException())));
+            }
+        });
+        dataAdapter.findExact(new String[0], 0, 1);
+    }
+
     @Test(expected = IOException.class)
     public void shouldMapDataAccessExceptionInCreateMethod() throws Exception {
         context.checking(new Expectations() {
@@ -103,6 +150,83 @@ public class DataAdapterTest {
         dataAdapter.lock(-1);
     }
 
+    @Test(expected = InterruptedException.class)
+    public void shouldMapIllegalThreadStateExceptionInTimedLockMethod() throws Exception {
+        final IllegalThreadStateException exception = new IllegalThreadStateException();
+        exception.initCause(new InterruptedException());
+
+        context.checking(new Expectations() {
+            {
+                one(mockData).lock(with(any(int.class)), with(any(long.class)),
+                        with(any(TimeUnit.class)));
+                will(throwException(exception));
+            }
+        });
+        dataAdapter.lock(-1, 1, TimeUnit.SECONDS);
+    }
+
+    @Test(expected = InterruptedException.class)
+    public void shouldMapIllegalThreadStateExceptionInLockRecordMethod() throws Exception {
+        final IllegalThreadStateException exception = new IllegalThreadStateException();
+        exception.initCause(new InterruptedException());
+
+        context.checking(new Expectations() {
+            {
+                one(mockData).lockRecord(with(any(int.class)));
+                will(throwException(exception));
+            }
+        });
+        dataAdapter.lockRecord(-1);
+    }
+
+    @Test(expected = IOException.class)
+    public void shouldMapDataAccessExceptionInUpdateWithLockCookieMethod() throws Exception {
+        context.checking(new Expectations() {
+            {
+                one(mockData).update(with(any(int.class)), with(any(String[].class)),
+                        with(any(long.class)));
+                will(throwException(new DataAccessException(new IOException())));
+            }
+        });
+        dataAdapter.update(-1, new String[0], 1);
+    }
+
+    @Test(expected = IOException.class)
+    public void shouldMapDataAccessExceptionInCompareAndUpdateMethod() throws Exception {
+        context.checking(new Expectations() {
+            {
+                one(mockData).compareAndUpdate(with(any(int.class)), with(any(long.class)),
+                        with(any(String[].class)));
+                will(throwException(new DataAccessException(new IOException())));
+            }
+        });
+        dataAdapter.compareAndUpdate(-1, 1, new String[0]);
+    }
+
+    @Test
+    public void shouldDelegateTryLockMethodCall() throws Exception {
+        context.checking(new Expectations() {
+            {
+                one(mockData).tryLock(with(any(int.class)));
+                will(returnValue(true));
+            }
+        });
+        assertThat(dataAdapter.tryLock(-1), is(true));
+    }
+
+    @Test
+    public void shouldDelegateGetLockStatisticsMethodCall() throws Exception {
+        final LockStatistics statistics = new LockStatistics(1, new HashMap<Integer, Integer>(),
+                0, new HashMap<Integer, Long>(), 3, new long[0]);
+        context.checking(new Expectations() {
+            {
+                one(mockData).getLockStatistics();
+                will(returnValue(statistics));
+            }
+        });
+        assertThat(dataAdapter.getLockStatistics(), is(statistics));
+    }
+
     @Test
     public void shouldDelegateUnlockMethodCall() throws Exception {
         context.checking(new Expectations() {
@@ -1,18 +1,31 @@
 package suncertify.db;
 
+import org.hamcrest.BaseMatcher;
 import org.hamcrest.Description;
+import org.hamcrest.Matcher;
 import org.jmock.Expectations;
 import org.jmock.Mockery;
 import org.jmock.Sequence;
 import org.jmock.api.Action;
 import org.jmock.api.Invocation;
+import org.jmock.lib.action.CustomAction;
 import org.junit.After;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import suncertify.db.DatabaseSchema.FieldDescription;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.hamcrest.CoreMatchers.*;
 import static org.junit.Assert.*;
@@ -22,10 +35,14 @@ public class DataTest {
     private ExceptionHandler exceptionHandler;
     private Mockery context;
     private DatabaseFile mockDatabaseFile;
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
     private Data data;
     private long dataSectionOffset;
     private int recordCount;
     private SortedSet<Integer> deletedRecNos;
+    private String[][] recordValues;
 
     @Before
     public void setUp() throws Exception {
@@ -40,10 +57,22 @@ public class DataTest {
         recordCount = 6;
         deletedRecNos = new TreeSet<Integer>();
         deletedRecNos.add(5);
+        recordValues = new String[recordCount][];
+        for (int recNo = 0; recNo < recordCount; recNo++) {
+            recordValues[recNo] = DataTestConstants.RECORD_VALUES_SPACE_PADDED;
+        }
     }
 
     @After
-    public void tearDown() {
+    public void tearDown() throws Exception {
+        if (data != null) {
+            context.checking(new Expectations() {
+                {
+                    one(mockDatabaseFile).close();
+                }
+            });
+            data.close();
+        }
         context.assertIsSatisfied();
         Throwable exception = exceptionHandler.getException();
         if (exception != null) {
@@ -56,6 +85,11 @@ public class DataTest {
         data = new Data(null);
     }
 
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldThrowExceptionWhenConstructedWithNullOptions() throws Exception {
+        data = new Data(mockDatabaseFile, null);
+    }
+
     @Test(expected = DataValidationException.class)
     public void shouldThrowExceptionWhenConstructedWithInvalidMagicCookie() throws Exception {
         int invalidMagicCookie = -1;
@@ -190,6 +224,15 @@ public class DataTest {
     }
 
     private void standardSetup() throws Exception {
+        standardSetup(new DatabaseOptions());
+    }
+
+    private void standardSetup(DatabaseOptions options) throws Exception {
+        standardSetup(options, null);
+    }
+
+    private void standardSetup(DatabaseOptions options, WriteAheadLog writeAheadLog)
+            throws Exception {
         Sequence sequence = context.sequence("construction");
         checkingMagicCookieRead(DatabaseConstants.MAGIC_COOKIE, sequence);
         checkingRecordLengthRead(DataTestConstants.EXPECTED_RECORD_LENGTH, sequence);
@@ -197,8 +240,8 @@ public class DataTest {
         checkingFieldDescriptions(DataTestConstants.EXPECTED_FIELD_DESCRIPTIONS, sequence);
         checkingDataSectionOffset(sequence);
         checkingRecordCount(sequence);
-        checkingCacheDeletedRecordNumbers(sequence);
-        data = new Data(mockDatabaseFile);
+        checkingLoadRecords(sequence);
+        data = new Data(mockDatabaseFile, options, writeAheadLog);
         assertSchema();
         assertThat(data.getDataSectionOffset(), is(dataSectionOffset));
         assertThat(data.getRecordCount(), is(recordCount));
@@ -227,18 +270,24 @@ public class DataTest {
         });
     }
 
-    private void checkingCacheDeletedRecordNumbers(final Sequence sequence) throws Exception {
+    private void checkingLoadRecords(final Sequence sequence) throws Exception {
+        final StringBuilder recordsBuilder = new StringBuilder();
+        for (int recNo = 0; recNo < recordCount; recNo++) {
+            recordsBuilder.append((char) (deletedRecNos.contains(recNo)
+                    ? DatabaseConstants.DELETED_RECORD_FLAG
+                    : DatabaseConstants.VALID_RECORD_FLAG));
+            for (String element : recordValues[recNo]) {
+                recordsBuilder.append(element);
+            }
+        }
+
         context.checking(new Expectations() {
             {
-                for (int recNo = 0; recNo < recordCount; recNo++) {
-                    one(mockDatabaseFile).seek(with(equal(getOffsetForRecord(recNo))));
-                    inSequence(sequence);
-
-                    one(mockDatabaseFile).readByte();
-                    will(returnValue(deletedRecNos.contains(recNo) ? DatabaseConstants.DELETED_RECORD_FLAG
-                            : DatabaseConstants.VALID_RECORD_FLAG));
-                    inSequence(sequence);
-                }
+                one(mockDatabaseFile).readFully(with(equal(getOffsetForRecord(0))),
+                        with(any(byte[].class)));
+                will(readBytesAtPosition(recordsBuilder.toString().getBytes(
+                        DatabaseConstants.CHARACTER_SET)));
+                inSequence(sequence);
             }
         });
     }
@@ -290,29 +339,12 @@ public class DataTest {
 
     @Test
     public void shouldTrimRecordWhenReadWithSpacePadding() throws Exception {
+        recordValues[1] = DataTestConstants.RECORD_VALUES_SPACE_PADDED;
         standardSetup();
-        read(1, DataTestConstants.RECORD_VALUES_SPACE_PADDED, DataTestConstants.RECORD_VALUES);
+        assertRead(1, DataTestConstants.RECORD_VALUES);
     }
 
-    private void read(final int recordNumber, final String[] recordValuesToRead,
-                      String[] expectedRecordValues) throws Exception {
-        final Sequence sequence = context.sequence("read");
-        checkingSeek(getOffsetForRecord(recordNumber)
-                + DatabaseConstants.RECORD_VALIDITY_FLAG_LENGTH, sequence);
-
-        final StringBuilder recordBuilder = new StringBuilder();
-        for (String element : recordValuesToRead) {
-            recordBuilder.append(element);
-        }
-
-        context.checking(new Expectations() {
-            {
-                one(mockDatabaseFile).readFully(with(any(byte[].class)));
-                will(readBytes(recordBuilder.toString().getBytes()));
-                inSequence(sequence);
-            }
-        });
-
+    private void assertRead(int recordNumber, String[] expectedRecordValues) throws Exception {
         String[] actualRecordValues = data.read(recordNumber);
         assertThat(actualRecordValues.length, is(expectedRecordValues.length));
         for (int i = 0; i < actualRecordValues.length; i++) {
@@ -320,19 +352,46 @@ public class DataTest {
         }
     }
 
-    private void checkingSeek(final long pos, final Sequence sequence) throws Exception {
-        context.checking(new Expectations() {
-            {
-                one(mockDatabaseFile).seek(pos);
-                inSequence(sequence);
-            }
-        });
+    @Test
+    public void shouldTrimRecordWhenReadWithNullPadding() throws Exception {
+        recordValues[1] = DataTestConstants.RECORD_VALUES_NULL_PADDED;
+        standardSetup();
+        assertRead(1, DataTestConstants.RECORD_VALUES);
     }
 
     @Test
-    public void shouldTrimRecordWhenReadWithNullPadding() throws Exception {
+    public void shouldReadRecordWithoutAccessingDatabaseFile() throws Exception {
         standardSetup();
-        read(1, DataTestConstants.RECORD_VALUES_NULL_PADDED, DataTestConstants.RECORD_VALUES);
+        assertRead(1, DataTestConstants.RECORD_VALUES);
+        assertRead(1, DataTestConstants.RECORD_VALUES);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldThrowExceptionWhenReadRecordsCalledWithNullArray() throws Exception {
+        standardSetup();
+        data.readRecords(null);
+    }
+
+    @Test
+    public void shouldReadRecordsInRequestedOrder() throws Exception {
+        recordValues[0] = DataTestConstants.padRecord(new String[]{"first", "m", "", "m", "m",
+                "12345678"}, ' ');
+        standardSetup();
+        List<DatabaseRecord> records = data.readRecords(new int[]{2, 0});
+        assertThat(records.size(), is(2));
+        assertThat(records.get(0).getRecordNumber(), is(2));
+        assertArrayEquals(DataTestConstants.RECORD_VALUES, records.get(0).getValues());
+        assertThat(records.get(1).getRecordNumber(), is(0));
+        assertThat(records.get(1).getValues()[0], is("first"));
+    }
+
+    @Test
+    public void shouldSkipInvalidAndDeletedRecordsWhenReadRecordsCalled() throws Exception {
+        standardSetup();
+        List<DatabaseRecord> records = data.readRecords(new int[]{-1, 1,
+                deletedRecNos.first(), recordCount});
+        assertThat(records.size(), is(1));
+        assertThat(records.get(0).getRecordNumber(), is(1));
     }
 
     @Test(expected = RecordNotFoundException.class)
@@ -368,7 +427,7 @@ public class DataTest {
     }
 
     @Test
-    public void shouldNotWriteCorrespondingFieldWhenUpdatedWithNullRecordValue() throws Exception {
+    public void shouldNotChangeCorrespondingFieldWhenUpdatedWithNullRecordValue() throws Exception {
         standardSetup();
         int recNo = 1;
         data.lock(recNo);
@@ -377,6 +436,7 @@ public class DataTest {
         recordValues[1] = null;
         checkingUpdateRecord(recNo, recordValues, sequence);
         data.update(recNo, recordValues);
+        assertRead(recNo, DataTestConstants.RECORD_VALUES);
     }
 
     @Test
@@ -439,32 +499,272 @@ public class DataTest {
         final Sequence sequence = context.sequence("update");
         checkingUpdateRecord(recNo, DataTestConstants.RECORD_VALUES_SPACE_PADDED, sequence);
         data.update(recNo, DataTestConstants.RECORD_VALUES);
+        assertThat(data.getModificationCount(), is(1L));
     }
 
-    private void checkingUpdateRecord(int recNo, final String[] recordValues,
-                                      final Sequence sequence) throws Exception {
-        final long recordValuesStartPos = getOffsetForRecord(recNo)
-                + DatabaseConstants.RECORD_VALIDITY_FLAG_LENGTH;
+    @Test
+    public void shouldUpdateRecordFromAnotherThreadUsingLockCookie() throws Exception {
+        standardSetup();
+        final int recNo = 1;
+        final long lockCookie = data.lockRecord(recNo);
+        checkingUpdateRecord(recNo, DataTestConstants.RECORD_VALUES_SPACE_PADDED,
+                context.sequence("update"));
+
+        Thread updateThread = new Thread(new Runnable() {
+            public void run() {
+                try {
+                    data.update(recNo, DataTestConstants.RECORD_VALUES, lockCookie);
+                    data.unlock(recNo, lockCookie);
+                } catch (RecordNotFoundException e) {
+                    fail(Thread.currentThread().getName() + ": " + e.getMessage());
+                }
+            }
+        });
+        updateThread.start();
+        joinThread(updateThread);
+        assertThat(data.isLocked(recNo), is(false));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldThrowExceptionWhenUpdatingWithWrongLockCookie() throws Exception {
+        standardSetup();
+        int recNo = 1;
+        long lockCookie = data.lockRecord(recNo);
+        data.update(recNo, DataTestConstants.RECORD_VALUES, lockCookie + 1);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldThrowExceptionWhenUpdatingRecordLockedWithCookieWithoutCookie()
+            throws Exception {
+        standardSetup();
+        int recNo = 1;
+        data.lockRecord(recNo);
+        data.update(recNo, DataTestConstants.RECORD_VALUES);
+    }
+
+    @Test
+    public void shouldWriteDatabaseFileOnlyAfterLogIsSynced() throws Exception {
+        final WriteAheadLog writeAheadLog = new WriteAheadLog(folder.newFile("test.db.wal"), 0,
+                TimeUnit.MILLISECONDS);
+        standardSetup(new DatabaseOptions(), writeAheadLog);
+        final List<Long> syncCounts = new ArrayList<Long>();
         context.checking(new Expectations() {
             {
-                for (int i = 0; i < DataTestConstants.EXPECTED_FIELD_DESCRIPTIONS.length; i++) {
-                    if (recordValues[i] != null) {
-                        one(mockDatabaseFile).seek(
-                                with(equal(recordValuesStartPos
-                                        + DataTestConstants.EXPECTED_FIELD_DESCRIPTIONS[i]
-                                        .getRecordOffset())));
-                        inSequence(sequence);
-
-                        one(mockDatabaseFile).write(
-                                with(equal(recordValues[i]
-                                        .getBytes(DatabaseConstants.CHARACTER_SET))));
-                        inSequence(sequence);
+                one(mockDatabaseFile).write(with(any(long.class)), with(any(byte[].class)),
+                        with(any(int.class)), with(any(int.class)));
+                will(new CustomAction("records the log sync count") {
+                    public Object invoke(Invocation invocation) throws Throwable {
+                        syncCounts.add(writeAheadLog.getSyncCount());
+                        return null;
                     }
+                });
+
+                // Closing the database syncs the file before checkpointing the log
+                one(mockDatabaseFile).sync();
+            }
+        });
+
+        int recNo = 1;
+        data.lock(recNo);
+        data.update(recNo, DataTestConstants.RECORD_VALUES);
+        assertThat(syncCounts, is(Arrays.asList(1L)));
+    }
+
+    @Test
+    public void shouldCheckpointLogWhenClosed() throws Exception {
+        File logFile = folder.newFile("test.db.wal");
+        standardSetup(new DatabaseOptions(),
+                new WriteAheadLog(logFile, 0, TimeUnit.MILLISECONDS));
+        final Sequence sequence = context.sequence("close");
+        context.checking(new Expectations() {
+            {
+                one(mockDatabaseFile).write(with(any(long.class)), with(any(byte[].class)),
+                        with(any(int.class)), with(any(int.class)));
+                inSequence(sequence);
+
+                one(mockDatabaseFile).sync();
+                inSequence(sequence);
+
+                one(mockDatabaseFile).close();
+                inSequence(sequence);
+            }
+        });
+
+        int recNo = 1;
+        data.lock(recNo);
+        data.update(recNo, DataTestConstants.RECORD_VALUES);
+        assertThat(logFile.length() > 0, is(true));
+
+        data.close();
+        data = null;
+        assertThat(logFile.length(), is(0L));
+    }
+
+    @Test
+    public void shouldNotWriteDatabaseFileIfLogSyncFails() throws Exception {
+        File logFile = folder.newFile("test.db.wal");
+        standardSetup(new DatabaseOptions(),
+                new WriteAheadLog(logFile, 0, TimeUnit.MILLISECONDS));
+        int recNo = 1;
+        data.lock(recNo);
+
+        // Interrupting the thread closes the log file when the update writes to it
+        Thread.currentThread().interrupt();
+        try {
+            data.update(recNo, DataTestConstants.RECORD_VALUES);
+            fail("Expected DataAccessException");
+        } catch (DataAccessException e) {
+            assertThat(e.getCause() instanceof IOException, is(true));
+        } finally {
+            Thread.interrupted();
+        }
+
+        // The mock database file expects no writes, and after a crash there is nothing to replay
+        WriteAheadLog reopenedLog = new WriteAheadLog(logFile, 0, TimeUnit.MILLISECONDS);
+        assertThat(reopenedLog.replay(mockDatabaseFile), is(0));
+
+        // The log cannot be checkpointed once writing it has failed, but the file is still closed
+        context.checking(new Expectations() {
+            {
+                one(mockDatabaseFile).close();
+            }
+        });
+        try {
+            data.close();
+            fail("Expected IOException");
+        } catch (IOException e) {
+            data = null;
+        }
+    }
+
+    @Test
+    public void shouldReadUpdatedValuesAfterUpdate() throws Exception {
+        standardSetup();
+        int recNo = 1;
+        data.lock(recNo);
+        String[] updatedRecordValues = DataTestConstants.RECORD_VALUES.clone();
+        updatedRecordValues[5] = "87654321";
+        checkingUpdateRecord(recNo, DataTestConstants.padRecord(updatedRecordValues, ' '),
+                context.sequence("update"));
+        data.update(recNo, updatedRecordValues);
+        assertRead(recNo, updatedRecordValues);
+    }
+
+    @Test
+    public void shouldChangeRecordVersionAfterUpdate() throws Exception {
+        standardSetup();
+        int recNo = 1;
+        long version = getVersion(recNo);
+        data.lock(recNo);
+        checkingUpdateRecord(recNo, DataTestConstants.RECORD_VALUES_SPACE_PADDED,
+                context.sequence("update"));
+        data.update(recNo, DataTestConstants.RECORD_VALUES);
+        assertThat(getVersion(recNo) == version, is(false));
+    }
+
+    @Test
+    public void shouldUpdateRecordIfVersionMatches() throws Exception {
+        standardSetup();
+        int recNo = 1;
+        checkingUpdateRecord(recNo, DataTestConstants.RECORD_VALUES_SPACE_PADDED,
+                context.sequence("update"));
+        assertThat(data.compareAndUpdate(recNo, getVersion(recNo),
+                DataTestConstants.RECORD_VALUES), is(true));
+        assertRead(recNo, DataTestConstants.RECORD_VALUES);
+    }
+
+    @Test
+    public void shouldNotUpdateRecordIfVersionDoesNotMatch() throws Exception {
+        standardSetup();
+        int recNo = 1;
+        long version = getVersion(recNo);
+        data.lock(recNo);
+        checkingUpdateRecord(recNo, DataTestConstants.RECORD_VALUES_SPACE_PADDED,
+                context.sequence("update"));
+        data.update(recNo, DataTestConstants.RECORD_VALUES);
+        data.unlock(recNo);
+        assertThat(data.compareAndUpdate(recNo, version, DataTestConstants.RECORD_VALUES),
+                is(false));
+    }
+
+    @Test
+    public void shouldNotUpdateRecordWithMatchingVersionIfLocked() throws Exception {
+        standardSetup();
+        int recNo = 1;
+        lockRecordOnAnotherThread(recNo);
+        assertThat(data.compareAndUpdate(recNo, getVersion(recNo),
+                DataTestConstants.RECORD_VALUES), is(false));
+    }
+
+    @Test(expected = RecordNotFoundException.class)
+    public void shouldThrowExceptionWhenComparingAndUpdatingDeletedRecord() throws Exception {
+        standardSetup();
+        data.compareAndUpdate(deletedRecNos.first(), DatabaseConstants.UNKNOWN_VERSION,
+                DataTestConstants.RECORD_VALUES);
+    }
+
+    private long getVersion(int recNo) {
+        for (DatabaseRecord record : data.findExact(new String[6])) {
+            if (record.getRecordNumber() == recNo) {
+                return record.getVersion();
+            }
+        }
+        throw new IllegalArgumentException("No record: " + recNo);
+    }
+
+    private void checkingUpdateRecord(int recNo, final String[] recordValues,
+                                      final Sequence sequence) throws Exception {
+        // The changed range runs from the first to the last non-null value, with the current
+        // values of any unchanged fields in between
+        int firstField = -1;
+        int lastField = -1;
+        for (int i = 0; i < recordValues.length; i++) {
+            if (recordValues[i] != null) {
+                if (firstField < 0) {
+                    firstField = i;
                 }
+                lastField = i;
+            }
+        }
+        StringBuilder rangeBuilder = new StringBuilder();
+        for (int i = firstField; i <= lastField; i++) {
+            rangeBuilder.append(recordValues[i] != null ? recordValues[i]
+                    : this.recordValues[recNo][i]);
+        }
+
+        final int rangeOffset = DatabaseConstants.RECORD_VALIDITY_FLAG_LENGTH
+                + DataTestConstants.EXPECTED_FIELD_DESCRIPTIONS[firstField].getRecordOffset();
+        final long rangeStartPos = getOffsetForRecord(recNo) + rangeOffset;
+        final byte[] rangeBytes = rangeBuilder.toString().getBytes(
+                DatabaseConstants.CHARACTER_SET);
+        context.checking(new Expectations() {
+            {
+                one(mockDatabaseFile).write(with(equal(rangeStartPos)),
+                        with(byteRange(rangeOffset, rangeBytes)), with(equal(rangeOffset)),
+                        with(equal(rangeBytes.length)));
+                inSequence(sequence);
             }
         });
     }
 
+    private static Matcher<byte[]> byteRange(final int offset, final byte[] expected) {
+        return new BaseMatcher<byte[]>() {
+            public boolean matches(Object item) {
+                if (!(item instanceof byte[])) {
+                    return false;
+                }
+                byte[] bytes = (byte[]) item;
+                return bytes.length >= offset + expected.length && Arrays.equals(expected,
+                        Arrays.copyOfRange(bytes, offset, offset + expected.length));
+            }
+
+            public void describeTo(Description description) {
+                description.appendText("bytes " + Arrays.toString(expected) + " at offset "
+                        + offset);
+            }
+        };
+    }
+
     @Test(expected = RecordNotFoundException.class)
     public void shouldThrowExceptionWhenDeleteCalledWithNegativeRecordNumber() throws Exception {
         standardSetup();
@@ -494,18 +794,31 @@ public class DataTest {
         checkingDeleteRecord(recNo, sequence);
         data.delete(recNo);
         data.isRecordDeleted(recNo);
+        assertThat(data.getModificationCount(), is(1L));
     }
 
     private void checkingDeleteRecord(int recNo, final Sequence sequence) throws Exception {
-        checkingSeek(getOffsetForRecord(recNo), sequence);
+        final long recordStartPos = getOffsetForRecord(recNo);
         context.checking(new Expectations() {
             {
-                one(mockDatabaseFile).writeByte(DatabaseConstants.DELETED_RECORD_FLAG);
+                one(mockDatabaseFile).write(with(equal(recordStartPos)),
+                        with(equal(new byte[]{DatabaseConstants.DELETED_RECORD_FLAG})),
+                        with(equal(0)), with(equal(DatabaseConstants.RECORD_VALIDITY_FLAG_LENGTH)));
                 inSequence(sequence);
             }
         });
     }
 
+    @Test
+    public void shouldDeleteRecordUsingLockCookie() throws Exception {
+        standardSetup();
+        int recNo = 1;
+        long lockCookie = data.lockRecord(recNo);
+        checkingDeleteRecord(recNo, context.sequence("delete"));
+        data.delete(recNo, lockCookie);
+        assertThat(data.getLockStatistics().getLockedRecordCount(), is(0));
+    }
+
     @Test(expected = IllegalStateException.class)
     public void shouldThrowExceptionWhenNotHoldingLockOnRecordToBeDeleted() throws Exception {
         standardSetup();
@@ -596,6 +909,8 @@ public class DataTest {
         checkingCreateRecord(recNoToWrite, DataTestConstants.RECORD_VALUES_SPACE_PADDED, sequence);
         assertThat(data.create(DataTestConstants.RECORD_VALUES), is(recNoToWrite));
         assertThat(data.getRecordCount(), is(recordCount + 1));
+        assertThat(data.getModificationCount(), is(1L));
+        assertRead(recNoToWrite, DataTestConstants.RECORD_VALUES);
     }
 
     @Test
@@ -607,26 +922,25 @@ public class DataTest {
         checkingCreateRecord(recNoToWrite, DataTestConstants.RECORD_VALUES_SPACE_PADDED, sequence);
         assertThat(data.create(DataTestConstants.RECORD_VALUES), is(recNoToWrite));
         assertThat(data.getRecordCount(), is(recordCount));
+        assertRead(recNoToWrite, DataTestConstants.RECORD_VALUES);
     }
 
     private void checkingCreateRecord(final int firstAvailableRecNo, final String[] recordValues,
                                       final Sequence sequence) throws Exception {
-        checkingSeek(getOffsetForRecord(firstAvailableRecNo), sequence);
+        final long recordStartPos = getOffsetForRecord(firstAvailableRecNo);
 
         final StringBuilder recordBuilder = new StringBuilder();
+        recordBuilder.append((char) DatabaseConstants.VALID_RECORD_FLAG);
         for (String recordValue : recordValues) {
             recordBuilder.append(recordValue);
         }
 
+        final byte[] recordBytes = recordBuilder.toString().getBytes(
+                DatabaseConstants.CHARACTER_SET);
         context.checking(new Expectations() {
             {
-                one(mockDatabaseFile).writeByte(
-                        with(equal((int) DatabaseConstants.VALID_RECORD_FLAG)));
-                inSequence(sequence);
-
-                one(mockDatabaseFile).write(
-                        with(equal(recordBuilder.toString().getBytes(
-                                DatabaseConstants.CHARACTER_SET))));
+                one(mockDatabaseFile).write(with(equal(recordStartPos)), with(equal(recordBytes)),
+                        with(equal(0)), with(equal(recordBytes.length)));
                 inSequence(sequence);
             }
         });
@@ -647,10 +961,9 @@ public class DataTest {
 
     @Test
     public void shouldFindContractors() throws Exception {
-        standardSetup();
         int[] matchingRecNos = {1, 2};
         String[] criteria = {"Buonarotti", null, "", null, null, "12345678"};
-        String[][] allRecordValues = {
+        recordValues = new String[][]{
                 DataTestConstants.padRecord(new String[]{"nm", "m", "", "m", "m", "12345678"},
                         ' '),
                 DataTestConstants.padRecord(new String[]{"Buonarotti", "m", "", "m", "m",
@@ -660,19 +973,19 @@ public class DataTest {
                 DataTestConstants.padRecord(new String[]{"Family of Buonarotti", "m", "", "m",
                         "m", "12345678"}, ' '),
                 DataTestConstants.padRecord(new String[]{"Buonarotti", "m", "", "m", "m", "nm"},
-                        ' ')};
-        Sequence sequence = context.sequence("find");
-        checkingFindRecords(allRecordValues, sequence);
+                        ' '),
+                DataTestConstants.padRecord(new String[]{"Buonarotti", "m", "", "m", "m",
+                        "12345678"}, ' ')};
+        standardSetup();
         int[] recNos = data.find(criteria);
         assertArrayEquals(matchingRecNos, recNos);
     }
 
     @Test
     public void shouldReturnAllRecordsWhenFindCalledWithAllCriteriaNull() throws Exception {
-        standardSetup();
         int[] matchingRecNos = {0, 1, 2, 3, 4};
         String[] criteria = {null, null, null, null, null, null};
-        String[][] allRecordValues = {
+        recordValues = new String[][]{
                 DataTestConstants.padRecord(new String[]{"nm", "m", "", "m", "m", "12345678"},
                         ' '),
                 DataTestConstants.padRecord(new String[]{"Buonarotti", "m", "", "m", "m",
@@ -682,35 +995,249 @@ public class DataTest {
                 DataTestConstants.padRecord(new String[]{"Family of Buonarotti", "m", "", "m",
                         "m", "12345678"}, ' '),
                 DataTestConstants.padRecord(new String[]{"Buonarotti", "m", "", "m", "m", "nm"},
-                        ' ')};
-        Sequence sequence = context.sequence("find");
-        checkingFindRecords(allRecordValues, sequence);
+                        ' '),
+                DataTestConstants.padRecord(new String[]{"Buonarotti", "m", "", "m", "m",
+                        "12345678"}, ' ')};
+        standardSetup();
         int[] recNos = data.find(criteria);
         assertArrayEquals(matchingRecNos, recNos);
     }
 
-    private void checkingFindRecords(final String[][] allRecordValues, final Sequence sequence)
+    @Test
+    public void shouldNotFindRecordsWhenCriteriaLongerThanField() throws Exception {
+        standardSetup();
+        String[] criteria = {DataTestConstants.RECORD_VALUES_SPACE_PADDED[0] + " ", null, null,
+                null, null, null};
+        assertArrayEquals(new int[0], data.find(criteria));
+    }
+
+    @Test
+    public void shouldNotFindRecordsWhenCriteriaContainsCharacterOutsideCharacterSet()
             throws Exception {
-        for (int recNo = 0; recNo < recordCount; recNo++) {
-            if (!deletedRecNos.contains(recNo)) {
-                final long recValuesStartPos = getOffsetForRecord(recNo)
-                        + DatabaseConstants.RECORD_VALIDITY_FLAG_LENGTH;
+        recordValues[0] = DataTestConstants.padRecord(new String[]{"?", "m", "", "m", "m",
+                "12345678"}, ' ');
+        standardSetup();
+        String[] criteria = {"\u20ac", null, null, null, null, null};
+        assertArrayEquals(new int[0], data.find(criteria));
+    }
 
-                final StringBuilder recordBuilder = new StringBuilder();
-                for (String element : allRecordValues[recNo]) {
-                    recordBuilder.append(element);
-                }
+    @Test
+    public void shouldFindRecordAfterUpdate() throws Exception {
+        standardSetup();
+        int recNo = 2;
+        String[] criteria = {null, null, null, null, null, "87654321"};
+        assertArrayEquals(new int[0], data.find(criteria));
 
-                context.checking(new Expectations() {
-                    {
-                        one(mockDatabaseFile).seek(recValuesStartPos);
-                        inSequence(sequence);
+        data.lock(recNo);
+        String[] updatedRecordValues = DataTestConstants.RECORD_VALUES.clone();
+        updatedRecordValues[5] = "87654321";
+        checkingUpdateRecord(recNo, DataTestConstants.padRecord(updatedRecordValues, ' '),
+                context.sequence("update"));
+        data.update(recNo, updatedRecordValues);
+        assertArrayEquals(new int[]{recNo}, data.find(criteria));
+    }
 
-                        one(mockDatabaseFile).readFully(with(any(byte[].class)));
-                        will(readBytes(recordBuilder.toString().getBytes()));
-                        inSequence(sequence);
-                    }
-                });
+    @Test
+    public void shouldFindRecordByIndexedFieldAfterUpdate() throws Exception {
+        standardSetup();
+        int recNo = 2;
+        String[] criteria = {"Michelangelo", null, null, null, null, null};
+        assertArrayEquals(new int[0], data.find(criteria));
+
+        data.lock(recNo);
+        String[] updatedRecordValues = DataTestConstants.RECORD_VALUES.clone();
+        updatedRecordValues[0] = "Michelangelo";
+        checkingUpdateRecord(recNo, DataTestConstants.padRecord(updatedRecordValues, ' '),
+                context.sequence("update"));
+        data.update(recNo, updatedRecordValues);
+        assertArrayEquals(new int[]{recNo}, data.find(criteria));
+
+        String[] oldCriteria = {DataTestConstants.RECORD_VALUES[0], null, null, null, null, null};
+        assertArrayEquals(new int[]{0, 1, 3, 4}, data.find(oldCriteria));
+    }
+
+    @Test
+    public void shouldNotFindRecordByIndexedFieldAfterDelete() throws Exception {
+        standardSetup();
+        int recNo = 1;
+        data.lock(recNo);
+        checkingDeleteRecord(recNo, context.sequence("delete"));
+        data.delete(recNo);
+
+        String[] criteria = {DataTestConstants.RECORD_VALUES[0], null, null, null, null, null};
+        assertArrayEquals(new int[]{0, 2, 3, 4}, data.find(criteria));
+    }
+
+    @Test
+    public void shouldFindRecordByIndexedFieldAfterCreate() throws Exception {
+        deletedRecNos.clear();
+        standardSetup();
+        String[] recordValues = DataTestConstants.RECORD_VALUES.clone();
+        recordValues[1] = "Metropolis";
+        checkingCreateRecord(recordCount, DataTestConstants.padRecord(recordValues, ' '),
+                context.sequence("create"));
+        data.create(recordValues);
+
+        String[] criteria = {null, "Metro", null, null, null, null};
+        assertArrayEquals(new int[]{recordCount}, data.find(criteria));
+    }
+
+    @Test
+    public void shouldFindContractorsWithoutIndexes() throws Exception {
+        Sequence sequence = context.sequence("construction");
+        checkingMagicCookieRead(DatabaseConstants.MAGIC_COOKIE, sequence);
+        checkingRecordLengthRead(DataTestConstants.EXPECTED_RECORD_LENGTH, sequence);
+        checkingFieldCount(DataTestConstants.EXPECTED_FIELD_COUNT, sequence);
+        checkingFieldDescriptions(DataTestConstants.EXPECTED_FIELD_DESCRIPTIONS, sequence);
+        checkingDataSectionOffset(sequence);
+        checkingRecordCount(sequence);
+        checkingLoadRecords(sequence);
+        data = new Data(mockDatabaseFile, new DatabaseOptions().setIndexedFields());
+
+        String[] criteria = {DataTestConstants.RECORD_VALUES[0], null, null, null, null, null};
+        assertArrayEquals(new int[]{0, 1, 2, 3, 4}, data.find(criteria));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldThrowExceptionWhenConstructedWithIndexedFieldNotInSchema() throws Exception {
+        data = new Data(mockDatabaseFile, new DatabaseOptions()
+                .setIndexedFields(DataTestConstants.EXPECTED_FIELD_COUNT));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldThrowExceptionWhenFindRecordsCalledWithNullCriteriaArray() throws Exception {
+        standardSetup();
+        data.findRecords(null);
+    }
+
+    @Test
+    public void shouldReturnRecordValuesWhenFindRecordsCalled() throws Exception {
+        setUpRecordsForFindExact();
+        standardSetup();
+        String[] criteria = {"Buonarotti", null, "", null, null, "12345678"};
+        assertRecords(new int[]{1, 2}, data.findRecords(criteria));
+    }
+
+    @Test
+    public void shouldReturnRecordValuesWhenFindRecordsCalledWithUnindexedCriteria()
+            throws Exception {
+        setUpRecordsForFindExact();
+        standardSetup();
+        String[] criteria = {null, null, "n", null, null, null};
+        assertRecords(new int[]{3}, data.findRecords(criteria));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldThrowExceptionWhenFindExactCalledWithNullCriteriaArray() throws Exception {
+        standardSetup();
+        data.findExact(null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldThrowExceptionWhenFindExactCalledWithInvalidCriteriaArrayLength()
+            throws Exception {
+        standardSetup();
+        data.findExact(new String[DataTestConstants.EXPECTED_FIELD_DESCRIPTIONS.length - 1]);
+    }
+
+    @Test
+    public void shouldOnlyReturnExactMatchesWhenFindExactCalledWithIndexedCriteria()
+            throws Exception {
+        setUpRecordsForFindExact();
+        standardSetup();
+        String[] criteria = {"Buonarotti", null, "", null, null, "12345678"};
+        assertRecords(new int[]{1}, data.findExact(criteria));
+    }
+
+    @Test
+    public void shouldOnlyReturnExactMatchesWhenFindExactCalledWithUnindexedCriteria()
+            throws Exception {
+        setUpRecordsForFindExact();
+        standardSetup();
+        String[] criteria = {null, null, "", null, null, "12345678"};
+        assertRecords(new int[]{0, 1, 2}, data.findExact(criteria));
+    }
+
+    @Test
+    public void shouldReturnAllRecordsWhenFindExactCalledWithAllCriteriaNull() throws Exception {
+        setUpRecordsForFindExact();
+        standardSetup();
+        assertRecords(new int[]{0, 1, 2, 3, 4}, data.findExact(new String[6]));
+    }
+
+    @Test
+    public void shouldReturnPagesOfExactMatchesWhenFindExactCalledWithUnindexedCriteria()
+            throws Exception {
+        setUpRecordsForFindExact();
+        standardSetup();
+        String[] criteria = {null, null, "", null, null, "12345678"};
+        assertRecords(new int[]{0, 1}, data.findExact(criteria, 0, 2));
+        assertRecords(new int[]{2}, data.findExact(criteria, 2, 2));
+        assertRecords(new int[0], data.findExact(criteria, 3, 2));
+    }
+
+    @Test
+    public void shouldReturnPagesOfExactMatchesWhenFindExactCalledWithIndexedCriteria()
+            throws Exception {
+        setUpRecordsForFindExact();
+        standardSetup();
+        String[] criteria = {"Buonarotti", null, null, null, null, null};
+        assertRecords(new int[]{1}, data.findExact(criteria, 0, 1));
+        assertRecords(new int[]{4}, data.findExact(criteria, 2, 5));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldThrowExceptionWhenFindExactCalledWithNegativeFromRecNo() throws Exception {
+        standardSetup();
+        data.findExact(new String[DataTestConstants.EXPECTED_FIELD_DESCRIPTIONS.length], -1, 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldThrowExceptionWhenFindExactCalledWithNoMaxRecords() throws Exception {
+        standardSetup();
+        data.findExact(new String[DataTestConstants.EXPECTED_FIELD_DESCRIPTIONS.length], 0, 0);
+    }
+
+    @Test
+    public void shouldFindExactRecordAfterUpdate() throws Exception {
+        standardSetup();
+        int recNo = 2;
+        String[] criteria = {"Michelangelo", null, null, null, null, null};
+        assertRecords(new int[0], data.findExact(criteria));
+
+        data.lock(recNo);
+        String[] updatedRecordValues = DataTestConstants.RECORD_VALUES.clone();
+        updatedRecordValues[0] = "Michelangelo";
+        checkingUpdateRecord(recNo, DataTestConstants.padRecord(updatedRecordValues, ' '),
+                context.sequence("update"));
+        data.update(recNo, updatedRecordValues);
+        recordValues[recNo] = DataTestConstants.padRecord(updatedRecordValues, ' ');
+        assertRecords(new int[]{recNo}, data.findExact(criteria));
+    }
+
+    private void setUpRecordsForFindExact() {
+        recordValues = new String[][]{
+                DataTestConstants.padRecord(new String[]{"nm", "m", "", "m", "m", "12345678"},
+                        ' '),
+                DataTestConstants.padRecord(new String[]{"Buonarotti", "m", "", "m", "m",
+                        "12345678"}, ' '),
+                DataTestConstants.padRecord(new String[]{"Buonarotti & Family", "m", "", "m",
+                        "m", "12345678"}, ' '),
+                DataTestConstants.padRecord(new String[]{"Family of Buonarotti", "m", "nm", "m",
+                        "m", "12345678"}, ' '),
+                DataTestConstants.padRecord(new String[]{"Buonarotti", "m", "", "m", "m",
+                        "1234567"}, ' '),
+                DataTestConstants.padRecord(new String[]{"Buonarotti", "m", "", "m", "m",
+                        "12345678"}, ' ')};
+    }
+
+    private void assertRecords(int[] expectedRecNos, List<DatabaseRecord> records) {
+        assertThat(records.size(), is(expectedRecNos.length));
+        for (int i = 0; i < expectedRecNos.length; i++) {
+            assertThat(records.get(i).getRecordNumber(), is(expectedRecNos[i]));
+            String[] values = records.get(i).getValues();
+            for (int j = 0; j < values.length; j++) {
+                assertThat(values[j], is(recordValues[expectedRecNos[i]][j].trim()));
             }
         }
     }
@@ -776,6 +1303,174 @@ public class DataTest {
         assertThat(data.isLocked(recNo), is(true));
     }
 
+    @Test
+    public void shouldTryLockUnlockedRecord() throws Exception {
+        standardSetup();
+        int recNo = 1;
+        assertThat(data.tryLock(recNo), is(true));
+        assertThat(data.isLocked(recNo), is(true));
+    }
+
+    @Test
+    public void shouldReturnFalseFromTryLockIfRecordLockedByAnotherThread() throws Exception {
+        standardSetup();
+        int recNo = 1;
+        lockRecordOnAnotherThread(recNo);
+        assertThat(data.tryLock(recNo), is(false));
+    }
+
+    @Test
+    public void shouldReturnFalseFromTimedLockIfTimeoutElapses() throws Exception {
+        standardSetup();
+        int recNo = 1;
+        lockRecordOnAnotherThread(recNo);
+        assertThat(data.lock(recNo, 100, TimeUnit.MILLISECONDS), is(false));
+    }
+
+    @Test
+    public void shouldLockRecordWithTimeout() throws Exception {
+        standardSetup();
+        int recNo = 1;
+        assertThat(data.lock(recNo, 100, TimeUnit.MILLISECONDS), is(true));
+        assertThat(data.isLocked(recNo), is(true));
+    }
+
+    @Test(expected = RecordNotFoundException.class)
+    public void shouldThrowExceptionWhenTryLockCalledForDeletedRecord() throws Exception {
+        standardSetup();
+        data.tryLock(deletedRecNos.first());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldThrowExceptionWhenTimedLockCalledWithNullUnit() throws Exception {
+        standardSetup();
+        data.lock(1, 100, null);
+    }
+
+    @Test
+    public void shouldIssueDifferentLockCookies() throws Exception {
+        standardSetup();
+        long firstCookie = data.lockRecord(1);
+        long secondCookie = data.lockRecord(2);
+        assertThat(firstCookie, is(not(DatabaseConstants.NO_LOCK_COOKIE)));
+        assertThat(secondCookie, is(not(firstCookie)));
+    }
+
+    @Test
+    public void shouldReturnNoLockCookieIfTryLockRecordTimesOut() throws Exception {
+        standardSetup();
+        int recNo = 1;
+        data.lockRecord(recNo);
+        assertThat(data.tryLockRecord(recNo, 100, TimeUnit.MILLISECONDS),
+                is(DatabaseConstants.NO_LOCK_COOKIE));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldThrowExceptionWhenUnlockingRecordLockedWithCookieWithoutCookie()
+            throws Exception {
+        standardSetup();
+        int recNo = 1;
+        data.lockRecord(recNo);
+        data.unlock(recNo);
+    }
+
+    @Test
+    public void shouldReleaseLockWhenLeaseExpires() throws Exception {
+        standardSetup(new DatabaseOptions().setLockLeaseTimeout(100));
+        int recNo = 1;
+        lockRecordOnAnotherThread(recNo);
+        assertThat(data.lock(recNo, 5, TimeUnit.SECONDS), is(true));
+        assertThat(data.getLockStatistics().getExpiredLeaseCount(), is(1L));
+        assertThat(data.getLockStatistics().getLockedRecordCount(), is(1));
+    }
+
+    @Test
+    public void shouldNotReleaseLockWhenLeasesDisabled() throws Exception {
+        standardSetup();
+        int recNo = 1;
+        lockRecordOnAnotherThread(recNo);
+        assertThat(data.lock(recNo, 200, TimeUnit.MILLISECONDS), is(false));
+        assertThat(data.getLockStatistics().getExpiredLeaseCount(), is(0L));
+    }
+
+    @Test
+    public void shouldNotUpdateRecordIfLeaseExpiresDuringUpdate() throws Exception {
+        standardSetup(new DatabaseOptions().setLockLeaseTimeout(100));
+        final CountDownLatch writeStarted = new CountDownLatch(1);
+        final CountDownLatch writeReleased = new CountDownLatch(1);
+        context.checking(new Expectations() {
+            {
+                one(mockDatabaseFile).write(with(any(long.class)), with(any(byte[].class)),
+                        with(any(int.class)), with(any(int.class)));
+                will(new CustomAction("waits to be released") {
+                    public Object invoke(Invocation invocation) throws Throwable {
+                        writeStarted.countDown();
+                        writeReleased.await();
+                        return null;
+                    }
+                });
+            }
+        });
+
+        // Hold the write lock with an update of another record
+        final long blockingCookie = data.lockRecord(2);
+        Thread blockingThread = new Thread(new Runnable() {
+            public void run() {
+                try {
+                    data.update(2, DataTestConstants.RECORD_VALUES, blockingCookie);
+                } catch (RecordNotFoundException e) {
+                    fail(Thread.currentThread().getName() + ": " + e.getMessage());
+                }
+            }
+        });
+        blockingThread.start();
+        writeStarted.await(1, TimeUnit.SECONDS);
+
+        // Start an update that waits for the write lock while its lease expires
+        final int recNo = 1;
+        final long staleCookie = data.lockRecord(recNo);
+        final AtomicBoolean rejected = new AtomicBoolean();
+        Thread staleThread = new Thread(new Runnable() {
+            public void run() {
+                try {
+                    data.update(recNo, DataTestConstants.RECORD_VALUES, staleCookie);
+                } catch (IllegalStateException e) {
+                    rejected.set(true);
+                } catch (RecordNotFoundException e) {
+                    fail(Thread.currentThread().getName() + ": " + e.getMessage());
+                }
+            }
+        });
+        staleThread.start();
+        while (staleThread.getState() != Thread.State.WAITING && staleThread.isAlive()) {
+            Thread.sleep(10);
+        }
+
+        long lockCookie = data.tryLockRecord(recNo, 5, TimeUnit.SECONDS);
+        assertThat(lockCookie == DatabaseConstants.NO_LOCK_COOKIE, is(false));
+        writeReleased.countDown();
+        joinThread(blockingThread);
+        joinThread(staleThread);
+        assertThat(rejected.get(), is(true));
+        assertThat(data.isLocked(recNo), is(true));
+        data.unlock(recNo, lockCookie);
+    }
+
+    private void lockRecordOnAnotherThread(final int recNo) throws InterruptedException {
+        Thread lockingThread = new Thread(new Runnable() {
+            public void run() {
+                try {
+                    data.lock(recNo);
+                } catch (RecordNotFoundException e) {
+                    fail("Unexpected RecordNotFoundException in thread: "
+                            + Thread.currentThread().getName());
+                }
+            }
+        });
+        lockingThread.start();
+        joinThread(lockingThread);
+    }
+
     @Test
     public void shouldBeAbleToLockDifferentRecordsConcurrently() throws Exception {
         standardSetup();
@@ -899,15 +1594,21 @@ public class DataTest {
     }
 
     private ReadBytesAction readBytes(byte[] bytes) {
-        return new ReadBytesAction(bytes);
+        return new ReadBytesAction(bytes, 0);
+    }
+
+    private ReadBytesAction readBytesAtPosition(byte[] bytes) {
+        return new ReadBytesAction(bytes, 1);
     }
 
     private static final class ReadBytesAction implements Action {
 
         private final byte[] bytes;
+        private final int targetParameterIndex;
 
-        public ReadBytesAction(byte[] bytes) {
+        public ReadBytesAction(byte[] bytes, int targetParameterIndex) {
             this.bytes = bytes;
+            this.targetParameterIndex = targetParameterIndex;
         }
 
         public void describeTo(Description description) {
@@ -916,7 +1617,7 @@ public class DataTest {
         }
 
         public Object invoke(Invocation invocation) throws Throwable {
-            byte[] target = (byte[]) invocation.getParameter(0);
+            byte[] target = (byte[]) invocation.getParameter(targetParameterIndex);
             for (int i = 0; i < bytes.length; i++) {
                 target[i] = bytes[i];
             }
@@ -0,0 +1,117 @@
+package suncertify.db;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import suncertify.db.DatabaseSchema.FieldDescription;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+
+public class DatabaseCompactorTest {
+
+    private static final String[] NAMES = {"Fred & Sons", "Buonarotti & Company", "Dogs With Tools",
+            "Moore Power Tool Ya"};
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File databaseFile;
+    private long headerLength;
+    private int recordLength;
+
+    @Before
+    public void setUp() throws Exception {
+        databaseFile = new File(folder.getRoot(), "test.db");
+        recordLength = DatabaseConstants.RECORD_VALIDITY_FLAG_LENGTH
+                + DataTestConstants.EXPECTED_RECORD_LENGTH;
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldThrowExceptionWhenConstructedWithNullFile() {
+        new DatabaseCompactor(null);
+    }
+
+    @Test
+    public void shouldRemoveDeletedRecords() throws Exception {
+        writeDatabaseFile(false, true, false, true);
+        assertThat(new DatabaseCompactor(databaseFile).compact(null), is(2));
+        assertThat(databaseFile.length(), is(headerLength + 2 * recordLength));
+        assertFalse(new File(databaseFile.getPath() + DatabaseCompactor.FILE_SUFFIX).exists());
+
+        Data data = new Data(new DatabaseFileImpl(databaseFile.getPath()),
+                new DatabaseOptions());
+        assertThat(data.getRecordCount(), is(2));
+        assertThat(data.read(0)[0].trim(), is(NAMES[0]));
+        assertThat(data.read(1)[0].trim(), is(NAMES[2]));
+    }
+
+    @Test
+    public void shouldNotRewriteFileWithoutDeletedRecords() throws Exception {
+        writeDatabaseFile(false, false);
+        byte[] contents = readDatabaseFile();
+        assertThat(new DatabaseCompactor(databaseFile).compact(null), is(0));
+        assertArrayEquals(contents, readDatabaseFile());
+        assertFalse(new File(databaseFile.getPath() + DatabaseCompactor.FILE_SUFFIX).exists());
+    }
+
+    @Test
+    public void shouldReplayLogBeforeCompacting() throws Exception {
+        writeDatabaseFile(false, false, false);
+        File logFile = new File(databaseFile.getPath() + WriteAheadLog.FILE_SUFFIX);
+        WriteAheadLog log = new WriteAheadLog(logFile, 0, TimeUnit.MILLISECONDS);
+        log.awaitDurable(log.append(headerLength + recordLength,
+                new byte[]{DatabaseConstants.DELETED_RECORD_FLAG}));
+
+        WriteAheadLog reopenedLog = new WriteAheadLog(logFile, 0, TimeUnit.MILLISECONDS);
+        assertThat(new DatabaseCompactor(databaseFile).compact(reopenedLog), is(1));
+        assertThat(databaseFile.length(), is(headerLength + 2 * recordLength));
+        assertThat(logFile.length(), is(0L));
+    }
+
+    private void writeDatabaseFile(boolean... deleted) throws Exception {
+        DataOutputStream out = new DataOutputStream(new FileOutputStream(databaseFile));
+        try {
+            out.writeInt(DatabaseConstants.MAGIC_COOKIE);
+            out.writeInt(DataTestConstants.EXPECTED_RECORD_LENGTH);
+            out.writeShort(DataTestConstants.EXPECTED_FIELD_COUNT);
+            for (FieldDescription fieldDescription : DataTestConstants.EXPECTED_FIELD_DESCRIPTIONS) {
+                out.writeShort(fieldDescription.getName().length());
+                out.write(fieldDescription.getName().getBytes(DatabaseConstants.CHARACTER_SET));
+                out.writeShort(fieldDescription.getLength());
+            }
+            headerLength = out.size();
+
+            for (int i = 0; i < deleted.length; i++) {
+                out.writeByte(deleted[i] ? DatabaseConstants.DELETED_RECORD_FLAG
+                        : DatabaseConstants.VALID_RECORD_FLAG);
+                String[] values = DataTestConstants.RECORD_VALUES.clone();
+                values[0] = NAMES[i];
+                for (String value : DataTestConstants.padRecord(values, ' ')) {
+                    out.write(value.getBytes(DatabaseConstants.CHARACTER_SET));
+                }
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    private byte[] readDatabaseFile() throws Exception {
+        DatabaseFileImpl file = new DatabaseFileImpl(databaseFile.getPath());
+        try {
+            byte[] bytes = new byte[(int) file.length()];
+            file.readFully(0, bytes);
+            return bytes;
+        } finally {
+            file.close();
+        }
+    }
+}
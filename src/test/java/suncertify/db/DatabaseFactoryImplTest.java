@@ -0,0 +1,107 @@
+package suncertify.db;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import suncertify.db.DatabaseSchema.FieldDescription;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+
+public class DatabaseFactoryImplTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File databaseFile;
+    private File logFile;
+    private long headerLength;
+    private int recordLength;
+
+    @Before
+    public void setUp() throws Exception {
+        databaseFile = new File(folder.getRoot(), "test.db");
+        logFile = new File(databaseFile.getPath() + WriteAheadLog.FILE_SUFFIX);
+        recordLength = DatabaseConstants.RECORD_VALIDITY_FLAG_LENGTH
+                + DataTestConstants.EXPECTED_RECORD_LENGTH;
+        writeDatabaseFile(2);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldThrowExceptionWhenCreatingWithNullPath() throws Exception {
+        new DatabaseFactoryImpl().createDatabase(null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldThrowExceptionWhenCreatingWithNullOptions() throws Exception {
+        new DatabaseFactoryImpl().createDatabase(databaseFile.getPath(), null);
+    }
+
+    @Test
+    public void shouldReplayLogWhenOpenedWithoutGroupSyncAfterCrash() throws Exception {
+        for (DurabilityPolicy policy : new DurabilityPolicy[]{DurabilityPolicy.NONE,
+                DurabilityPolicy.SYNC_PER_WRITE, DurabilityPolicy.PERIODIC_SYNC}) {
+            writeDatabaseFile(2);
+            deleteRecordInLog(1);
+
+            Database database = new DatabaseFactoryImpl().createDatabase(databaseFile.getPath(),
+                    new DatabaseOptions().setDurabilityPolicy(policy));
+            assertThat(database.findExact(new String[DataTestConstants.EXPECTED_FIELD_COUNT])
+                    .size(), is(1));
+            assertFalse(logFile.exists());
+        }
+    }
+
+    @Test
+    public void shouldReplayLogWhenOpenedWithGroupSyncAfterCrash() throws Exception {
+        deleteRecordInLog(1);
+
+        Database database = new DatabaseFactoryImpl().createDatabase(databaseFile.getPath(),
+                new DatabaseOptions().setDurabilityPolicy(DurabilityPolicy.GROUP_SYNC));
+        assertThat(database.findExact(new String[DataTestConstants.EXPECTED_FIELD_COUNT]).size(),
+                is(1));
+        assertThat(logFile.length(), is(0L));
+    }
+
+    // Leaves a durable log entry deleting the record, as if the database crashed before the file
+    private void deleteRecordInLog(int recNo) throws Exception {
+        WriteAheadLog log = new WriteAheadLog(logFile, 0, TimeUnit.MILLISECONDS);
+        try {
+            log.awaitDurable(log.append(headerLength + recNo * recordLength,
+                    new byte[]{DatabaseConstants.DELETED_RECORD_FLAG}));
+        } finally {
+            log.close();
+        }
+    }
+
+    private void writeDatabaseFile(int recordCount) throws Exception {
+        DataOutputStream out = new DataOutputStream(new FileOutputStream(databaseFile));
+        try {
+            out.writeInt(DatabaseConstants.MAGIC_COOKIE);
+            out.writeInt(DataTestConstants.EXPECTED_RECORD_LENGTH);
+            out.writeShort(DataTestConstants.EXPECTED_FIELD_COUNT);
+            for (FieldDescription fieldDescription : DataTestConstants.EXPECTED_FIELD_DESCRIPTIONS) {
+                out.writeShort(fieldDescription.getName().length());
+                out.write(fieldDescription.getName().getBytes(DatabaseConstants.CHARACTER_SET));
+                out.writeShort(fieldDescription.getLength());
+            }
+            headerLength = out.size();
+
+            for (int i = 0; i < recordCount; i++) {
+                out.writeByte(DatabaseConstants.VALID_RECORD_FLAG);
+                for (String value : DataTestConstants.RECORD_VALUES_SPACE_PADDED) {
+                    out.write(value.getBytes(DatabaseConstants.CHARACTER_SET));
+                }
+            }
+        } finally {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package suncertify.db;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class DeletedRecordSetTest {
+
+    private DeletedRecordSet deletedRecords;
+
+    @Before
+    public void setUp() {
+        deletedRecords = new DeletedRecordSet(100);
+    }
+
+    @Test
+    public void shouldBeEmptyWhenCreated() {
+        assertThat(deletedRecords.size(), is(0));
+        assertThat(deletedRecords.first(), is(-1));
+        assertThat(deletedRecords.contains(0), is(false));
+    }
+
+    @Test
+    public void shouldContainAddedRecords() {
+        deletedRecords.add(3);
+        deletedRecords.add(64);
+        assertThat(deletedRecords.contains(3), is(true));
+        assertThat(deletedRecords.contains(64), is(true));
+        assertThat(deletedRecords.contains(4), is(false));
+        assertThat(deletedRecords.size(), is(2));
+    }
+
+    @Test
+    public void shouldNotCountRecordAddedTwice() {
+        deletedRecords.add(3);
+        deletedRecords.add(3);
+        assertThat(deletedRecords.size(), is(1));
+    }
+
+    @Test
+    public void shouldNotContainRemovedRecords() {
+        deletedRecords.add(3);
+        deletedRecords.remove(3);
+        deletedRecords.remove(4);
+        assertThat(deletedRecords.contains(3), is(false));
+        assertThat(deletedRecords.size(), is(0));
+    }
+
+    @Test
+    public void shouldReturnLowestDeletedRecord() {
+        deletedRecords.add(99);
+        deletedRecords.add(70);
+        assertThat(deletedRecords.first(), is(70));
+        deletedRecords.remove(70);
+        assertThat(deletedRecords.first(), is(99));
+    }
+
+    @Test
+    public void shouldGrowWhenRecordAddedBeyondCapacity() {
+        deletedRecords.add(5);
+        deletedRecords.add(1000);
+        assertThat(deletedRecords.contains(5), is(true));
+        assertThat(deletedRecords.contains(1000), is(true));
+        assertThat(deletedRecords.first(), is(5));
+    }
+
+    @Test
+    public void shouldNotContainRecordsBeyondCapacityOrNegativeRecords() {
+        deletedRecords.add(63);
+        assertThat(deletedRecords.contains(100000), is(false));
+        assertThat(deletedRecords.contains(-1), is(false));
+    }
+}
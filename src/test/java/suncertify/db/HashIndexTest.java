@@ -0,0 +1,43 @@
+package suncertify.db;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+
+public class HashIndexTest {
+
+    private HashIndex index;
+
+    @Before
+    public void setUp() {
+        index = new HashIndex();
+        index.add("Buonarotti & Company", 4);
+        index.add("Buonarotti", 1);
+        index.add("Buonarotti", 0);
+        index.add("", 3);
+    }
+
+    @Test
+    public void shouldFindRecordsWithEqualValueInRecordNumberOrder() {
+        assertArrayEquals(new int[]{0, 1}, index.find("Buonarotti"));
+    }
+
+    @Test
+    public void shouldNotFindRecordsBeginningWithValue() {
+        assertArrayEquals(new int[0], index.find("Buon"));
+    }
+
+    @Test
+    public void shouldFindRecordsWithEmptyValue() {
+        assertArrayEquals(new int[]{3}, index.find(""));
+    }
+
+    @Test
+    public void shouldNotFindRemovedRecords() {
+        index.remove("Buonarotti", 0);
+        index.remove("Buonarotti & Company", 4);
+        assertArrayEquals(new int[]{1}, index.find("Buonarotti"));
+        assertArrayEquals(new int[0], index.find("Buonarotti & Company"));
+    }
+}
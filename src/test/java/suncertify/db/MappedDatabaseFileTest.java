@@ -0,0 +1,138 @@
+package suncertify.db;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.RandomAccessFile;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertThat;
+
+public class MappedDatabaseFileTest {
+
+    private static final byte[] FILE_CONTENTS = {0, 0, 2, 1, 0, 6, 'a', 'b', 'c', 'd'};
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File file;
+
+    @Before
+    public void setUp() throws Exception {
+        file = folder.newFile("test.db");
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            raf.write(FILE_CONTENTS);
+        } finally {
+            raf.close();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldThrowExceptionWhenConstructedWithNullPath() throws Exception {
+        new MappedDatabaseFile(null);
+    }
+
+    @Test(expected = FileNotFoundException.class)
+    public void shouldThrowExceptionWhenFileDoesNotExist() throws Exception {
+        new MappedDatabaseFile(new File(folder.getRoot(), "missing.db").getPath());
+    }
+
+    @Test
+    public void shouldReadValuesFromMappedFile() throws Exception {
+        MappedDatabaseFile mappedFile = new MappedDatabaseFile(file.getPath());
+        assertThat(mappedFile.length(), is((long) FILE_CONTENTS.length));
+        assertThat(mappedFile.readInt(), is(513));
+        assertThat(mappedFile.readShort(), is((short) 6));
+        assertThat(mappedFile.getFilePointer(), is(6L));
+
+        byte[] bytes = new byte[3];
+        mappedFile.readFully(bytes);
+        assertArrayEquals(new byte[]{'a', 'b', 'c'}, bytes);
+        assertThat(mappedFile.readByte(), is((byte) 'd'));
+    }
+
+    @Test(expected = EOFException.class)
+    public void shouldThrowExceptionWhenReadingPastEndOfFile() throws Exception {
+        MappedDatabaseFile mappedFile = new MappedDatabaseFile(file.getPath());
+        mappedFile.seek(FILE_CONTENTS.length - 1);
+        mappedFile.readShort();
+    }
+
+    @Test
+    public void shouldOverwriteWithinMappedRegion() throws Exception {
+        MappedDatabaseFile mappedFile = new MappedDatabaseFile(file.getPath());
+        mappedFile.seek(6);
+        mappedFile.write(new byte[]{'x', 'y'});
+        mappedFile.writeByte('z');
+        assertThat(mappedFile.length(), is((long) FILE_CONTENTS.length));
+
+        mappedFile.seek(6);
+        byte[] bytes = new byte[4];
+        mappedFile.readFully(bytes);
+        assertArrayEquals(new byte[]{'x', 'y', 'z', 'd'}, bytes);
+    }
+
+    @Test
+    public void shouldGrowFileWhenWritingPastEndOfMappedRegion() throws Exception {
+        MappedDatabaseFile mappedFile = new MappedDatabaseFile(file.getPath());
+        mappedFile.seek(FILE_CONTENTS.length);
+        mappedFile.writeByte(1);
+        mappedFile.write(new byte[]{'e', 'f'});
+        assertThat(mappedFile.length(), is(FILE_CONTENTS.length + 3L));
+
+        mappedFile.seek(FILE_CONTENTS.length);
+        byte[] bytes = new byte[3];
+        mappedFile.readFully(bytes);
+        assertArrayEquals(new byte[]{1, 'e', 'f'}, bytes);
+    }
+
+    @Test
+    public void shouldTruncateUnusedCapacityWhenClosed() throws Exception {
+        MappedDatabaseFile mappedFile = new MappedDatabaseFile(file.getPath());
+        mappedFile.write(FILE_CONTENTS.length, new byte[]{'e'});
+        mappedFile.write(FILE_CONTENTS.length + 1, new byte[]{'f'});
+        assertThat(file.length() > FILE_CONTENTS.length + 2L, is(true));
+
+        mappedFile.close();
+        assertThat(file.length(), is(FILE_CONTENTS.length + 2L));
+        MappedDatabaseFile reopenedFile = new MappedDatabaseFile(file.getPath());
+        byte[] bytes = new byte[2];
+        reopenedFile.readFully(FILE_CONTENTS.length, bytes);
+        assertArrayEquals(new byte[]{'e', 'f'}, bytes);
+        reopenedFile.close();
+    }
+
+    @Test
+    public void shouldReadAtPositionWithoutMovingFilePointer() throws Exception {
+        MappedDatabaseFile mappedFile = new MappedDatabaseFile(file.getPath());
+        byte[] bytes = new byte[2];
+        mappedFile.readFully(7, bytes);
+        assertArrayEquals(new byte[]{'b', 'c'}, bytes);
+        assertThat(mappedFile.getFilePointer(), is(0L));
+    }
+
+    @Test(expected = EOFException.class)
+    public void shouldThrowExceptionWhenReadingAtPositionPastEndOfFile() throws Exception {
+        MappedDatabaseFile mappedFile = new MappedDatabaseFile(file.getPath());
+        mappedFile.readFully(FILE_CONTENTS.length - 1, new byte[2]);
+    }
+
+    @Test
+    public void shouldGrowFileWhenWritingAtPositionPastEndOfMappedRegion() throws Exception {
+        MappedDatabaseFile mappedFile = new MappedDatabaseFile(file.getPath());
+        mappedFile.write(FILE_CONTENTS.length, new byte[]{'e', 'f'});
+        assertThat(mappedFile.length(), is(FILE_CONTENTS.length + 2L));
+        assertThat(mappedFile.getFilePointer(), is(0L));
+
+        byte[] bytes = new byte[3];
+        mappedFile.readFully(FILE_CONTENTS.length - 1, bytes);
+        assertArrayEquals(new byte[]{'d', 'e', 'f'}, bytes);
+    }
+}
@@ -0,0 +1,55 @@
+package suncertify.db;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+
+public class PrefixIndexTest {
+
+    private PrefixIndex index;
+
+    @Before
+    public void setUp() {
+        index = new PrefixIndex();
+        index.add("Buonarotti & Company  ", 4);
+        index.add("Buonarotti            ", 1);
+        index.add("Bitter Homes          ", 2);
+        index.add("Buonarotti            ", 0);
+        index.add("Dogs With Tools       ", 3);
+    }
+
+    @Test
+    public void shouldFindRecordsBeginningWithPrefixInRecordNumberOrder() {
+        assertArrayEquals(new int[]{0, 1, 4}, index.find("Buon"));
+    }
+
+    @Test
+    public void shouldFindAllRecordsWithEmptyPrefix() {
+        assertArrayEquals(new int[]{0, 1, 2, 3, 4}, index.find(""));
+    }
+
+    @Test
+    public void shouldFindNoRecordsWhenPrefixDoesNotMatch() {
+        assertArrayEquals(new int[0], index.find("Buonarotti!"));
+    }
+
+    @Test
+    public void shouldMatchPaddingInPrefix() {
+        assertArrayEquals(new int[]{0, 1}, index.find("Buonarotti  "));
+    }
+
+    @Test
+    public void shouldFindPrefixContainingHighestCharacterInCharacterSet() {
+        index.add("\u00ff\u00ff  ", 5);
+        assertArrayEquals(new int[]{5}, index.find("\u00ff"));
+    }
+
+    @Test
+    public void shouldNotFindRemovedRecords() {
+        index.remove("Buonarotti            ", 1);
+        index.remove("Bitter Homes          ", 2);
+        assertArrayEquals(new int[]{0, 4}, index.find("Buon"));
+        assertArrayEquals(new int[0], index.find("Bi"));
+    }
+}
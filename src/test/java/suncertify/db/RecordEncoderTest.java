@@ -0,0 +1,94 @@
+package suncertify.db;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertThat;
+
+public class RecordEncoderTest {
+
+    private RecordEncoder encoder;
+    private ColumnStore columnStore;
+
+    @Before
+    public void setUp() {
+        DatabaseSchema databaseSchema = new DatabaseSchema();
+        encoder = new RecordEncoder(databaseSchema);
+        columnStore = new ColumnStore(databaseSchema, 1, 0);
+        byte[] record = encoder.encodeRecord(DataTestConstants.RECORD_VALUES);
+        columnStore.putRecord(0, record, DatabaseConstants.RECORD_VALIDITY_FLAG_LENGTH);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldThrowExceptionWhenConstructedWithNullSchema() {
+        new RecordEncoder(null);
+    }
+
+    @Test
+    public void shouldEncodeValidSpacePaddedRecord() throws Exception {
+        byte[] record = encoder.encodeRecord(DataTestConstants.RECORD_VALUES);
+        StringBuilder expected = new StringBuilder();
+        expected.append((char) DatabaseConstants.VALID_RECORD_FLAG);
+        for (String value : DataTestConstants.RECORD_VALUES_SPACE_PADDED) {
+            expected.append(value);
+        }
+        assertArrayEquals(expected.toString().getBytes(DatabaseConstants.CHARACTER_SET), record);
+    }
+
+    @Test
+    public void shouldTruncateTooLongValue() throws Exception {
+        String[] values = DataTestConstants.RECORD_VALUES.clone();
+        values[3] = "12345678";
+        encoder.encodeRecord(values);
+        assertThat(getField(3), is("123456"));
+    }
+
+    @Test
+    public void shouldEncodeUnmappableCharacterAsQuestionMark() throws Exception {
+        String[] values = DataTestConstants.RECORD_VALUES.clone();
+        values[3] = "\u20AC1";
+        encoder.encodeRecord(values);
+        assertThat(getField(3), is("?1    "));
+    }
+
+    @Test
+    public void shouldEncodeRangeFromFirstToLastChangedField() {
+        String[] values = new String[DataTestConstants.EXPECTED_FIELD_COUNT];
+        values[1] = "Metropolis";
+        values[3] = "10";
+        assertThat(encoder.encodeFields(0, values, columnStore), is(true));
+        assertThat(encoder.getRangeOffset(), is(encoder.getFieldOffset(1)));
+        assertThat(encoder.getRangeLength(), is(encoder.getFieldOffset(4)
+                - encoder.getFieldOffset(1)));
+    }
+
+    @Test
+    public void shouldCopyUnchangedFieldsInRangeFromColumnStore() throws Exception {
+        String[] values = new String[DataTestConstants.EXPECTED_FIELD_COUNT];
+        values[1] = "Metropolis";
+        values[3] = "10";
+        encoder.encodeFields(0, values, columnStore);
+        assertThat(getField(1), is(DataTestConstants.padField("Metropolis",
+                DataTestConstants.EXPECTED_FIELD_DESCRIPTIONS[1].getLength(), ' ')));
+        assertThat(getField(2), is(DataTestConstants.RECORD_VALUES_SPACE_PADDED[2]));
+        assertThat(getField(3), is("10    "));
+    }
+
+    @Test
+    public void shouldNotEncodeRangeWhenAllValuesAreNull() {
+        String[] values = new String[DataTestConstants.EXPECTED_FIELD_COUNT];
+        assertThat(encoder.encodeFields(0, values, columnStore), is(false));
+        assertThat(encoder.getRangeLength(), is(0));
+    }
+
+    private String getField(int fieldIndex) throws Exception {
+        int offset = encoder.getFieldOffset(fieldIndex);
+        byte[] field = Arrays.copyOfRange(encoder.getBuffer(), offset,
+                offset + DataTestConstants.EXPECTED_FIELD_DESCRIPTIONS[fieldIndex].getLength());
+        return new String(field, DatabaseConstants.CHARACTER_SET);
+    }
+}
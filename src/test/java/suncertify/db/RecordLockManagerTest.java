@@ -0,0 +1,424 @@
+package suncertify.db;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class RecordLockManagerTest {
+
+    private RecordLockManager lockManager;
+
+    @Before
+    public void setUp() {
+        lockManager = new RecordLockManager(4);
+    }
+
+    @After
+    public void tearDown() {
+        lockManager.close();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldThrowExceptionWhenConstructedWithZeroStripes() {
+        new RecordLockManager(0);
+    }
+
+    @Test
+    public void shouldLockAndUnlockRecord() throws Exception {
+        lockManager.lock(1);
+        assertThat(lockManager.isLocked(1), is(true));
+        assertThat(lockManager.isHeldByCurrentThread(1), is(true));
+
+        lockManager.unlock(1);
+        assertThat(lockManager.isLocked(1), is(false));
+        assertThat(lockManager.isHeldByCurrentThread(1), is(false));
+    }
+
+    @Test(expected = IllegalMonitorStateException.class)
+    public void shouldNotUnlockRecordHeldByAnotherOwner() throws Exception {
+        lockManager.lock(1, lockManager.newCookie());
+        lockManager.unlock(1);
+    }
+
+    @Test
+    public void shouldNotUnlockRecordAfterLeaseExpiredAndLockTakenByAnotherOwner()
+            throws Exception {
+        lockManager = new RecordLockManager(4, false, 50, TimeUnit.MILLISECONDS);
+        Long staleCookie = lockManager.newCookie();
+        lockManager.lock(1, staleCookie);
+        Long cookie = lockManager.newCookie();
+        assertThat(lockManager.tryLock(1, cookie, 5, TimeUnit.SECONDS), is(true));
+
+        try {
+            lockManager.unlock(1, staleCookie);
+            fail("Expected IllegalMonitorStateException");
+        } catch (IllegalMonitorStateException e) {
+            // Expected
+        }
+        assertThat(lockManager.isHeldBy(1, cookie), is(true));
+    }
+
+    @Test
+    public void shouldNotHoldStateForUnlockedRecords() throws Exception {
+        for (int recNo = 0; recNo < 100; recNo++) {
+            lockManager.lock(recNo);
+            lockManager.unlock(recNo);
+        }
+        assertThat(lockManager.getActiveRecordCount(), is(0));
+    }
+
+    @Test
+    public void shouldLockDifferentRecordsInSameStripeConcurrently() throws Exception {
+        lockManager.lock(1);
+        Thread thread = new Thread(new Runnable() {
+            public void run() {
+                try {
+                    lockManager.lock(5);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        thread.start();
+        thread.join(1000);
+        assertThat(thread.isAlive(), is(false));
+        assertThat(lockManager.isLocked(5), is(true));
+        assertThat(lockManager.isHeldByCurrentThread(5), is(false));
+    }
+
+    @Test
+    public void shouldBlockUntilRecordUnlocked() throws Exception {
+        lockManager.lock(1);
+        final CountDownLatch started = new CountDownLatch(1);
+        final AtomicBoolean acquired = new AtomicBoolean();
+        Thread thread = new Thread(new Runnable() {
+            public void run() {
+                try {
+                    started.countDown();
+                    lockManager.lock(1);
+                    acquired.set(lockManager.isHeldByCurrentThread(1));
+                    lockManager.unlock(1);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        thread.start();
+        started.await(1, TimeUnit.SECONDS);
+        Thread.sleep(200);
+        assertThat(thread.isAlive(), is(true));
+
+        lockManager.unlock(1);
+        thread.join(1000);
+        assertThat(thread.isAlive(), is(false));
+        assertThat(acquired.get(), is(true));
+        assertThat(lockManager.getActiveRecordCount(), is(0));
+    }
+
+    @Test
+    public void shouldRemoveStateWhenWaitingThreadInterrupted() throws Exception {
+        lockManager.lock(1);
+        final AtomicBoolean interrupted = new AtomicBoolean();
+        Thread thread = new Thread(new Runnable() {
+            public void run() {
+                try {
+                    lockManager.lock(1);
+                } catch (InterruptedException e) {
+                    interrupted.set(true);
+                }
+            }
+        });
+        thread.start();
+        Thread.sleep(200);
+        thread.interrupt();
+        thread.join(1000);
+        assertThat(interrupted.get(), is(true));
+
+        lockManager.unlock(1);
+        assertThat(lockManager.getActiveRecordCount(), is(0));
+    }
+
+    @Test
+    public void shouldTryLockUnlockedRecord() throws Exception {
+        assertThat(lockManager.tryLock(1, 0, TimeUnit.MILLISECONDS), is(true));
+        assertThat(lockManager.isHeldByCurrentThread(1), is(true));
+    }
+
+    @Test
+    public void shouldTimeOutWaitingForRecordLockedByAnotherThread() throws Exception {
+        lockOnAnotherThread(1);
+        assertThat(lockManager.tryLock(1, 0, TimeUnit.MILLISECONDS), is(false));
+        assertThat(lockManager.tryLock(1, 100, TimeUnit.MILLISECONDS), is(false));
+        assertThat(lockManager.isHeldByCurrentThread(1), is(false));
+        assertThat(lockManager.getActiveRecordCount(), is(1));
+    }
+
+    @Test
+    public void shouldAcquireLockIfUnlockedBeforeTimeout() throws Exception {
+        final Thread owner = lockOnAnotherThread(1);
+        Thread thread = new Thread(new Runnable() {
+            public void run() {
+                try {
+                    Thread.sleep(100);
+                    lockManager.unlock(1, owner);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        thread.start();
+
+        assertThat(lockManager.tryLock(1, 5, TimeUnit.SECONDS), is(true));
+        assertThat(lockManager.isHeldByCurrentThread(1), is(true));
+        thread.join(1000);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldThrowExceptionWhenConstructedWithNegativeLeaseTimeout() {
+        new RecordLockManager(4, false, -1, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void shouldNotReapLocksWhenLeasesDisabled() throws Exception {
+        lockManager.lock(1);
+        assertThat(lockManager.reapExpiredLeases(), is(0));
+        assertThat(lockManager.isHeldByCurrentThread(1), is(true));
+    }
+
+    @Test
+    public void shouldNotReapLeaseBeforeItExpires() throws Exception {
+        lockManager = new RecordLockManager(4, false, 1, TimeUnit.HOURS);
+        lockOnAnotherThread(1);
+        final AtomicBoolean acquired = new AtomicBoolean();
+        Thread thread = new Thread(new Runnable() {
+            public void run() {
+                try {
+                    lockManager.lock(1);
+                    acquired.set(true);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        thread.start();
+        Thread.sleep(200);
+        assertThat(lockManager.getStatistics().getWaitingThreadCount(), is(1));
+
+        // Leases last an hour, so nothing has expired yet
+        assertThat(lockManager.reapExpiredLeases(), is(0));
+        assertThat(thread.isAlive(), is(true));
+        thread.interrupt();
+        thread.join(1000);
+        assertThat(acquired.get(), is(false));
+    }
+
+    @Test
+    public void shouldReleaseExpiredLeaseInBackground() throws Exception {
+        lockManager = new RecordLockManager(4, false, 50, TimeUnit.MILLISECONDS);
+        lockOnAnotherThread(1);
+        assertThat(lockManager.tryLock(1, 5, TimeUnit.SECONDS), is(true));
+        assertThat(lockManager.isHeldByCurrentThread(1), is(true));
+
+        LockStatistics statistics = lockManager.getStatistics();
+        assertThat(statistics.getExpiredLeaseCount(), is(1L));
+        assertThat(statistics.getLockedRecordCount(), is(1));
+        assertThat(statistics.getWaitingThreadCount(), is(0));
+    }
+
+    @Test
+    public void shouldNotReleaseExpiredLeaseInBackgroundWhenClosed() throws Exception {
+        lockManager = new RecordLockManager(4, false, 50, TimeUnit.MILLISECONDS);
+        lockManager.close();
+        lockOnAnotherThread(1);
+        assertThat(lockManager.tryLock(1, 200, TimeUnit.MILLISECONDS), is(false));
+        assertThat(lockManager.getStatistics().getExpiredLeaseCount(), is(0L));
+    }
+
+    @Test
+    public void shouldLockRecordWithCookieIndependentlyOfThread() throws Exception {
+        final Long cookie = lockManager.newCookie();
+        lockManager.lock(1, cookie);
+        assertThat(lockManager.isHeldBy(1, cookie), is(true));
+        assertThat(lockManager.isHeldByCurrentThread(1), is(false));
+
+        final AtomicBoolean heldByCookie = new AtomicBoolean();
+        Thread thread = new Thread(new Runnable() {
+            public void run() {
+                heldByCookie.set(lockManager.isHeldBy(1, Long.valueOf(cookie.longValue())));
+            }
+        });
+        thread.start();
+        thread.join(1000);
+        assertThat(heldByCookie.get(), is(true));
+        assertThat(lockManager.tryLock(1, 0, TimeUnit.MILLISECONDS), is(false));
+    }
+
+    @Test
+    public void shouldNotIssueNoLockCookie() {
+        assertThat(lockManager.newCookie() == DatabaseConstants.NO_LOCK_COOKIE, is(false));
+        assertThat(lockManager.newCookie() == lockManager.newCookie(), is(false));
+    }
+
+    @Test
+    public void shouldHandLockToWaitersInArrivalOrderWhenFair() throws Exception {
+        lockManager = new RecordLockManager(4, true, 0, TimeUnit.MILLISECONDS);
+        lockManager.lock(1);
+
+        final List<Integer> acquisitionOrder = Collections.synchronizedList(
+                new ArrayList<Integer>());
+        Thread[] threads = new Thread[5];
+        for (int i = 0; i < threads.length; i++) {
+            final int waiterNo = i;
+            threads[i] = new Thread(new Runnable() {
+                public void run() {
+                    try {
+                        lockManager.lock(1);
+                        acquisitionOrder.add(waiterNo);
+                        lockManager.unlock(1);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            });
+            threads[i].start();
+            waitForQueueDepth(1, i + 1);
+        }
+
+        lockManager.unlock(1);
+        for (Thread thread : threads) {
+            thread.join(1000);
+        }
+        assertThat(acquisitionOrder, is(Arrays.asList(0, 1, 2, 3, 4)));
+
+        LockStatistics statistics = lockManager.getStatistics();
+        assertThat(statistics.getHandoffCount(), is(5L));
+        assertThat(statistics.getHandoffsByRecord().isEmpty(), is(true));
+        assertThat(statistics.getWaitTimeSampleCount(), is(5));
+        assertThat(lockManager.getActiveRecordCount(), is(0));
+    }
+
+    @Test
+    public void shouldNotLockRecordWithQueuedWaitersWhenFair() throws Exception {
+        lockManager = new RecordLockManager(4, true, 0, TimeUnit.MILLISECONDS);
+        Thread owner = lockOnAnotherThread(1);
+        Thread waitingThread = new Thread(new Runnable() {
+            public void run() {
+                try {
+                    lockManager.lock(1);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        waitingThread.start();
+        waitForQueueDepth(1, 1);
+
+        // The lock is handed straight to the waiting thread, so it is never free to be taken
+        lockManager.unlock(1, owner);
+        waitingThread.join(1000);
+        assertThat(lockManager.tryLock(1, 0, TimeUnit.MILLISECONDS), is(false));
+    }
+
+    @Test
+    public void shouldRemoveWaiterFromQueueWhenTimedOutWhenFair() throws Exception {
+        lockManager = new RecordLockManager(4, true, 0, TimeUnit.MILLISECONDS);
+        Thread owner = lockOnAnotherThread(1);
+        assertThat(lockManager.tryLock(1, 50, TimeUnit.MILLISECONDS), is(false));
+        assertThat(lockManager.getStatistics().getWaitingThreadCount(), is(0));
+
+        lockManager.unlock(1, owner);
+        assertThat(lockManager.getActiveRecordCount(), is(0));
+        assertThat(lockManager.tryLock(1, 0, TimeUnit.MILLISECONDS), is(true));
+    }
+
+    @Test
+    public void shouldReportQueueDepthOfContendedRecord() throws Exception {
+        lockManager.lock(1);
+        Thread thread = new Thread(new Runnable() {
+            public void run() {
+                try {
+                    lockManager.lock(1);
+                    lockManager.unlock(1);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        thread.start();
+        waitForQueueDepth(1, 1);
+
+        LockStatistics statistics = lockManager.getStatistics();
+        assertThat(statistics.getMaximumQueueDepth(), is(1));
+        assertThat(statistics.getQueueDepths().get(1), is(1));
+
+        lockManager.unlock(1);
+        thread.join(1000);
+        assertThat(lockManager.getStatistics().getHandoffCount(), is(1L));
+    }
+
+    @Test
+    public void shouldReportHandoffsOnlyForRecordsInUse() throws Exception {
+        lockManager.lock(1);
+        final CountDownLatch acquired = new CountDownLatch(1);
+        final CountDownLatch released = new CountDownLatch(1);
+        Thread thread = new Thread(new Runnable() {
+            public void run() {
+                try {
+                    lockManager.lock(1);
+                    acquired.countDown();
+                    released.await();
+                    lockManager.unlock(1);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        thread.start();
+        waitForQueueDepth(1, 1);
+        lockManager.unlock(1);
+        acquired.await(1, TimeUnit.SECONDS);
+        assertThat(lockManager.getStatistics().getHandoffsByRecord().get(1), is(1L));
+
+        released.countDown();
+        thread.join(1000);
+        LockStatistics statistics = lockManager.getStatistics();
+        assertThat(statistics.getHandoffsByRecord().isEmpty(), is(true));
+        assertThat(statistics.getHandoffCount(), is(1L));
+    }
+
+    private void waitForQueueDepth(int recNo, int queueDepth) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 1000;
+        while (!Integer.valueOf(queueDepth).equals(
+                lockManager.getStatistics().getQueueDepths().get(recNo))
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private Thread lockOnAnotherThread(final int recNo) throws InterruptedException {
+        Thread thread = new Thread(new Runnable() {
+            public void run() {
+                try {
+                    lockManager.lock(recNo);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        thread.start();
+        thread.join(1000);
+        return thread;
+    }
+}
@@ -0,0 +1,57 @@
+package suncertify.db;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+
+public class RecordScannerTest {
+
+    private static final int RECORD_COUNT = 20000;
+
+    private static final RecordScanner.RecordFilter EVERY_THIRD_RECORD = new RecordScanner.RecordFilter() {
+        public boolean accept(int recNo) {
+            return recNo % 3 == 0;
+        }
+    };
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldThrowExceptionWhenConstructedWithZeroThreshold() {
+        new RecordScanner(0, 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldThrowExceptionWhenConstructedWithZeroParallelism() {
+        new RecordScanner(1, 0);
+    }
+
+    @Test
+    public void shouldReturnAcceptedRecordsInOrderWhenScanningSequentially() {
+        RecordScanner scanner = new RecordScanner(RECORD_COUNT + 1, 4);
+        assertArrayEquals(expectedRecNos(), scanner.scan(RECORD_COUNT, EVERY_THIRD_RECORD));
+    }
+
+    @Test
+    public void shouldReturnAcceptedRecordsInOrderWhenScanningInParallel() {
+        RecordScanner scanner = new RecordScanner(1, 4);
+        assertArrayEquals(expectedRecNos(), scanner.scan(RECORD_COUNT, EVERY_THIRD_RECORD));
+    }
+
+    @Test
+    public void shouldReturnEmptyArrayWhenNoRecordsAccepted() {
+        RecordScanner scanner = new RecordScanner(1, 4);
+        assertArrayEquals(new int[0], scanner.scan(RECORD_COUNT,
+                new RecordScanner.RecordFilter() {
+                    public boolean accept(int recNo) {
+                        return false;
+                    }
+                }));
+    }
+
+    private int[] expectedRecNos() {
+        int[] recNos = new int[(RECORD_COUNT + 2) / 3];
+        for (int i = 0; i < recNos.length; i++) {
+            recNos[i] = i * 3;
+        }
+        return recNos;
+    }
+}
@@ -0,0 +1,137 @@
+package suncertify.db;
+
+import org.jmock.Expectations;
+import org.jmock.Mockery;
+import org.jmock.Sequence;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+public class SyncingDatabaseFileTest {
+
+    private static final byte[] BYTES = {1, 2, 3};
+
+    private Mockery context;
+    private DatabaseFile mockDatabaseFile;
+
+    @Before
+    public void setUp() {
+        context = new Mockery();
+        mockDatabaseFile = context.mock(DatabaseFile.class);
+    }
+
+    @After
+    public void tearDown() {
+        context.assertIsSatisfied();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldThrowExceptionWhenConstructedWithNullDatabaseFile() {
+        new SyncingDatabaseFile(null, 0, TimeUnit.MILLISECONDS);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldThrowExceptionWhenConstructedWithNegativeSyncInterval() {
+        new SyncingDatabaseFile(mockDatabaseFile, -1, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void shouldSyncAfterEveryWriteIfSyncIntervalIsZero() throws Exception {
+        final Sequence sequence = context.sequence("write");
+        context.checking(new Expectations() {
+            {
+                one(mockDatabaseFile).write(10, BYTES);
+                inSequence(sequence);
+                one(mockDatabaseFile).sync();
+                inSequence(sequence);
+                one(mockDatabaseFile).write(20, BYTES);
+                inSequence(sequence);
+                one(mockDatabaseFile).sync();
+                inSequence(sequence);
+            }
+        });
+        DatabaseFile databaseFile = new SyncingDatabaseFile(mockDatabaseFile, 0,
+                TimeUnit.MILLISECONDS);
+        databaseFile.write(10, BYTES);
+        databaseFile.write(20, BYTES);
+    }
+
+    @Test
+    public void shouldSyncOnceInBackgroundAfterWrites() throws Exception {
+        context.checking(new Expectations() {
+            {
+                exactly(2).of(mockDatabaseFile).write(with(any(long.class)),
+                        with(any(byte[].class)));
+                one(mockDatabaseFile).sync();
+            }
+        });
+        SyncingDatabaseFile databaseFile = new SyncingDatabaseFile(mockDatabaseFile, 1,
+                TimeUnit.HOURS);
+        databaseFile.write(10, BYTES);
+        databaseFile.write(20, BYTES);
+        databaseFile.syncIfDirty();
+        databaseFile.syncIfDirty();
+    }
+
+    @Test
+    public void shouldSyncUnsyncedWritesWhenClosed() throws Exception {
+        final Sequence sequence = context.sequence("close");
+        context.checking(new Expectations() {
+            {
+                one(mockDatabaseFile).write(10, BYTES);
+                inSequence(sequence);
+
+                one(mockDatabaseFile).sync();
+                inSequence(sequence);
+
+                one(mockDatabaseFile).close();
+                inSequence(sequence);
+            }
+        });
+        SyncingDatabaseFile databaseFile = new SyncingDatabaseFile(mockDatabaseFile, 1,
+                TimeUnit.HOURS);
+        databaseFile.write(10, BYTES);
+        databaseFile.close();
+        databaseFile.syncIfDirty();
+    }
+
+    @Test
+    public void shouldNotSyncWhenClosedIfNotWritten() throws Exception {
+        context.checking(new Expectations() {
+            {
+                never(mockDatabaseFile).sync();
+                one(mockDatabaseFile).close();
+            }
+        });
+        new SyncingDatabaseFile(mockDatabaseFile, 1, TimeUnit.HOURS).close();
+    }
+
+    @Test
+    public void shouldNotSyncInBackgroundIfNotWritten() throws Exception {
+        context.checking(new Expectations() {
+            {
+                never(mockDatabaseFile).sync();
+            }
+        });
+        new SyncingDatabaseFile(mockDatabaseFile, 1, TimeUnit.HOURS).syncIfDirty();
+    }
+
+    @Test
+    public void shouldRetryBackgroundSyncAfterError() throws Exception {
+        context.checking(new Expectations() {
+            {
+                one(mockDatabaseFile).write(10, BYTES);
+                exactly(2).of(mockDatabaseFile).sync();
+                will(onConsecutiveCalls(throwException(new IOException()), returnValue(null)));
+            }
+        });
+        SyncingDatabaseFile databaseFile = new SyncingDatabaseFile(mockDatabaseFile, 1,
+                TimeUnit.HOURS);
+        databaseFile.write(10, BYTES);
+        databaseFile.syncIfDirty();
+        databaseFile.syncIfDirty();
+    }
+}
@@ -0,0 +1,60 @@
+package suncertify.db;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertThat;
+
+public class WaitTimeSamplerTest {
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldThrowExceptionWhenConstructedWithZeroCapacity() {
+        new WaitTimeSampler(0);
+    }
+
+    @Test
+    public void shouldReturnSortedSamples() {
+        WaitTimeSampler sampler = new WaitTimeSampler(4);
+        sampler.record(30);
+        sampler.record(10);
+        sampler.record(20);
+        assertArrayEquals(new long[]{10, 20, 30}, sampler.getSortedSamples());
+        assertThat(sampler.getCount(), is(3L));
+    }
+
+    @Test
+    public void shouldReplaceOldestSamplesWhenFull() {
+        WaitTimeSampler sampler = new WaitTimeSampler(2);
+        sampler.record(1);
+        sampler.record(2);
+        sampler.record(3);
+        assertArrayEquals(new long[]{2, 3}, sampler.getSortedSamples());
+        assertThat(sampler.getCount(), is(3L));
+    }
+
+    @Test
+    public void shouldCalculateWaitTimePercentilesFromSamples() {
+        WaitTimeSampler sampler = new WaitTimeSampler(WaitTimeSampler.DEFAULT_CAPACITY);
+        for (int i = 1; i <= 100; i++) {
+            sampler.record(TimeUnit.MILLISECONDS.toNanos(i));
+        }
+
+        LockStatistics statistics = new LockStatistics(0, new HashMap<Integer, Integer>(),
+                0, new HashMap<Integer, Long>(), 0, sampler.getSortedSamples());
+        assertThat(statistics.getWaitTimePercentile(50, TimeUnit.MILLISECONDS), is(50L));
+        assertThat(statistics.getWaitTimePercentile(99, TimeUnit.MILLISECONDS), is(99L));
+        assertThat(statistics.getWaitTimePercentile(100, TimeUnit.MILLISECONDS), is(100L));
+        assertThat(statistics.getWaitTimePercentile(0.1, TimeUnit.MILLISECONDS), is(1L));
+    }
+
+    @Test
+    public void shouldReturnZeroWaitTimePercentileWithoutSamples() {
+        LockStatistics statistics = new LockStatistics(0, new HashMap<Integer, Integer>(),
+                0, new HashMap<Integer, Long>(), 0, new long[0]);
+        assertThat(statistics.getWaitTimePercentile(99, TimeUnit.MILLISECONDS), is(0L));
+    }
+}
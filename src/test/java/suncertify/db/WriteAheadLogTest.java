@@ -0,0 +1,170 @@
+package suncertify.db;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class WriteAheadLogTest {
+
+    private static final byte[] FILE_CONTENTS = {0, 0, 0, 0, 0, 0, 0, 0};
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File databaseFile;
+    private File logFile;
+
+    @Before
+    public void setUp() throws Exception {
+        databaseFile = folder.newFile("test.db");
+        RandomAccessFile raf = new RandomAccessFile(databaseFile, "rw");
+        try {
+            raf.write(FILE_CONTENTS);
+        } finally {
+            raf.close();
+        }
+        logFile = new File(folder.getRoot(), "test.db" + WriteAheadLog.FILE_SUFFIX);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldThrowExceptionWhenConstructedWithNullLogFile() throws Exception {
+        new WriteAheadLog(null, 0, TimeUnit.MILLISECONDS);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldThrowExceptionWhenConstructedWithNegativeGroupCommitDelay()
+            throws Exception {
+        new WriteAheadLog(logFile, -1, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void shouldReplayDurableEntriesIntoDatabaseFile() throws Exception {
+        WriteAheadLog log = new WriteAheadLog(logFile, 0, TimeUnit.MILLISECONDS);
+        log.append(1, new byte[]{1, 2});
+        log.awaitDurable(log.append(6, new byte[]{3}));
+
+        // Open the log again, as if the database had crashed before the writes reached the file
+        WriteAheadLog reopenedLog = new WriteAheadLog(logFile, 0, TimeUnit.MILLISECONDS);
+        assertThat(reopenedLog.replay(new DatabaseFileImpl(databaseFile.getPath())), is(2));
+        assertArrayEquals(new byte[]{0, 1, 2, 0, 0, 0, 3, 0}, readDatabaseFile());
+        assertThat(logFile.length(), is(0L));
+    }
+
+    @Test
+    public void shouldNotReplayEntriesThatWereNeverDurable() throws Exception {
+        WriteAheadLog log = new WriteAheadLog(logFile, 0, TimeUnit.MILLISECONDS);
+        log.append(1, new byte[]{1});
+
+        WriteAheadLog reopenedLog = new WriteAheadLog(logFile, 0, TimeUnit.MILLISECONDS);
+        assertThat(reopenedLog.replay(new DatabaseFileImpl(databaseFile.getPath())), is(0));
+        assertArrayEquals(FILE_CONTENTS, readDatabaseFile());
+    }
+
+    @Test
+    public void shouldStopReplayingAtIncompleteEntry() throws Exception {
+        WriteAheadLog log = new WriteAheadLog(logFile, 0, TimeUnit.MILLISECONDS);
+        log.append(1, new byte[]{1});
+        log.awaitDurable(log.append(2, new byte[]{2}));
+        truncateLogFile(logFile.length() - 1);
+
+        WriteAheadLog reopenedLog = new WriteAheadLog(logFile, 0, TimeUnit.MILLISECONDS);
+        assertThat(reopenedLog.replay(new DatabaseFileImpl(databaseFile.getPath())), is(1));
+        assertArrayEquals(new byte[]{0, 1, 0, 0, 0, 0, 0, 0}, readDatabaseFile());
+    }
+
+    @Test
+    public void shouldStopReplayingAtCorruptEntry() throws Exception {
+        WriteAheadLog log = new WriteAheadLog(logFile, 0, TimeUnit.MILLISECONDS);
+        log.append(1, new byte[]{1});
+        log.awaitDurable(log.append(2, new byte[]{2}));
+
+        // Corrupt the byte written by the second entry
+        RandomAccessFile raf = new RandomAccessFile(logFile, "rw");
+        try {
+            raf.seek(raf.length() - 5);
+            raf.write(9);
+        } finally {
+            raf.close();
+        }
+
+        WriteAheadLog reopenedLog = new WriteAheadLog(logFile, 0, TimeUnit.MILLISECONDS);
+        assertThat(reopenedLog.replay(new DatabaseFileImpl(databaseFile.getPath())), is(1));
+        assertArrayEquals(new byte[]{0, 1, 0, 0, 0, 0, 0, 0}, readDatabaseFile());
+    }
+
+    @Test
+    public void shouldDiscardEntriesWhenCheckpointed() throws Exception {
+        WriteAheadLog log = new WriteAheadLog(logFile, 0, TimeUnit.MILLISECONDS);
+        log.awaitDurable(log.append(1, new byte[]{1}));
+        long sequence = log.append(2, new byte[]{2});
+        log.checkpoint();
+        assertThat(log.size(), is(0L));
+
+        // Entries pending at the checkpoint are treated as durable without another sync
+        long syncCount = log.getSyncCount();
+        log.awaitDurable(sequence);
+        assertThat(log.getSyncCount(), is(syncCount));
+    }
+
+    @Test
+    public void shouldShareSyncBetweenConcurrentCommits() throws Exception {
+        final WriteAheadLog log = new WriteAheadLog(logFile, 200, TimeUnit.MILLISECONDS);
+        int threadCount = 10;
+        final CountDownLatch startLatch = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int i = 0; i < threadCount; i++) {
+            final int position = i % FILE_CONTENTS.length;
+            Thread thread = new Thread(new Runnable() {
+                public void run() {
+                    try {
+                        startLatch.await();
+                        log.awaitDurable(log.append(position, new byte[]{1}));
+                    } catch (Exception e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        startLatch.countDown();
+        for (Thread thread : threads) {
+            thread.join(5000);
+        }
+        assertTrue("Expected fewer syncs than commits, was: " + log.getSyncCount(),
+                log.getSyncCount() < threadCount);
+    }
+
+    private byte[] readDatabaseFile() throws Exception {
+        byte[] bytes = new byte[FILE_CONTENTS.length];
+        RandomAccessFile raf = new RandomAccessFile(databaseFile, "r");
+        try {
+            raf.readFully(bytes);
+        } finally {
+            raf.close();
+        }
+        return bytes;
+    }
+
+    private void truncateLogFile(long length) throws Exception {
+        RandomAccessFile raf = new RandomAccessFile(logFile, "rw");
+        try {
+            raf.setLength(length);
+        } finally {
+            raf.close();
+        }
+    }
+}
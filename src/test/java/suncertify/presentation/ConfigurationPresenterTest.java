@@ -54,6 +54,21 @@ public class ConfigurationPresenterTest {
 
                 ignoring(mockConfiguration).getProperty(ApplicationConstants.SERVER_PORT_PROPERTY);
                 will(returnValue(serverPort));
+
+                ignoring(mockConfiguration).getProperty(
+                        ApplicationConstants.DURABILITY_POLICY_PROPERTY);
+                will(returnValue("NONE"));
+
+                ignoring(mockConfiguration).getProperty(ApplicationConstants.SYNC_INTERVAL_PROPERTY);
+                will(returnValue("1000"));
+
+                ignoring(mockConfiguration).getProperty(
+                        ApplicationConstants.COMPACT_ON_OPEN_PROPERTY);
+                will(returnValue("false"));
+
+                ignoring(mockConfiguration).getProperty(
+                        ApplicationConstants.NETWORK_PROTOCOL_PROPERTY);
+                will(returnValue("RMI"));
             }
         });
         presenter = new StubConfigurationPresenter(new ConfigurationManager(mockConfiguration),
@@ -28,6 +28,7 @@ public class MainPresenterTest {
         }
     };
     private boolean workerRunning;
+    private int searchPageSize;
     private BrokerService mockBrokerService;
     private MainView mockView;
     private MainPresenter presenter;
@@ -37,6 +38,7 @@ public class MainPresenterTest {
     @Before
     public void setUp() {
         workerRunning = false;
+        searchPageSize = PresentationConstants.SEARCH_PAGE_SIZE;
         mockBrokerService = context.mock(BrokerService.class);
         mockView = context.mock(MainView.class);
         presenter = new StubMainPresenter(mockBrokerService, mockView);
@@ -100,7 +102,8 @@ public class MainPresenterTest {
                 will(returnValue(locationCriteria));
 
                 one(mockBrokerService).search(
-                        with(searchCriteriaMatching(nameCriteria, locationCriteria)));
+                        with(searchCriteriaMatching(nameCriteria, locationCriteria)),
+                        with(equal(0)), with(equal(PresentationConstants.SEARCH_PAGE_SIZE)));
                 will(returnValue(contractors));
 
                 one(mockView).setTableData(with(aContractorListContaining(contractors)));
@@ -130,7 +133,8 @@ public class MainPresenterTest {
                 one(mockView).getLocationCriteria();
                 will(returnValue(locationCriteria));
 
-                one(mockBrokerService).search(with(searchCriteriaMatching(nameCriteria, null)));
+                one(mockBrokerService).search(with(searchCriteriaMatching(nameCriteria, null)),
+                        with(equal(0)), with(equal(PresentationConstants.SEARCH_PAGE_SIZE)));
                 will(returnValue(contractors));
 
                 one(mockView).setTableData(with(aContractorListContaining(contractors)));
@@ -160,7 +164,8 @@ public class MainPresenterTest {
                 one(mockView).getLocationCriteria();
                 will(returnValue(locationCriteria));
 
-                one(mockBrokerService).search(with(searchCriteriaMatching(null, locationCriteria)));
+                one(mockBrokerService).search(with(searchCriteriaMatching(null, locationCriteria)),
+                        with(equal(0)), with(equal(PresentationConstants.SEARCH_PAGE_SIZE)));
                 will(returnValue(contractors));
 
                 one(mockView).setTableData(with(aContractorListContaining(contractors)));
@@ -192,7 +197,8 @@ public class MainPresenterTest {
                 one(mockView).getLocationCriteria();
                 will(returnValue(locationCriteria));
 
-                one(mockBrokerService).search(with(searchCriteriaMatching(null, null)));
+                one(mockBrokerService).search(with(searchCriteriaMatching(null, null)),
+                        with(equal(0)), with(equal(PresentationConstants.SEARCH_PAGE_SIZE)));
                 will(returnValue(contractors));
 
                 one(mockView).setTableData(with(aContractorListContaining(contractors)));
@@ -222,7 +228,8 @@ public class MainPresenterTest {
                 one(mockView).getLocationCriteria();
                 will(returnValue(locationCriteria));
 
-                one(mockBrokerService).search(with(searchCriteriaMatching(null, null)));
+                one(mockBrokerService).search(with(searchCriteriaMatching(null, null)),
+                        with(equal(0)), with(equal(PresentationConstants.SEARCH_PAGE_SIZE)));
                 will(returnValue(contractors));
 
                 one(mockView).setTableData(with(aContractorListContaining(contractors)));
@@ -235,6 +242,48 @@ public class MainPresenterTest {
         presenter.searchActionPerformed(componentToFocus);
     }
 
+    @Test
+    public void shouldAddEachPageOfSearchResultsToView() throws Exception {
+        searchPageSize = 2;
+        final List<Contractor> firstPage = new ArrayList<Contractor>();
+        firstPage.add(new Contractor(1, new String[]{"name", "location", "spec1", "size1",
+                "rate1", "owner1"}));
+        firstPage.add(new Contractor(4, new String[]{"name", "location", "spec2", "size2",
+                "rate2", "owner2"}));
+        final List<Contractor> secondPage = new ArrayList<Contractor>();
+        secondPage.add(new Contractor(7, new String[]{"name", "location", "spec3", "size3",
+                "rate3", "owner3"}));
+        final String statusLabelText = "<html>Viewing all <b>3 contractors</b></html>";
+        context.checking(new Expectations() {
+            {
+                one(mockView).disableControls();
+
+                allowing(mockView).getNameCriteria();
+                will(returnValue(""));
+
+                allowing(mockView).getLocationCriteria();
+                will(returnValue(""));
+
+                one(mockBrokerService).search(with(searchCriteriaMatching(null, null)),
+                        with(equal(0)), with(equal(2)));
+                will(returnValue(firstPage));
+
+                one(mockBrokerService).search(with(searchCriteriaMatching(null, null)),
+                        with(equal(5)), with(equal(2)));
+                will(returnValue(secondPage));
+
+                one(mockView).setTableData(with(aContractorListContaining(firstPage)));
+
+                one(mockView).addTableData(with(aContractorListContaining(secondPage)));
+
+                one(mockView).setStatusLabelText(with(equal(statusLabelText)));
+
+                one(mockView).enableControls(componentToFocus);
+            }
+        });
+        presenter.searchActionPerformed(componentToFocus);
+    }
+
     @SuppressWarnings("unchecked")
     @Test
     public void shouldNotUpdateInterfaceIfSearchThrowsException() throws Exception {
@@ -246,7 +295,8 @@ public class MainPresenterTest {
 
                 allowing(mockView).getLocationCriteria();
 
-                one(mockBrokerService).search(with(any(SearchCriteria.class)));
+                one(mockBrokerService).search(with(any(SearchCriteria.class)),
+                        with(any(int.class)), with(any(int.class)));
                 will(throwException(new IOException()));
 
                 never(mockView).setTableData(with(any(List.class)));
@@ -349,6 +399,24 @@ public class MainPresenterTest {
         presenter.bookActionPerformed(rowNo, componentToFocus);
     }
 
+    @Test
+    public void shouldNotUpdateInterfaceIfBookThrowsContractorLockedException() throws Exception {
+        final int rowNo = 1;
+        context.checking(new Expectations() {
+            {
+                allowing(mockView).getContractorAtRow(with(any(int.class)));
+
+                one(mockView).disableControls();
+
+                one(mockBrokerService).book(with(any(String.class)), with(any(Contractor.class)));
+                will(throwException(new ContractorLockedException()));
+
+                one(mockView).enableControls(componentToFocus);
+            }
+        });
+        presenter.bookActionPerformed(rowNo, componentToFocus);
+    }
+
     private Matcher<List<Contractor>> aContractorListContaining(List<Contractor> contractors) {
         return new ContractorListContaining(contractors);
     }
@@ -457,14 +525,19 @@ public class MainPresenterTest {
         }
 
         @Override
-        SwingWorker<List<Contractor>, Void> createSearchWorker(SearchCriteria searchCriteria,
-                                                               Component component) {
-            SwingWorker<List<Contractor>, Void> worker = super.createSearchWorker(searchCriteria,
-                    component);
+        SwingWorker<Integer, List<Contractor>> createSearchWorker(SearchCriteria searchCriteria,
+                                                                  Component component) {
+            SwingWorker<Integer, List<Contractor>> worker = super.createSearchWorker(
+                    searchCriteria, component);
             addWorkerPropertyChangeListener(worker);
             return worker;
         }
 
+        @Override
+        int getSearchPageSize() {
+            return searchPageSize;
+        }
+
         @Override
         String showCustomerIdDialog() {
             return customerId;
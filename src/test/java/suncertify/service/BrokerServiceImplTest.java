@@ -2,14 +2,21 @@ package suncertify.service;
 
 import org.jmock.Expectations;
 import org.jmock.Mockery;
+import org.jmock.api.Invocation;
+import org.jmock.lib.action.CustomAction;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import suncertify.db.Database;
+import suncertify.db.DatabaseConstants;
+import suncertify.db.DatabaseRecord;
 import suncertify.db.RecordNotFoundException;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertThat;
@@ -19,16 +26,29 @@ public class BrokerServiceImplTest {
     private static final int DATABASE_FIELD_COUNT = 6;
     private static final String[] RECORD_DATA = {"Buonarotti & Company", "Smallville",
             "Air Conditioning, Painting, Painting", "10", "$40.00", ""};
+    private static final long LOCK_COOKIE = 42;
 
     private Mockery context;
     private Database mockDatabase;
     private BrokerService brokerService;
+    private long modificationCount;
 
     @Before
     public void setUp() {
         context = new Mockery();
         mockDatabase = context.mock(Database.class);
         brokerService = new BrokerServiceImpl(mockDatabase);
+        modificationCount = 0;
+        context.checking(new Expectations() {
+            {
+                allowing(mockDatabase).getModificationCount();
+                will(new CustomAction("return the modification count") {
+                    public Object invoke(Invocation invocation) {
+                        return modificationCount;
+                    }
+                });
+            }
+        });
     }
 
     @After
@@ -42,58 +62,119 @@ public class BrokerServiceImplTest {
     }
 
     @Test(expected = IllegalArgumentException.class)
-    public void shouldThrowExceptionWhenSearchingWithNullCriteriaObject() throws Exception {
-        brokerService.search(null);
+    public void shouldThrowExceptionWhenCreatedWithNegativeLockTimeout() {
+        new BrokerServiceImpl(mockDatabase, -1, TimeUnit.MILLISECONDS);
     }
 
-    @Test(expected = IOException.class)
-    public void shouldThrowIOExceptionWhenSearchingAndFindThrowsIOException() throws Exception {
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldThrowExceptionWhenCreatedWithNullLockTimeoutUnit() {
+        new BrokerServiceImpl(mockDatabase, 1, null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldThrowExceptionWhenCreatedWithNegativeSearchCacheSize() {
+        new BrokerServiceImpl(mockDatabase, 1, TimeUnit.MILLISECONDS, -1);
+    }
+
+    @Test
+    public void shouldAnswerRepeatedSearchFromCache() throws Exception {
         context.checking(new Expectations() {
             {
-                one(mockDatabase).find(with(any(String[].class)));
-                will(throwException(new IOException()));
+                one(mockDatabase).findExact(with(equal(new String[DATABASE_FIELD_COUNT])));
+                will(returnValue(Arrays.asList(new DatabaseRecord(0, RECORD_DATA))));
             }
         });
-        brokerService.search(new SearchCriteria());
+        assertThat(brokerService.search(new SearchCriteria()).size(), is(1));
+        assertThat(brokerService.search(new SearchCriteria()).size(), is(1));
+
+        SearchCacheStatistics statistics = ((BrokerServiceImpl) brokerService)
+                .getSearchCacheStatistics();
+        assertThat(statistics.getHitCount(), is(1L));
+        assertThat(statistics.getMissCount(), is(1L));
     }
 
     @Test
-    public void shouldReturnEmptyListWhenSearchingAndFindReturnsNoRecords() throws Exception {
+    public void shouldCachePagesOfSearchResultsSeparately() throws Exception {
         context.checking(new Expectations() {
             {
-                one(mockDatabase).find(with(any(String[].class)));
-                will(returnValue(new int[0]));
+                one(mockDatabase).findExact(with(equal(new String[DATABASE_FIELD_COUNT])),
+                        with(equal(0)), with(equal(1)));
+                will(returnValue(Arrays.asList(new DatabaseRecord(0, RECORD_DATA))));
+
+                one(mockDatabase).findExact(with(equal(new String[DATABASE_FIELD_COUNT])),
+                        with(equal(1)), with(equal(1)));
+                will(returnValue(Arrays.asList(new DatabaseRecord(3, RECORD_DATA))));
             }
         });
-        assertThat(brokerService.search(new SearchCriteria()).size(), is(0));
+        for (int i = 0; i < 2; i++) {
+            assertThat(brokerService.search(new SearchCriteria(), 0, 1).get(0)
+                    .getRecordNumber(), is(0));
+            assertThat(brokerService.search(new SearchCriteria(), 1, 1).get(0)
+                    .getRecordNumber(), is(3));
+        }
     }
 
     @Test
-    public void shouldReturnAllContractorsWhenSearchingWithNullCriteria() throws Exception {
-        final int[] recNos = {0, 2};
+    public void shouldCacheUnboundedPageSeparatelyFromUnpagedSearch() throws Exception {
         context.checking(new Expectations() {
             {
-                one(mockDatabase).find(with(equal(new String[DATABASE_FIELD_COUNT])));
-                will(returnValue(recNos));
+                one(mockDatabase).findExact(with(equal(new String[DATABASE_FIELD_COUNT])));
+                will(returnValue(Arrays.asList(new DatabaseRecord(0, RECORD_DATA),
+                        new DatabaseRecord(3, RECORD_DATA))));
 
-                for (int recNo : recNos) {
-                    one(mockDatabase).read(with(equal(recNo)));
-                    will(returnValue(new String[DATABASE_FIELD_COUNT]));
-                }
+                one(mockDatabase).findExact(with(equal(new String[DATABASE_FIELD_COUNT])),
+                        with(equal(1)), with(equal(Integer.MAX_VALUE)));
+                will(returnValue(Arrays.asList(new DatabaseRecord(3, RECORD_DATA))));
             }
         });
-        assertThat(brokerService.search(new SearchCriteria()).size(), is(recNos.length));
+        for (int i = 0; i < 2; i++) {
+            assertThat(brokerService.search(new SearchCriteria(), 1, Integer.MAX_VALUE).size(),
+                    is(1));
+            assertThat(brokerService.search(new SearchCriteria()).size(), is(2));
+        }
     }
 
-    @Test(expected = IOException.class)
-    public void shouldThrowIOExceptionWhenSearchingAndReadThrowsIOException() throws Exception {
-        final int[] recNos = {0, 2};
+    @Test
+    public void shouldSearchDatabaseAgainWhenModifiedSinceResultWasCached() throws Exception {
         context.checking(new Expectations() {
             {
-                one(mockDatabase).find(with(equal(new String[DATABASE_FIELD_COUNT])));
-                will(returnValue(recNos));
+                exactly(2).of(mockDatabase).findExact(with(any(String[].class)));
+                will(returnValue(new ArrayList<DatabaseRecord>()));
+            }
+        });
+        brokerService.search(new SearchCriteria());
+        modificationCount++;
+        brokerService.search(new SearchCriteria());
 
-                one(mockDatabase).read(with(equal(recNos[0])));
+        SearchCacheStatistics statistics = ((BrokerServiceImpl) brokerService)
+                .getSearchCacheStatistics();
+        assertThat(statistics.getHitCount(), is(0L));
+        assertThat(statistics.getInvalidationCount(), is(1L));
+    }
+
+    @Test
+    public void shouldNotCacheSearchResultsWhenSearchCacheSizeIsZero() throws Exception {
+        brokerService = new BrokerServiceImpl(mockDatabase, 1, TimeUnit.MILLISECONDS, 0);
+        context.checking(new Expectations() {
+            {
+                exactly(2).of(mockDatabase).findExact(with(any(String[].class)));
+                will(returnValue(new ArrayList<DatabaseRecord>()));
+            }
+        });
+        brokerService.search(new SearchCriteria());
+        brokerService.search(new SearchCriteria());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldThrowExceptionWhenSearchingWithNullCriteriaObject() throws Exception {
+        brokerService.search(null);
+    }
+
+    @Test(expected = IOException.class)
+    public void shouldThrowIOExceptionWhenSearchingAndFindThrowsIOException() throws Exception {
+        context.checking(new Expectations() {
+            {
+                one(mockDatabase).findExact(with(any(String[].class)));
                 will(throwException(new IOException()));
             }
         });
@@ -101,41 +182,44 @@ public class BrokerServiceImplTest {
     }
 
     @Test
-    public void shouldNotReturnContractorForWhichReadThrowsRecordNotFoundExceptionWhenSearching()
-            throws Exception {
-        final int[] recNos = {0, 2};
+    public void shouldReturnEmptyListWhenSearchingAndFindReturnsNoRecords() throws Exception {
         context.checking(new Expectations() {
             {
-                one(mockDatabase).find(with(equal(new String[DATABASE_FIELD_COUNT])));
-                will(returnValue(recNos));
-
-                one(mockDatabase).read(with(equal(recNos[0])));
-                will(throwException(new RecordNotFoundException()));
+                one(mockDatabase).findExact(with(any(String[].class)));
+                will(returnValue(new ArrayList<DatabaseRecord>()));
+            }
+        });
+        assertThat(brokerService.search(new SearchCriteria()).size(), is(0));
+    }
 
-                one(mockDatabase).read(with(equal(recNos[1])));
-                will(returnValue(new String[DATABASE_FIELD_COUNT]));
+    @Test
+    public void shouldReturnAllContractorsWhenSearchingWithNullCriteria() throws Exception {
+        final List<DatabaseRecord> records = Arrays.asList(new DatabaseRecord(0,
+                new String[DATABASE_FIELD_COUNT]), new DatabaseRecord(2,
+                new String[DATABASE_FIELD_COUNT]));
+        context.checking(new Expectations() {
+            {
+                one(mockDatabase).findExact(with(equal(new String[DATABASE_FIELD_COUNT])));
+                will(returnValue(records));
             }
         });
-        assertThat(brokerService.search(new SearchCriteria()).size(), is(1));
+        assertThat(brokerService.search(new SearchCriteria()).size(), is(records.size()));
     }
 
     @Test
     public void shouldMapRecordValuesIntoContractorWhenSearching() throws Exception {
-        final int[] recNos = {0};
+        final int recNo = 0;
         final String[] recordData = {"Buonarotti & Company", "Smallville",
                 "Air Conditioning, Painting, Painting", "10", "$40.00", "1245678"};
         context.checking(new Expectations() {
             {
-                one(mockDatabase).find(with(equal(new String[DATABASE_FIELD_COUNT])));
-                will(returnValue(recNos));
-
-                one(mockDatabase).read(with(equal(recNos[0])));
-                will(returnValue(recordData));
+                one(mockDatabase).findExact(with(equal(new String[DATABASE_FIELD_COUNT])));
+                will(returnValue(Arrays.asList(new DatabaseRecord(recNo, recordData))));
             }
         });
         List<Contractor> contractors = brokerService.search(new SearchCriteria());
         assertThat(contractors.size(), is(1));
-        assertContractor(recNos[0], recordData, contractors.get(0));
+        assertContractor(recNo, recordData, contractors.get(0));
     }
 
     private void assertContractor(int recNo, String[] recordData, Contractor contractor) {
@@ -155,49 +239,76 @@ public class BrokerServiceImplTest {
                 .setRate("rate").setOwner("owner");
         context.checking(new Expectations() {
             {
-                one(mockDatabase).find(
+                one(mockDatabase).findExact(
                         with(equal(new String[]{criteria.getName(), criteria.getLocation(),
                                 criteria.getSpecialties(), criteria.getSize(), criteria.getRate(),
                                 criteria.getOwner()})));
-                will(returnValue(new int[0]));
+                will(returnValue(new ArrayList<DatabaseRecord>()));
             }
         });
         brokerService.search(criteria);
     }
 
     @Test
-    public void shouldOnlyReturnsExactMatchesWhenSearching() throws Exception {
-        final int[] recNos = {0, 1, 2, 3, 4, 5, 6};
-        final String[] matchingData = RECORD_DATA.clone();
-        matchingData[5] = "12345678";
-        final SearchCriteria criteria = new SearchCriteria().setName(matchingData[0])
-                .setLocation(matchingData[1]).setSpecialties(matchingData[2])
-                .setSize(matchingData[3]).setRate(matchingData[4]).setOwner(matchingData[5]);
-
-        final String[][] records = new String[recNos.length][6];
-        for (int i = 0; i < recNos.length - 1; i++) {
-            records[i] = matchingData.clone();
-            records[i][i] += " - this won't match";
-        }
-        records[recNos.length - 1] = matchingData;
+    public void shouldNotReadRecordsWhenSearching() throws Exception {
+        context.checking(new Expectations() {
+            {
+                one(mockDatabase).findExact(with(any(String[].class)));
+                will(returnValue(Arrays.asList(new DatabaseRecord(0, RECORD_DATA))));
+
+                never(mockDatabase).read(with(any(int.class)));
+            }
+        });
+        brokerService.search(new SearchCriteria().setName(RECORD_DATA[0]));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldThrowExceptionWhenSearchingForPageWithNullCriteriaObject() throws Exception {
+        brokerService.search(null, 0, 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldThrowExceptionWhenSearchingForPageFromNegativeRecordNumber()
+            throws Exception {
+        brokerService.search(new SearchCriteria(), -1, 1);
+    }
 
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldThrowExceptionWhenSearchingForPageOfNoResults() throws Exception {
+        brokerService.search(new SearchCriteria(), 0, 0);
+    }
+
+    @Test
+    public void shouldMapRecordValuesIntoContractorWhenSearchingForPage() throws Exception {
+        final int recNo = 7;
+        final String[] recordData = {"Buonarotti & Company", "Smallville",
+                "Air Conditioning, Painting, Painting", "10", "$40.00", "1245678"};
         context.checking(new Expectations() {
             {
-                one(mockDatabase).find(
-                        with(equal(new String[]{criteria.getName(), criteria.getLocation(),
-                                criteria.getSpecialties(), criteria.getSize(), criteria.getRate(),
-                                criteria.getOwner()})));
-                will(returnValue(recNos));
+                one(mockDatabase).findExact(with(equal(new String[DATABASE_FIELD_COUNT])),
+                        with(equal(5)), with(equal(20)));
+                will(returnValue(Arrays.asList(new DatabaseRecord(recNo, recordData))));
+            }
+        });
+        List<Contractor> contractors = brokerService.search(new SearchCriteria(), 5, 20);
+        assertThat(contractors.size(), is(1));
+        assertContractor(recNo, recordData, contractors.get(0));
+    }
 
-                for (int i = 0; i < recNos.length; i++) {
-                    one(mockDatabase).read(with(equal(recNos[i])));
-                    will(returnValue(records[i]));
-                }
+    @Test
+    public void shouldSearchForPageFromRecordNumberWithUnboundedMaxResults() throws Exception {
+        brokerService = new BrokerServiceImpl(mockDatabase, 1, TimeUnit.MILLISECONDS, 0);
+        context.checking(new Expectations() {
+            {
+                one(mockDatabase).findExact(with(equal(new String[DATABASE_FIELD_COUNT])),
+                        with(equal(5)), with(equal(Integer.MAX_VALUE)));
+                will(returnValue(Arrays.asList(new DatabaseRecord(7, RECORD_DATA))));
             }
         });
-        List<Contractor> contractors = brokerService.search(criteria);
+        List<Contractor> contractors = brokerService.search(new SearchCriteria(), 5,
+                Integer.MAX_VALUE);
         assertThat(contractors.size(), is(1));
-        assertContractor(recNos[recNos.length - 1], records[recNos.length - 1], contractors.get(0));
+        assertThat(contractors.get(0).getRecordNumber(), is(7));
     }
 
     @Test(expected = IllegalArgumentException.class)
@@ -237,19 +348,34 @@ public class BrokerServiceImplTest {
         final int recNo = 0;
         context.checking(new Expectations() {
             {
-                one(mockDatabase).lock(with(equal(recNo)));
+                one(mockDatabase).tryLockRecord(with(equal(recNo)), with(any(long.class)),
+                        with(any(TimeUnit.class)));
                 will(throwException(new RecordNotFoundException()));
             }
         });
         brokerService.book("12345678", new Contractor(recNo, RECORD_DATA));
     }
 
+    @Test(expected = ContractorLockedException.class)
+    public void shouldThrowExceptionWhenBookingIfLockTimesOut() throws Exception {
+        final int recNo = 0;
+        brokerService = new BrokerServiceImpl(mockDatabase, 100, TimeUnit.MILLISECONDS);
+        context.checking(new Expectations() {
+            {
+                one(mockDatabase).tryLockRecord(recNo, 100, TimeUnit.MILLISECONDS);
+                will(returnValue(DatabaseConstants.NO_LOCK_COOKIE));
+            }
+        });
+        brokerService.book("12345678", new Contractor(recNo, RECORD_DATA));
+    }
+
     @Test(expected = IOException.class)
     public void shouldThrowExceptionWhenBookingIfLockThrowsInterruptedException() throws Exception {
         final int recNo = 0;
         context.checking(new Expectations() {
             {
-                one(mockDatabase).lock(with(equal(recNo)));
+                one(mockDatabase).tryLockRecord(with(equal(recNo)), with(any(long.class)),
+                        with(any(TimeUnit.class)));
                 will(throwException(new InterruptedException()));
             }
         });
@@ -262,12 +388,14 @@ public class BrokerServiceImplTest {
         final int recNo = 0;
         context.checking(new Expectations() {
             {
-                one(mockDatabase).lock(with(equal(recNo)));
+                one(mockDatabase).tryLockRecord(with(equal(recNo)), with(any(long.class)),
+                        with(any(TimeUnit.class)));
+                will(returnValue(LOCK_COOKIE));
 
                 one(mockDatabase).read(recNo);
                 will(throwException(new RecordNotFoundException()));
 
-                one(mockDatabase).unlock(recNo);
+                one(mockDatabase).unlock(recNo, LOCK_COOKIE);
             }
         });
         brokerService.book("12345678", new Contractor(recNo, RECORD_DATA));
@@ -280,12 +408,14 @@ public class BrokerServiceImplTest {
         modifiedData[4] += " this is modified";
         context.checking(new Expectations() {
             {
-                one(mockDatabase).lock(with(equal(recNo)));
+                one(mockDatabase).tryLockRecord(with(equal(recNo)), with(any(long.class)),
+                        with(any(TimeUnit.class)));
+                will(returnValue(LOCK_COOKIE));
 
                 one(mockDatabase).read(recNo);
                 will(returnValue(modifiedData));
 
-                one(mockDatabase).unlock(recNo);
+                one(mockDatabase).unlock(recNo, LOCK_COOKIE);
             }
         });
         brokerService.book("12345678", new Contractor(recNo, RECORD_DATA));
@@ -299,12 +429,14 @@ public class BrokerServiceImplTest {
         modifiedData[5] = "87654321";
         context.checking(new Expectations() {
             {
-                one(mockDatabase).lock(with(equal(recNo)));
+                one(mockDatabase).tryLockRecord(with(equal(recNo)), with(any(long.class)),
+                        with(any(TimeUnit.class)));
+                will(returnValue(LOCK_COOKIE));
 
                 one(mockDatabase).read(recNo);
                 will(returnValue(modifiedData));
 
-                one(mockDatabase).unlock(recNo);
+                one(mockDatabase).unlock(recNo, LOCK_COOKIE);
             }
         });
         brokerService.book("12345678", new Contractor(recNo, RECORD_DATA));
@@ -319,32 +451,61 @@ public class BrokerServiceImplTest {
         modifiedData[5] = "";
         context.checking(new Expectations() {
             {
-                one(mockDatabase).lock(with(equal(recNo)));
+                one(mockDatabase).tryLockRecord(with(equal(recNo)), with(any(long.class)),
+                        with(any(TimeUnit.class)));
+                will(returnValue(LOCK_COOKIE));
 
                 one(mockDatabase).read(recNo);
                 will(returnValue(modifiedData));
 
-                allowing(mockDatabase).update(with(any(int.class)), with(any(String[].class)));
+                allowing(mockDatabase).update(with(any(int.class)), with(any(String[].class)),
+                        with(equal(LOCK_COOKIE)));
 
-                one(mockDatabase).unlock(recNo);
+                one(mockDatabase).unlock(recNo, LOCK_COOKIE);
             }
         });
         brokerService.book("12345678", new Contractor(recNo, data));
     }
 
+    @Test(expected = ContractorLockedException.class)
+    public void shouldThrowExceptionWhenLockLeaseExpiresBeforeBooking() throws Exception {
+        final int recNo = 0;
+        context.checking(new Expectations() {
+            {
+                one(mockDatabase).tryLockRecord(with(equal(recNo)), with(any(long.class)),
+                        with(any(TimeUnit.class)));
+                will(returnValue(LOCK_COOKIE));
+
+                one(mockDatabase).read(recNo);
+                will(returnValue(RECORD_DATA));
+
+                one(mockDatabase).update(with(equal(recNo)), with(any(String[].class)),
+                        with(equal(LOCK_COOKIE)));
+                will(throwException(new IllegalStateException()));
+
+                one(mockDatabase).unlock(recNo, LOCK_COOKIE);
+                will(throwException(new IllegalStateException()));
+            }
+        });
+        brokerService.book("12345678", new Contractor(recNo, RECORD_DATA));
+    }
+
     @Test
     public void shouldNotThrowExceptionIfUnlockThrowsExceptionWhenBooking() throws Exception {
         final int recNo = 0;
         context.checking(new Expectations() {
             {
-                one(mockDatabase).lock(with(equal(recNo)));
+                one(mockDatabase).tryLockRecord(with(equal(recNo)), with(any(long.class)),
+                        with(any(TimeUnit.class)));
+                will(returnValue(LOCK_COOKIE));
 
                 one(mockDatabase).read(recNo);
                 will(returnValue(RECORD_DATA));
 
-                allowing(mockDatabase).update(with(any(int.class)), with(any(String[].class)));
+                allowing(mockDatabase).update(with(any(int.class)), with(any(String[].class)),
+                        with(equal(LOCK_COOKIE)));
 
-                one(mockDatabase).unlock(recNo);
+                one(mockDatabase).unlock(recNo, LOCK_COOKIE);
                 will(throwException(new RecordNotFoundException()));
             }
         });
@@ -359,19 +520,95 @@ public class BrokerServiceImplTest {
         data[DATABASE_FIELD_COUNT - 1] = customerId;
         context.checking(new Expectations() {
             {
-                one(mockDatabase).lock(with(equal(recNo)));
+                one(mockDatabase).tryLockRecord(with(equal(recNo)), with(any(long.class)),
+                        with(any(TimeUnit.class)));
+                will(returnValue(LOCK_COOKIE));
 
                 one(mockDatabase).read(recNo);
                 will(returnValue(RECORD_DATA));
 
-                one(mockDatabase).update(with(is(recNo)), with(is(data)));
+                one(mockDatabase).update(with(is(recNo)), with(is(data)), with(is(LOCK_COOKIE)));
 
-                one(mockDatabase).unlock(recNo);
+                one(mockDatabase).unlock(recNo, LOCK_COOKIE);
             }
         });
         brokerService.book(customerId, new Contractor(recNo, RECORD_DATA));
     }
 
+    @Test
+    public void shouldMapRecordVersionIntoContractorWhenSearching() throws Exception {
+        final long version = 7;
+        context.checking(new Expectations() {
+            {
+                one(mockDatabase).findExact(with(equal(new String[DATABASE_FIELD_COUNT])));
+                will(returnValue(Arrays.asList(new DatabaseRecord(0, RECORD_DATA, version))));
+            }
+        });
+        List<Contractor> contractors = brokerService.search(new SearchCriteria());
+        assertThat(contractors.get(0).getVersion(), is(version));
+    }
+
+    @Test
+    public void shouldBookContractorWithoutLockingIfVersionMatches() throws Exception {
+        final int recNo = 0;
+        final long version = 7;
+        String customerId = "12345678";
+        final String[] data = new String[DATABASE_FIELD_COUNT];
+        data[DATABASE_FIELD_COUNT - 1] = customerId;
+        context.checking(new Expectations() {
+            {
+                one(mockDatabase).compareAndUpdate(recNo, version, data);
+                will(returnValue(true));
+
+                never(mockDatabase).tryLockRecord(with(any(int.class)), with(any(long.class)),
+                        with(any(TimeUnit.class)));
+            }
+        });
+        brokerService.book(customerId, new Contractor(recNo, version, RECORD_DATA));
+    }
+
+    @Test
+    public void shouldLockRecordToBookContractorIfVersionDoesNotMatch() throws Exception {
+        final int recNo = 0;
+        final long version = 7;
+        String customerId = "12345678";
+        final String[] data = new String[DATABASE_FIELD_COUNT];
+        data[DATABASE_FIELD_COUNT - 1] = customerId;
+        context.checking(new Expectations() {
+            {
+                one(mockDatabase).compareAndUpdate(recNo, version, data);
+                will(returnValue(false));
+
+                one(mockDatabase).tryLockRecord(with(equal(recNo)), with(any(long.class)),
+                        with(any(TimeUnit.class)));
+                will(returnValue(LOCK_COOKIE));
+
+                one(mockDatabase).read(recNo);
+                will(returnValue(RECORD_DATA));
+
+                one(mockDatabase).update(with(is(recNo)), with(is(data)), with(is(LOCK_COOKIE)));
+
+                one(mockDatabase).unlock(recNo, LOCK_COOKIE);
+            }
+        });
+        brokerService.book(customerId, new Contractor(recNo, version, RECORD_DATA));
+    }
+
+    @Test(expected = ContractorDeletedException.class)
+    public void shouldThrowExceptionIfCompareAndUpdateThrowsRecordNotFoundExceptionWhenBooking()
+            throws Exception {
+        final int recNo = 0;
+        final long version = 7;
+        context.checking(new Expectations() {
+            {
+                one(mockDatabase).compareAndUpdate(with(equal(recNo)), with(equal(version)),
+                        with(any(String[].class)));
+                will(throwException(new RecordNotFoundException()));
+            }
+        });
+        brokerService.book("12345678", new Contractor(recNo, version, RECORD_DATA));
+    }
+
     @Test
     public void shouldOverwriteBooking() throws Exception {
         final int recNo = 0;
@@ -386,14 +623,17 @@ public class BrokerServiceImplTest {
 
         context.checking(new Expectations() {
             {
-                one(mockDatabase).lock(with(equal(recNo)));
+                one(mockDatabase).tryLockRecord(with(equal(recNo)), with(any(long.class)),
+                        with(any(TimeUnit.class)));
+                will(returnValue(LOCK_COOKIE));
 
                 one(mockDatabase).read(recNo);
                 will(returnValue(existingData));
 
-                one(mockDatabase).update(with(is(recNo)), with(is(updateData)));
+                one(mockDatabase).update(with(is(recNo)), with(is(updateData)),
+                        with(is(LOCK_COOKIE)));
 
-                one(mockDatabase).unlock(recNo);
+                one(mockDatabase).unlock(recNo, LOCK_COOKIE);
             }
         });
         brokerService.book(newCustomerId, new Contractor(recNo, existingData));
@@ -0,0 +1,128 @@
+package suncertify.service;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class ContractorCodecTest {
+
+    private static final String[] CONTRACTOR_DATA = {"Buonarotti & Company", "Smallville",
+            "Air Conditioning, Painting, Painting", "10", "$40.00", ""};
+
+    @Test
+    public void shouldWriteFieldAsLengthAndBytes() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ContractorCodec.writeField(new DataOutputStream(bytes), "Smallville");
+        assertThat(bytes.size(), is(1 + "Smallville".length()));
+    }
+
+    @Test
+    public void shouldRoundTripFieldValues() throws Exception {
+        StringBuilder longValue = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            longValue.append('x');
+        }
+        List<String> values = Arrays.asList(null, "", "Caf\u00E9", "\u20AC40.00",
+                longValue.toString());
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        for (String value : values) {
+            ContractorCodec.writeField(out, value);
+        }
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        List<String> readValues = new ArrayList<String>();
+        for (int i = 0; i < values.size(); i++) {
+            readValues.add(ContractorCodec.readField(in));
+        }
+        assertThat(readValues, is(values));
+    }
+
+    @Test(expected = EOFException.class)
+    public void shouldNotAllocateForContractorCountBeforeContractorsAreRead() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        new DataOutputStream(bytes).writeInt(Integer.MAX_VALUE);
+        ContractorCodec.readContractors(new DataInputStream(
+                new ByteArrayInputStream(bytes.toByteArray())));
+    }
+
+    @Test
+    public void shouldSerializeContractor() throws Exception {
+        Contractor contractor = new Contractor(7, 42, CONTRACTOR_DATA);
+        assertContractor((Contractor) roundTrip(contractor), contractor);
+    }
+
+    @Test
+    public void shouldSerializeSearchCriteria() throws Exception {
+        SearchCriteria searchCriteria = new SearchCriteria().setName("Buonarotti")
+                .setOwner("");
+        SearchCriteria readCriteria = (SearchCriteria) roundTrip(searchCriteria);
+        assertThat(Arrays.asList(readCriteria.toArray()), is(Arrays.asList(
+                searchCriteria.toArray())));
+        assertThat(readCriteria.getLocation(), is(nullValue()));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void shouldSerializeContractorList() throws Exception {
+        List<Contractor> contractors = Arrays.asList(new Contractor(0, 1, CONTRACTOR_DATA),
+                new Contractor(5, 2, CONTRACTOR_DATA));
+        List<Contractor> readContractors = (List<Contractor>) roundTrip(new ContractorList(
+                contractors));
+        assertThat(readContractors.size(), is(2));
+        for (int i = 0; i < contractors.size(); i++) {
+            assertContractor(readContractors.get(i), contractors.get(i));
+        }
+    }
+
+    @Test
+    public void shouldSerializeContractorListMoreCompactlyThanArrayList() throws Exception {
+        List<Contractor> contractors = new ArrayList<Contractor>();
+        for (int i = 0; i < 100; i++) {
+            contractors.add(new Contractor(i, i, CONTRACTOR_DATA));
+        }
+        int listSize = serialize(new ArrayList<Contractor>(contractors)).length;
+        int contractorListSize = serialize(new ContractorList(contractors)).length;
+        assertThat("ContractorList " + contractorListSize + " bytes, ArrayList " + listSize
+                + " bytes", contractorListSize < listSize, is(true));
+    }
+
+    private Object roundTrip(Object object) throws Exception {
+        ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(serialize(object)));
+        try {
+            return in.readObject();
+        } finally {
+            in.close();
+        }
+    }
+
+    private byte[] serialize(Object object) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(object);
+        out.close();
+        return bytes.toByteArray();
+    }
+
+    private void assertContractor(Contractor actual, Contractor expected) {
+        assertThat(actual.getRecordNumber(), is(expected.getRecordNumber()));
+        assertThat(actual.getVersion(), is(expected.getVersion()));
+        assertThat(Arrays.asList(actual.getName(), actual.getLocation(), actual.getSpecialties(),
+                actual.getSize(), actual.getRate(), actual.getOwner()), is(Arrays.asList(
+                expected.getName(), expected.getLocation(), expected.getSpecialties(),
+                expected.getSize(), expected.getRate(), expected.getOwner())));
+    }
+}
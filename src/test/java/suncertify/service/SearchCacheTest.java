@@ -0,0 +1,115 @@
+package suncertify.service;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class SearchCacheTest {
+
+    private static final String[] CONTRACTOR_DATA = {"Buonarotti & Company", "Smallville",
+            "Air Conditioning, Painting, Painting", "10", "$40.00", ""};
+    private static final String[] ALL_CRITERIA = new String[6];
+    private static final String[] NAME_CRITERIA = {"Buonarotti & Company", null, null, null,
+            null, null};
+    private static final String[] LOCATION_CRITERIA = {null, "Smallville", null, null, null,
+            null};
+
+    private SearchCache cache;
+    private List<Contractor> contractors;
+
+    @Before
+    public void setUp() {
+        cache = new SearchCache(2);
+        contractors = Arrays.asList(new Contractor(0, CONTRACTOR_DATA));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldThrowExceptionWhenCreatedWithNoEntries() {
+        new SearchCache(0);
+    }
+
+    @Test
+    public void shouldReturnCachedResult() {
+        cache.put(NAME_CRITERIA, 0, 10, 0, contractors);
+        assertThat(cache.get(NAME_CRITERIA.clone(), 0, 10, 0).size(), is(1));
+        assertThat(cache.getStatistics().getHitCount(), is(1L));
+    }
+
+    @Test
+    public void shouldNotMatchDifferentCriteriaOrPage() {
+        cache.put(NAME_CRITERIA, 0, 10, 0, contractors);
+        assertThat(cache.get(new String[]{"Buonarotti & Company", "", null, null, null, null},
+                0, 10, 0), is(nullValue()));
+        assertThat(cache.get(NAME_CRITERIA, 1, 10, 0), is(nullValue()));
+        assertThat(cache.get(NAME_CRITERIA, 0, 20, 0), is(nullValue()));
+        assertThat(cache.getStatistics().getMissCount(), is(3L));
+    }
+
+    @Test
+    public void shouldNotMatchPageWithUnpagedResult() {
+        cache.put(NAME_CRITERIA, 0, contractors);
+        assertThat(cache.get(NAME_CRITERIA, 0, Integer.MAX_VALUE, 0), is(nullValue()));
+        assertThat(cache.get(NAME_CRITERIA, 0, 0, 0), is(nullValue()));
+        assertThat(cache.get(NAME_CRITERIA.clone(), 0).size(), is(1));
+    }
+
+    @Test
+    public void shouldNotBeAffectedByChangesToCriteriaArray() {
+        String[] criteria = NAME_CRITERIA.clone();
+        cache.put(criteria, 0, 10, 0, contractors);
+        criteria[0] = "Changed";
+        assertThat(cache.get(NAME_CRITERIA, 0, 10, 0), is(notNullValue()));
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsedResultWhenFull() {
+        cache.put(ALL_CRITERIA, 0, 10, 0, contractors);
+        cache.put(NAME_CRITERIA, 0, 10, 0, contractors);
+        cache.get(ALL_CRITERIA, 0, 10, 0);
+        cache.put(LOCATION_CRITERIA, 0, 10, 0, contractors);
+
+        assertThat(cache.get(NAME_CRITERIA, 0, 10, 0), is(nullValue()));
+        assertThat(cache.get(ALL_CRITERIA, 0, 10, 0), is(notNullValue()));
+        assertThat(cache.get(LOCATION_CRITERIA, 0, 10, 0), is(notNullValue()));
+        assertThat(cache.getStatistics().getEvictionCount(), is(1L));
+        assertThat(cache.getStatistics().getSize(), is(2));
+    }
+
+    @Test
+    public void shouldDiscardResultsWhenDatabaseIsModified() {
+        cache.put(ALL_CRITERIA, 0, 10, 3, contractors);
+        assertThat(cache.get(ALL_CRITERIA, 0, 10, 4), is(nullValue()));
+        assertThat(cache.getStatistics().getInvalidationCount(), is(1L));
+        assertThat(cache.getStatistics().getSize(), is(0));
+    }
+
+    @Test
+    public void shouldNotCacheResultFoundBeforeLaterModification() {
+        cache.get(ALL_CRITERIA, 0, 10, 4);
+        cache.put(ALL_CRITERIA, 0, 10, 3, contractors);
+        assertThat(cache.get(ALL_CRITERIA, 0, 10, 4), is(nullValue()));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void shouldNotAllowCachedResultToBeModified() {
+        cache.put(ALL_CRITERIA, 0, 10, 0, new ArrayList<Contractor>(contractors));
+        cache.get(ALL_CRITERIA, 0, 10, 0).clear();
+    }
+
+    @Test
+    public void shouldCalculateHitRatio() {
+        assertThat(cache.getStatistics().getHitRatio(), is(0.0));
+        cache.put(ALL_CRITERIA, 0, 10, 0, contractors);
+        cache.get(ALL_CRITERIA, 0, 10, 0);
+        cache.get(NAME_CRITERIA, 0, 10, 0);
+        assertThat(cache.getStatistics().getHitRatio(), is(0.5));
+    }
+}
@@ -0,0 +1,202 @@
+package suncertify.service;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class SocketBrokerServerTest {
+
+    private static final String[] CONTRACTOR_DATA = {"Buonarotti & Company", "Smallville",
+            "Air Conditioning, Painting, Painting", "10", "$40.00", ""};
+    private static final String CUSTOMER_ID = "12345678";
+
+    private StubBrokerService stubService;
+    private SocketBrokerServer server;
+    private SocketBrokerService client;
+
+    @Before
+    public void setUp() throws Exception {
+        stubService = new StubBrokerService();
+        server = new SocketBrokerServer(stubService, 2);
+        server.start(0);
+        client = new SocketBrokerService("127.0.0.1", server.getPort());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        client.close();
+        server.close();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldThrowExceptionWhenCreatedWithNullService() {
+        new SocketBrokerServer(null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldThrowExceptionWhenCreatedWithNoWorkerThreads() {
+        new SocketBrokerServer(stubService, 0);
+    }
+
+    @Test
+    public void shouldSearchOnServer() throws Exception {
+        Contractor contractor = new Contractor(3, 42, CONTRACTOR_DATA);
+        stubService.contractors = Arrays.asList(contractor);
+
+        List<Contractor> contractors = client.search(new SearchCriteria().setName("Buonarotti")
+                .setLocation(""));
+        assertThat(Arrays.asList(stubService.searchCriteria.toArray()), is(Arrays.asList(
+                "Buonarotti", "", null, null, null, null)));
+        assertThat(contractors.size(), is(1));
+        assertContractor(contractors.get(0), contractor);
+    }
+
+    @Test
+    public void shouldSearchForPageOnServer() throws Exception {
+        Contractor contractor = new Contractor(12, 1, CONTRACTOR_DATA);
+        stubService.contractors = Arrays.asList(contractor);
+
+        List<Contractor> contractors = client.search(new SearchCriteria().setOwner(""), 10, 50);
+        assertThat(Arrays.asList(stubService.searchCriteria.toArray()), is(Arrays.asList(
+                null, null, null, null, null, "")));
+        assertThat(stubService.fromRecordNumber, is(10));
+        assertThat(stubService.maxResults, is(50));
+        assertThat(contractors.size(), is(1));
+        assertContractor(contractors.get(0), contractor);
+    }
+
+    @Test
+    public void shouldBookOnServer() throws Exception {
+        Contractor contractor = new Contractor(3, 42, CONTRACTOR_DATA);
+        client.book(CUSTOMER_ID, contractor);
+        assertThat(stubService.customerId, is(CUSTOMER_ID));
+        assertContractor(stubService.contractor, contractor);
+    }
+
+    @Test
+    public void shouldExecuteRequestsOneAfterAnotherOnOneConnection() throws Exception {
+        stubService.contractors = new ArrayList<Contractor>();
+        for (int i = 0; i < 3; i++) {
+            assertThat(client.search(new SearchCriteria()).size(), is(0));
+        }
+        client.book(null, new Contractor(0, CONTRACTOR_DATA));
+        assertThat(stubService.customerId, is(nullValue()));
+    }
+
+    @Test(expected = ContractorDeletedException.class)
+    public void shouldThrowContractorDeletedExceptionFromServer() throws Exception {
+        stubService.bookingException = new ContractorDeletedException();
+        client.book(CUSTOMER_ID, new Contractor(0, CONTRACTOR_DATA));
+    }
+
+    @Test(expected = ContractorModifiedException.class)
+    public void shouldThrowContractorModifiedExceptionFromServer() throws Exception {
+        stubService.bookingException = new ContractorModifiedException();
+        client.book(CUSTOMER_ID, new Contractor(0, CONTRACTOR_DATA));
+    }
+
+    @Test(expected = ContractorLockedException.class)
+    public void shouldThrowContractorLockedExceptionFromServer() throws Exception {
+        stubService.bookingException = new ContractorLockedException();
+        client.book(CUSTOMER_ID, new Contractor(0, CONTRACTOR_DATA));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldThrowIllegalArgumentExceptionFromServer() throws Exception {
+        stubService.bookingException = new IllegalArgumentException();
+        client.book(CUSTOMER_ID, new Contractor(0, CONTRACTOR_DATA));
+    }
+
+    @Test(expected = IOException.class)
+    public void shouldThrowIOExceptionFromServer() throws Exception {
+        stubService.searchException = new IOException();
+        client.search(new SearchCriteria());
+    }
+
+    @Test(expected = IOException.class)
+    public void shouldThrowIOExceptionWhenServerIsClosed() throws Exception {
+        server.close();
+        client.search(new SearchCriteria());
+    }
+
+    @Test(expected = SocketTimeoutException.class)
+    public void shouldTimeOutWhenServerDoesNotRespond() throws Exception {
+        ServerSocket silentServer = new ServerSocket(0);
+        SocketBrokerService silentClient = new SocketBrokerService("127.0.0.1",
+                silentServer.getLocalPort(), 100, TimeUnit.MILLISECONDS);
+        try {
+            silentClient.search(new SearchCriteria());
+        } finally {
+            silentClient.close();
+            silentServer.close();
+        }
+    }
+
+    private void assertContractor(Contractor actual, Contractor expected) {
+        assertThat(actual.getRecordNumber(), is(expected.getRecordNumber()));
+        assertThat(actual.getVersion(), is(expected.getVersion()));
+        assertThat(Arrays.asList(actual.getName(), actual.getLocation(), actual.getSpecialties(),
+                actual.getSize(), actual.getRate(), actual.getOwner()), is(Arrays.asList(
+                expected.getName(), expected.getLocation(), expected.getSpecialties(),
+                expected.getSize(), expected.getRate(), expected.getOwner())));
+    }
+
+    /*
+     * Broker service that records its arguments and returns or throws the configured results.
+     * Requests are executed on the server's worker threads, so the fields are volatile.
+     */
+    private static final class StubBrokerService implements BrokerService {
+
+        private volatile List<Contractor> contractors;
+        private volatile IOException searchException;
+        private volatile Exception bookingException;
+        private volatile SearchCriteria searchCriteria;
+        private volatile int fromRecordNumber;
+        private volatile int maxResults;
+        private volatile String customerId;
+        private volatile Contractor contractor;
+
+        public List<Contractor> search(SearchCriteria searchCriteria) throws IOException {
+            this.searchCriteria = searchCriteria;
+            if (searchException != null) {
+                throw searchException;
+            }
+            return contractors;
+        }
+
+        public List<Contractor> search(SearchCriteria searchCriteria, int fromRecordNumber,
+                                       int maxResults) throws IOException {
+            this.fromRecordNumber = fromRecordNumber;
+            this.maxResults = maxResults;
+            return search(searchCriteria);
+        }
+
+        public void book(String customerId, Contractor contractor) throws IOException,
+                ContractorDeletedException, ContractorModifiedException,
+                ContractorLockedException {
+            this.customerId = customerId;
+            this.contractor = contractor;
+            if (bookingException instanceof ContractorDeletedException) {
+                throw (ContractorDeletedException) bookingException;
+            } else if (bookingException instanceof ContractorModifiedException) {
+                throw (ContractorModifiedException) bookingException;
+            } else if (bookingException instanceof ContractorLockedException) {
+                throw (ContractorLockedException) bookingException;
+            } else if (bookingException instanceof RuntimeException) {
+                throw (RuntimeException) bookingException;
+            }
+        }
+    }
+}